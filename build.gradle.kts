@@ -16,6 +16,12 @@ repositories {
     }
 }
 
+dependencies {
+    testImplementation(platform("org.junit:junit-bom:5.11.3"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+}
+
 sponge {
     apiVersion("12.0.0")
     license("Apache-2.0")
@@ -56,6 +62,25 @@ tasks.withType<JavaCompile>().configureEach {
     }
 }
 
+tasks.test {
+    // The tests drive the scheduler with a manual tick clock and need no running server
+    useJUnitPlatform()
+}
+
+tasks.register<JavaExec>("loadSimulation") {
+    group = "verification"
+    description = "Runs the headless TPA load simulation, options are passed with --args=\"--players=20000\""
+    classpath = sourceSets.test.get().runtimeClasspath
+    mainClass.set("dev.atlasmc.atlastp.sim.LoadSimulator")
+}
+
+tasks.register<JavaExec>("replayTrace") {
+    group = "verification"
+    description = "Replays a recorded traffic trace against the TPA request backends, options are passed with --args=\"--trace=<file>\""
+    classpath = sourceSets.test.get().runtimeClasspath
+    mainClass.set("dev.atlasmc.atlastp.sim.TraceReplay")
+}
+
 // Make sure all tasks which produce archives (jar, sources jar, javadoc jar, etc) produce more consistent output
 tasks.withType<AbstractArchiveTask>().configureEach {
     isReproducibleFileOrder = true
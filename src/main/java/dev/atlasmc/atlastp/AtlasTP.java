@@ -1,23 +1,63 @@
 package dev.atlasmc.atlastp;
 
 import com.google.inject.Inject;
+import dev.atlasmc.atlastp.commands.AdminCommand;
+import dev.atlasmc.atlastp.commands.CommandPipeline;
 import dev.atlasmc.atlastp.commands.TPACommand;
 import dev.atlasmc.atlastp.commands.TPAResponseCommand;
+import dev.atlasmc.atlastp.commands.TPBlockCommand;
 import dev.atlasmc.atlastp.commands.TPCommand;
+import dev.atlasmc.atlastp.commands.TPFollowCommand;
 import dev.atlasmc.atlastp.config.AtlasTPConfig;
-import dev.atlasmc.atlastp.manager.MapTPAManager;
+import dev.atlasmc.atlastp.config.Translations;
+import dev.atlasmc.atlastp.event.AtlasTPEventBus;
+import dev.atlasmc.atlastp.event.TPARequestEvent;
+import dev.atlasmc.atlastp.history.HistoryRecord;
+import dev.atlasmc.atlastp.history.HistoryStore;
+import dev.atlasmc.atlastp.jfr.FlightRecording;
+import dev.atlasmc.atlastp.manager.TPABlockManager;
+import dev.atlasmc.atlastp.manager.TPAManager;
+import dev.atlasmc.atlastp.manager.TPAManagerProvider;
+import dev.atlasmc.atlastp.manager.TPAManagerProviders;
+import dev.atlasmc.atlastp.preference.PlayerPreferences;
+import dev.atlasmc.atlastp.preference.PreferenceStore;
+import dev.atlasmc.atlastp.region.NoTeleportRegions;
+import dev.atlasmc.atlastp.teleport.ChunkPrefetcher;
+import dev.atlasmc.atlastp.teleport.FollowTracker;
+import dev.atlasmc.atlastp.teleport.TeleportHandler;
+import dev.atlasmc.atlastp.teleport.WorldLoader;
+import dev.atlasmc.atlastp.trace.RecordingTPAManager;
+import dev.atlasmc.atlastp.trace.TraceFile;
+import dev.atlasmc.atlastp.trace.TrafficRecorder;
+import dev.atlasmc.atlastp.util.IOExecutor;
+import dev.atlasmc.atlastp.util.MessageBuffer;
+import dev.atlasmc.atlastp.util.PlaceholderCache;
+import dev.atlasmc.atlastp.util.PlayerIdInterner;
+import dev.atlasmc.atlastp.util.PlayerOptionCache;
+import dev.atlasmc.atlastp.util.RequestTicket;
+import dev.atlasmc.atlastp.util.SpongeTickScheduler;
 import dev.atlasmc.atlastp.util.TPAManagerUtil;
+import dev.atlasmc.atlastp.util.UserLocationCache;
 import org.apache.logging.log4j.Logger;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.spongepowered.api.Server;
 import org.spongepowered.api.Sponge;
 import org.spongepowered.api.command.Command;
+import org.spongepowered.api.config.ConfigDir;
 import org.spongepowered.api.config.DefaultConfig;
+import org.spongepowered.api.data.Keys;
+import org.spongepowered.api.data.value.Value;
 import org.spongepowered.api.entity.living.player.server.ServerPlayer;
 import org.spongepowered.api.event.Listener;
+import org.spongepowered.api.event.data.ChangeDataHolderEvent;
 import org.spongepowered.api.event.lifecycle.ConstructPluginEvent;
+import org.spongepowered.api.event.lifecycle.RefreshGameEvent;
 import org.spongepowered.api.event.lifecycle.RegisterCommandEvent;
 import org.spongepowered.api.event.lifecycle.StartingEngineEvent;
 import org.spongepowered.api.event.lifecycle.StoppingEngineEvent;
+import org.spongepowered.api.event.network.ServerSideConnectionEvent;
+import org.spongepowered.api.scheduler.ScheduledTask;
+import org.spongepowered.api.scheduler.Task;
 import org.spongepowered.configurate.CommentedConfigurationNode;
 import org.spongepowered.configurate.ConfigurateException;
 import org.spongepowered.configurate.reference.ConfigurationReference;
@@ -25,6 +65,14 @@ import org.spongepowered.configurate.reference.ValueReference;
 import org.spongepowered.plugin.PluginContainer;
 import org.spongepowered.plugin.builtin.jvm.Plugin;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.UUID;
+
 /**
  * The main class of your Sponge plugin.
  *
@@ -32,20 +80,81 @@ import org.spongepowered.plugin.builtin.jvm.Plugin;
  */
 @Plugin("atlastp")
 public class AtlasTP {
+    private static final DateTimeFormatter TRACE_FILE_NAME = DateTimeFormatter.ofPattern("'atlastp-'yyyy-MM-dd_HH-mm-ss'.trace'");
 
     private final ConfigurationReference<CommentedConfigurationNode> reference;
 
     private final PluginContainer container;
     private final Logger logger;
 
+    /**
+     * The directory of the files of the plugin, besides the config.
+     */
+    private final Path configDir;
+
     private ValueReference<AtlasTPConfig, CommentedConfigurationNode> config;
 
+    private Translations translations;
+
+    private MessageBuffer messages;
+
+    private IOExecutor io;
+
+    private PlayerIdInterner playerIds;
+
     private TPAManagerUtil tpaManagerUtil;
 
+    private TPABlockManager blockManager;
+
+    private PlaceholderCache placeholderCache;
+
+    private PlayerOptionCache optionCache;
+
+    private UserLocationCache userLocations;
+
+    private AtlasTPEventBus eventBus;
+
+    private WorldLoader worldLoader;
+
+    private TeleportHandler teleportHandler;
+
+    private CommandPipeline pipeline;
+
+    private NoTeleportRegions regions;
+
+    private ChunkPrefetcher chunkPrefetcher;
+
+    private FollowTracker followTracker;
+
+    /**
+     * The audit history, or {@code null} if no history is recorded.
+     */
+    private @Nullable HistoryStore history;
+
+    private ScheduledTask historyFlushTask;
+
+    /**
+     * The stored preferences of the players, which are loaded into the {@link TPABlockManager} while they are online.
+     */
+    private PreferenceStore preferences;
+
+    private ScheduledTask preferenceSaveTask;
+
+    /**
+     * The recorder of the calls to the TPA request backend, or {@code null} if they are not recorded.
+     */
+    private @Nullable TrafficRecorder trafficRecorder;
+
     @Inject
-    AtlasTP(final PluginContainer container, final Logger logger, final @DefaultConfig(sharedRoot = true) ConfigurationReference<CommentedConfigurationNode> reference) {
+    AtlasTP(
+            final PluginContainer container,
+            final Logger logger,
+            final @DefaultConfig(sharedRoot = true) ConfigurationReference<CommentedConfigurationNode> reference,
+            final @ConfigDir(sharedRoot = false) Path configDir
+    ) {
         this.container = container;
         this.logger = logger;
+        this.configDir = configDir;
 
         this.reference = reference;
     }
@@ -74,20 +183,279 @@ public class AtlasTP {
 
         this.reference.save();
 
+        this.translations = new Translations(logger, config.get(), configDir.resolve("translations"));
+        this.translations.reload();
+        this.messages = new MessageBuffer(this.container, translations);
+        this.io = new IOExecutor(this.container, logger);
+        this.pipeline = new CommandPipeline(this.container, logger, config.get(), translations);
+
         this.logger.info("Setting up the TPManager");
-        this.tpaManagerUtil = new TPAManagerUtil(Sponge.pluginManager().fromInstance(this).orElseThrow(), new MapTPAManager<>());
+        this.playerIds = new PlayerIdInterner();
+        final TPAManager<RequestTicket> tpaManager = this.createTPAManager();
+        this.tpaManagerUtil = new TPAManagerUtil(
+                new SpongeTickScheduler(Sponge.pluginManager().fromInstance(this).orElseThrow()),
+                config.get().trafficRecording() ? this.recordTraffic(tpaManager) : tpaManager
+        );
+        this.blockManager = new TPABlockManager();
+        this.preferences = new PreferenceStore(configDir.resolve("preferences"));
+        this.placeholderCache = new PlaceholderCache();
+        this.optionCache = new PlayerOptionCache(logger, config.get());
+        this.userLocations = new UserLocationCache(this.container, config.get());
+
+        this.eventBus = new AtlasTPEventBus(logger);
+        this.worldLoader = new WorldLoader(this.container, logger, config.get());
+        final FlightRecording flightRecording = new FlightRecording(config.get());
+        flightRecording.recordEvents(eventBus);
+        this.regions = new NoTeleportRegions(logger, io, configDir.resolve("regions.conf"));
+        this.regions.reload();
+        this.teleportHandler = new TeleportHandler(translations, eventBus, worldLoader, messages, flightRecording, regions);
+        this.chunkPrefetcher = new ChunkPrefetcher(this.container, logger, tpaManagerUtil);
+        this.followTracker = new FollowTracker(this.container, config.get(), translations, teleportHandler, messages);
+
+        if(config.get().historyRetentionDays() > 0) {
+            this.openHistory();
+        }
+    }
+
+    /**
+     * Creates the backend for the TPA requests that is selected in the config.
+     * If it does not exist or can't be created, the default backend is used.
+     */
+    private TPAManager<RequestTicket> createTPAManager() {
+        final TPAManagerProviders providers = TPAManagerProviders.load(AtlasTP.class.getClassLoader());
+        final TPAManagerProvider.Context context = new TPAManagerProvider.Context(playerIds, Map.copyOf(config.get().tpaManagerSettings()));
+
+        final TPAManagerProvider provider = providers.get(config.get().tpaManagerBackend());
+        if(provider == null) {
+            this.logger.error(
+                    "The TPA request backend \"{}\" does not exist, so \"{}\" is used. The available backends are: {}",
+                    config.get().tpaManagerBackend(),
+                    TPAManagerProviders.DEFAULT,
+                    String.join(", ", providers.names())
+            );
+        } else {
+            try {
+                final TPAManager<RequestTicket> tpaManager = provider.create(context);
+                this.logger.info("Using the TPA request backend \"{}\".", provider.name());
+                return tpaManager;
+            } catch(final RuntimeException e) {
+                this.logger.error("The TPA request backend \"{}\" could not be created, so \"{}\" is used.", provider.name(), TPAManagerProviders.DEFAULT, e);
+            }
+        }
+
+        return providers.get(TPAManagerProviders.DEFAULT).create(new TPAManagerProvider.Context(playerIds, Map.of()));
+    }
+
+    /**
+     * Records the calls to the backend to a new trace in the traces directory.
+     */
+    private TPAManager<RequestTicket> recordTraffic(final TPAManager<RequestTicket> tpaManager) {
+        final Path path = configDir.resolve("traces").resolve(TRACE_FILE_NAME.format(LocalDateTime.now()));
+        this.trafficRecorder = new TrafficRecorder(new TraceFile(logger, io, path), config.get().trafficRecordingMaxMegabytes() * 1_000_000L);
+        this.logger.info("Recording the calls to the TPA request backend to {}", path);
+
+        return new RecordingTPAManager<>(tpaManager, this.trafficRecorder);
+    }
+
+    private void openHistory() {
+        final HistoryStore history = new HistoryStore(configDir.resolve("history"), Duration.ofDays(config.get().historyRetentionDays()));
+        try {
+            history.open();
+        } catch(final IOException e) {
+            this.logger.error("The history could not be opened, so no history is recorded.", e);
+            return;
+        }
+
+        this.history = history;
+
+        // The teleports of /tp are recorded by the command, as the events do not know the target player
+        this.eventBus.subscribe(TPARequestEvent.Send.Post.class, e -> history.record(HistoryRecord.Type.TPA_SEND, e.sender(), e.receiver()));
+        this.eventBus.subscribe(TPARequestEvent.Accept.Post.class, e -> history.record(HistoryRecord.Type.TPA_ACCEPT, e.receiver(), e.sender()));
+        this.eventBus.subscribe(TPARequestEvent.Deny.Post.class, e -> history.record(HistoryRecord.Type.TPA_DENY, e.receiver(), e.sender()));
+        this.eventBus.subscribe(TPARequestEvent.Expire.class, e -> history.record(HistoryRecord.Type.TPA_EXPIRE, e.sender(), e.receiver()));
+    }
+
+    /**
+     * Queues the changed preferences of the players and writes them off the server thread.
+     * This has to be called on the server thread.
+     */
+    private void savePreferences() {
+        this.blockManager.takeDirty().forEach(this.preferences::save);
+
+        if(this.preferences.pendingCount() > 0) {
+            this.io.run(this::flushPreferences);
+        }
+    }
+
+    private void flushPreferences() {
+        try {
+            this.preferences.flush();
+        } catch(final IOException e) {
+            this.logger.error("The preferences could not be written, they are written again with the next batch.", e);
+        }
+    }
+
+    private void flushHistory() {
+        try {
+            this.history.flush();
+
+            // The segments only roll over while something is recorded, so the old ones are deleted here as well
+            this.history.prune();
+        } catch(final IOException e) {
+            this.logger.error("The history could not be written.", e);
+        }
+    }
+
+    /**
+     * Retrieves the event bus of AtlasTP, so that other plugins can listen to its teleport and TPA events.
+     *
+     * @return the event bus
+     */
+    public AtlasTPEventBus eventBus() {
+        return this.eventBus;
     }
 
     @Listener
     public void onServerStarting(final StartingEngineEvent<Server> event) {
         // Any setup per-game instance. This can run multiple times when
         // using the integrated (singleplayer) server.
+        this.worldLoader.start(event.engine());
+        this.messages.start(event.engine());
+        this.io.start();
+
+        if(config.get().tpaChunkPrefetch()) {
+            this.chunkPrefetcher.start(event.engine(), this.eventBus);
+        }
+
+        this.followTracker.start(event.engine());
+
+        // The changed preferences are collected on the server thread and written in batches by the IO executor
+        this.preferenceSaveTask = event.engine().scheduler().submit(
+                Task.builder()
+                        .interval(Duration.ofSeconds(5))
+                        .execute(this::savePreferences)
+                        .plugin(this.container)
+                        .build()
+        );
+
+        if(this.history != null) {
+            // The records are written by the IO executor, once per second
+            this.historyFlushTask = Sponge.asyncScheduler().submit(
+                    Task.builder()
+                            .interval(Duration.ofSeconds(1))
+                            .execute(() -> this.io.run(this::flushHistory))
+                            .plugin(this.container)
+                            .build()
+            );
+        }
     }
 
     @Listener
     public void onServerStopping(final StoppingEngineEvent<Server> event) {
         // Any tear down per-game instance. This can run multiple times when
         // using the integrated (singleplayer) server.
+        this.worldLoader.stop();
+        this.messages.stop();
+        this.chunkPrefetcher.stop(this.eventBus);
+        this.followTracker.stop();
+
+        if(this.historyFlushTask != null) {
+            this.historyFlushTask.cancel();
+            this.historyFlushTask = null;
+        }
+
+        if(this.preferenceSaveTask != null) {
+            this.preferenceSaveTask.cancel();
+            this.preferenceSaveTask = null;
+        }
+        this.blockManager.takeDirty().forEach(this.preferences::save);
+
+        if(this.trafficRecorder != null) {
+            this.trafficRecorder.flush();
+        }
+
+        // Waits for the running dumps, history queries and trace writes, before the remaining history is written
+        this.io.stop();
+        if(this.history != null) {
+            this.flushHistory();
+        }
+        this.flushPreferences();
+    }
+
+    @Listener
+    public void onPlayerJoin(final ServerSideConnectionEvent.Join event) {
+        this.playerIds.intern(event.player().uniqueId());
+        this.userLocations.invalidate(event.player().uniqueId());
+
+        // The commands only read the preferences from memory, so they are loaded in the background
+        final UUID player = event.player().uniqueId();
+        final long token = this.blockManager.loading(player);
+        this.io.supply(() -> this.preferences.load(player), (loaded, throwable) -> {
+            if(throwable != null) {
+                // The changes of the player are kept for this session, but their unreadable file is not overwritten
+                if(this.blockManager.loadFailed(player, token)) {
+                    this.logger.error("The preferences of {} could not be loaded, they are not saved until the player joins again.", player, throwable);
+                }
+                return;
+            }
+
+            // If the player left in the meantime, their changes are returned on top of the loaded preferences to be saved
+            final PlayerPreferences changed = this.blockManager.load(player, token, loaded);
+            if(changed != null) {
+                this.preferences.save(player, changed);
+            }
+        });
+    }
+
+    @Listener
+    public void onPlayerDisconnect(final ServerSideConnectionEvent.Disconnect event) {
+        this.tpaManagerUtil.removeRequestsOf(event.player().uniqueId());
+        this.placeholderCache.invalidate(event.player().uniqueId());
+        this.optionCache.invalidate(event.player().uniqueId());
+        this.userLocations.invalidate(event.player().uniqueId());
+        this.teleportHandler.cancelQueuedTeleport(event.player().uniqueId());
+        this.chunkPrefetcher.releaseAll(event.player().uniqueId());
+        this.followTracker.removeAll(event.player().uniqueId());
+
+        final PlayerPreferences changed = this.blockManager.takeDirty(event.player().uniqueId());
+        if(changed != null) {
+            this.preferences.save(event.player().uniqueId(), changed);
+        }
+        // The changes of a player whose preferences are still loaded are saved once the load finished
+        this.blockManager.unload(event.player().uniqueId());
+        if(this.trafficRecorder != null) {
+            this.trafficRecorder.release(event.player().uniqueId());
+        }
+
+        // Everything indexed by the ID of the player was cleared above, so it can be reused
+        this.playerIds.release(event.player().uniqueId());
+    }
+
+    @Listener
+    public void onRefresh(final RefreshGameEvent event) {
+        // Forces the permission options to be resolved again, e.g. after the ranks were changed
+        this.optionCache.clear();
+
+        // Picks up new or changed translation files
+        this.translations.reload();
+
+        // Rebuilds the index of the no-teleport regions off the server thread
+        this.regions.reload();
+    }
+
+    @Listener
+    public void onDataHolderValueChange(final ChangeDataHolderEvent.ValueChange event) {
+        if(!(event.targetHolder() instanceof ServerPlayer player)) {
+            return;
+        }
+
+        // The display name is baked into the cached placeholders, so they have to be rebuilt
+        for(final Value.Immutable<?> value : event.endResult().successfulData()) {
+            if(value.key().equals(Keys.DISPLAY_NAME)) {
+                this.placeholderCache.invalidate(player.uniqueId());
+                return;
+            }
+        }
     }
 
     @Listener
@@ -101,18 +469,28 @@ public class AtlasTP {
                     .addParameters(TPCommand.getFirstParam(), TPCommand.getSecondParam())
                     .executionRequirements(context -> context.cause().root() instanceof ServerPlayer)
                     .permission("atlastp.command.tp")
-                    .executor(new TPCommand(logger, config.get())).build(),
+                    .executor(new TPCommand(logger, config.get(), translations, placeholderCache, teleportHandler, messages, history, userLocations, pipeline)).build(),
                 "tp",
                 "teleport"
         );
 
+        event.register(
+                this.container,
+                Command.builder()
+                        .addParameter(TPFollowCommand.target())
+                        .executionRequirements(context -> context.cause().root() instanceof ServerPlayer)
+                        .permission("atlastp.command.tpfollow")
+                        .executor(new TPFollowCommand(logger, translations, placeholderCache, followTracker)).build(),
+                "tpfollow"
+        );
+
         event.register(
                 this.container,
                 Command.builder()
                         .addParameter(TPACommand.TPARequestCommand.getToPlayer())
                         .executionRequirements(context -> context.cause().root() instanceof ServerPlayer)
                         .permission("atlastp.command.tpa")
-                        .executor(new TPACommand.TPARequestCommand(logger, config.get(), tpaManagerUtil)).build(),
+                        .executor(new TPACommand.TPARequestCommand(logger, config.get(), translations, tpaManagerUtil, placeholderCache, eventBus, optionCache, blockManager, messages, pipeline)).build(),
                 "tpask",
                 "tpa"
         );
@@ -123,7 +501,14 @@ public class AtlasTP {
                         .addParameter(TPACommand.TPAHereCommand.getToPlayer())
                         .executionRequirements(context -> context.cause().root() instanceof ServerPlayer)
                         .permission("atlastp.command.tpahere")
-                        .executor(new TPACommand.TPAHereCommand(logger, config.get(), tpaManagerUtil)).build(),
+                        .addChild(
+                                Command.builder()
+                                        .executionRequirements(context -> context.cause().root() instanceof ServerPlayer)
+                                        .permission("atlastp.command.tpahere.all")
+                                        .executor(new TPACommand.TPAHereCommand(logger, config.get(), translations, tpaManagerUtil, placeholderCache, eventBus, optionCache, blockManager, messages, pipeline, true)).build(),
+                                "all"
+                        )
+                        .executor(new TPACommand.TPAHereCommand(logger, config.get(), translations, tpaManagerUtil, placeholderCache, eventBus, optionCache, blockManager, messages, pipeline, false)).build(),
                 "tpahere",
                 "tpah"
         );
@@ -135,7 +520,7 @@ public class AtlasTP {
                         .addParameter(TPAResponseCommand.selectedPlayer())
                         .executionRequirements(context -> context.cause().root() instanceof ServerPlayer)
                         .permission("atlastp.command.tparesponse.tpaccept")
-                        .executor(new TPAResponseCommand.TPAllowCommand(logger, config.get(), tpaManagerUtil)).build(),
+                        .executor(new TPAResponseCommand.TPAllowCommand(logger, config.get(), translations, tpaManagerUtil, placeholderCache, eventBus, messages, pipeline, teleportHandler)).build(),
                 "tpaccept",
                 "tpaaccept",
                 "tpallow"
@@ -147,10 +532,75 @@ public class AtlasTP {
                         .addParameter(TPAResponseCommand.selectedPlayer())
                         .executionRequirements(context -> context.cause().root() instanceof ServerPlayer)
                         .permission("atlastp.command.tparesponse.tpdeny")
-                        .executor(new TPAResponseCommand.TPDenyCommand(logger, config.get(), tpaManagerUtil)).build(),
+                        .executor(new TPAResponseCommand.TPDenyCommand(logger, config.get(), translations, tpaManagerUtil, placeholderCache, eventBus, messages, pipeline)).build(),
                 "tpdeny",
                 "tpadeny",
                 "tpareject"
         );
+
+        // Block list commands
+        event.register(
+                this.container,
+                Command.builder()
+                        .addParameter(TPBlockCommand.blockedPlayer())
+                        .executionRequirements(context -> context.cause().root() instanceof ServerPlayer)
+                        .permission("atlastp.command.tpblock")
+                        .executor(new TPBlockCommand.TPBlockAddCommand(logger, config.get(), translations, blockManager, placeholderCache, tpaManagerUtil)).build(),
+                "tpblock"
+        );
+
+        event.register(
+                this.container,
+                Command.builder()
+                        .addParameter(TPBlockCommand.blockedPlayer())
+                        .executionRequirements(context -> context.cause().root() instanceof ServerPlayer)
+                        .permission("atlastp.command.tpblock")
+                        .executor(new TPBlockCommand.TPUnblockCommand(logger, config.get(), translations, blockManager, placeholderCache)).build(),
+                "tpunblock"
+        );
+
+        event.register(
+                this.container,
+                Command.builder()
+                        .executionRequirements(context -> context.cause().root() instanceof ServerPlayer)
+                        .permission("atlastp.command.tptoggle")
+                        .executor(new TPBlockCommand.TPToggleCommand(logger, config.get(), translations, blockManager, placeholderCache)).build(),
+                "tptoggle"
+        );
+
+        // Admin commands, which can also be used from the console
+        event.register(
+                this.container,
+                Command.builder()
+                        .permission("atlastp.command.admin")
+                        .addChild(
+                                Command.builder()
+                                        .addParameters(AdminCommand.RequestsCommand.player(), AdminCommand.RequestsCommand.page())
+                                        .permission("atlastp.command.admin.requests")
+                                        .executor(new AdminCommand.RequestsCommand(config.get(), translations, tpaManagerUtil)).build(),
+                                "requests"
+                        )
+                        .addChild(
+                                Command.builder()
+                                        .permission("atlastp.command.admin.memory")
+                                        .executor(new AdminCommand.MemoryCommand(config.get(), translations, tpaManagerUtil, io)).build(),
+                                "memory"
+                        )
+                        .addChild(
+                                Command.builder()
+                                        .permission("atlastp.command.admin.dump")
+                                        .executor(new AdminCommand.DumpCommand(logger, config.get(), translations, io, tpaManagerUtil, blockManager, configDir.resolve("dumps"))).build(),
+                                "dump"
+                        )
+                        .addChild(
+                                Command.builder()
+                                        .addParameters(AdminCommand.HistoryCommand.player(), AdminCommand.HistoryCommand.since(), AdminCommand.HistoryCommand.until())
+                                        .permission("atlastp.command.admin.history")
+                                        .executor(new AdminCommand.HistoryCommand(logger, config.get(), translations, io, tpaManagerUtil, history)).build(),
+                                "history"
+                        )
+                        .build(),
+                "atlastp"
+        );
     }
 }
@@ -0,0 +1,446 @@
+package dev.atlasmc.atlastp.commands;
+
+import dev.atlasmc.atlastp.config.AtlasTPConfig;
+import dev.atlasmc.atlastp.config.Translations;
+import dev.atlasmc.atlastp.dump.StateDump;
+import dev.atlasmc.atlastp.dump.StateSnapshot;
+import dev.atlasmc.atlastp.history.HistoryRecord;
+import dev.atlasmc.atlastp.history.HistoryStore;
+import dev.atlasmc.atlastp.manager.TPABlockManager;
+import dev.atlasmc.atlastp.manager.TPAManager;
+import dev.atlasmc.atlastp.util.IOExecutor;
+import dev.atlasmc.atlastp.util.RequestTicket;
+import dev.atlasmc.atlastp.util.TPAManagerUtil;
+import net.kyori.adventure.audience.Audience;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import org.apache.logging.log4j.Logger;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.command.CommandExecutor;
+import org.spongepowered.api.command.CommandResult;
+import org.spongepowered.api.command.exception.CommandException;
+import org.spongepowered.api.command.parameter.CommandContext;
+import org.spongepowered.api.command.parameter.Parameter;
+import org.spongepowered.api.entity.living.player.server.ServerPlayer;
+import org.spongepowered.api.profile.GameProfile;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The {@code /atlastp} commands, with which the operators can look into the state of AtlasTP.
+ */
+public abstract class AdminCommand implements CommandExecutor {
+    /**
+     * The configuration instance for the plugin.
+     */
+    protected final AtlasTPConfig config;
+
+    /**
+     * The translation strings by the locale of the players.
+     */
+    protected final Translations translations;
+
+    protected final TPAManagerUtil tpaManagerUtil;
+
+    public AdminCommand(final AtlasTPConfig config, final Translations translations, final TPAManagerUtil tpaManagerUtil) {
+        this.config = config;
+        this.translations = translations;
+        this.tpaManagerUtil = tpaManagerUtil;
+    }
+
+    /**
+     * Retrieves the name of a player, which may be offline.
+     *
+     * @param player the {@link UUID} of the player
+     * @return the name, or the {@link UUID} if the name is not known
+     */
+    protected static String name(final UUID player) {
+        return Sponge.server().player(player)
+                .map(onlinePlayer -> onlinePlayer.user().name())
+                .or(() -> Sponge.server().gameProfileManager().cache().findById(player).flatMap(GameProfile::name))
+                .orElseGet(player::toString);
+    }
+
+    /**
+     * {@code /atlastp requests [player] [page]}: Lists the pending TPA requests, optionally only the ones of a player.
+     * <p>
+     * The requests are visited in the live structures of the manager and only the ones on the page are formatted,
+     * so listing does not copy the requests, even if there are a lot of them.
+     */
+    public static final class RequestsCommand extends AdminCommand {
+        private static final int PAGE_SIZE = 10;
+
+        private static final Parameter.Value<ServerPlayer> player = Parameter.player()
+                .key("player")
+                .optional()
+                .build();
+
+        private static final Parameter.Value<Integer> page = Parameter.rangedInteger(1, Integer.MAX_VALUE)
+                .key("page")
+                .optional()
+                .build();
+
+        public RequestsCommand(final AtlasTPConfig config, final Translations translations, final TPAManagerUtil tpaManagerUtil) {
+            super(config, translations, tpaManagerUtil);
+        }
+
+        public static Parameter.Value<ServerPlayer> player() {
+            return player;
+        }
+
+        public static Parameter.Value<Integer> page() {
+            return page;
+        }
+
+        @Override
+        public CommandResult execute(final CommandContext context) throws CommandException {
+            final TPAManager<RequestTicket> manager = tpaManagerUtil.getTpaManager();
+            final Optional<UUID> selectedPlayer = context.one(player).map(ServerPlayer::uniqueId);
+            final int selectedPage = context.one(page).orElse(1);
+            final Audience audience = context.cause().audience();
+            final AtlasTPConfig.TranslationStrings translationStrings = translations.of(audience);
+
+            final int count;
+            if(selectedPlayer.isPresent()) {
+                final int[] playerCount = {0};
+                manager.forEachRequestOf(selectedPlayer.get(), request -> {
+                    playerCount[0]++;
+                    return true;
+                });
+                count = playerCount[0];
+            } else {
+                count = manager.requestCount();
+            }
+
+            final int first = (selectedPage - 1) * PAGE_SIZE;
+            if(first >= count) {
+                audience.sendMessage(MiniMessage.miniMessage().deserialize(translationStrings.adminRequestsEmpty()));
+                return CommandResult.success();
+            }
+
+            audience.sendMessage(MiniMessage.miniMessage().deserialize(
+                    translationStrings.adminRequestsHeader(),
+                    Placeholder.unparsed("count", Integer.toString(count)),
+                    Placeholder.unparsed("page", Integer.toString(selectedPage)),
+                    Placeholder.unparsed("pages", Integer.toString((count + PAGE_SIZE - 1) / PAGE_SIZE))
+            ));
+
+            // Only the requests on the page are formatted, the visiting stops after the last one
+            final int[] index = {0};
+            final Predicate<TPAManager.TPARequest<RequestTicket>> visitor = request -> {
+                if(index[0] >= first) {
+                    audience.sendMessage(MiniMessage.miniMessage().deserialize(
+                            translationStrings.adminRequestsEntry(),
+                            Placeholder.unparsed("sender", name(request.sender())),
+                            Placeholder.unparsed("receiver", name(request.receiver())),
+                            Placeholder.unparsed("direction", request.direction().name()),
+                            Placeholder.unparsed("remaining", Long.toString(request.data().remainingTicks() / 20))
+                    ));
+                }
+
+                return ++index[0] < first + PAGE_SIZE;
+            };
+
+            if(selectedPlayer.isPresent()) {
+                manager.forEachRequestOf(selectedPlayer.get(), visitor);
+            } else {
+                manager.forEachRequest(visitor);
+            }
+
+            return CommandResult.success();
+        }
+    }
+
+    /**
+     * {@code /atlastp memory}: Reports the amount of pending requests and scheduled expiry tasks,
+     * the estimated size of every structure of the manager and the amount of IO tasks.
+     * <p>
+     * If there are more scheduled expiry tasks than pending requests, some tasks were not cancelled.
+     */
+    public static final class MemoryCommand extends AdminCommand {
+        private final IOExecutor io;
+
+        public MemoryCommand(final AtlasTPConfig config, final Translations translations, final TPAManagerUtil tpaManagerUtil, final IOExecutor io) {
+            super(config, translations, tpaManagerUtil);
+            this.io = io;
+        }
+
+        @Override
+        public CommandResult execute(final CommandContext context) throws CommandException {
+            final Audience audience = context.cause().audience();
+            final AtlasTPConfig.TranslationStrings translationStrings = translations.of(audience);
+
+            audience.sendMessage(MiniMessage.miniMessage().deserialize(
+                    translationStrings.adminMemorySummary(),
+                    Placeholder.unparsed("pending", Integer.toString(tpaManagerUtil.getTpaManager().requestCount())),
+                    Placeholder.unparsed("scheduled", Integer.toString(tpaManagerUtil.getScheduler().scheduledTasks()))
+            ));
+
+            for(final TPAManager.StructureFootprint footprint : tpaManagerUtil.getTpaManager().footprint()) {
+                audience.sendMessage(MiniMessage.miniMessage().deserialize(
+                        translationStrings.adminMemoryStructure(),
+                        Placeholder.unparsed("structure", footprint.name()),
+                        Placeholder.unparsed("entries", Long.toString(footprint.entries())),
+                        Placeholder.unparsed("buckets", Long.toString(footprint.buckets())),
+                        Placeholder.unparsed("bytes", Long.toString(footprint.estimatedBytes()))
+                ));
+            }
+
+            audience.sendMessage(MiniMessage.miniMessage().deserialize(
+                    translationStrings.adminMemoryIo(),
+                    Placeholder.unparsed("inflight", Integer.toString(io.inFlight())),
+                    Placeholder.unparsed("completed", Long.toString(io.completed()))
+            ));
+
+            return CommandResult.success();
+        }
+    }
+
+    /**
+     * {@code /atlastp dump}: Writes the state of AtlasTP to a binary dump, which can be analysed offline with the
+     * {@link dev.atlasmc.atlastp.dump.StateDumpReader}.
+     * <p>
+     * The snapshot is copied on the server thread and written by the {@link IOExecutor}, so the tick is not paused by the IO.
+     */
+    public static final class DumpCommand extends AdminCommand {
+        private static final DateTimeFormatter FILE_NAME = DateTimeFormatter.ofPattern("'atlastp-'yyyy-MM-dd_HH-mm-ss'.dump'");
+
+        private final Logger logger;
+        private final IOExecutor io;
+        private final TPABlockManager blockManager;
+
+        /**
+         * The directory the dumps are written to.
+         */
+        private final Path dumpDirectory;
+
+        public DumpCommand(
+                final Logger logger,
+                final AtlasTPConfig config,
+                final Translations translations,
+                final IOExecutor io,
+                final TPAManagerUtil tpaManagerUtil,
+                final TPABlockManager blockManager,
+                final Path dumpDirectory
+        ) {
+            super(config, translations, tpaManagerUtil);
+            this.logger = logger;
+            this.io = io;
+            this.blockManager = blockManager;
+            this.dumpDirectory = dumpDirectory;
+        }
+
+        @Override
+        public CommandResult execute(final CommandContext context) throws CommandException {
+            final Audience audience = context.cause().audience();
+            final AtlasTPConfig.TranslationStrings translationStrings = translations.of(audience);
+            final StateSnapshot snapshot = StateSnapshot.capture(tpaManagerUtil.getTpaManager(), blockManager);
+            final Path path = dumpDirectory.resolve(FILE_NAME.format(LocalDateTime.now()));
+
+            io.supply(() -> {
+                StateDump.write(snapshot, path);
+                return path;
+            }, (ignored, throwable) -> {
+                if(throwable != null) {
+                    logger.error("The state could not be dumped to {}.", path, throwable);
+                    audience.sendMessage(MiniMessage.miniMessage().deserialize(
+                            translationStrings.adminDumpFailed(),
+                            Placeholder.unparsed("error", String.valueOf(throwable.getMessage()))
+                    ));
+                    return;
+                }
+
+                logger.info("Dumped {} pending requests to {}.", snapshot.requests().size(), path);
+                audience.sendMessage(MiniMessage.miniMessage().deserialize(
+                        translationStrings.adminDumpWritten(),
+                        Placeholder.unparsed("file", path.toString())
+                ));
+            });
+
+            return CommandResult.success();
+        }
+    }
+
+    /**
+     * {@code /atlastp history <player> [since] [until]}: Lists the teleports and TPA requests of a player in a time range
+     * from the {@link HistoryStore}.
+     * <p>
+     * The times are either durations before now (e.g. {@code 2h}), times of today (e.g. {@code 20:00})
+     * or dates with times (e.g. {@code 2024-01-31T20:00}). Without a start, the history of the last day is listed.
+     * The history is read by the {@link IOExecutor}, so the tick is not paused by the IO.
+     */
+    public static final class HistoryCommand extends AdminCommand {
+        private static final int LIMIT = 20;
+        private static final Duration DEFAULT_RANGE = Duration.ofDays(1);
+
+        private static final Pattern DURATION = Pattern.compile("(\\d+)([smhd])");
+        private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+        private static final Parameter.Value<UUID> player = Parameter.user()
+                .key("player")
+                .build();
+
+        private static final Parameter.Value<String> since = Parameter.string()
+                .key("since")
+                .optional()
+                .build();
+
+        private static final Parameter.Value<String> until = Parameter.string()
+                .key("until")
+                .optional()
+                .build();
+
+        private final Logger logger;
+        private final IOExecutor io;
+
+        /**
+         * The history, or {@code null} if no history is recorded.
+         */
+        private final @Nullable HistoryStore history;
+
+        public HistoryCommand(
+                final Logger logger,
+                final AtlasTPConfig config,
+                final Translations translations,
+                final IOExecutor io,
+                final TPAManagerUtil tpaManagerUtil,
+                final @Nullable HistoryStore history
+        ) {
+            super(config, translations, tpaManagerUtil);
+            this.logger = logger;
+            this.io = io;
+            this.history = history;
+        }
+
+        public static Parameter.Value<UUID> player() {
+            return player;
+        }
+
+        public static Parameter.Value<String> since() {
+            return since;
+        }
+
+        public static Parameter.Value<String> until() {
+            return until;
+        }
+
+        @Override
+        public CommandResult execute(final CommandContext context) throws CommandException {
+            final Audience audience = context.cause().audience();
+            final AtlasTPConfig.TranslationStrings translationStrings = translations.of(audience);
+            if(history == null) {
+                audience.sendMessage(MiniMessage.miniMessage().deserialize(translationStrings.adminHistoryDisabled()));
+                return CommandResult.success();
+            }
+
+            final long now = System.currentTimeMillis();
+            final UUID selectedPlayer = context.requireOne(player);
+
+            final Optional<String> sinceInput = context.one(since);
+            final Optional<String> untilInput = context.one(until);
+            final Long sinceTime = sinceInput.isPresent() ? parseTime(sinceInput.get(), now) : Long.valueOf(now - DEFAULT_RANGE.toMillis());
+            final Long untilTime = untilInput.isPresent() ? parseTime(untilInput.get(), now) : Long.valueOf(now);
+
+            if(sinceTime == null || untilTime == null) {
+                audience.sendMessage(MiniMessage.miniMessage().deserialize(
+                        translationStrings.adminHistoryInvalidTime(),
+                        Placeholder.unparsed("input", sinceTime == null ? sinceInput.get() : untilInput.get())
+                ));
+                return CommandResult.success();
+            }
+
+            io.supply(() -> history.query(selectedPlayer, sinceTime, untilTime, LIMIT), (result, throwable) -> {
+                if(throwable != null) {
+                    logger.error("The history of {} could not be read.", selectedPlayer, throwable);
+                    audience.sendMessage(MiniMessage.miniMessage().deserialize(
+                            translationStrings.adminHistoryFailed(),
+                            Placeholder.unparsed("error", String.valueOf(throwable.getMessage()))
+                    ));
+                    return;
+                }
+
+                sendResult(audience, translationStrings, selectedPlayer, result);
+            });
+
+            return CommandResult.success();
+        }
+
+        private void sendResult(final Audience audience, final AtlasTPConfig.TranslationStrings translationStrings, final UUID selectedPlayer, final HistoryStore.Result result) {
+            if(result.records().isEmpty()) {
+                audience.sendMessage(MiniMessage.miniMessage().deserialize(
+                        translationStrings.adminHistoryEmpty(),
+                        Placeholder.unparsed("player", name(selectedPlayer))
+                ));
+                return;
+            }
+
+            audience.sendMessage(MiniMessage.miniMessage().deserialize(
+                    translationStrings.adminHistoryHeader(),
+                    Placeholder.unparsed("player", name(selectedPlayer)),
+                    Placeholder.unparsed("count", Integer.toString(result.total())),
+                    Placeholder.unparsed("shown", Integer.toString(result.records().size()))
+            ));
+
+            for(final HistoryRecord record : result.records()) {
+                audience.sendMessage(MiniMessage.miniMessage().deserialize(
+                        translationStrings.adminHistoryEntry(),
+                        Placeholder.unparsed("time", TIME.format(Instant.ofEpochMilli(record.time()).atZone(ZoneId.systemDefault()))),
+                        Placeholder.unparsed("type", record.type().name()),
+                        Placeholder.unparsed("player", name(record.player())),
+                        Placeholder.unparsed("other", record.other() == null ? "-" : name(record.other()))
+                ));
+            }
+        }
+
+        /**
+         * Reads a time of the command.
+         *
+         * @param input the time, which is a duration before now, a time of today or a date with a time
+         * @param now   the current time in milliseconds since the epoch
+         * @return the time in milliseconds since the epoch, or {@code null} if the input is not a time
+         */
+        private static @Nullable Long parseTime(final String input, final long now) {
+            final Matcher matcher = DURATION.matcher(input);
+            if(matcher.matches()) {
+                // The amount can be too large for a long or for the milliseconds of a duration
+                try {
+                    final long amount = Long.parseLong(matcher.group(1));
+                    final Duration duration = switch(matcher.group(2)) {
+                        case "s" -> Duration.ofSeconds(amount);
+                        case "m" -> Duration.ofMinutes(amount);
+                        case "h" -> Duration.ofHours(amount);
+                        default -> Duration.ofDays(amount);
+                    };
+
+                    return Math.subtractExact(now, duration.toMillis());
+                } catch(final NumberFormatException | ArithmeticException e) {
+                    return null;
+                }
+            }
+
+            try {
+                final LocalDateTime dateTime = input.indexOf('T') >= 0
+                        ? LocalDateTime.parse(input)
+                        : LocalDate.now().atTime(LocalTime.parse(input));
+
+                return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            } catch(final DateTimeParseException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package dev.atlasmc.atlastp.commands;
+
+import dev.atlasmc.atlastp.config.AtlasTPConfig;
+import dev.atlasmc.atlastp.config.Translations;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import org.apache.logging.log4j.Logger;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.command.CommandResult;
+import org.spongepowered.api.entity.living.player.server.ServerPlayer;
+import org.spongepowered.plugin.PluginContainer;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Executes the commands in stages, so that only the parts that change the state run on the server thread.
+ * <p>
+ * A command captures everything it needs from the players as {@link PlayerSnapshot}s on the server thread.
+ * The prepare stage then runs on the async scheduler and may only read these snapshots and other immutable data,
+ * e.g. to render the messages. The apply stage runs on the server thread again, on one of the next ticks,
+ * and checks and changes the state (e.g. the open requests), as it may have changed in the meantime.
+ * <p>
+ * The player gets the {@link AtlasTPConfig.TranslationStrings#commandProcessing()} message right away.
+ * As the command has already returned by then, an error of the apply stage is sent to the player as a message,
+ * and a stage that fails gets the player the {@link AtlasTPConfig.TranslationStrings#commandFailed()} message.
+ * If {@link AtlasTPConfig#asyncCommands()} is disabled, which is the default, both stages run right away on the server thread.
+ */
+public final class CommandPipeline {
+    private final PluginContainer pluginContainer;
+    private final Logger logger;
+    private final AtlasTPConfig config;
+    private final Translations translations;
+
+    public CommandPipeline(final PluginContainer pluginContainer, final Logger logger, final AtlasTPConfig config, final Translations translations) {
+        this.pluginContainer = pluginContainer;
+        this.logger = logger;
+        this.config = config;
+        this.translations = translations;
+    }
+
+    /**
+     * Executes the stages of a command.
+     *
+     * @param source  the player that executed the command
+     * @param prepare the prepare stage, which runs on a worker thread
+     * @param apply   the apply stage, which runs on the server thread with the result of the prepare stage
+     * @param <P>     the type of the result of the prepare stage
+     * @return the result of the command, which is a success if the stages run later
+     */
+    public <P> @NonNull CommandResult submit(
+            final @NonNull ServerPlayer source,
+            final @NonNull Supplier<P> prepare,
+            final @NonNull Function<P, CommandResult> apply
+    ) {
+        if(!config.asyncCommands()) {
+            return apply.apply(prepare.get());
+        }
+
+        acknowledge(source);
+
+        final UUID sourceID = source.uniqueId();
+        final String sourceName = source.user().name();
+
+        CompletableFuture.supplyAsync(prepare, Sponge.asyncScheduler().executor(pluginContainer))
+                .thenApplyAsync(apply, Sponge.server().scheduler().executor(pluginContainer))
+                .whenComplete((result, throwable) -> {
+                    if(throwable != null) {
+                        logger.error("The command of {} failed.", sourceName, throwable);
+
+                        // A failed prepare stage completes on the async scheduler
+                        Sponge.server().scheduler().executor(pluginContainer).execute(() -> Sponge.server().player(sourceID)
+                                .ifPresent(player -> player.sendMessage(MiniMessage.miniMessage()
+                                        .deserialize(translations.of(player).commandFailed())
+                                        .colorIfAbsent(NamedTextColor.RED))));
+                        return;
+                    }
+
+                    // The player sees the error the same way as if it was returned by the command
+                    result.errorMessage().ifPresent(message -> Sponge.server().player(sourceID)
+                            .ifPresent(player -> player.sendMessage(message.colorIfAbsent(NamedTextColor.RED))));
+                });
+
+        return CommandResult.success();
+    }
+
+    /**
+     * Shows the player that their command is processed, e.g. while waiting for data that is loaded asynchronously.
+     *
+     * @param player the player
+     */
+    public void acknowledge(final @NonNull ServerPlayer player) {
+        final String message = translations.of(player).commandProcessing();
+        if(!message.isEmpty()) {
+            player.sendActionBar(MiniMessage.miniMessage().deserialize(message));
+        }
+    }
+}
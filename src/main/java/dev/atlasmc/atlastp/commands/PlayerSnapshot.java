@@ -0,0 +1,37 @@
+package dev.atlasmc.atlastp.commands;
+
+import dev.atlasmc.atlastp.config.AtlasTPConfig;
+import dev.atlasmc.atlastp.config.Translations;
+import dev.atlasmc.atlastp.util.PlaceholderCache;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.spongepowered.api.entity.living.player.server.ServerPlayer;
+
+import java.util.UUID;
+
+/**
+ * The immutable data of a player that the prepare stage of a {@link CommandPipeline} can read on a worker thread.
+ * It has to be captured on the server thread.
+ *
+ * @param uniqueId     the {@link UUID} of the player
+ * @param name         the name of the player
+ * @param translations the translation strings for the locale of the player
+ * @param placeholders the placeholders of the player
+ */
+public record PlayerSnapshot(
+        @NonNull UUID uniqueId,
+        @NonNull String name,
+        AtlasTPConfig.@NonNull TranslationStrings translations,
+        PlaceholderCache.@NonNull PlayerPlaceholders placeholders
+) {
+    /**
+     * Captures the data of the player.
+     *
+     * @param player           the player
+     * @param translations     the translation strings by the locale of the players
+     * @param placeholderCache the cache for the placeholders of the players
+     * @return the snapshot of the player
+     */
+    public static @NonNull PlayerSnapshot of(final @NonNull ServerPlayer player, final @NonNull Translations translations, final @NonNull PlaceholderCache placeholderCache) {
+        return new PlayerSnapshot(player.uniqueId(), player.user().name(), translations.of(player), placeholderCache.of(player));
+    }
+}
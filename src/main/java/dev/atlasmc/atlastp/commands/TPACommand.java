@@ -1,12 +1,21 @@
 package dev.atlasmc.atlastp.commands;
 
 import dev.atlasmc.atlastp.config.AtlasTPConfig;
+import dev.atlasmc.atlastp.config.Translations;
+import dev.atlasmc.atlastp.event.AtlasTPEventBus;
+import dev.atlasmc.atlastp.event.TPARequestEvent;
+import dev.atlasmc.atlastp.manager.TPABlockManager;
 import dev.atlasmc.atlastp.manager.TPAManager;
+import dev.atlasmc.atlastp.util.MessageBuffer;
+import dev.atlasmc.atlastp.util.PlaceholderCache;
+import dev.atlasmc.atlastp.util.PlayerOptionCache;
 import dev.atlasmc.atlastp.util.TPAManagerUtil;
+import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.minimessage.MiniMessage;
 import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
 import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
 import org.apache.logging.log4j.Logger;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.spongepowered.api.Sponge;
 import org.spongepowered.api.command.CommandExecutor;
 import org.spongepowered.api.command.CommandResult;
@@ -15,9 +24,20 @@ import org.spongepowered.api.command.parameter.CommandContext;
 import org.spongepowered.api.command.parameter.Parameter;
 import org.spongepowered.api.entity.living.player.server.ServerPlayer;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
 public abstract class TPACommand implements CommandExecutor {
     private static final Parameter.Value<ServerPlayer> toPlayer = Parameter.player()
             .key("toplayer")
+            .consumeAllRemaining()
             .build();
 
     /**
@@ -30,8 +50,43 @@ public abstract class TPACommand implements CommandExecutor {
      */
     protected final AtlasTPConfig config;
 
+    /**
+     * The translation strings by the locale of the players.
+     */
+    protected final Translations translations;
+
     protected final TPAManagerUtil tpaManagerUtil;
 
+    /**
+     * The cache for the placeholders of the players.
+     */
+    protected final PlaceholderCache placeholderCache;
+
+    /**
+     * The event bus on which the TPA request events are posted.
+     */
+    protected final AtlasTPEventBus eventBus;
+
+    /**
+     * The cache for the per-player permission options.
+     */
+    protected final PlayerOptionCache optionCache;
+
+    /**
+     * The manager for the block lists of the players.
+     */
+    protected final TPABlockManager blockManager;
+
+    /**
+     * The buffer through which the messages to the players are sent once per tick.
+     */
+    protected final MessageBuffer messages;
+
+    /**
+     * The pipeline that executes the commands in stages.
+     */
+    protected final CommandPipeline pipeline;
+
     /**
      * The direction of the TPA request
      */
@@ -40,74 +95,407 @@ public abstract class TPACommand implements CommandExecutor {
     /**
      * Constructs a new instance of the TPACommand.
      *
-     * @param logger         the logger to log the different command actions
-     * @param config         the {@link AtlasTPConfig} instance used to configure the command's behavior.
-     * @param tpaManagerUtil the manager for the TPA requests
-     * @param direction      the direction in which the TPA should be sent
+     * @param logger           the logger to log the different command actions
+     * @param config           the {@link AtlasTPConfig} instance used to configure the command's behavior.
+     * @param translations     the translation strings by the locale of the players
+     * @param tpaManagerUtil   the manager for the TPA requests
+     * @param placeholderCache the cache for the placeholders of the players
+     * @param eventBus         the event bus on which the TPA request events are posted
+     * @param optionCache      the cache for the per-player permission options
+     * @param blockManager     the manager for the block lists of the players
+     * @param messages         the buffer through which the messages to the players are sent
+     * @param pipeline         the pipeline that executes the commands in stages
+     * @param direction        the direction in which the TPA should be sent
      */
-    public TPACommand(final Logger logger, final AtlasTPConfig config, final TPAManagerUtil tpaManagerUtil, final TPAManager.TPADirection direction) {
+    public TPACommand(
+            final Logger logger,
+            final AtlasTPConfig config,
+            final Translations translations,
+            final TPAManagerUtil tpaManagerUtil,
+            final PlaceholderCache placeholderCache,
+            final AtlasTPEventBus eventBus,
+            final PlayerOptionCache optionCache,
+            final TPABlockManager blockManager,
+            final MessageBuffer messages,
+            final CommandPipeline pipeline,
+            final TPAManager.TPADirection direction
+    ) {
         this.logger = logger;
         this.config = config;
+        this.translations = translations;
         this.tpaManagerUtil = tpaManagerUtil;
+        this.placeholderCache = placeholderCache;
+        this.eventBus = eventBus;
+        this.optionCache = optionCache;
+        this.blockManager = blockManager;
+        this.messages = messages;
+        this.pipeline = pipeline;
         this.direction = direction;
     }
 
     @Override
     public CommandResult execute(final CommandContext context) throws CommandException {
-        final ServerPlayer receivingPlayer = context.requireOne(toPlayer);
+        final ServerPlayer sendingPlayer = (ServerPlayer)context.cause().root();
+        final Collection<? extends ServerPlayer> receivingPlayers = receivingPlayers(context, sendingPlayer);
 
-        if(context.cause().root().equals(receivingPlayer)) {
-            return CommandResult.error(MiniMessage.miniMessage().deserialize(config.translationStrings().tpaToSelf()));
+        if(receivingPlayers.size() == 1) {
+            return sendRequest(sendingPlayer, receivingPlayers.iterator().next());
         }
 
-        final ServerPlayer sendingPlayer = (ServerPlayer)context.cause().root();
+        return sendRequests(sendingPlayer, receivingPlayers);
+    }
 
-        final TagResolver fromPlayer = Placeholder.component("fromplayer", sendingPlayer.displayName().get());
-        final TagResolver toPlayer = Placeholder.component("toplayer", receivingPlayer.displayName().get());
+    /**
+     * Retrieves the players that should receive the request, which are the players given as the arguments.
+     *
+     * @param context       the context of the command
+     * @param sendingPlayer the player that sends the request
+     * @return the players that should receive the request
+     */
+    protected Collection<? extends ServerPlayer> receivingPlayers(final CommandContext context, final ServerPlayer sendingPlayer) {
+        return context.all(toPlayer);
+    }
+
+    private CommandResult sendRequest(final ServerPlayer sendingPlayer, final ServerPlayer receivingPlayer) {
+        if(sendingPlayer.equals(receivingPlayer)) {
+            return CommandResult.error(MiniMessage.miniMessage().deserialize(translations.of(sendingPlayer).tpaToSelf()));
+        }
+
+        final PlayerSnapshot sender = PlayerSnapshot.of(sendingPlayer, translations, placeholderCache);
+        final PlayerSnapshot receiver = PlayerSnapshot.of(receivingPlayer, translations, placeholderCache);
+        final PlayerOptionCache.PlayerOptions options = optionCache.of(sendingPlayer);
+
+        // A blocked or limited sender does not pay for the rendering, the apply stage checks again as the state may change
+        final CommandResult denied = checkRequest(sender, receiver, options);
+        if(denied != null) {
+            return denied;
+        }
+
+        return pipeline.submit(
+                sendingPlayer,
+                () -> new RenderedRequest(
+                        render(sendMessage(sender.translations()), sender, receiver),
+                        render(receiveMessage(receiver.translations()), sender, receiver)
+                ),
+                rendered -> applyRequest(sender, receiver, options, rendered)
+        );
+    }
+
+    private CommandResult applyRequest(final PlayerSnapshot sender, final PlayerSnapshot receiver, final PlayerOptionCache.PlayerOptions options, final RenderedRequest rendered) {
+        // The players may have left since the command was executed
+        if(Sponge.server().player(sender.uniqueId()).isEmpty()) {
+            return CommandResult.success();
+        }
+
+        if(Sponge.server().player(receiver.uniqueId()).isEmpty()) {
+            return CommandResult.error(MiniMessage.miniMessage().deserialize(sender.translations().tpTargetOffline()));
+        }
+
+        final CommandResult denied = checkRequest(sender, receiver, options);
+        if(denied != null) {
+            return denied;
+        }
+
+        if(eventBus.hasListeners(TPARequestEvent.Send.Pre.class)
+                && eventBus.post(new TPARequestEvent.Send.Pre(sender.uniqueId(), receiver.uniqueId(), direction)).isCancelled()) {
+            return CommandResult.success();
+        }
+
+        final TagResolver toPlayer = receiver.placeholders().toPlayer();
 
         tpaManagerUtil.timedTPARequest(
-                sendingPlayer.uniqueId(),
-                receivingPlayer.uniqueId(),
+                sender.uniqueId(),
+                receiver.uniqueId(),
                 direction,
-                config.tpaExpireTime(),
-                (senderID, receiverID) -> {
-                    Sponge.server().player(senderID)
-                            .ifPresent(serverPlayer -> serverPlayer.sendMessage(MiniMessage.miniMessage().deserialize(
-                                    config.translationStrings().tpaExpireSender(),
-                                    fromPlayer,
-                                    toPlayer
-                            )));
-                    Sponge.server().player(receiverID)
-                            .ifPresent(serverPlayer -> serverPlayer.sendMessage(MiniMessage.miniMessage().deserialize(
-                                    config.translationStrings().tpaExpireReceiver(),
-                                    fromPlayer,
-                                    toPlayer
-                            )));
+                options.tpaExpireTime(),
+                expiry(sender.placeholders().fromPlayer(), receiverID -> toPlayer)
+        );
+
+        logger.info("TPA request sent by {} to {}.", sender.name(), receiver.name());
+
+        if(eventBus.hasListeners(TPARequestEvent.Send.Post.class)) {
+            eventBus.post(new TPARequestEvent.Send.Post(sender.uniqueId(), receiver.uniqueId(), direction));
+        }
+
+        messages.send(sender.uniqueId(), rendered.sender(), null);
+        messages.send(receiver.uniqueId(), rendered.receiver(), null);
+
+        return CommandResult.success();
+    }
+
+    /**
+     * Checks if the receiver blocked the sender and if the sender reached their limit of open requests.
+     * The checks are cheap, so they run before the messages are rendered and again when the request is applied.
+     *
+     * @return the error of the command, or {@code null} if the request can be sent
+     */
+    private @Nullable CommandResult checkRequest(final PlayerSnapshot sender, final PlayerSnapshot receiver, final PlayerOptionCache.PlayerOptions options) {
+        if(blockManager.isBlocked(sender.uniqueId(), receiver.uniqueId())) {
+            return CommandResult.error(MiniMessage.miniMessage().deserialize(
+                    sender.translations().tpaBlocked(),
+                    sender.placeholders().fromPlayer(),
+                    receiver.placeholders().toPlayer()
+            ));
+        }
+
+        // Sending the request again replaces the open one, so it does not count towards the limit
+        if(options.tpaMaxPendingRequests() > 0
+                && tpaManagerUtil.getTpaManager().requestCountBySender(sender.uniqueId()) >= options.tpaMaxPendingRequests()
+                && tpaManagerUtil.getTpaManager().getRequest(sender.uniqueId(), receiver.uniqueId()).isEmpty()) {
+            return limitReached(sender, options);
+        }
+
+        return null;
+    }
+
+    /**
+     * Sends the request to several players at once. The players that can't receive it (the sender itself,
+     * players that blocked the sender and requests cancelled by a listener) are skipped.
+     * If the new requests would exceed the limit of open requests of the sender, only the players up to the limit
+     * get a request and the sender is told how many were skipped.
+     * All the requests are added in one batch and share one expiry.
+     */
+    private CommandResult sendRequests(final ServerPlayer sendingPlayer, final Collection<? extends ServerPlayer> receivingPlayers) {
+        final PlayerSnapshot sender = PlayerSnapshot.of(sendingPlayer, translations, placeholderCache);
+
+        // The players by their UUID, so that a player given twice only gets one request
+        final Map<UUID, PlayerSnapshot> receivers = new LinkedHashMap<>();
+        for(final ServerPlayer receivingPlayer : receivingPlayers) {
+            if(!receivingPlayer.equals(sendingPlayer)) {
+                receivers.putIfAbsent(receivingPlayer.uniqueId(), PlayerSnapshot.of(receivingPlayer, translations, placeholderCache));
+            }
+        }
+
+        final PlayerOptionCache.PlayerOptions options = optionCache.of(sendingPlayer);
+
+        // The players that blocked the sender or are over the limit are not rendered for, the apply stage checks again
+        final int skipped = filterReceivers(sender, receivers, options);
+
+        if(receivers.isEmpty()) {
+            return skipped > 0
+                    ? limitReached(sender, options)
+                    : CommandResult.error(MiniMessage.miniMessage().deserialize(sender.translations().tpaNoReceivers()));
+        }
+
+        return pipeline.submit(
+                sendingPlayer,
+                () -> {
+                    final Map<UUID, Component> rendered = new HashMap<>(receivers.size() * 2);
+                    for(final PlayerSnapshot receiver : receivers.values()) {
+                        rendered.put(receiver.uniqueId(), render(receiveMessage(receiver.translations()), sender, receiver));
+                    }
+
+                    return rendered;
+                },
+                rendered -> applyRequests(sender, receivers, options, rendered, skipped)
+        );
+    }
+
+    /**
+     * Removes the players that blocked the sender and the new requests beyond the limit of open requests of the sender.
+     *
+     * @return the amount of players that were removed because of the limit
+     */
+    private int filterReceivers(final PlayerSnapshot sender, final Map<UUID, PlayerSnapshot> receivers, final PlayerOptionCache.PlayerOptions options) {
+        final TPAManager<?> tpaManager = tpaManagerUtil.getTpaManager();
+        int capacity = options.tpaMaxPendingRequests() > 0
+                ? options.tpaMaxPendingRequests() - tpaManager.requestCountBySender(sender.uniqueId())
+                : Integer.MAX_VALUE;
+        int skipped = 0;
+
+        final Iterator<UUID> iterator = receivers.keySet().iterator();
+        while(iterator.hasNext()) {
+            final UUID receiverID = iterator.next();
+            if(blockManager.isBlocked(sender.uniqueId(), receiverID)) {
+                iterator.remove();
+                continue;
+            }
+
+            if(tpaManager.getRequest(sender.uniqueId(), receiverID).isEmpty()) {
+                if(capacity <= 0) {
+                    iterator.remove();
+                    skipped++;
+                } else {
+                    capacity--;
                 }
+            }
+        }
+
+        return skipped;
+    }
+
+    private CommandResult applyRequests(
+            final PlayerSnapshot sender,
+            final Map<UUID, PlayerSnapshot> candidates,
+            final PlayerOptionCache.PlayerOptions options,
+            final Map<UUID, Component> rendered,
+            final int skippedBefore
+    ) {
+        if(Sponge.server().player(sender.uniqueId()).isEmpty()) {
+            return CommandResult.success();
+        }
+
+        final TPAManager<?> tpaManager = tpaManagerUtil.getTpaManager();
+        final boolean hasPreListeners = eventBus.hasListeners(TPARequestEvent.Send.Pre.class);
+
+        final Map<UUID, PlayerSnapshot> receivers = new LinkedHashMap<>();
+
+        // Requests that are sent again replace the open ones, so only the new requests count towards the limit
+        int capacity = options.tpaMaxPendingRequests() > 0
+                ? options.tpaMaxPendingRequests() - tpaManager.requestCountBySender(sender.uniqueId())
+                : Integer.MAX_VALUE;
+        int skipped = skippedBefore;
+
+        for(final PlayerSnapshot receiver : candidates.values()) {
+            final UUID receiverID = receiver.uniqueId();
+            if(Sponge.server().player(receiverID).isEmpty() || blockManager.isBlocked(sender.uniqueId(), receiverID))
+                continue;
+
+            final boolean newRequest = tpaManager.getRequest(sender.uniqueId(), receiverID).isEmpty();
+            if(newRequest && capacity <= 0) {
+                skipped++;
+                continue;
+            }
+
+            if(hasPreListeners && eventBus.post(new TPARequestEvent.Send.Pre(sender.uniqueId(), receiverID, direction)).isCancelled())
+                continue;
+
+            receivers.put(receiverID, receiver);
+            if(newRequest) {
+                capacity--;
+            }
+        }
+
+        if(receivers.isEmpty()) {
+            return skipped > 0
+                    ? limitReached(sender, options)
+                    : CommandResult.error(MiniMessage.miniMessage().deserialize(sender.translations().tpaNoReceivers()));
+        }
+
+        tpaManagerUtil.timedTPARequests(
+                sender.uniqueId(),
+                List.copyOf(receivers.keySet()),
+                direction,
+                options.tpaExpireTime(),
+                expiry(sender.placeholders().fromPlayer(), receiverID -> receivers.get(receiverID).placeholders().toPlayer())
         );
 
-        logger.info("TPA request sent by {} to {}.", sendingPlayer.user().name(), receivingPlayer.user().name());
+        logger.info("TPA request sent by {} to {} players.", sender.name(), receivers.size());
+
+        if(eventBus.hasListeners(TPARequestEvent.Send.Post.class)) {
+            for(final UUID receiverID : receivers.keySet()) {
+                eventBus.post(new TPARequestEvent.Send.Post(sender.uniqueId(), receiverID, direction));
+            }
+        }
+
+        for(final UUID receiverID : receivers.keySet()) {
+            messages.send(receiverID, rendered.get(receiverID), null);
+        }
+
+        messages.send(sender.uniqueId(), MiniMessage.miniMessage().deserialize(
+                sendManyMessage(sender.translations()),
+                sender.placeholders().fromPlayer(),
+                Placeholder.unparsed("count", Integer.toString(receivers.size()))
+        ), null);
+
+        if(skipped > 0) {
+            messages.send(sender.uniqueId(), MiniMessage.miniMessage().deserialize(
+                    sender.translations().tpaLimitSkipped(),
+                    Placeholder.unparsed("limit", Integer.toString(options.tpaMaxPendingRequests())),
+                    Placeholder.unparsed("skipped", Integer.toString(skipped))
+            ), null);
+        }
+
+        return CommandResult.success();
+    }
+
+    /**
+     * Renders a message of a request. This is called on a worker thread.
+     */
+    private static Component render(final String message, final PlayerSnapshot sender, final PlayerSnapshot receiver) {
+        return MiniMessage.miniMessage().deserialize(
+                message,
+                sender.placeholders().fromPlayer(),
+                receiver.placeholders().toPlayer()
+        );
+    }
 
-        return afterCommandExecute(sendingPlayer, fromPlayer, receivingPlayer, toPlayer);
+    private CommandResult limitReached(final PlayerSnapshot sender, final PlayerOptionCache.PlayerOptions options) {
+        return CommandResult.error(MiniMessage.miniMessage().deserialize(
+                sender.translations().tpaLimitReached(),
+                Placeholder.unparsed("limit", Integer.toString(options.tpaMaxPendingRequests()))
+        ));
     }
 
     /**
-     * Executes after a TPA request has been successfully sent.
-     * (If the player sends an invalid TPA request, then this method won't be called)
+     * Creates the consumer that is called when a request expires.
      *
-     * @param sendingPlayer   The player that sends the TPA request
-     * @param fromPlayer      The MiniMessage parameter with the ID {@code fromPlayer} for the sendingPlayer
-     * @param receivingPlayer The player that receives the TPA request
-     * @param toPlayer        The MiniMessage parameter with the ID {@code toPlayer} for the receivingPlayer
+     * @param fromPlayer the MiniMessage parameter with the ID {@code fromPlayer} for the sender
+     * @param toPlayers  the MiniMessage parameters with the ID {@code toPlayer} by the {@link UUID} of the receivers
+     * @return the consumer for the expired requests
+     */
+    private BiConsumer<UUID, UUID> expiry(final TagResolver fromPlayer, final Function<UUID, TagResolver> toPlayers) {
+        return (senderID, receiverID) -> {
+            if(eventBus.hasListeners(TPARequestEvent.Expire.class)) {
+                eventBus.post(new TPARequestEvent.Expire(senderID, receiverID, direction));
+            }
+
+            final TagResolver toPlayer = toPlayers.apply(receiverID);
+
+            // Many requests can expire at once, so the expiry messages are summarised per player and tick
+            Sponge.server().player(senderID).ifPresent(serverPlayer -> {
+                final AtlasTPConfig.TranslationStrings translationStrings = translations.of(serverPlayer);
+                messages.send(senderID, MiniMessage.miniMessage().deserialize(
+                        translationStrings.tpaExpireSender(),
+                        fromPlayer,
+                        toPlayer
+                ), new MessageBuffer.Summary("tpa-expire-sender", count -> MiniMessage.miniMessage().deserialize(
+                        translationStrings.tpaExpireSenderSummary(),
+                        Placeholder.unparsed("count", Integer.toString(count))
+                )));
+            });
+            Sponge.server().player(receiverID).ifPresent(serverPlayer -> {
+                final AtlasTPConfig.TranslationStrings translationStrings = translations.of(serverPlayer);
+                messages.send(receiverID, MiniMessage.miniMessage().deserialize(
+                        translationStrings.tpaExpireReceiver(),
+                        fromPlayer,
+                        toPlayer
+                ), new MessageBuffer.Summary("tpa-expire-receiver", count -> MiniMessage.miniMessage().deserialize(
+                        translationStrings.tpaExpireReceiverSummary(),
+                        Placeholder.unparsed("count", Integer.toString(count))
+                )));
+            });
+        };
+    }
+
+    /**
+     * Retrieves the message template for the sender of a request.
+     *
+     * @param translationStrings the translation strings of the sender
+     * @return the message template with the placeholders {@code fromPlayer} and {@code toPlayer}
+     */
+    protected abstract String sendMessage(final AtlasTPConfig.TranslationStrings translationStrings);
+
+    /**
+     * Retrieves the message template for the receiver of a request.
      *
-     * @return The standard result of the command
+     * @param translationStrings the translation strings of the receiver
+     * @return the message template with the placeholders {@code fromPlayer} and {@code toPlayer}
      */
-    public abstract CommandResult afterCommandExecute(
-            final ServerPlayer sendingPlayer,
-            final TagResolver fromPlayer,
-            final ServerPlayer receivingPlayer,
-            final TagResolver toPlayer
-    );
+    protected abstract String receiveMessage(final AtlasTPConfig.TranslationStrings translationStrings);
+
+    /**
+     * Retrieves the message template for the sender of a request that was sent to several players.
+     *
+     * @param translationStrings the translation strings of the sender
+     * @return the message template with the placeholders {@code fromPlayer} and {@code count}
+     */
+    protected abstract String sendManyMessage(final AtlasTPConfig.TranslationStrings translationStrings);
+
+    /**
+     * The messages of a request to a single player, rendered in the prepare stage.
+     */
+    private record RenderedRequest(Component sender, Component receiver) {}
 
     public static Parameter.Value<ServerPlayer> getToPlayer() {
         return toPlayer;
@@ -117,59 +505,87 @@ public abstract class TPACommand implements CommandExecutor {
         /**
          * Constructs a new instance of the TPACommand.
          *
-         * @param logger         the logger to log the different command actions
-         * @param config         the {@link AtlasTPConfig} instance used to configure the command's behavior.
-         * @param tpaManagerUtil the manager for the TPA requests
+         * @param logger           the logger to log the different command actions
+         * @param config           the {@link AtlasTPConfig} instance used to configure the command's behavior.
+         * @param translations     the translation strings by the locale of the players
+         * @param tpaManagerUtil   the manager for the TPA requests
+         * @param placeholderCache the cache for the placeholders of the players
+         * @param eventBus         the event bus on which the TPA request events are posted
+         * @param optionCache      the cache for the per-player permission options
+         * @param blockManager     the manager for the block lists of the players
+         * @param messages         the buffer through which the messages to the players are sent
+         * @param pipeline         the pipeline that executes the commands in stages
          */
-        public TPARequestCommand(final Logger logger, final AtlasTPConfig config, final TPAManagerUtil tpaManagerUtil) {
-            super(logger, config, tpaManagerUtil, TPAManager.TPADirection.TO_RECEIVER);
+        public TPARequestCommand(final Logger logger, final AtlasTPConfig config, final Translations translations, final TPAManagerUtil tpaManagerUtil, final PlaceholderCache placeholderCache, final AtlasTPEventBus eventBus, final PlayerOptionCache optionCache, final TPABlockManager blockManager, final MessageBuffer messages, final CommandPipeline pipeline) {
+            super(logger, config, translations, tpaManagerUtil, placeholderCache, eventBus, optionCache, blockManager, messages, pipeline, TPAManager.TPADirection.TO_RECEIVER);
         }
 
         @Override
-        public CommandResult afterCommandExecute(final ServerPlayer sendingPlayer, final TagResolver fromPlayer, final ServerPlayer receivingPlayer, final TagResolver toPlayer) {
-            sendingPlayer.sendMessage(MiniMessage.miniMessage().deserialize(
-                    config.translationStrings().tpaSendMessage(),
-                    fromPlayer,
-                    toPlayer
-            ));
+        protected String sendMessage(final AtlasTPConfig.TranslationStrings translationStrings) {
+            return translationStrings.tpaSendMessage();
+        }
 
-            receivingPlayer.sendMessage(MiniMessage.miniMessage().deserialize(
-                    config.translationStrings().tpaReceiveMessage(),
-                    fromPlayer,
-                    toPlayer
-            ));
+        @Override
+        protected String receiveMessage(final AtlasTPConfig.TranslationStrings translationStrings) {
+            return translationStrings.tpaReceiveMessage();
+        }
 
-            return CommandResult.success();
+        @Override
+        protected String sendManyMessage(final AtlasTPConfig.TranslationStrings translationStrings) {
+            return translationStrings.tpaSendManyMessage();
         }
     }
 
     public static final class TPAHereCommand extends TPACommand {
+        /**
+         * Whether the request is sent to all the online players ({@code /tpahere all}) instead of the given ones.
+         */
+        private final boolean allPlayers;
+
         /**
          * Constructs a new instance of the TPACommand.
          *
-         * @param logger         the logger to log the different command actions
-         * @param config         the {@link AtlasTPConfig} instance used to configure the command's behavior.
-         * @param tpaManagerUtil the manager for the TPA requests
+         * @param logger           the logger to log the different command actions
+         * @param config           the {@link AtlasTPConfig} instance used to configure the command's behavior.
+         * @param translations     the translation strings by the locale of the players
+         * @param tpaManagerUtil   the manager for the TPA requests
+         * @param placeholderCache the cache for the placeholders of the players
+         * @param eventBus         the event bus on which the TPA request events are posted
+         * @param optionCache      the cache for the per-player permission options
+         * @param blockManager     the manager for the block lists of the players
+         * @param messages         the buffer through which the messages to the players are sent
+         * @param pipeline         the pipeline that executes the commands in stages
+         * @param allPlayers       whether the request is sent to all the online players instead of the given ones
          */
-        public TPAHereCommand(final Logger logger, final AtlasTPConfig config, final TPAManagerUtil tpaManagerUtil) {
-            super(logger, config, tpaManagerUtil, TPAManager.TPADirection.TO_SENDER);
+        public TPAHereCommand(final Logger logger, final AtlasTPConfig config, final Translations translations, final TPAManagerUtil tpaManagerUtil, final PlaceholderCache placeholderCache, final AtlasTPEventBus eventBus, final PlayerOptionCache optionCache, final TPABlockManager blockManager, final MessageBuffer messages, final CommandPipeline pipeline, final boolean allPlayers) {
+            super(logger, config, translations, tpaManagerUtil, placeholderCache, eventBus, optionCache, blockManager, messages, pipeline, TPAManager.TPADirection.TO_SENDER);
+            this.allPlayers = allPlayers;
         }
 
         @Override
-        public CommandResult afterCommandExecute(final ServerPlayer sendingPlayer, final TagResolver fromPlayer, final ServerPlayer receivingPlayer, final TagResolver toPlayer) {
-            sendingPlayer.sendMessage(MiniMessage.miniMessage().deserialize(
-                    config.translationStrings().tpaHereSendMessage(),
-                    fromPlayer,
-                    toPlayer
-            ));
+        protected String sendMessage(final AtlasTPConfig.TranslationStrings translationStrings) {
+            return translationStrings.tpaHereSendMessage();
+        }
 
-            receivingPlayer.sendMessage(MiniMessage.miniMessage().deserialize(
-                    config.translationStrings().tpaHereReceiveMessage(),
-                    fromPlayer,
-                    toPlayer
-            ));
+        @Override
+        protected Collection<? extends ServerPlayer> receivingPlayers(final CommandContext context, final ServerPlayer sendingPlayer) {
+            if(!allPlayers) {
+                return super.receivingPlayers(context, sendingPlayer);
+            }
 
-            return CommandResult.success();
+            return Sponge.server().onlinePlayers().stream()
+                    .filter(player -> !player.equals(sendingPlayer))
+                    .toList();
+        }
+
+        @Override
+        protected String receiveMessage(final AtlasTPConfig.TranslationStrings translationStrings) {
+            return translationStrings.tpaHereReceiveMessage();
+        }
+
+        @Override
+        protected String sendManyMessage(final AtlasTPConfig.TranslationStrings translationStrings) {
+            return translationStrings.tpaHereSendManyMessage();
         }
     }
 }
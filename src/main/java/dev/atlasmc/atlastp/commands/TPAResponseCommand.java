@@ -1,22 +1,29 @@
 package dev.atlasmc.atlastp.commands;
 
 import dev.atlasmc.atlastp.config.AtlasTPConfig;
+import dev.atlasmc.atlastp.config.Translations;
+import dev.atlasmc.atlastp.event.AtlasTPEventBus;
+import dev.atlasmc.atlastp.event.TPARequestEvent;
+import dev.atlasmc.atlastp.event.TeleportEvent;
 import dev.atlasmc.atlastp.manager.TPAManager;
+import dev.atlasmc.atlastp.teleport.TeleportHandler;
+import dev.atlasmc.atlastp.util.MessageBuffer;
+import dev.atlasmc.atlastp.util.PlaceholderCache;
+import dev.atlasmc.atlastp.util.RequestTicket;
 import dev.atlasmc.atlastp.util.TPAManagerUtil;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.minimessage.MiniMessage;
-import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
-import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
 import org.apache.logging.log4j.Logger;
+import org.spongepowered.api.Sponge;
 import org.spongepowered.api.command.CommandExecutor;
 import org.spongepowered.api.command.CommandResult;
 import org.spongepowered.api.command.exception.CommandException;
 import org.spongepowered.api.command.parameter.CommandContext;
 import org.spongepowered.api.command.parameter.Parameter;
 import org.spongepowered.api.entity.living.player.server.ServerPlayer;
-import org.spongepowered.api.scheduler.ScheduledTask;
 
 import java.util.Optional;
+import java.util.UUID;
 
 public abstract class TPAResponseCommand implements CommandExecutor {
     private static final Parameter.Value<ServerPlayer> selectedPlayer = Parameter.player()
@@ -33,111 +40,304 @@ public abstract class TPAResponseCommand implements CommandExecutor {
      */
     protected final AtlasTPConfig config;
 
+    /**
+     * The translation strings by the locale of the players.
+     */
+    protected final Translations translations;
+
     protected final TPAManagerUtil tpaManagerUtil;
 
-    public TPAResponseCommand(final Logger logger, final AtlasTPConfig config, final TPAManagerUtil tpaManagerUtil) {
+    /**
+     * The cache for the placeholders of the players.
+     */
+    protected final PlaceholderCache placeholderCache;
+
+    /**
+     * The event bus on which the TPA request events are posted.
+     */
+    protected final AtlasTPEventBus eventBus;
+
+    /**
+     * The buffer through which the messages to the players are sent once per tick.
+     */
+    protected final MessageBuffer messages;
+
+    /**
+     * The pipeline that executes the commands in stages.
+     */
+    protected final CommandPipeline pipeline;
+
+    public TPAResponseCommand(final Logger logger, final AtlasTPConfig config, final Translations translations, final TPAManagerUtil tpaManagerUtil, final PlaceholderCache placeholderCache, final AtlasTPEventBus eventBus, final MessageBuffer messages, final CommandPipeline pipeline) {
         this.logger = logger;
         this.config = config;
+        this.translations = translations;
         this.tpaManagerUtil = tpaManagerUtil;
+        this.placeholderCache = placeholderCache;
+        this.eventBus = eventBus;
+        this.messages = messages;
+        this.pipeline = pipeline;
     }
 
     public static Parameter.Value<ServerPlayer> selectedPlayer() {
         return selectedPlayer;
     }
 
-    public static final class TPAllowCommand extends TPAResponseCommand {
-        public TPAllowCommand(final Logger logger, final AtlasTPConfig config, final TPAManagerUtil tpaManagerUtil) {
-            super(logger, config, tpaManagerUtil);
+    /**
+     * Posts the {@code Pre} event for a response to a TPA request, if there is any listener for it.
+     *
+     * @param type     the class of the {@code Pre} event
+     * @param factory  creates the event for the open request
+     * @param sender   the player that has sent the request
+     * @param receiver the player that has received the request
+     * @return if the response was cancelled by a listener
+     */
+    protected <E extends TPARequestEvent.CancellableTPARequestEvent> boolean isResponseCancelled(
+            final Class<E> type,
+            final RequestEventFactory<E> factory,
+            final ServerPlayer sender,
+            final ServerPlayer receiver
+    ) {
+        if(!eventBus.hasListeners(type)) {
+            return false;
         }
 
-        @Override
-        public CommandResult execute(final CommandContext context) throws CommandException {
-            final ServerPlayer player = context.requireOne(selectedPlayer);
+        return tpaManagerUtil.getTpaManager().getRequest(sender.uniqueId(), receiver.uniqueId())
+                .map(request -> eventBus.post(factory.create(request.sender(), request.receiver(), request.direction())).isCancelled())
+                .orElse(false);
+    }
 
-            final ServerPlayer commandSender = ((ServerPlayer)context.cause().root());
+    @Override
+    public CommandResult execute(final CommandContext context) throws CommandException {
+        final ServerPlayer commandSender = (ServerPlayer) context.cause().root();
 
-            final TagResolver fromPlayer = Placeholder.component("fromplayer", player.displayName().get());
-            final TagResolver toPlayer = Placeholder.component("toplayer", commandSender.displayName().get());
+        final PlayerSnapshot sender = PlayerSnapshot.of(context.requireOne(selectedPlayer), translations, placeholderCache);
+        final PlayerSnapshot receiver = PlayerSnapshot.of(commandSender, translations, placeholderCache);
 
-            final Optional<TPAManager.TPARequest<ScheduledTask>> request = tpaManagerUtil.removeRequest(player.uniqueId(), commandSender.uniqueId());
-            if(request.isEmpty()) {
-                context.sendMessage(MiniMessage.miniMessage().deserialize(
-                        config.translationStrings().noOpenTPARequest(),
-                        fromPlayer,
-                        toPlayer
-                ));
+        return pipeline.submit(
+                commandSender,
+                () -> new RenderedResponse(
+                        render(senderMessage(sender.translations()), sender, receiver),
+                        render(receiverMessage(receiver.translations()), sender, receiver)
+                ),
+                rendered -> {
+                    // The players may have left since the command was executed, which removed the request
+                    final Optional<ServerPlayer> receivingPlayer = Sponge.server().player(receiver.uniqueId());
+                    if(receivingPlayer.isEmpty()) {
+                        return CommandResult.success();
+                    }
+
+                    final Optional<ServerPlayer> sendingPlayer = Sponge.server().player(sender.uniqueId());
+                    if(sendingPlayer.isEmpty()) {
+                        return noOpenRequest(sender, receiver);
+                    }
+
+                    return respond(sendingPlayer.get(), sender, receivingPlayer.get(), receiver, rendered);
+                }
+        );
+    }
+
+    /**
+     * Answers the request on the server thread.
+     *
+     * @param sendingPlayer   the player that has sent the request
+     * @param sender          the snapshot of the player that has sent the request
+     * @param receivingPlayer the player that answers the request
+     * @param receiver        the snapshot of the player that answers the request
+     * @param rendered        the messages to the players, which are sent if the request was answered
+     * @return the result of the command
+     */
+    protected abstract CommandResult respond(
+            final ServerPlayer sendingPlayer,
+            final PlayerSnapshot sender,
+            final ServerPlayer receivingPlayer,
+            final PlayerSnapshot receiver,
+            final RenderedResponse rendered
+    );
+
+    /**
+     * Retrieves the message template for the player that has sent the request.
+     *
+     * @param translationStrings the translation strings of the player
+     * @return the message template with the placeholders {@code fromPlayer} and {@code toPlayer}
+     */
+    protected abstract String senderMessage(final AtlasTPConfig.TranslationStrings translationStrings);
+
+    /**
+     * Retrieves the message template for the player that answers the request.
+     *
+     * @param translationStrings the translation strings of the player
+     * @return the message template with the placeholders {@code fromPlayer} and {@code toPlayer}
+     */
+    protected abstract String receiverMessage(final AtlasTPConfig.TranslationStrings translationStrings);
+
+    /**
+     * Informs the player that answers the request that there is no open request.
+     */
+    protected CommandResult noOpenRequest(final PlayerSnapshot sender, final PlayerSnapshot receiver) {
+        messages.send(receiver.uniqueId(), MiniMessage.miniMessage().deserialize(
+                receiver.translations().noOpenTPARequest(),
+                sender.placeholders().fromPlayer(),
+                receiver.placeholders().toPlayer()
+        ), null);
+        return CommandResult.success();
+    }
+
+    /**
+     * Sends the rendered messages to both players.
+     */
+    protected void sendResponse(final PlayerSnapshot sender, final PlayerSnapshot receiver, final RenderedResponse rendered) {
+        messages.send(receiver.uniqueId(), rendered.receiver(), null);
+        messages.send(sender.uniqueId(), rendered.sender(), null);
+    }
+
+    /**
+     * Renders a message of a response. This is called on a worker thread.
+     */
+    private static Component render(final String message, final PlayerSnapshot sender, final PlayerSnapshot receiver) {
+        return MiniMessage.miniMessage().deserialize(
+                message,
+                sender.placeholders().fromPlayer(),
+                receiver.placeholders().toPlayer()
+        );
+    }
+
+    /**
+     * The messages of a response, rendered in the prepare stage.
+     *
+     * @param sender   the message to the player that has sent the request
+     * @param receiver the message to the player that answers the request
+     */
+    protected record RenderedResponse(Component sender, Component receiver) {}
+
+    @FunctionalInterface
+    protected interface RequestEventFactory<E extends TPARequestEvent> {
+        E create(final UUID sender, final UUID receiver, final TPAManager.TPADirection direction);
+    }
+
+    public static final class TPAllowCommand extends TPAResponseCommand {
+        /**
+         * The handler that performs the teleports.
+         */
+        private final TeleportHandler teleportHandler;
+
+        public TPAllowCommand(
+                final Logger logger,
+                final AtlasTPConfig config,
+                final Translations translations,
+                final TPAManagerUtil tpaManagerUtil,
+                final PlaceholderCache placeholderCache,
+                final AtlasTPEventBus eventBus,
+                final MessageBuffer messages,
+                final CommandPipeline pipeline,
+                final TeleportHandler teleportHandler
+        ) {
+            super(logger, config, translations, tpaManagerUtil, placeholderCache, eventBus, messages, pipeline);
+            this.teleportHandler = teleportHandler;
+        }
+
+        @Override
+        protected CommandResult respond(final ServerPlayer player, final PlayerSnapshot sender, final ServerPlayer commandSender, final PlayerSnapshot receiver, final RenderedResponse rendered) {
+            if(isResponseCancelled(TPARequestEvent.Accept.Pre.class, TPARequestEvent.Accept.Pre::new, player, commandSender)) {
                 return CommandResult.success();
             }
 
+            // The request is claimed before the teleport, so that nothing (e.g. a listener of the teleport that kicks a player) can complete it in the meantime
+            final Optional<TPAManager.TPARequest<RequestTicket>> request = tpaManagerUtil.claimRequest(player.uniqueId(), commandSender.uniqueId());
+            if(request.isEmpty()) {
+                return noOpenRequest(sender, receiver);
+            }
+
+            // The players are teleported to where they are now, not where they were when the command was executed
+            final boolean teleported;
             switch (request.get().direction()) {
                 case TO_SENDER:
-                    commandSender.setLocationAndRotation(player.serverLocation(), player.rotation());
+                    teleported = teleportHandler.teleport(commandSender, player.serverLocation(), player.rotation(), TeleportEvent.Reason.TPA);
                     break;
                 case TO_RECEIVER:
-                    player.setLocationAndRotation(commandSender.serverLocation(), commandSender.rotation());
+                    teleported = teleportHandler.teleport(player, commandSender.serverLocation(), commandSender.rotation(), TeleportEvent.Reason.TPA);
                     break;
                 default:
+                    tpaManagerUtil.reopenRequest(request.get());
                     return CommandResult.error(
                             Component.text("Somehow the direction for a TPA is " + request.get().direction())
                     );
             }
 
-            commandSender.sendMessage(MiniMessage.miniMessage().deserialize(
-                    config.translationStrings().tpaAcceptReceiver(),
-                    fromPlayer,
-                    toPlayer
-            ));
-            player.sendMessage(MiniMessage.miniMessage().deserialize(
-                    config.translationStrings().tpaAcceptSender(),
-                    fromPlayer,
-                    toPlayer
-            ));
+            // The request is only completed once the teleport happened, otherwise it can be accepted again later
+            if(!teleported) {
+                tpaManagerUtil.reopenRequest(request.get());
+
+                if(eventBus.hasListeners(TPARequestEvent.Accept.Failed.class)) {
+                    eventBus.post(new TPARequestEvent.Accept.Failed(player.uniqueId(), commandSender.uniqueId(), request.get().direction()));
+                }
+
+                messages.send(receiver.uniqueId(), MiniMessage.miniMessage().deserialize(
+                        receiver.translations().tpaAcceptFailed(),
+                        sender.placeholders().fromPlayer(),
+                        receiver.placeholders().toPlayer()
+                ), null);
+                return CommandResult.success();
+            }
+
+            tpaManagerUtil.settleRequest(request.get(), RequestTicket.State.ACCEPTED);
+
+            sendResponse(sender, receiver, rendered);
+
+            logger.info("{} accepted the TPA request by {}.", receiver.name(), sender.name());
 
-            logger.info("{} accepted the TPA request by {}.", commandSender.user().name(), player.user().name());
+            if(eventBus.hasListeners(TPARequestEvent.Accept.Post.class)) {
+                eventBus.post(new TPARequestEvent.Accept.Post(player.uniqueId(), commandSender.uniqueId(), request.get().direction()));
+            }
 
             return CommandResult.success();
         }
+
+        @Override
+        protected String senderMessage(final AtlasTPConfig.TranslationStrings translationStrings) {
+            return translationStrings.tpaAcceptSender();
+        }
+
+        @Override
+        protected String receiverMessage(final AtlasTPConfig.TranslationStrings translationStrings) {
+            return translationStrings.tpaAcceptReceiver();
+        }
     }
 
     public static final class TPDenyCommand extends TPAResponseCommand {
-        public TPDenyCommand(final Logger logger, final AtlasTPConfig config, final TPAManagerUtil tpaManagerUtil) {
-            super(logger, config, tpaManagerUtil);
+        public TPDenyCommand(final Logger logger, final AtlasTPConfig config, final Translations translations, final TPAManagerUtil tpaManagerUtil, final PlaceholderCache placeholderCache, final AtlasTPEventBus eventBus, final MessageBuffer messages, final CommandPipeline pipeline) {
+            super(logger, config, translations, tpaManagerUtil, placeholderCache, eventBus, messages, pipeline);
         }
 
         @Override
-        public CommandResult execute(final CommandContext context) throws CommandException {
-            final ServerPlayer player = context.requireOne(selectedPlayer);
+        protected CommandResult respond(final ServerPlayer player, final PlayerSnapshot sender, final ServerPlayer commandSender, final PlayerSnapshot receiver, final RenderedResponse rendered) {
+            if(isResponseCancelled(TPARequestEvent.Deny.Pre.class, TPARequestEvent.Deny.Pre::new, player, commandSender)) {
+                return CommandResult.success();
+            }
 
-            final ServerPlayer commandSender = (ServerPlayer) context.cause().root();
+            final Optional<TPAManager.TPARequest<RequestTicket>> request = tpaManagerUtil.completeRequest(player.uniqueId(), commandSender.uniqueId(), RequestTicket.State.DENIED);
+            if(request.isEmpty()) {
+                return noOpenRequest(sender, receiver);
+            }
 
-            final TagResolver fromPlayer = Placeholder.component("fromplayer", player.displayName().get());
-            final TagResolver toPlayer = Placeholder.component("toplayer", commandSender.displayName().get());
+            sendResponse(sender, receiver, rendered);
 
-            boolean exists = tpaManagerUtil.removeRequest(player.uniqueId(), commandSender.uniqueId()).isPresent();
-            if(!exists) {
-                context.sendMessage(MiniMessage.miniMessage().deserialize(
-                        config.translationStrings().noOpenTPARequest(),
-                        fromPlayer,
-                        toPlayer
-                ));
+            logger.info("{} denied the TPA request by {}.", receiver.name(), sender.name());
 
-                return CommandResult.success();
+            if(eventBus.hasListeners(TPARequestEvent.Deny.Post.class)) {
+                eventBus.post(new TPARequestEvent.Deny.Post(player.uniqueId(), commandSender.uniqueId(), request.get().direction()));
             }
 
-            commandSender.sendMessage(MiniMessage.miniMessage().deserialize(
-                    config.translationStrings().tpaDeclineReceiver(),
-                    fromPlayer,
-                    toPlayer
-            ));
-            player.sendMessage(MiniMessage.miniMessage().deserialize(
-                    config.translationStrings().tpaDeclineSender(),
-                    fromPlayer,
-                    toPlayer
-            ));
+            return CommandResult.success();
+        }
 
-            logger.info("{} denied the TPA request by {}.", commandSender.user().name(), player.user().name());
+        @Override
+        protected String senderMessage(final AtlasTPConfig.TranslationStrings translationStrings) {
+            return translationStrings.tpaDeclineSender();
+        }
 
-            return CommandResult.success();
+        @Override
+        protected String receiverMessage(final AtlasTPConfig.TranslationStrings translationStrings) {
+            return translationStrings.tpaDeclineReceiver();
         }
     }
 }
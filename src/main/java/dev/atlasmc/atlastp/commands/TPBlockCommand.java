@@ -0,0 +1,158 @@
+package dev.atlasmc.atlastp.commands;
+
+import dev.atlasmc.atlastp.config.AtlasTPConfig;
+import dev.atlasmc.atlastp.config.Translations;
+import dev.atlasmc.atlastp.manager.TPABlockManager;
+import dev.atlasmc.atlastp.util.PlaceholderCache;
+import dev.atlasmc.atlastp.util.TPAManagerUtil;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import org.apache.logging.log4j.Logger;
+import org.spongepowered.api.command.CommandExecutor;
+import org.spongepowered.api.command.CommandResult;
+import org.spongepowered.api.command.exception.CommandException;
+import org.spongepowered.api.command.parameter.CommandContext;
+import org.spongepowered.api.command.parameter.Parameter;
+import org.spongepowered.api.entity.living.player.server.ServerPlayer;
+
+/**
+ * The commands with which players can choose from whom they receive TPA requests.
+ */
+public abstract class TPBlockCommand implements CommandExecutor {
+    private static final Parameter.Value<ServerPlayer> blockedPlayer = Parameter.player()
+            .key("blockedplayer")
+            .build();
+
+    /**
+     * The logger
+     */
+    protected final Logger logger;
+
+    /**
+     * The configuration instance for the plugin.
+     */
+    protected final AtlasTPConfig config;
+
+    /**
+     * The translation strings by the locale of the players.
+     */
+    protected final Translations translations;
+
+    /**
+     * The manager for the block lists of the players.
+     */
+    protected final TPABlockManager blockManager;
+
+    /**
+     * The cache for the placeholders of the players.
+     */
+    protected final PlaceholderCache placeholderCache;
+
+    public TPBlockCommand(final Logger logger, final AtlasTPConfig config, final Translations translations, final TPABlockManager blockManager, final PlaceholderCache placeholderCache) {
+        this.logger = logger;
+        this.config = config;
+        this.translations = translations;
+        this.blockManager = blockManager;
+        this.placeholderCache = placeholderCache;
+    }
+
+    public static Parameter.Value<ServerPlayer> blockedPlayer() {
+        return blockedPlayer;
+    }
+
+    /**
+     * {@code /tpblock <player>}: Blocks the TPA requests from a player.
+     */
+    public static final class TPBlockAddCommand extends TPBlockCommand {
+        private final TPAManagerUtil tpaManagerUtil;
+
+        public TPBlockAddCommand(
+                final Logger logger,
+                final AtlasTPConfig config,
+                final Translations translations,
+                final TPABlockManager blockManager,
+                final PlaceholderCache placeholderCache,
+                final TPAManagerUtil tpaManagerUtil
+        ) {
+            super(logger, config, translations, blockManager, placeholderCache);
+            this.tpaManagerUtil = tpaManagerUtil;
+        }
+
+        @Override
+        public CommandResult execute(final CommandContext context) throws CommandException {
+            final ServerPlayer player = context.requireOne(blockedPlayer);
+            final ServerPlayer commandSender = (ServerPlayer) context.cause().root();
+
+            if(!blockManager.block(commandSender.uniqueId(), player.uniqueId())) {
+                return CommandResult.error(MiniMessage.miniMessage().deserialize(
+                        translations.of(commandSender).tpBlockAlreadyBlocked(),
+                        placeholderCache.of(player).player()
+                ));
+            }
+
+            // An open request of the blocked player should not be accepted by accident
+            tpaManagerUtil.removeRequest(player.uniqueId(), commandSender.uniqueId());
+
+            commandSender.sendMessage(MiniMessage.miniMessage().deserialize(
+                    translations.of(commandSender).tpBlockAdded(),
+                    placeholderCache.of(player).player()
+            ));
+
+            logger.info("{} blocked the TPA requests from {}.", commandSender.user().name(), player.user().name());
+
+            return CommandResult.success();
+        }
+    }
+
+    /**
+     * {@code /tpunblock <player>}: Unblocks the TPA requests from a player.
+     */
+    public static final class TPUnblockCommand extends TPBlockCommand {
+        public TPUnblockCommand(final Logger logger, final AtlasTPConfig config, final Translations translations, final TPABlockManager blockManager, final PlaceholderCache placeholderCache) {
+            super(logger, config, translations, blockManager, placeholderCache);
+        }
+
+        @Override
+        public CommandResult execute(final CommandContext context) throws CommandException {
+            final ServerPlayer player = context.requireOne(blockedPlayer);
+            final ServerPlayer commandSender = (ServerPlayer) context.cause().root();
+
+            if(!blockManager.unblock(commandSender.uniqueId(), player.uniqueId())) {
+                return CommandResult.error(MiniMessage.miniMessage().deserialize(
+                        translations.of(commandSender).tpUnblockNotBlocked(),
+                        placeholderCache.of(player).player()
+                ));
+            }
+
+            commandSender.sendMessage(MiniMessage.miniMessage().deserialize(
+                    translations.of(commandSender).tpUnblockRemoved(),
+                    placeholderCache.of(player).player()
+            ));
+
+            logger.info("{} unblocked the TPA requests from {}.", commandSender.user().name(), player.user().name());
+
+            return CommandResult.success();
+        }
+    }
+
+    /**
+     * {@code /tptoggle}: Turns all TPA requests to the player off or on again.
+     */
+    public static final class TPToggleCommand extends TPBlockCommand {
+        public TPToggleCommand(final Logger logger, final AtlasTPConfig config, final Translations translations, final TPABlockManager blockManager, final PlaceholderCache placeholderCache) {
+            super(logger, config, translations, blockManager, placeholderCache);
+        }
+
+        @Override
+        public CommandResult execute(final CommandContext context) throws CommandException {
+            final ServerPlayer commandSender = (ServerPlayer) context.cause().root();
+
+            final boolean toggledOff = blockManager.toggle(commandSender.uniqueId());
+            commandSender.sendMessage(MiniMessage.miniMessage().deserialize(toggledOff
+                    ? translations.of(commandSender).tpToggleOff()
+                    : translations.of(commandSender).tpToggleOn()
+            ));
+
+            return CommandResult.success();
+        }
+    }
+}
@@ -1,40 +1,62 @@
 package dev.atlasmc.atlastp.commands;
 
 import dev.atlasmc.atlastp.config.AtlasTPConfig;
+import dev.atlasmc.atlastp.config.Translations;
+import dev.atlasmc.atlastp.event.TeleportEvent;
+import dev.atlasmc.atlastp.history.HistoryRecord;
+import dev.atlasmc.atlastp.history.HistoryStore;
+import dev.atlasmc.atlastp.teleport.TeleportHandler;
+import dev.atlasmc.atlastp.util.MessageBuffer;
+import dev.atlasmc.atlastp.util.PlaceholderCache;
+import dev.atlasmc.atlastp.util.UserLocationCache;
 import net.kyori.adventure.text.minimessage.MiniMessage;
 import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
 import org.apache.logging.log4j.Logger;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.spongepowered.api.Sponge;
 import org.spongepowered.api.command.CommandExecutor;
 import org.spongepowered.api.command.CommandResult;
 import org.spongepowered.api.command.exception.CommandException;
 import org.spongepowered.api.command.parameter.CommandContext;
 import org.spongepowered.api.command.parameter.Parameter;
 import org.spongepowered.api.entity.living.player.server.ServerPlayer;
+import org.spongepowered.math.vector.Vector3d;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Handles the teleportation commands for the AtlasTP plugin.
  * <p>
  * Supports teleporting a player to another player or teleporting one player to another
- * by a third-party executor.
+ * by a third-party executor. With the {@code atlastp.command.tpoffline} permission, the player
+ * to teleport to can be offline, in which case the teleport goes to where they logged out.
  */
 public final class TPCommand implements CommandExecutor {
 
     /**
      * Represents the parameter for the first player.
      */
-    private static final Parameter.Value<ServerPlayer> firstParam = Parameter.player()
+    private static final Parameter.Value<UUID> firstParam = Parameter.user()
             .key("firstplayer")
             .build();
 
     /**
      * Represents the optional parameter for the second player, used for third-party teleportation.
      */
-    private static final Parameter.Value<ServerPlayer> secondParam = Parameter.player()
+    private static final Parameter.Value<UUID> secondParam = Parameter.user()
             .key("secondplayer")
             .requiredPermission("atlastp.command.tpother")
             .optional()
             .build();
 
+    /**
+     * The permission to teleport to offline players, to where they logged out.
+     */
+    private static final String OFFLINE_PERMISSION = "atlastp.command.tpoffline";
+
     /**
      * The logger
      */
@@ -45,15 +67,64 @@ public final class TPCommand implements CommandExecutor {
      */
     private final AtlasTPConfig config;
 
+    /**
+     * The translation strings by the locale of the players.
+     */
+    private final Translations translations;
+
+    /**
+     * The cache for the placeholders of the players.
+     */
+    private final PlaceholderCache placeholderCache;
+
+    /**
+     * The handler that performs the teleports.
+     */
+    private final TeleportHandler teleportHandler;
+
+    /**
+     * The buffer through which the messages to the players are sent once per tick.
+     */
+    private final MessageBuffer messages;
+
+    /**
+     * The audit history the teleports are recorded in, or {@code null} if no history is recorded.
+     */
+    private final @Nullable HistoryStore history;
+
+    /**
+     * The cache for the locations of the players, which may be offline.
+     */
+    private final UserLocationCache userLocations;
+
+    /**
+     * The pipeline, which acknowledges the commands that wait for a location to be loaded.
+     */
+    private final CommandPipeline pipeline;
+
     /**
      * Constructs a new instance of the TPCommand.
      *
-     * @param logger the logger to log the different command actions
-     * @param config the {@link AtlasTPConfig} instance used to configure the command's behavior.
+     * @param logger           the logger to log the different command actions
+     * @param config           the {@link AtlasTPConfig} instance used to configure the command's behavior.
+     * @param translations     the translation strings by the locale of the players
+     * @param placeholderCache the cache for the placeholders of the players
+     * @param teleportHandler  the handler that performs the teleports
+     * @param messages         the buffer through which the messages to the players are sent
+     * @param history          the audit history the teleports are recorded in, or {@code null}
+     * @param userLocations    the cache for the locations of the players, which may be offline
+     * @param pipeline         the pipeline, which acknowledges the commands that wait for a location
      */
-    public TPCommand(final Logger logger, final AtlasTPConfig config) {
+    public TPCommand(final Logger logger, final AtlasTPConfig config, final Translations translations, final PlaceholderCache placeholderCache, final TeleportHandler teleportHandler, final MessageBuffer messages, final @Nullable HistoryStore history, final UserLocationCache userLocations, final CommandPipeline pipeline) {
         this.logger = logger;
         this.config = config;
+        this.translations = translations;
+        this.placeholderCache = placeholderCache;
+        this.teleportHandler = teleportHandler;
+        this.messages = messages;
+        this.history = history;
+        this.userLocations = userLocations;
+        this.pipeline = pipeline;
     }
 
     /**
@@ -70,28 +141,61 @@ public final class TPCommand implements CommandExecutor {
         }
 
         // Single-player teleportation
-        final ServerPlayer player = (ServerPlayer) context.cause().root();
-        final ServerPlayer toPlayer = context.requireOne(firstParam);
+        final ServerPlayer source = (ServerPlayer) context.cause().root();
+        final UUID toPlayer = context.requireOne(firstParam);
 
-        if(player.equals(toPlayer)) {
+        if(source.uniqueId().equals(toPlayer)) {
             context.sendMessage(MiniMessage.miniMessage().deserialize(
-                    config.translationStrings().tpToSelf(),
-                    Placeholder.component("player", player.displayName().get())
+                    translations.of(source).tpToSelf(),
+                    placeholderCache.of(source).player()
             ));
             return CommandResult.success();
         }
 
-        // Teleport the executing player to the target player
-        player.user().setLocation(toPlayer.world().key(), toPlayer.position());
+        if(!canTeleportTo(context, toPlayer)) {
+            return CommandResult.success();
+        }
+
+        final UUID sourceID = source.uniqueId();
+        location(source, toPlayer).whenComplete((location, throwable) -> {
+            // The player may have left while the location was loaded
+            final ServerPlayer player = Sponge.server().player(sourceID).orElse(null);
+            if(player == null) {
+                return;
+            }
+
+            if(throwable != null) {
+                logger.error("The location of {} could not be loaded.", toPlayer, throwable);
+                messages.send(player, MiniMessage.miniMessage().deserialize(translations.of(player).tpTargetLoadFailed()));
+                return;
+            }
+
+            if(location.isEmpty()) {
+                messages.send(player, MiniMessage.miniMessage().deserialize(translations.of(player).tpTargetUnknown()));
+                return;
+            }
+
+            // Teleport the executing player to the target player, which waits for the world to be loaded if necessary
+            teleportHandler.teleport(player, location.get().world(), location.get().position(), rotationOf(toPlayer, location.get()), TeleportEvent.Reason.TP)
+                    .thenAccept(teleported -> {
+                        // Another plugin cancelled the teleport or the world could not be loaded
+                        if(!teleported) {
+                            return;
+                        }
 
-        // Send a confirmation message to the executing player
-        player.sendMessage(MiniMessage.miniMessage().deserialize(
-                config.translationStrings().tpToMessage(),
-                Placeholder.component("executor", player.displayName().get()),
-                Placeholder.component("toplayer", toPlayer.displayName().get())
-        ));
+                        // Send a confirmation message to the executing player
+                        messages.send(player, MiniMessage.miniMessage().deserialize(
+                                translations.of(player).tpToMessage(),
+                                placeholderCache.of(player).executor(),
+                                toPlayerPlaceholder(toPlayer, location.get())
+                        ));
 
-        logger.info("Teleporting {} to {}.", player.user().name(), toPlayer.user().name());
+                        logger.info("Teleporting {} to {}.", player.user().name(), location.get().name());
+                        if(history != null) {
+                            history.record(HistoryRecord.Type.TP, player.uniqueId(), toPlayer);
+                        }
+                    });
+        });
 
         return CommandResult.success();
     }
@@ -104,56 +208,142 @@ public final class TPCommand implements CommandExecutor {
      * @throws CommandException if an error occurs during execution.
      */
     private CommandResult executeTwoPlayers(final CommandContext context) throws CommandException {
-        final ServerPlayer player = context.requireOne(firstParam);
-        final ServerPlayer toPlayer = context.requireOne(secondParam);
+        final ServerPlayer source = (ServerPlayer) context.cause().root();
+        final UUID toPlayer = context.requireOne(secondParam);
 
-        if(player.equals(toPlayer)) {
-            context.sendMessage(MiniMessage.miniMessage().deserialize(
-                    config.translationStrings().tpOtherToThemselves(),
-                    Placeholder.component("player", player.displayName().get())
-            ));
+        // Only online players can be teleported, but they can be teleported to offline players
+        final Optional<ServerPlayer> onlinePlayer = Sponge.server().player(context.requireOne(firstParam));
+        if(onlinePlayer.isEmpty()) {
+            context.sendMessage(MiniMessage.miniMessage().deserialize(translations.of(source).tpTargetOffline()));
             return CommandResult.success();
         }
 
-        // Teleport the player to the target player
-        player.user().setLocation(toPlayer.world().key(), toPlayer.position());
+        final ServerPlayer target = onlinePlayer.get();
 
-        // Send a message to the executor, if applicable
-        if (config.translationStrings().tpOtherMessage() != null) {
-            context.cause().sendMessage(MiniMessage.miniMessage().deserialize(
-                    config.translationStrings().tpOtherMessage(),
-                    Placeholder.component("executor", ((ServerPlayer) context.cause().root()).displayName().get()),
-                    Placeholder.component("fromplayer", player.displayName().get()),
-                    Placeholder.component("toplayer", toPlayer.displayName().get())
+        if(target.uniqueId().equals(toPlayer)) {
+            context.sendMessage(MiniMessage.miniMessage().deserialize(
+                    translations.of(context.cause().audience()).tpOtherToThemselves(),
+                    placeholderCache.of(target).player()
             ));
+            return CommandResult.success();
         }
 
-        // Notify the teleported player, if applicable
-        if (config.translationStrings().beingTeleportedToMessage() != null) {
-            player.sendMessage(MiniMessage.miniMessage().deserialize(
-                    config.translationStrings().beingTeleportedToMessage(),
-                    Placeholder.component("executor", ((ServerPlayer) context.cause().root()).displayName().get()),
-                    Placeholder.component("fromplayer", player.displayName().get()),
-                    Placeholder.component("toplayer", toPlayer.displayName().get())
-            ));
+        if(!canTeleportTo(context, toPlayer)) {
+            return CommandResult.success();
         }
 
-        logger.info(
-                "Teleporting {} to {} (teleported by {})",
-                player.user().name(),
-                toPlayer.user().name(),
-                ((ServerPlayer) context.cause().root()).user().name()
-        );
+        final UUID sourceID = source.uniqueId();
+        final UUID targetID = target.uniqueId();
+        location(source, toPlayer).whenComplete((location, throwable) -> {
+            // The players may have left while the location was loaded
+            final ServerPlayer executor = Sponge.server().player(sourceID).orElse(null);
+            final ServerPlayer player = Sponge.server().player(targetID).orElse(null);
+            if(executor == null || player == null) {
+                return;
+            }
+
+            if(throwable != null) {
+                logger.error("The location of {} could not be loaded.", toPlayer, throwable);
+                messages.send(executor, MiniMessage.miniMessage().deserialize(translations.of(executor).tpTargetLoadFailed()));
+                return;
+            }
+
+            if(location.isEmpty()) {
+                messages.send(executor, MiniMessage.miniMessage().deserialize(translations.of(executor).tpTargetUnknown()));
+                return;
+            }
+
+            // Teleport the player to the target player, which waits for the world to be loaded if necessary
+            teleportHandler.teleport(player, location.get().world(), location.get().position(), rotationOf(toPlayer, location.get()), TeleportEvent.Reason.TP)
+                    .thenAccept(teleported -> {
+                        // Another plugin cancelled the teleport or the world could not be loaded
+                        if(!teleported) {
+                            return;
+                        }
+
+                        final TagResolver toPlayerPlaceholder = toPlayerPlaceholder(toPlayer, location.get());
+
+                        // Send a message to the executor, if applicable
+                        if (translations.of(executor).tpOtherMessage() != null) {
+                            messages.send(executor, MiniMessage.miniMessage().deserialize(
+                                    translations.of(executor).tpOtherMessage(),
+                                    placeholderCache.of(executor).executor(),
+                                    placeholderCache.of(player).fromPlayer(),
+                                    toPlayerPlaceholder
+                            ));
+                        }
+
+                        // Notify the teleported player, if applicable
+                        if (translations.of(player).beingTeleportedToMessage() != null) {
+                            messages.send(player, MiniMessage.miniMessage().deserialize(
+                                    translations.of(player).beingTeleportedToMessage(),
+                                    placeholderCache.of(executor).executor(),
+                                    placeholderCache.of(player).fromPlayer(),
+                                    toPlayerPlaceholder
+                            ));
+                        }
+
+                        logger.info(
+                                "Teleporting {} to {} (teleported by {})",
+                                player.user().name(),
+                                location.get().name(),
+                                executor.user().name()
+                        );
+                        if(history != null) {
+                            history.record(HistoryRecord.Type.TP, player.uniqueId(), toPlayer);
+                        }
+                    });
+        });
 
         return CommandResult.success();
     }
 
+    /**
+     * Retrieves the location of the player to teleport to. If it has to be loaded, the executor is
+     * acknowledged that the command is processed.
+     */
+    private CompletableFuture<Optional<UserLocationCache.UserLocation>> location(final ServerPlayer executor, final UUID toPlayer) {
+        final CompletableFuture<Optional<UserLocationCache.UserLocation>> location = userLocations.location(toPlayer);
+        if(!location.isDone()) {
+            pipeline.acknowledge(executor);
+        }
+
+        return location;
+    }
+
+    /**
+     * Checks if the executor may teleport to the player, which requires an extra permission if the player is offline.
+     * Otherwise, the executor is informed.
+     */
+    private boolean canTeleportTo(final CommandContext context, final UUID toPlayer) {
+        if(Sponge.server().player(toPlayer).isPresent() || context.cause().hasPermission(OFFLINE_PERMISSION)) {
+            return true;
+        }
+
+        context.sendMessage(MiniMessage.miniMessage().deserialize(translations.of(context.cause().audience()).tpTargetOffline()));
+        return false;
+    }
+
+    /**
+     * The teleports to online players keep the rotation of the teleported player, while the teleports to offline players
+     * take the rotation the offline player had when they logged out.
+     */
+    private static @Nullable Vector3d rotationOf(final UUID toPlayer, final UserLocationCache.UserLocation location) {
+        return Sponge.server().player(toPlayer).isPresent() ? null : location.rotation();
+    }
+
+    private TagResolver toPlayerPlaceholder(final UUID toPlayer, final UserLocationCache.UserLocation location) {
+        return Sponge.server().player(toPlayer)
+                .map(onlinePlayer -> placeholderCache.of(onlinePlayer).toPlayer())
+                .orElseGet(() -> Placeholder.unparsed("toplayer", location.name()));
+    }
+
     /**
      * Retrieves the parameter for the first player.
      *
      * @return the parameter for the first player.
      */
-    public static Parameter.Value<ServerPlayer> getFirstParam() {
+    public static Parameter.Value<UUID> getFirstParam() {
         return firstParam;
     }
 
@@ -162,7 +352,7 @@ public final class TPCommand implements CommandExecutor {
      *
      * @return the parameter for the second player.
      */
-    public static Parameter.Value<ServerPlayer> getSecondParam() {
+    public static Parameter.Value<UUID> getSecondParam() {
         return secondParam;
     }
 }
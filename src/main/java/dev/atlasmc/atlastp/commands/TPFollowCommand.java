@@ -0,0 +1,96 @@
+package dev.atlasmc.atlastp.commands;
+
+import dev.atlasmc.atlastp.config.Translations;
+import dev.atlasmc.atlastp.teleport.FollowTracker;
+import dev.atlasmc.atlastp.util.PlaceholderCache;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import org.apache.logging.log4j.Logger;
+import org.spongepowered.api.command.CommandExecutor;
+import org.spongepowered.api.command.CommandResult;
+import org.spongepowered.api.command.exception.CommandException;
+import org.spongepowered.api.command.parameter.CommandContext;
+import org.spongepowered.api.command.parameter.Parameter;
+import org.spongepowered.api.entity.living.player.server.ServerPlayer;
+
+import java.util.Optional;
+
+/**
+ * {@code /tpfollow [player]}: Follows a player, e.g. to watch them as a moderator, or stops following without a player.
+ * <p>
+ * The follower is kept near the followed player by the {@link FollowTracker}.
+ */
+public final class TPFollowCommand implements CommandExecutor {
+    private static final Parameter.Value<ServerPlayer> target = Parameter.player()
+            .key("target")
+            .optional()
+            .build();
+
+    /**
+     * The logger
+     */
+    private final Logger logger;
+
+    /**
+     * The translation strings by the locale of the players.
+     */
+    private final Translations translations;
+
+    /**
+     * The cache for the placeholders of the players.
+     */
+    private final PlaceholderCache placeholderCache;
+
+    /**
+     * The tracker that keeps the followers near the followed players.
+     */
+    private final FollowTracker followTracker;
+
+    public TPFollowCommand(final Logger logger, final Translations translations, final PlaceholderCache placeholderCache, final FollowTracker followTracker) {
+        this.logger = logger;
+        this.translations = translations;
+        this.placeholderCache = placeholderCache;
+        this.followTracker = followTracker;
+    }
+
+    public static Parameter.Value<ServerPlayer> target() {
+        return target;
+    }
+
+    @Override
+    public CommandResult execute(final CommandContext context) throws CommandException {
+        final ServerPlayer commandSender = (ServerPlayer) context.cause().root();
+        final Optional<ServerPlayer> player = context.one(target);
+
+        if(player.isEmpty()) {
+            final String followed = followTracker.unfollow(commandSender.uniqueId());
+            if(followed == null) {
+                return CommandResult.error(MiniMessage.miniMessage().deserialize(translations.of(commandSender).tpFollowNotFollowing()));
+            }
+
+            commandSender.sendMessage(MiniMessage.miniMessage().deserialize(
+                    translations.of(commandSender).tpFollowStop(),
+                    Placeholder.unparsed("toplayer", followed)
+            ));
+
+            logger.info("{} stopped following {}.", commandSender.user().name(), followed);
+
+            return CommandResult.success();
+        }
+
+        if(player.get().uniqueId().equals(commandSender.uniqueId())) {
+            return CommandResult.error(MiniMessage.miniMessage().deserialize(translations.of(commandSender).tpFollowSelf()));
+        }
+
+        followTracker.follow(commandSender, player.get());
+
+        commandSender.sendMessage(MiniMessage.miniMessage().deserialize(
+                translations.of(commandSender).tpFollowStart(),
+                placeholderCache.of(player.get()).toPlayer()
+        ));
+
+        logger.info("{} started following {}.", commandSender.user().name(), player.get().user().name());
+
+        return CommandResult.success();
+    }
+}
@@ -4,6 +4,9 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 import org.spongepowered.configurate.objectmapping.ConfigSerializable;
 import org.spongepowered.configurate.objectmapping.meta.Comment;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * The main configuration class for the AtlasTP plugin.
  * <p>
@@ -37,7 +40,14 @@ public class AtlasTPConfig {
      * It supports placeholders such as {@code <executor>}, {@code <toplayer>}, and {@code <fromplayer>},
      * which are dynamically replaced during runtime based on the command context.
      */
-    @Comment("The different translation strings for player messages.")
+    @Comment("""
+                The different translation strings for player messages.
+                
+                The translation strings of a language are loaded from "translations/<locale>.conf" in the config directory
+                (e.g. "translations/de_de.conf") when the plugin is (re)loaded, and chosen by the language setting
+                of the player's client. Missing strings, or languages without a file, fall back to the translation
+                strings of this file.
+                """)
     private @NonNull TranslationStrings translationStrings = new TranslationStrings();
 
     @Comment("""
@@ -45,9 +55,122 @@ public class AtlasTPConfig {
                 
                 This value is specified in game ticks (1/20th of a second).
                 n minutes can be calculated as "n * 60 * 20".
+                
+                It can be overridden per player with the permission option "atlastp.tpa.expire-time".
                 """)
     private long tpaExpireTime = 3 * 60 * 20;
 
+    @Comment("""
+                The maximum amount of open TPA requests a player can have sent at the same time.
+                0 means that there is no limit. A request to several players at once (e.g. /tpahere all)
+                is only sent to the players up to the limit, and the player is told how many were skipped.
+                
+                It can be overridden per player with the permission option "atlastp.tpa.max-pending".
+                """)
+    private int tpaMaxPendingRequests = 0;
+
+    @Comment("""
+                The amount of time (in ticks) the per-player values of the permission options are cached.
+                
+                Changes to the options of a player take effect after this time (or when the player rejoins).
+                """)
+    private long permissionOptionCacheTime = 30 * 20;
+
+    @Comment("""
+                The amount of time (in ticks) a world that was loaded for a teleport stays loaded without any players in it.
+                
+                This prevents that the world is loaded and unloaded over and over again.
+                0 means that these worlds are never unloaded by AtlasTP.
+                """)
+    private long worldUnloadGracePeriod = 5 * 60 * 20;
+
+    @Comment("""
+                The amount of days the history of teleports and TPA requests is kept, which can be queried with /atlastp history.
+                
+                The history is stored in "history" in the config directory.
+                0 means that no history is recorded.
+                """)
+    private int historyRetentionDays = 30;
+
+    @Comment("""
+                The amount of time (in ticks) the location of an offline player is cached after it was loaded for /tp.
+                
+                The location of an offline player is loaded from the disk, so the cache prevents loading it
+                over and over again when the player is teleported to repeatedly.
+                """)
+    private long offlineLocationCacheTime = 30 * 20;
+
+    @Comment("""
+                Whether the chunks at the destination of a TPA request are loaded while the request is pending.
+                
+                This makes accepting a request instant, but keeps a few chunks around the player that is teleported to loaded.
+                """)
+    private boolean tpaChunkPrefetch = true;
+
+    @Comment("""
+                The distance (in blocks) the followed player of /tpfollow can move before the follower is teleported to them again.
+                """)
+    private double followDistance = 16;
+
+    @Comment("""
+                The maximum amount of followers of /tpfollow that are teleported in one tick.
+                
+                The other followers are teleported in the next ticks, so that many followers can't cause a lag spike.
+                """)
+    private int followTeleportsPerTick = 5;
+
+    @Comment("""
+                Whether the teleports and TPA requests are recorded as events of the Java Flight Recorder.
+                
+                The events are only created while a recording is running, e.g. with "jcmd <pid> JFR.start".
+                """)
+    private boolean jfrEvents = true;
+
+    @Comment("""
+                The minimum duration (in milliseconds) of a teleport to be recorded by the Java Flight Recorder.
+                
+                0 records all teleports.
+                """)
+    private long jfrTeleportThreshold = 0;
+
+    @Comment("""
+                Whether the TPA commands render their messages on a worker thread instead of the server thread.
+                
+                The player gets the "commandProcessing" message right away, and the request is sent or answered
+                on one of the next ticks. Only the rendering moves off the server thread, while every command
+                costs two thread hops, a tick of latency and an extra action bar message, so this only pays off
+                with many complex placeholders in the messages.
+                """)
+    private boolean asyncCommands = false;
+
+    @Comment("""
+                The backend that stores the open TPA requests. It is only read when the server starts.
+                
+                "interned" stores the requests in arrays indexed by small player IDs, which is the fastest.
+                "map" stores them in hash maps by the UUIDs of the players.
+                Other plugins can add backends through the service dev.atlasmc.atlastp.manager.TPAManagerProvider.
+                """)
+    private @NonNull String tpaManagerBackend = "interned";
+
+    @Comment("""
+                The settings of the TPA request backend, e.g. { initial-capacity = 256 }.
+                
+                Both built-in backends support "initial-capacity", the amount of players their structures are sized for.
+                """)
+    private @NonNull Map<String, String> tpaManagerSettings = new HashMap<>();
+
+    @Comment("""
+                Whether the calls to the TPA request backend are recorded to a trace in config/atlastp/traces.
+                
+                The players in the trace are anonymized. A trace can be replayed against every backend
+                with "./gradlew replayTrace --args=\"--trace=<file>\"" to compare them with the real traffic of the server.
+                It is only read when the server starts.
+                """)
+    private boolean trafficRecording = false;
+
+    @Comment("The maximum size (in megabytes) of a traffic trace. The calls after that are not recorded.")
+    private int trafficRecordingMaxMegabytes = 64;
+
     /**
      * Retrieves the current configuration version.
      *
@@ -103,6 +226,276 @@ public class AtlasTPConfig {
         this.tpaExpireTime = tpaExpireTime;
     }
 
+    /**
+     * Retrieves the maximum amount of open TPA requests a player can have sent (0 if there is no limit)
+     *
+     * @return the maximum amount of open TPA requests
+     */
+    public int tpaMaxPendingRequests() {
+        return this.tpaMaxPendingRequests;
+    }
+
+    /**
+     * Sets the maximum amount of open TPA requests a player can have sent (0 if there is no limit)
+     *
+     * @param tpaMaxPendingRequests the maximum amount of open TPA requests
+     */
+    public void tpaMaxPendingRequests(final int tpaMaxPendingRequests) {
+        this.tpaMaxPendingRequests = tpaMaxPendingRequests;
+    }
+
+    /**
+     * Retrieves the time (in game ticks) the values of the permission options are cached
+     *
+     * @return the amount of time
+     */
+    public long permissionOptionCacheTime() {
+        return this.permissionOptionCacheTime;
+    }
+
+    /**
+     * Sets the time (in game ticks) the values of the permission options are cached
+     *
+     * @param permissionOptionCacheTime the amount of time
+     */
+    public void permissionOptionCacheTime(final long permissionOptionCacheTime) {
+        this.permissionOptionCacheTime = permissionOptionCacheTime;
+    }
+
+    /**
+     * Retrieves the time (in game ticks) a world loaded for a teleport stays loaded without players (0 if it is never unloaded)
+     *
+     * @return the amount of time
+     */
+    public long worldUnloadGracePeriod() {
+        return this.worldUnloadGracePeriod;
+    }
+
+    /**
+     * Sets the time (in game ticks) a world loaded for a teleport stays loaded without players (0 if it is never unloaded)
+     *
+     * @param worldUnloadGracePeriod the amount of time
+     */
+    public void worldUnloadGracePeriod(final long worldUnloadGracePeriod) {
+        this.worldUnloadGracePeriod = worldUnloadGracePeriod;
+    }
+
+    /**
+     * Retrieves the amount of days the history is kept (0 if no history is recorded)
+     *
+     * @return the amount of days
+     */
+    public int historyRetentionDays() {
+        return this.historyRetentionDays;
+    }
+
+    /**
+     * Sets the amount of days the history is kept (0 if no history is recorded)
+     *
+     * @param historyRetentionDays the amount of days
+     */
+    public void historyRetentionDays(final int historyRetentionDays) {
+        this.historyRetentionDays = historyRetentionDays;
+    }
+
+    /**
+     * Retrieves the time (in game ticks) the location of an offline player is cached
+     *
+     * @return the amount of time
+     */
+    public long offlineLocationCacheTime() {
+        return this.offlineLocationCacheTime;
+    }
+
+    /**
+     * Sets the time (in game ticks) the location of an offline player is cached
+     *
+     * @param offlineLocationCacheTime the amount of time
+     */
+    public void offlineLocationCacheTime(final long offlineLocationCacheTime) {
+        this.offlineLocationCacheTime = offlineLocationCacheTime;
+    }
+
+    /**
+     * Retrieves whether the chunks at the destination of a TPA request are loaded while the request is pending
+     *
+     * @return if the chunks are prefetched
+     */
+    public boolean tpaChunkPrefetch() {
+        return this.tpaChunkPrefetch;
+    }
+
+    /**
+     * Sets whether the chunks at the destination of a TPA request are loaded while the request is pending
+     *
+     * @param tpaChunkPrefetch if the chunks are prefetched
+     */
+    public void tpaChunkPrefetch(final boolean tpaChunkPrefetch) {
+        this.tpaChunkPrefetch = tpaChunkPrefetch;
+    }
+
+    /**
+     * Retrieves the distance (in blocks) the followed player of {@code /tpfollow} can move before the follower is teleported again
+     *
+     * @return the distance
+     */
+    public double followDistance() {
+        return this.followDistance;
+    }
+
+    /**
+     * Sets the distance (in blocks) the followed player of {@code /tpfollow} can move before the follower is teleported again
+     *
+     * @param followDistance the distance
+     */
+    public void followDistance(final double followDistance) {
+        this.followDistance = followDistance;
+    }
+
+    /**
+     * Retrieves the maximum amount of followers of {@code /tpfollow} that are teleported in one tick
+     *
+     * @return the amount of followers
+     */
+    public int followTeleportsPerTick() {
+        return this.followTeleportsPerTick;
+    }
+
+    /**
+     * Sets the maximum amount of followers of {@code /tpfollow} that are teleported in one tick
+     *
+     * @param followTeleportsPerTick the amount of followers
+     */
+    public void followTeleportsPerTick(final int followTeleportsPerTick) {
+        this.followTeleportsPerTick = followTeleportsPerTick;
+    }
+
+    /**
+     * Retrieves whether the teleports and TPA requests are recorded by the Java Flight Recorder
+     *
+     * @return if the events are recorded
+     */
+    public boolean jfrEvents() {
+        return this.jfrEvents;
+    }
+
+    /**
+     * Sets whether the teleports and TPA requests are recorded by the Java Flight Recorder
+     *
+     * @param jfrEvents if the events are recorded
+     */
+    public void jfrEvents(final boolean jfrEvents) {
+        this.jfrEvents = jfrEvents;
+    }
+
+    /**
+     * Retrieves the minimum duration (in milliseconds) of a teleport to be recorded by the Java Flight Recorder
+     *
+     * @return the minimum duration
+     */
+    public long jfrTeleportThreshold() {
+        return this.jfrTeleportThreshold;
+    }
+
+    /**
+     * Sets the minimum duration (in milliseconds) of a teleport to be recorded by the Java Flight Recorder
+     *
+     * @param jfrTeleportThreshold the minimum duration
+     */
+    public void jfrTeleportThreshold(final long jfrTeleportThreshold) {
+        this.jfrTeleportThreshold = jfrTeleportThreshold;
+    }
+
+    /**
+     * Retrieves whether the TPA commands render their messages on a worker thread
+     *
+     * @return if the commands are executed in stages
+     */
+    public boolean asyncCommands() {
+        return this.asyncCommands;
+    }
+
+    /**
+     * Sets whether the TPA commands render their messages on a worker thread
+     *
+     * @param asyncCommands if the commands are executed in stages
+     */
+    public void asyncCommands(final boolean asyncCommands) {
+        this.asyncCommands = asyncCommands;
+    }
+
+    /**
+     * Retrieves the name of the backend that stores the open TPA requests
+     *
+     * @return the name of the backend
+     */
+    public @NonNull String tpaManagerBackend() {
+        return this.tpaManagerBackend;
+    }
+
+    /**
+     * Sets the name of the backend that stores the open TPA requests
+     *
+     * @param tpaManagerBackend the name of the backend
+     */
+    public void tpaManagerBackend(final @NonNull String tpaManagerBackend) {
+        this.tpaManagerBackend = tpaManagerBackend;
+    }
+
+    /**
+     * Retrieves the settings of the backend that stores the open TPA requests
+     *
+     * @return the settings by their key
+     */
+    public @NonNull Map<String, String> tpaManagerSettings() {
+        return this.tpaManagerSettings;
+    }
+
+    /**
+     * Sets the settings of the backend that stores the open TPA requests
+     *
+     * @param tpaManagerSettings the settings by their key
+     */
+    public void tpaManagerSettings(final @NonNull Map<String, String> tpaManagerSettings) {
+        this.tpaManagerSettings = tpaManagerSettings;
+    }
+
+    /**
+     * Retrieves whether the calls to the TPA request backend are recorded to a trace
+     *
+     * @return if the calls are recorded
+     */
+    public boolean trafficRecording() {
+        return this.trafficRecording;
+    }
+
+    /**
+     * Sets whether the calls to the TPA request backend are recorded to a trace
+     *
+     * @param trafficRecording if the calls are recorded
+     */
+    public void trafficRecording(final boolean trafficRecording) {
+        this.trafficRecording = trafficRecording;
+    }
+
+    /**
+     * Retrieves the maximum size (in megabytes) of a traffic trace
+     *
+     * @return the maximum size
+     */
+    public int trafficRecordingMaxMegabytes() {
+        return this.trafficRecordingMaxMegabytes;
+    }
+
+    /**
+     * Sets the maximum size (in megabytes) of a traffic trace
+     *
+     * @param trafficRecordingMaxMegabytes the maximum size
+     */
+    public void trafficRecordingMaxMegabytes(final int trafficRecordingMaxMegabytes) {
+        this.trafficRecordingMaxMegabytes = trafficRecordingMaxMegabytes;
+    }
+
     /**
      * A nested class that defines customizable messages sent to players.
      * <p>
@@ -181,9 +574,30 @@ public class AtlasTPConfig {
                 """)
         private String tpOtherToThemselves = "You cannot teleport the player <player> to themselves.";
 
+        @Comment("""
+                Message to the player that is teleported into a world that has to be loaded first.
+                
+                Allows for <world> (Key of the world)
+                """)
+        private String worldLoading = "Loading the world <world>. You will be teleported once it is loaded.";
+
+        @Comment("""
+                Message to the player that should be teleported into a world that could not be loaded.
+                
+                Allows for <world> (Key of the world)
+                """)
+        private String worldLoadFailed = "The world <world> could not be loaded.";
+
         @Comment("Message to the player if they try to send a teleport request to themselves with the /tpa command.")
         private String tpaToSelf = "You can't send a teleport request to yourself! Try sending a request to someone else.";
 
+        @Comment("""
+                Message to the player if they have too many open TPA requests.
+                
+                Allows for <limit> (The maximum amount of open TPA requests of the player)
+                """)
+        private String tpaLimitReached = "You have too many open teleport requests (<limit>). Wait until they are answered or expire.";
+
         @Comment("""
                 Message to the player that sends the TPA request.
                 
@@ -274,31 +688,293 @@ public class AtlasTPConfig {
                 """)
         private String tpaDeclineReceiver = "You declined the TPA request from <fromplayer>.";
 
-        /**
-         * Retrieves the message for {@code /tp <player>}.
-         *
-         * @return the teleport-to message template.
-         */
-        public String tpToMessage() {
-            return this.tpToMessage;
-        }
+        @Comment("""
+                Message to the player if the receiver does not accept their teleport requests.
+                
+                Allows for <fromplayer> (Name of the player that sends the request)
+                and <toplayer> (Name of the player that should receive request)
+                """)
+        private String tpaBlocked = "<toplayer> does not accept teleport requests from you.";
 
-        /**
-         * Sets the message for {@code /tp <player>}.
-         *
-         * @param tpToMessage the message template to set.
-         */
-        public void tpToMessage(final String tpToMessage) {
-            this.tpToMessage = tpToMessage;
-        }
+        @Comment("""
+                Message to the player that blocks teleport requests from another player with /tpblock.
+                
+                Allows for <player> (Name of the player that is blocked)
+                """)
+        private String tpBlockAdded = "You no longer receive teleport requests from <player>.";
 
-        /**
-         * Retrieves the message for {@code /tp <fromplayer> <toplayer>}.
-         *
-         * @return the teleport-other message template.
-         */
-        public String tpOtherMessage() {
-            return this.tpOtherMessage;
+        @Comment("""
+                Message to the player if they try to block a player that is already blocked.
+                
+                Allows for <player> (Name of the player that is blocked)
+                """)
+        private String tpBlockAlreadyBlocked = "You already blocked teleport requests from <player>.";
+
+        @Comment("""
+                Message to the player that unblocks teleport requests from another player with /tpunblock.
+                
+                Allows for <player> (Name of the player that is unblocked)
+                """)
+        private String tpUnblockRemoved = "You receive teleport requests from <player> again.";
+
+        @Comment("""
+                Message to the player if they try to unblock a player that is not blocked.
+                
+                Allows for <player> (Name of the player that should be unblocked)
+                """)
+        private String tpUnblockNotBlocked = "You have not blocked teleport requests from <player>.";
+
+        @Comment("Message to the player that turns off teleport requests with /tptoggle.")
+        private String tpToggleOff = "You no longer receive any teleport requests.";
+
+        @Comment("Message to the player that turns on teleport requests with /tptoggle.")
+        private String tpToggleOn = "You receive teleport requests again.";
+
+        @Comment("""
+                Header of the list of pending TPA requests of /atlastp requests.
+                
+                Allows for <count> (Amount of listed requests), <page> (Current page)
+                and <pages> (Amount of pages)
+                """)
+        private String adminRequestsHeader = "<gold>Pending TPA requests (<count>), page <page>/<pages>:";
+
+        @Comment("""
+                Line of a pending TPA request in /atlastp requests.
+                
+                Allows for <sender> (Name of the player that sent the request), <receiver> (Name of the player that received the request),
+                <direction> (Direction of the teleport) and <remaining> (Seconds until the request expires)
+                """)
+        private String adminRequestsEntry = "<gray><sender> -> <receiver> <dark_gray>(<direction>, expires in <remaining>s)";
+
+        @Comment("Message of /atlastp requests if there are no pending TPA requests on the page.")
+        private String adminRequestsEmpty = "<gray>There are no pending TPA requests.";
+
+        @Comment("""
+                Summary of /atlastp memory.
+                
+                Allows for <pending> (Amount of pending TPA requests)
+                and <scheduled> (Amount of scheduled expiry tasks)
+                """)
+        private String adminMemorySummary = "<gold><pending> pending TPA requests, <scheduled> scheduled expiry tasks:";
+
+        @Comment("""
+                Line of a structure in /atlastp memory.
+                
+                Allows for <structure> (Name of the structure), <entries> (Amount of entries),
+                <buckets> (Amount of buckets) and <bytes> (Estimated retained bytes)
+                """)
+        private String adminMemoryStructure = "<gray><structure>: <entries> entries, <buckets> buckets, ~<bytes> bytes";
+
+        @Comment("""
+                Message of /atlastp dump when the dump was written.
+                
+                Allows for <file> (Path of the dump)
+                """)
+        private String adminDumpWritten = "<gray>The state of AtlasTP was dumped to <file>.";
+
+        @Comment("""
+                Message of /atlastp dump when the dump could not be written.
+                
+                Allows for <error> (Message of the error)
+                """)
+        private String adminDumpFailed = "<red>The state of AtlasTP could not be dumped: <error>";
+
+        @Comment("""
+                Message that replaces the same message sent multiple times to a player at once.
+                
+                Allows for <message> (The repeated message)
+                and <count> (How often the message was sent)
+                """)
+        private String messageRepeated = "<message> <dark_gray>(x<count>)";
+
+        @Comment("""
+                Message to the sender if multiple of their TPA requests expired at once.
+                
+                Allows for <count> (Amount of expired requests)
+                """)
+        private String tpaExpireSenderSummary = "<count> of your teleport requests expired.";
+
+        @Comment("""
+                Message to the receiver if multiple TPA requests to them expired at once.
+                
+                Allows for <count> (Amount of expired requests)
+                """)
+        private String tpaExpireReceiverSummary = "<count> teleport requests to you expired.";
+
+        @Comment("""
+                Header of the history of a player of /atlastp history.
+                
+                Allows for <player> (Name of the player), <count> (Amount of found entries)
+                and <shown> (Amount of shown entries)
+                """)
+        private String adminHistoryHeader = "<gold>History of <player> (<shown> of <count> entries):";
+
+        @Comment("""
+                Line of an entry in /atlastp history.
+                
+                Allows for <time> (Time of the action), <type> (Type of the action),
+                <player> (Name of the player that performed the action) and <other> (Name of the other player of the action)
+                """)
+        private String adminHistoryEntry = "<dark_gray><time> <gray><type>: <player> -> <other>";
+
+        @Comment("""
+                Message of /atlastp history when there are no entries in the time range.
+                
+                Allows for <player> (Name of the player)
+                """)
+        private String adminHistoryEmpty = "<gray>There is no history of <player> in this time range.";
+
+        @Comment("""
+                Message of /atlastp history when a time could not be read.
+                
+                Allows for <input> (The time that could not be read)
+                """)
+        private String adminHistoryInvalidTime = "<red><input> is not a time. Use a duration like 2h or a time like 2024-01-31T20:00.";
+
+        @Comment("Message of /atlastp history when no history is recorded.")
+        private String adminHistoryDisabled = "<red>No history is recorded, as historyRetentionDays is 0.";
+
+        @Comment("""
+                Message of /atlastp history when the history could not be read.
+                
+                Allows for <error> (Message of the error)
+                """)
+        private String adminHistoryFailed = "<red>The history could not be read: <error>";
+
+        @Comment("""
+                Line of /atlastp memory about the blocking IO of AtlasTP (e.g. dumps and the history).
+                
+                Allows for <inflight> (Amount of IO tasks that are running or waiting)
+                and <completed> (Amount of finished IO tasks)
+                """)
+        private String adminMemoryIo = "<gray>IO tasks: <inflight> in flight, <completed> completed";
+
+        @Comment("""
+                Message of /tp when a player is offline, but has to be online.
+                
+                Only players with the permission atlastp.command.tpoffline can teleport to offline players,
+                and only online players can be teleported.
+                """)
+        private String tpTargetOffline = "<red>That player is not online.";
+
+        @Comment("Message of /tp when the offline player to teleport to has no stored location.")
+        private String tpTargetUnknown = "<red>That player has never been on this server.";
+
+        @Comment("""
+                Message to the player that sends a TPA request to several players at once.
+                
+                Allows for <fromplayer> (Name of the player that sends the requests)
+                and <count> (The amount of players that receive a request)
+                """)
+        private String tpaSendManyMessage = "Sending teleport requests to <count> players.";
+
+        @Comment("""
+                Message to the player that sends a TPAHere request to several players at once.
+                
+                Allows for <fromplayer> (Name of the player that sends the requests)
+                and <count> (The amount of players that receive a request)
+                """)
+        private String tpaHereSendManyMessage = "Sending teleport requests to <count> players (they -> you).";
+
+        @Comment("Message to the player if none of the players could receive their teleport request, e.g. because nobody else is online.")
+        private String tpaNoReceivers = "There is nobody to send a teleport request to.";
+
+        @Comment("""
+                Message to the player if the destination of their teleport is in a no-teleport region.
+                
+                Allows for <region> (The name of the region)
+                """)
+        private String tpRegionBlocked = "You can't teleport into <region>.";
+
+        @Comment("""
+                Message to the player if their teleport into a no-teleport region was redirected.
+                
+                Allows for <region> (The name of the region)
+                """)
+        private String tpRegionRedirected = "Teleports into <region> are redirected.";
+
+        @Comment("""
+                Message in the action bar of the player while their command is processed, if "asyncCommands" is enabled.
+                An empty message is not sent.
+                """)
+        private String commandProcessing = "<gray>Processing...";
+
+        @Comment("""
+                Message of /tpfollow <player> when the player starts following.
+                
+                Allows for <toplayer> (Name of the followed player)
+                """)
+        private String tpFollowStart = "You are now following <toplayer>. Use /tpfollow to stop.";
+
+        @Comment("""
+                Message of /tpfollow when the player stops following.
+                
+                Allows for <toplayer> (Name of the followed player)
+                """)
+        private String tpFollowStop = "You stopped following <toplayer>.";
+
+        @Comment("Message of /tpfollow when the player is not following anyone.")
+        private String tpFollowNotFollowing = "<red>You are not following anyone.";
+
+        @Comment("Message of /tpfollow <player> when the player tries to follow themselves.")
+        private String tpFollowSelf = "<red>You can't follow yourself.";
+
+        @Comment("""
+                Message to the follower when following ended, because one of the players left or changed the world.
+                
+                Allows for <toplayer> (Name of the followed player)
+                """)
+        private String tpFollowEnded = "<gray>You are no longer following <toplayer>.";
+
+        @Comment("""
+                Message to the receiver when the teleport request was accepted, but the teleport was cancelled.
+                The request stays open, so that it can be accepted again.
+                
+                Allows for <fromplayer> (Name of the player that has sent the request)
+                and <toplayer> (Name of the player that receives request)
+                """)
+        private String tpaAcceptFailed = "The teleport for the TPA request from <fromplayer> is not possible right now. The request is still open.";
+
+        @Comment("Message to a player if their command failed after it was processed, if \"asyncCommands\" is enabled.")
+        private String commandFailed = "Your command could not be executed, please try again.";
+
+        @Comment("""
+                Message to the player that sends a request to several players at once, if their limit of open TPA requests
+                was reached before every player got a request.
+                
+                Allows for <limit> (The maximum amount of open TPA requests of the player)
+                and <skipped> (The amount of players that did not get a request)
+                """)
+        private String tpaLimitSkipped = "You reached your limit of <limit> open teleport requests, so <skipped> players did not get a request.";
+
+        @Comment("Message of /tp when the stored location of the offline player to teleport to could not be loaded.")
+        private String tpTargetLoadFailed = "<red>The location of that player could not be loaded, please try again.";
+
+        /**
+         * Retrieves the message for {@code /tp <player>}.
+         *
+         * @return the teleport-to message template.
+         */
+        public String tpToMessage() {
+            return this.tpToMessage;
+        }
+
+        /**
+         * Sets the message for {@code /tp <player>}.
+         *
+         * @param tpToMessage the message template to set.
+         */
+        public void tpToMessage(final String tpToMessage) {
+            this.tpToMessage = tpToMessage;
+        }
+
+        /**
+         * Retrieves the message for {@code /tp <fromplayer> <toplayer>}.
+         *
+         * @return the teleport-other message template.
+         */
+        public String tpOtherMessage() {
+            return this.tpOtherMessage;
         }
 
         /**
@@ -364,6 +1040,42 @@ public class AtlasTPConfig {
             this.tpOtherToThemselves = tpOtherToThemselves;
         }
 
+        /**
+         * Retrieves the message sent to a player that is teleported into a world that has to be loaded first.
+         *
+         * @return the message template.
+         */
+        public String worldLoading() {
+            return this.worldLoading;
+        }
+
+        /**
+         * Sets the message sent to a player that is teleported into a world that has to be loaded first.
+         *
+         * @param worldLoading the message template.
+         */
+        public void worldLoading(final String worldLoading) {
+            this.worldLoading = worldLoading;
+        }
+
+        /**
+         * Retrieves the error message sent to a player that should be teleported into a world that could not be loaded.
+         *
+         * @return the error message template.
+         */
+        public String worldLoadFailed() {
+            return this.worldLoadFailed;
+        }
+
+        /**
+         * Sets the error message sent to a player that should be teleported into a world that could not be loaded.
+         *
+         * @param worldLoadFailed the error message template.
+         */
+        public void worldLoadFailed(final String worldLoadFailed) {
+            this.worldLoadFailed = worldLoadFailed;
+        }
+
         /**
          * Retrieves the error message sent to a player if they try to send a teleport request to themselves.
          *
@@ -382,6 +1094,24 @@ public class AtlasTPConfig {
             this.tpaToSelf = tpaToSelf;
         }
 
+        /**
+         * Retrieves the error message sent to a player if they have too many open TPA requests.
+         *
+         * @return the error message template.
+         */
+        public String tpaLimitReached() {
+            return this.tpaLimitReached;
+        }
+
+        /**
+         * Sets the error message sent to a player if they have too many open TPA requests.
+         *
+         * @param tpaLimitReached the error message template.
+         */
+        public void tpaLimitReached(final String tpaLimitReached) {
+            this.tpaLimitReached = tpaLimitReached;
+        }
+
         /**
          * Retrieves the message sent to the sender when they send a TPA request.
          *
@@ -579,5 +1309,743 @@ public class AtlasTPConfig {
         public void tpaDeclineReceiver(final String tpaDeclineReceiver) {
             this.tpaDeclineReceiver = tpaDeclineReceiver;
         }
+
+        /**
+         * Retrieves the error message sent to a player if the receiver does not accept their teleport requests.
+         *
+         * @return the error message template.
+         */
+        public String tpaBlocked() {
+            return this.tpaBlocked;
+        }
+
+        /**
+         * Sets the error message sent to a player if the receiver does not accept their teleport requests.
+         *
+         * @param tpaBlocked the error message template.
+         */
+        public void tpaBlocked(final String tpaBlocked) {
+            this.tpaBlocked = tpaBlocked;
+        }
+
+        /**
+         * Retrieves the message sent to a player that blocks teleport requests from another player.
+         *
+         * @return the message template.
+         */
+        public String tpBlockAdded() {
+            return this.tpBlockAdded;
+        }
+
+        /**
+         * Sets the message sent to a player that blocks teleport requests from another player.
+         *
+         * @param tpBlockAdded the message template.
+         */
+        public void tpBlockAdded(final String tpBlockAdded) {
+            this.tpBlockAdded = tpBlockAdded;
+        }
+
+        /**
+         * Retrieves the error message sent to a player if they try to block a player that is already blocked.
+         *
+         * @return the error message template.
+         */
+        public String tpBlockAlreadyBlocked() {
+            return this.tpBlockAlreadyBlocked;
+        }
+
+        /**
+         * Sets the error message sent to a player if they try to block a player that is already blocked.
+         *
+         * @param tpBlockAlreadyBlocked the error message template.
+         */
+        public void tpBlockAlreadyBlocked(final String tpBlockAlreadyBlocked) {
+            this.tpBlockAlreadyBlocked = tpBlockAlreadyBlocked;
+        }
+
+        /**
+         * Retrieves the message sent to a player that unblocks teleport requests from another player.
+         *
+         * @return the message template.
+         */
+        public String tpUnblockRemoved() {
+            return this.tpUnblockRemoved;
+        }
+
+        /**
+         * Sets the message sent to a player that unblocks teleport requests from another player.
+         *
+         * @param tpUnblockRemoved the message template.
+         */
+        public void tpUnblockRemoved(final String tpUnblockRemoved) {
+            this.tpUnblockRemoved = tpUnblockRemoved;
+        }
+
+        /**
+         * Retrieves the error message sent to a player if they try to unblock a player that is not blocked.
+         *
+         * @return the error message template.
+         */
+        public String tpUnblockNotBlocked() {
+            return this.tpUnblockNotBlocked;
+        }
+
+        /**
+         * Sets the error message sent to a player if they try to unblock a player that is not blocked.
+         *
+         * @param tpUnblockNotBlocked the error message template.
+         */
+        public void tpUnblockNotBlocked(final String tpUnblockNotBlocked) {
+            this.tpUnblockNotBlocked = tpUnblockNotBlocked;
+        }
+
+        /**
+         * Retrieves the message sent to a player that turns off teleport requests.
+         *
+         * @return the message template.
+         */
+        public String tpToggleOff() {
+            return this.tpToggleOff;
+        }
+
+        /**
+         * Sets the message sent to a player that turns off teleport requests.
+         *
+         * @param tpToggleOff the message template.
+         */
+        public void tpToggleOff(final String tpToggleOff) {
+            this.tpToggleOff = tpToggleOff;
+        }
+
+        /**
+         * Retrieves the message sent to a player that turns on teleport requests.
+         *
+         * @return the message template.
+         */
+        public String tpToggleOn() {
+            return this.tpToggleOn;
+        }
+
+        /**
+         * Sets the message sent to a player that turns on teleport requests.
+         *
+         * @param tpToggleOn the message template.
+         */
+        public void tpToggleOn(final String tpToggleOn) {
+            this.tpToggleOn = tpToggleOn;
+        }
+
+        /**
+         * Retrieves the header of the list of pending TPA requests.
+         *
+         * @return the message template.
+         */
+        public String adminRequestsHeader() {
+            return this.adminRequestsHeader;
+        }
+
+        /**
+         * Sets the header of the list of pending TPA requests.
+         *
+         * @param adminRequestsHeader the message template.
+         */
+        public void adminRequestsHeader(final String adminRequestsHeader) {
+            this.adminRequestsHeader = adminRequestsHeader;
+        }
+
+        /**
+         * Retrieves the line of a pending TPA request in the list of pending TPA requests.
+         *
+         * @return the message template.
+         */
+        public String adminRequestsEntry() {
+            return this.adminRequestsEntry;
+        }
+
+        /**
+         * Sets the line of a pending TPA request in the list of pending TPA requests.
+         *
+         * @param adminRequestsEntry the message template.
+         */
+        public void adminRequestsEntry(final String adminRequestsEntry) {
+            this.adminRequestsEntry = adminRequestsEntry;
+        }
+
+        /**
+         * Retrieves the message sent if there are no pending TPA requests on the page.
+         *
+         * @return the message template.
+         */
+        public String adminRequestsEmpty() {
+            return this.adminRequestsEmpty;
+        }
+
+        /**
+         * Sets the message sent if there are no pending TPA requests on the page.
+         *
+         * @param adminRequestsEmpty the message template.
+         */
+        public void adminRequestsEmpty(final String adminRequestsEmpty) {
+            this.adminRequestsEmpty = adminRequestsEmpty;
+        }
+
+        /**
+         * Retrieves the summary of the memory report.
+         *
+         * @return the message template.
+         */
+        public String adminMemorySummary() {
+            return this.adminMemorySummary;
+        }
+
+        /**
+         * Sets the summary of the memory report.
+         *
+         * @param adminMemorySummary the message template.
+         */
+        public void adminMemorySummary(final String adminMemorySummary) {
+            this.adminMemorySummary = adminMemorySummary;
+        }
+
+        /**
+         * Retrieves the line of a structure in the memory report.
+         *
+         * @return the message template.
+         */
+        public String adminMemoryStructure() {
+            return this.adminMemoryStructure;
+        }
+
+        /**
+         * Sets the line of a structure in the memory report.
+         *
+         * @param adminMemoryStructure the message template.
+         */
+        public void adminMemoryStructure(final String adminMemoryStructure) {
+            this.adminMemoryStructure = adminMemoryStructure;
+        }
+
+        /**
+         * Retrieves the message sent when the state dump was written.
+         *
+         * @return the message template.
+         */
+        public String adminDumpWritten() {
+            return this.adminDumpWritten;
+        }
+
+        /**
+         * Sets the message sent when the state dump was written.
+         *
+         * @param adminDumpWritten the message template.
+         */
+        public void adminDumpWritten(final String adminDumpWritten) {
+            this.adminDumpWritten = adminDumpWritten;
+        }
+
+        /**
+         * Retrieves the message sent when the state dump could not be written.
+         *
+         * @return the message template.
+         */
+        public String adminDumpFailed() {
+            return this.adminDumpFailed;
+        }
+
+        /**
+         * Sets the message sent when the state dump could not be written.
+         *
+         * @param adminDumpFailed the message template.
+         */
+        public void adminDumpFailed(final String adminDumpFailed) {
+            this.adminDumpFailed = adminDumpFailed;
+        }
+
+        /**
+         * Retrieves the message that replaces the same message sent multiple times at once.
+         *
+         * @return the message template.
+         */
+        public String messageRepeated() {
+            return this.messageRepeated;
+        }
+
+        /**
+         * Sets the message that replaces the same message sent multiple times at once.
+         *
+         * @param messageRepeated the message template.
+         */
+        public void messageRepeated(final String messageRepeated) {
+            this.messageRepeated = messageRepeated;
+        }
+
+        /**
+         * Retrieves the message sent to the sender when multiple of their TPA requests expired at once.
+         *
+         * @return the message template.
+         */
+        public String tpaExpireSenderSummary() {
+            return this.tpaExpireSenderSummary;
+        }
+
+        /**
+         * Sets the message sent to the sender when multiple of their TPA requests expired at once.
+         *
+         * @param tpaExpireSenderSummary the message template.
+         */
+        public void tpaExpireSenderSummary(final String tpaExpireSenderSummary) {
+            this.tpaExpireSenderSummary = tpaExpireSenderSummary;
+        }
+
+        /**
+         * Retrieves the message sent to the receiver when multiple TPA requests to them expired at once.
+         *
+         * @return the message template.
+         */
+        public String tpaExpireReceiverSummary() {
+            return this.tpaExpireReceiverSummary;
+        }
+
+        /**
+         * Sets the message sent to the receiver when multiple TPA requests to them expired at once.
+         *
+         * @param tpaExpireReceiverSummary the message template.
+         */
+        public void tpaExpireReceiverSummary(final String tpaExpireReceiverSummary) {
+            this.tpaExpireReceiverSummary = tpaExpireReceiverSummary;
+        }
+
+        /**
+         * Retrieves the header of the history of a player.
+         *
+         * @return the message template.
+         */
+        public String adminHistoryHeader() {
+            return this.adminHistoryHeader;
+        }
+
+        /**
+         * Sets the header of the history of a player.
+         *
+         * @param adminHistoryHeader the message template.
+         */
+        public void adminHistoryHeader(final String adminHistoryHeader) {
+            this.adminHistoryHeader = adminHistoryHeader;
+        }
+
+        /**
+         * Retrieves the line of an entry in the history of a player.
+         *
+         * @return the message template.
+         */
+        public String adminHistoryEntry() {
+            return this.adminHistoryEntry;
+        }
+
+        /**
+         * Sets the line of an entry in the history of a player.
+         *
+         * @param adminHistoryEntry the message template.
+         */
+        public void adminHistoryEntry(final String adminHistoryEntry) {
+            this.adminHistoryEntry = adminHistoryEntry;
+        }
+
+        /**
+         * Retrieves the message sent when there is no history in the time range.
+         *
+         * @return the message template.
+         */
+        public String adminHistoryEmpty() {
+            return this.adminHistoryEmpty;
+        }
+
+        /**
+         * Sets the message sent when there is no history in the time range.
+         *
+         * @param adminHistoryEmpty the message template.
+         */
+        public void adminHistoryEmpty(final String adminHistoryEmpty) {
+            this.adminHistoryEmpty = adminHistoryEmpty;
+        }
+
+        /**
+         * Retrieves the message sent when a time of the history command is invalid.
+         *
+         * @return the message template.
+         */
+        public String adminHistoryInvalidTime() {
+            return this.adminHistoryInvalidTime;
+        }
+
+        /**
+         * Sets the message sent when a time of the history command is invalid.
+         *
+         * @param adminHistoryInvalidTime the message template.
+         */
+        public void adminHistoryInvalidTime(final String adminHistoryInvalidTime) {
+            this.adminHistoryInvalidTime = adminHistoryInvalidTime;
+        }
+
+        /**
+         * Retrieves the message sent when no history is recorded.
+         *
+         * @return the message template.
+         */
+        public String adminHistoryDisabled() {
+            return this.adminHistoryDisabled;
+        }
+
+        /**
+         * Sets the message sent when no history is recorded.
+         *
+         * @param adminHistoryDisabled the message template.
+         */
+        public void adminHistoryDisabled(final String adminHistoryDisabled) {
+            this.adminHistoryDisabled = adminHistoryDisabled;
+        }
+
+        /**
+         * Retrieves the message sent when the history could not be read.
+         *
+         * @return the message template.
+         */
+        public String adminHistoryFailed() {
+            return this.adminHistoryFailed;
+        }
+
+        /**
+         * Sets the message sent when the history could not be read.
+         *
+         * @param adminHistoryFailed the message template.
+         */
+        public void adminHistoryFailed(final String adminHistoryFailed) {
+            this.adminHistoryFailed = adminHistoryFailed;
+        }
+
+        /**
+         * Retrieves the line about the IO tasks in the memory report.
+         *
+         * @return the message template.
+         */
+        public String adminMemoryIo() {
+            return this.adminMemoryIo;
+        }
+
+        /**
+         * Sets the line about the IO tasks in the memory report.
+         *
+         * @param adminMemoryIo the message template.
+         */
+        public void adminMemoryIo(final String adminMemoryIo) {
+            this.adminMemoryIo = adminMemoryIo;
+        }
+
+        /**
+         * Retrieves the message sent when a player of /tp is not online.
+         *
+         * @return the message template.
+         */
+        public String tpTargetOffline() {
+            return this.tpTargetOffline;
+        }
+
+        /**
+         * Sets the message sent when a player of /tp is not online.
+         *
+         * @param tpTargetOffline the message template.
+         */
+        public void tpTargetOffline(final String tpTargetOffline) {
+            this.tpTargetOffline = tpTargetOffline;
+        }
+
+        /**
+         * Retrieves the message sent when the offline player of /tp has no stored location.
+         *
+         * @return the message template.
+         */
+        public String tpTargetUnknown() {
+            return this.tpTargetUnknown;
+        }
+
+        /**
+         * Sets the message sent when the offline player of /tp has no stored location.
+         *
+         * @param tpTargetUnknown the message template.
+         */
+        public void tpTargetUnknown(final String tpTargetUnknown) {
+            this.tpTargetUnknown = tpTargetUnknown;
+        }
+
+        /**
+         * Retrieves the message sent to the sender when they send a TPA request to several players.
+         *
+         * @return the message template.
+         */
+        public String tpaSendManyMessage() {
+            return this.tpaSendManyMessage;
+        }
+
+        /**
+         * Sets the message sent to the sender when they send a TPA request to several players.
+         *
+         * @param tpaSendManyMessage the message template.
+         */
+        public void tpaSendManyMessage(final String tpaSendManyMessage) {
+            this.tpaSendManyMessage = tpaSendManyMessage;
+        }
+
+        /**
+         * Retrieves the message sent to the sender when they send a TPAHere request to several players.
+         *
+         * @return the message template.
+         */
+        public String tpaHereSendManyMessage() {
+            return this.tpaHereSendManyMessage;
+        }
+
+        /**
+         * Sets the message sent to the sender when they send a TPAHere request to several players.
+         *
+         * @param tpaHereSendManyMessage the message template.
+         */
+        public void tpaHereSendManyMessage(final String tpaHereSendManyMessage) {
+            this.tpaHereSendManyMessage = tpaHereSendManyMessage;
+        }
+
+        /**
+         * Retrieves the error message sent to a player if none of the players could receive their teleport request.
+         *
+         * @return the message template.
+         */
+        public String tpaNoReceivers() {
+            return this.tpaNoReceivers;
+        }
+
+        /**
+         * Sets the error message sent to a player if none of the players could receive their teleport request.
+         *
+         * @param tpaNoReceivers the message template.
+         */
+        public void tpaNoReceivers(final String tpaNoReceivers) {
+            this.tpaNoReceivers = tpaNoReceivers;
+        }
+
+        /**
+         * Retrieves the message sent to a player if the destination of their teleport is in a no-teleport region.
+         *
+         * @return the message template.
+         */
+        public String tpRegionBlocked() {
+            return this.tpRegionBlocked;
+        }
+
+        /**
+         * Sets the message sent to a player if the destination of their teleport is in a no-teleport region.
+         *
+         * @param tpRegionBlocked the message template.
+         */
+        public void tpRegionBlocked(final String tpRegionBlocked) {
+            this.tpRegionBlocked = tpRegionBlocked;
+        }
+
+        /**
+         * Retrieves the message sent to a player if their teleport into a no-teleport region was redirected.
+         *
+         * @return the message template.
+         */
+        public String tpRegionRedirected() {
+            return this.tpRegionRedirected;
+        }
+
+        /**
+         * Sets the message sent to a player if their teleport into a no-teleport region was redirected.
+         *
+         * @param tpRegionRedirected the message template.
+         */
+        public void tpRegionRedirected(final String tpRegionRedirected) {
+            this.tpRegionRedirected = tpRegionRedirected;
+        }
+
+        /**
+         * Retrieves the message shown to a player while their command is processed.
+         *
+         * @return the message template.
+         */
+        public String commandProcessing() {
+            return this.commandProcessing;
+        }
+
+        /**
+         * Sets the message shown to a player while their command is processed.
+         *
+         * @param commandProcessing the message template.
+         */
+        public void commandProcessing(final String commandProcessing) {
+            this.commandProcessing = commandProcessing;
+        }
+
+        /**
+         * Retrieves the message of {@code /tpfollow <player>} when the player starts following.
+         *
+         * @return the message template.
+         */
+        public String tpFollowStart() {
+            return this.tpFollowStart;
+        }
+
+        /**
+         * Sets the message of {@code /tpfollow <player>} when the player starts following.
+         *
+         * @param tpFollowStart the message template.
+         */
+        public void tpFollowStart(final String tpFollowStart) {
+            this.tpFollowStart = tpFollowStart;
+        }
+
+        /**
+         * Retrieves the message of {@code /tpfollow} when the player stops following.
+         *
+         * @return the message template.
+         */
+        public String tpFollowStop() {
+            return this.tpFollowStop;
+        }
+
+        /**
+         * Sets the message of {@code /tpfollow} when the player stops following.
+         *
+         * @param tpFollowStop the message template.
+         */
+        public void tpFollowStop(final String tpFollowStop) {
+            this.tpFollowStop = tpFollowStop;
+        }
+
+        /**
+         * Retrieves the message of {@code /tpfollow} when the player is not following anyone.
+         *
+         * @return the message template.
+         */
+        public String tpFollowNotFollowing() {
+            return this.tpFollowNotFollowing;
+        }
+
+        /**
+         * Sets the message of {@code /tpfollow} when the player is not following anyone.
+         *
+         * @param tpFollowNotFollowing the message template.
+         */
+        public void tpFollowNotFollowing(final String tpFollowNotFollowing) {
+            this.tpFollowNotFollowing = tpFollowNotFollowing;
+        }
+
+        /**
+         * Retrieves the message of {@code /tpfollow <player>} when the player tries to follow themselves.
+         *
+         * @return the message template.
+         */
+        public String tpFollowSelf() {
+            return this.tpFollowSelf;
+        }
+
+        /**
+         * Sets the message of {@code /tpfollow <player>} when the player tries to follow themselves.
+         *
+         * @param tpFollowSelf the message template.
+         */
+        public void tpFollowSelf(final String tpFollowSelf) {
+            this.tpFollowSelf = tpFollowSelf;
+        }
+
+        /**
+         * Retrieves the message to the follower when following ended on its own.
+         *
+         * @return the message template.
+         */
+        public String tpFollowEnded() {
+            return this.tpFollowEnded;
+        }
+
+        /**
+         * Sets the message to the follower when following ended on its own.
+         *
+         * @param tpFollowEnded the message template.
+         */
+        public void tpFollowEnded(final String tpFollowEnded) {
+            this.tpFollowEnded = tpFollowEnded;
+        }
+
+        /**
+         * Retrieves the message to the receiver when the teleport of an accepted request was cancelled.
+         *
+         * @return the message template.
+         */
+        public String tpaAcceptFailed() {
+            return this.tpaAcceptFailed;
+        }
+
+        /**
+         * Sets the message to the receiver when the teleport of an accepted request was cancelled.
+         *
+         * @param tpaAcceptFailed the message template.
+         */
+        public void tpaAcceptFailed(final String tpaAcceptFailed) {
+            this.tpaAcceptFailed = tpaAcceptFailed;
+        }
+
+        /**
+         * Retrieves the message to a player whose processed command failed.
+         *
+         * @return the message template.
+         */
+        public String commandFailed() {
+            return this.commandFailed;
+        }
+
+        /**
+         * Sets the message to a player whose processed command failed.
+         *
+         * @param commandFailed the message template.
+         */
+        public void commandFailed(final String commandFailed) {
+            this.commandFailed = commandFailed;
+        }
+
+        /**
+         * Retrieves the message to a player whose requests to several players were cut off at their limit.
+         *
+         * @return the message template.
+         */
+        public String tpaLimitSkipped() {
+            return this.tpaLimitSkipped;
+        }
+
+        /**
+         * Sets the message to a player whose requests to several players were cut off at their limit.
+         *
+         * @param tpaLimitSkipped the message template.
+         */
+        public void tpaLimitSkipped(final String tpaLimitSkipped) {
+            this.tpaLimitSkipped = tpaLimitSkipped;
+        }
+
+        /**
+         * Retrieves the message of /tp when the location of an offline player could not be loaded.
+         *
+         * @return the message template.
+         */
+        public String tpTargetLoadFailed() {
+            return this.tpTargetLoadFailed;
+        }
+
+        /**
+         * Sets the message of /tp when the location of an offline player could not be loaded.
+         *
+         * @param tpTargetLoadFailed the message template.
+         */
+        public void tpTargetLoadFailed(final String tpTargetLoadFailed) {
+            this.tpTargetLoadFailed = tpTargetLoadFailed;
+        }
     }
 }
@@ -0,0 +1,122 @@
+package dev.atlasmc.atlastp.config;
+
+import net.kyori.adventure.audience.Audience;
+import net.kyori.adventure.identity.Identity;
+import org.apache.logging.log4j.Logger;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.spongepowered.configurate.CommentedConfigurationNode;
+import org.spongepowered.configurate.ConfigurateException;
+import org.spongepowered.configurate.hocon.HoconConfigurationLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Chooses the translation strings by the locale of the client of a player.
+ * <p>
+ * The translation strings of a locale are loaded from {@code <locale>.conf} (e.g. {@code de_de.conf}) or,
+ * if there is none, from {@code <language>.conf} (e.g. {@code de.conf}) in the translations directory.
+ * Strings that are missing in these files are taken from the config, which is also used for every other locale.
+ * <p>
+ * All the translation files are loaded when the translations are (re)loaded, so that choosing the translation strings
+ * never touches the disk and takes at most two map lookups. Only the files in the directory are kept, so the memory
+ * is bounded by what the server provides, not by the locales the clients send.
+ */
+public final class Translations {
+    private static final String EXTENSION = ".conf";
+
+    private final Logger logger;
+    private final AtlasTPConfig config;
+    private final Path directory;
+
+    /**
+     * The translation strings by the name of their file without the extension, in lower case.
+     */
+    private volatile Map<String, AtlasTPConfig.TranslationStrings> loaded = Map.of();
+
+    public Translations(final Logger logger, final AtlasTPConfig config, final Path directory) {
+        this.logger = logger;
+        this.config = config;
+        this.directory = directory;
+    }
+
+    /**
+     * Loads all the translation files again.
+     */
+    public void reload() {
+        final Map<String, AtlasTPConfig.TranslationStrings> loaded = new HashMap<>();
+
+        try {
+            Files.createDirectories(directory);
+
+            try(final Stream<Path> files = Files.list(directory)) {
+                files.forEach(file -> {
+                    final String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+                    if(name.endsWith(EXTENSION)) {
+                        load(file).ifPresent(strings -> loaded.put(name.substring(0, name.length() - EXTENSION.length()), strings));
+                    }
+                });
+            }
+        } catch(final IOException e) {
+            logger.error("The translations in {} could not be listed.", directory, e);
+        }
+
+        this.loaded = Map.copyOf(loaded);
+
+        logger.info("Loaded translations for {} locales.", loaded.size());
+    }
+
+    /**
+     * Retrieves the translation strings for the audience.
+     *
+     * @param audience the audience, which is usually a player
+     * @return the translation strings for the locale of the audience, or the ones of the config if the audience has no locale
+     */
+    public AtlasTPConfig.@NonNull TranslationStrings of(final @NonNull Audience audience) {
+        final Locale locale = audience.getOrDefault(Identity.LOCALE, null);
+
+        return locale == null ? config.translationStrings() : of(locale);
+    }
+
+    /**
+     * Retrieves the translation strings for the locale.
+     *
+     * @param locale the locale
+     * @return the translation strings for the locale
+     */
+    public AtlasTPConfig.@NonNull TranslationStrings of(final @NonNull Locale locale) {
+        final Map<String, AtlasTPConfig.TranslationStrings> loaded = this.loaded;
+        if(loaded.isEmpty()) {
+            return config.translationStrings();
+        }
+
+        final AtlasTPConfig.TranslationStrings translationStrings = loaded.get(locale.toString().toLowerCase(Locale.ROOT));
+        if(translationStrings != null) {
+            return translationStrings;
+        }
+
+        return loaded.getOrDefault(locale.getLanguage().toLowerCase(Locale.ROOT), config.translationStrings());
+    }
+
+    private Optional<AtlasTPConfig.TranslationStrings> load(final Path file) {
+        try {
+            final CommentedConfigurationNode defaults = CommentedConfigurationNode.root();
+            defaults.set(AtlasTPConfig.TranslationStrings.class, config.translationStrings());
+
+            final CommentedConfigurationNode node = HoconConfigurationLoader.builder().path(file).build().load();
+            node.mergeFrom(defaults);
+
+            return Optional.ofNullable(node.get(AtlasTPConfig.TranslationStrings.class));
+        } catch(final ConfigurateException e) {
+            // The locale falls back to the translation strings of the config
+            logger.error("The translations in {} could not be loaded.", file, e);
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package dev.atlasmc.atlastp.dump;
+
+import dev.atlasmc.atlastp.manager.TPAManager;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Writes and reads the binary dumps of a {@link StateSnapshot}.
+ * <p>
+ * The format is: the magic number {@code ATPD} and the format version (both an {@code int}),
+ * the creation time ({@code long}), then the sections. Every section starts with the amount of its entries ({@code int}):
+ * <ol>
+ *     <li>requests: sender, receiver (both as two {@code long}s), direction ({@code byte}), remaining ticks ({@code long})</li>
+ *     <li>block lists: owner (two {@code long}s), amount of blocked players ({@code int}), blocked players (two {@code long}s each)</li>
+ *     <li>toggled off players: player (two {@code long}s)</li>
+ * </ol>
+ * A new section is only appended in a new version, so that the old dumps can still be read.
+ */
+public final class StateDump {
+    /**
+     * {@code ATPD} in ASCII.
+     */
+    public static final int MAGIC = 0x41545044;
+    public static final int VERSION = 1;
+
+    private StateDump() {}
+
+    /**
+     * Writes the snapshot to the file. The dump is written to a temporary file first,
+     * so that an incomplete dump is never found at the path.
+     *
+     * @param snapshot the snapshot
+     * @param path     the path of the dump
+     * @throws IOException if the dump could not be written
+     */
+    public static void write(final @NonNull StateSnapshot snapshot, final @NonNull Path path) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+
+        final Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try(final OutputStream output = Files.newOutputStream(temporary)) {
+            write(snapshot, output);
+        }
+
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static void write(final @NonNull StateSnapshot snapshot, final @NonNull OutputStream stream) throws IOException {
+        final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream));
+
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeLong(snapshot.createdAt());
+
+        output.writeInt(snapshot.requests().size());
+        for(final StateSnapshot.Request request : snapshot.requests()) {
+            writeUUID(output, request.sender());
+            writeUUID(output, request.receiver());
+            output.writeByte(request.direction().ordinal());
+            output.writeLong(request.remainingTicks());
+        }
+
+        output.writeInt(snapshot.blockLists().size());
+        for(final Map.Entry<UUID, long[]> blockList : snapshot.blockLists().entrySet()) {
+            writeUUID(output, blockList.getKey());
+            output.writeInt(blockList.getValue().length / 2);
+            for(final long bits : blockList.getValue()) {
+                output.writeLong(bits);
+            }
+        }
+
+        output.writeInt(snapshot.toggledOff().size());
+        for(final UUID player : snapshot.toggledOff()) {
+            writeUUID(output, player);
+        }
+
+        output.flush();
+    }
+
+    /**
+     * Reads a dump of any known version.
+     *
+     * @param stream the stream of the dump
+     * @return the snapshot
+     * @throws IOException if the stream is no dump, has an unknown version or could not be read
+     */
+    public static @NonNull StateSnapshot read(final @NonNull InputStream stream) throws IOException {
+        final DataInputStream input = new DataInputStream(new BufferedInputStream(stream));
+
+        if(input.readInt() != MAGIC) {
+            throw new IOException("The file is not an AtlasTP dump.");
+        }
+
+        final int version = input.readInt();
+        if(version < 1 || version > VERSION) {
+            throw new IOException("The dump has the version " + version + ", but only the versions up to " + VERSION + " are known.");
+        }
+
+        final long createdAt = input.readLong();
+
+        final int requestCount = input.readInt();
+        final List<StateSnapshot.Request> requests = new ArrayList<>(requestCount);
+        for(int i = 0; i < requestCount; i++) {
+            requests.add(new StateSnapshot.Request(
+                    readUUID(input),
+                    readUUID(input),
+                    TPAManager.TPADirection.values()[input.readByte()],
+                    input.readLong()
+            ));
+        }
+
+        final int blockListCount = input.readInt();
+        final Map<UUID, long[]> blockLists = new HashMap<>(blockListCount * 2);
+        for(int i = 0; i < blockListCount; i++) {
+            final UUID owner = readUUID(input);
+            final long[] blockList = new long[input.readInt() * 2];
+            for(int j = 0; j < blockList.length; j++) {
+                blockList[j] = input.readLong();
+            }
+
+            blockLists.put(owner, blockList);
+        }
+
+        final int toggledOffCount = input.readInt();
+        final Set<UUID> toggledOff = new HashSet<>(toggledOffCount * 2);
+        for(int i = 0; i < toggledOffCount; i++) {
+            toggledOff.add(readUUID(input));
+        }
+
+        return new StateSnapshot(createdAt, requests, blockLists, toggledOff);
+    }
+
+    private static void writeUUID(final DataOutputStream output, final UUID uuid) throws IOException {
+        output.writeLong(uuid.getMostSignificantBits());
+        output.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID readUUID(final DataInputStream input) throws IOException {
+        return new UUID(input.readLong(), input.readLong());
+    }
+}
@@ -0,0 +1,82 @@
+package dev.atlasmc.atlastp.dump;
+
+import dev.atlasmc.atlastp.manager.TPAManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Prints a summary of a dump written by {@code /atlastp dump}, without a running server.
+ * <p>
+ * It can be run with {@code java -cp AtlasTP.jar dev.atlasmc.atlastp.dump.StateDumpReader <dump>}.
+ */
+public final class StateDumpReader {
+    private static final int TOP_SENDERS = 10;
+
+    private StateDumpReader() {}
+
+    public static void main(final String[] args) throws IOException {
+        if(args.length != 1) {
+            System.err.println("Usage: StateDumpReader <dump>");
+            System.exit(1);
+        }
+
+        final StateSnapshot snapshot;
+        try(final InputStream input = Files.newInputStream(Path.of(args[0]))) {
+            snapshot = StateDump.read(input);
+        }
+
+        System.out.println("Dump created at " + Instant.ofEpochMilli(snapshot.createdAt()));
+
+        final Map<TPAManager.TPADirection, Integer> byDirection = new EnumMap<>(TPAManager.TPADirection.class);
+        final Map<UUID, Integer> bySender = new HashMap<>();
+        long expired = 0;
+        long remainingTicks = 0;
+
+        for(final StateSnapshot.Request request : snapshot.requests()) {
+            byDirection.merge(request.direction(), 1, Integer::sum);
+            bySender.merge(request.sender(), 1, Integer::sum);
+            remainingTicks += request.remainingTicks();
+
+            // A pending request with a finished expiry task was not removed
+            if(request.remainingTicks() <= 0) {
+                expired++;
+            }
+        }
+
+        System.out.println();
+        System.out.println("Pending requests: " + snapshot.requests().size());
+        for(final Map.Entry<TPAManager.TPADirection, Integer> entry : byDirection.entrySet()) {
+            System.out.println("  " + entry.getKey() + ": " + entry.getValue());
+        }
+
+        if(!snapshot.requests().isEmpty()) {
+            System.out.printf("  Average remaining time: %.1f s%n", remainingTicks / 20.0 / snapshot.requests().size());
+        }
+
+        System.out.println("  Without remaining time (possible leaks): " + expired);
+
+        System.out.println("  Senders with the most requests:");
+        bySender.entrySet().stream()
+                .sorted(Map.Entry.<UUID, Integer>comparingByValue(Comparator.reverseOrder()))
+                .limit(TOP_SENDERS)
+                .forEach(entry -> System.out.println("    " + entry.getKey() + ": " + entry.getValue()));
+
+        long blockedPlayers = 0;
+        for(final long[] blockList : snapshot.blockLists().values()) {
+            blockedPlayers += blockList.length / 2;
+        }
+
+        System.out.println();
+        System.out.println("Block lists: " + snapshot.blockLists().size() + " with " + blockedPlayers + " blocked players");
+        System.out.println("Players with all requests turned off: " + snapshot.toggledOff().size());
+    }
+}
@@ -0,0 +1,57 @@
+package dev.atlasmc.atlastp.dump;
+
+import dev.atlasmc.atlastp.manager.TPABlockManager;
+import dev.atlasmc.atlastp.manager.TPAManager;
+import dev.atlasmc.atlastp.util.RequestTicket;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A consistent copy of the state of AtlasTP, which can be written to a dump without pausing the server thread.
+ *
+ * @param createdAt   the time (in milliseconds since the epoch) the snapshot was created
+ * @param requests    the pending TPA requests
+ * @param blockLists  the sorted block lists by their owner, with the most and the least significant bits of each blocked player
+ * @param toggledOff  the players that do not accept any TPA requests
+ */
+public record StateSnapshot(
+        long createdAt,
+        @NonNull List<Request> requests,
+        @NonNull Map<UUID, long[]> blockLists,
+        @NonNull Set<UUID> toggledOff
+) {
+    /**
+     * Copies the state on the server thread. Only the small request records are copied,
+     * the block lists are shared, as they are never modified in place.
+     *
+     * @param tpaManager   the manager of the TPA requests
+     * @param blockManager the manager of the block lists
+     * @return the snapshot
+     */
+    public static @NonNull StateSnapshot capture(final @NonNull TPAManager<RequestTicket> tpaManager, final @NonNull TPABlockManager blockManager) {
+        final List<Request> requests = new ArrayList<>(tpaManager.requestCount());
+        tpaManager.forEachRequest(request -> requests.add(new Request(
+                request.sender(),
+                request.receiver(),
+                request.direction(),
+                request.data().remainingTicks()
+        )));
+
+        return new StateSnapshot(System.currentTimeMillis(), requests, blockManager.blockLists(), blockManager.toggledOff());
+    }
+
+    /**
+     * A pending TPA request.
+     *
+     * @param sender         the player that sent the request
+     * @param receiver       the player that received the request
+     * @param direction      the direction of the teleport
+     * @param remainingTicks the ticks until the request expires
+     */
+    public record Request(UUID sender, UUID receiver, TPAManager.TPADirection direction, long remainingTicks) {}
+}
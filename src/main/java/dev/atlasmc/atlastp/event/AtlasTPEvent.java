@@ -0,0 +1,7 @@
+package dev.atlasmc.atlastp.event;
+
+/**
+ * The base of every event that is posted on the {@link AtlasTPEventBus}.
+ */
+public interface AtlasTPEvent {
+}
@@ -0,0 +1,92 @@
+package dev.atlasmc.atlastp.event;
+
+import org.apache.logging.log4j.Logger;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * The event bus on which AtlasTP posts its {@link AtlasTPEvent}s.
+ * <p>
+ * Other plugins can subscribe to the events with {@link #subscribe(Class, Consumer)}.
+ * Listeners are registered for the exact class of the event (e.g. {@link TeleportEvent.Pre}).
+ * <p>
+ * Before an event is even constructed, AtlasTP checks {@link #hasListeners(Class)}, so that
+ * servers without any listeners do not pay for the events.
+ * Events are posted on the server thread, {@link TPARequestEvent.Expire} included,
+ * as the requests expire in a task of the server scheduler.
+ */
+public final class AtlasTPEventBus {
+    private final Logger logger;
+
+    /**
+     * The listeners by the class of the event. A class only has an entry if it has at least one listener.
+     */
+    private final Map<Class<?>, List<Consumer<?>>> listeners = new ConcurrentHashMap<>();
+
+    public AtlasTPEventBus(final Logger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Subscribes the listener to the events of the type.
+     *
+     * @param type     the class of the event
+     * @param listener the listener that is called with the event
+     * @param <E>      the type of the event
+     */
+    public synchronized <E extends AtlasTPEvent> void subscribe(final @NonNull Class<E> type, final @NonNull Consumer<? super E> listener) {
+        listeners.computeIfAbsent(type, k -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * Unsubscribes the listener from all the events it is subscribed to.
+     *
+     * @param listener the listener
+     */
+    public synchronized void unsubscribe(final @NonNull Consumer<?> listener) {
+        listeners.values().removeIf(list -> {
+            list.remove(listener);
+            return list.isEmpty();
+        });
+    }
+
+    /**
+     * Checks if there is a listener for the type of the event.
+     *
+     * @param type the class of the event
+     * @return if there is a listener
+     */
+    public boolean hasListeners(final @NonNull Class<? extends AtlasTPEvent> type) {
+        return listeners.containsKey(type);
+    }
+
+    /**
+     * Posts the event to all the listeners of its class.
+     *
+     * @param event the event
+     * @param <E>   the type of the event
+     * @return the event after all the listeners were called
+     */
+    @SuppressWarnings("unchecked")
+    public <E extends AtlasTPEvent> @NonNull E post(final @NonNull E event) {
+        final List<Consumer<?>> eventListeners = listeners.get(event.getClass());
+        if(eventListeners == null) {
+            return event;
+        }
+
+        for(final Consumer<?> listener : eventListeners) {
+            try {
+                ((Consumer<? super E>) listener).accept(event);
+            } catch (final RuntimeException e) {
+                logger.error("A listener for {} threw an exception.", event.getClass().getSimpleName(), e);
+            }
+        }
+
+        return event;
+    }
+}
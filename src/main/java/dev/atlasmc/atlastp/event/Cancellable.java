@@ -0,0 +1,19 @@
+package dev.atlasmc.atlastp.event;
+
+/**
+ * An {@link AtlasTPEvent} that can be cancelled by a listener.
+ * If the event is cancelled, AtlasTP does not perform the action the event was posted for.
+ */
+public interface Cancellable {
+    /**
+     * @return if the event is cancelled
+     */
+    boolean isCancelled();
+
+    /**
+     * Sets if the event is cancelled.
+     *
+     * @param cancelled if the event should be cancelled
+     */
+    void setCancelled(final boolean cancelled);
+}
@@ -0,0 +1,159 @@
+package dev.atlasmc.atlastp.event;
+
+import dev.atlasmc.atlastp.manager.TPAManager;
+
+import java.util.UUID;
+
+/**
+ * The events for the lifecycle of a TPA request.
+ * <p>
+ * The {@code Pre} events are posted before AtlasTP performs the action and can be cancelled,
+ * the {@code Post} events are posted after the action was performed.
+ */
+public abstract class TPARequestEvent implements AtlasTPEvent {
+    private final UUID sender;
+    private final UUID receiver;
+    private final TPAManager.TPADirection direction;
+
+    protected TPARequestEvent(final UUID sender, final UUID receiver, final TPAManager.TPADirection direction) {
+        this.sender = sender;
+        this.receiver = receiver;
+        this.direction = direction;
+    }
+
+    /**
+     * @return the player that has sent the request
+     */
+    public UUID sender() {
+        return sender;
+    }
+
+    /**
+     * @return the player that has received the request
+     */
+    public UUID receiver() {
+        return receiver;
+    }
+
+    /**
+     * @return the direction of the request
+     */
+    public TPAManager.TPADirection direction() {
+        return direction;
+    }
+
+    /**
+     * The base of the {@code Pre} events.
+     */
+    public abstract static class CancellableTPARequestEvent extends TPARequestEvent implements Cancellable {
+        private boolean cancelled = false;
+
+        protected CancellableTPARequestEvent(final UUID sender, final UUID receiver, final TPAManager.TPADirection direction) {
+            super(sender, receiver, direction);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public void setCancelled(final boolean cancelled) {
+            this.cancelled = cancelled;
+        }
+    }
+
+    /**
+     * The events for sending a TPA request.
+     */
+    public static final class Send {
+        private Send() {}
+
+        /**
+         * Posted before the request is created. Cancelling it does not send the request.
+         */
+        public static final class Pre extends CancellableTPARequestEvent {
+            public Pre(final UUID sender, final UUID receiver, final TPAManager.TPADirection direction) {
+                super(sender, receiver, direction);
+            }
+        }
+
+        /**
+         * Posted after the request was created.
+         */
+        public static final class Post extends TPARequestEvent {
+            public Post(final UUID sender, final UUID receiver, final TPAManager.TPADirection direction) {
+                super(sender, receiver, direction);
+            }
+        }
+    }
+
+    /**
+     * The events for accepting a TPA request.
+     */
+    public static final class Accept {
+        private Accept() {}
+
+        /**
+         * Posted before the request is accepted. Cancelling it keeps the request open.
+         */
+        public static final class Pre extends CancellableTPARequestEvent {
+            public Pre(final UUID sender, final UUID receiver, final TPAManager.TPADirection direction) {
+                super(sender, receiver, direction);
+            }
+        }
+
+        /**
+         * Posted after the request was accepted and the player was teleported.
+         */
+        public static final class Post extends TPARequestEvent {
+            public Post(final UUID sender, final UUID receiver, final TPAManager.TPADirection direction) {
+                super(sender, receiver, direction);
+            }
+        }
+
+        /**
+         * Posted after the request was accepted, but the teleport was cancelled (e.g. by a {@link TeleportEvent.Pre}
+         * listener or a no-teleport region). The request stays open and the receiver was informed.
+         */
+        public static final class Failed extends TPARequestEvent {
+            public Failed(final UUID sender, final UUID receiver, final TPAManager.TPADirection direction) {
+                super(sender, receiver, direction);
+            }
+        }
+    }
+
+    /**
+     * The events for denying a TPA request.
+     */
+    public static final class Deny {
+        private Deny() {}
+
+        /**
+         * Posted before the request is denied. Cancelling it keeps the request open.
+         */
+        public static final class Pre extends CancellableTPARequestEvent {
+            public Pre(final UUID sender, final UUID receiver, final TPAManager.TPADirection direction) {
+                super(sender, receiver, direction);
+            }
+        }
+
+        /**
+         * Posted after the request was denied.
+         */
+        public static final class Post extends TPARequestEvent {
+            public Post(final UUID sender, final UUID receiver, final TPAManager.TPADirection direction) {
+                super(sender, receiver, direction);
+            }
+        }
+    }
+
+    /**
+     * Posted after a request has expired. The request is already removed at this point, so it cannot be cancelled.
+     */
+    public static final class Expire extends TPARequestEvent {
+        public Expire(final UUID sender, final UUID receiver, final TPAManager.TPADirection direction) {
+            super(sender, receiver, direction);
+        }
+    }
+}
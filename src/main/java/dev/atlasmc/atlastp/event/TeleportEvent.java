@@ -0,0 +1,139 @@
+package dev.atlasmc.atlastp.event;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.spongepowered.api.entity.living.player.server.ServerPlayer;
+import org.spongepowered.api.world.server.ServerLocation;
+import org.spongepowered.math.vector.Vector3d;
+
+/**
+ * The events for a teleport performed by AtlasTP.
+ */
+public abstract class TeleportEvent implements AtlasTPEvent {
+    private final ServerPlayer player;
+    private final Reason reason;
+
+    protected TeleportEvent(final ServerPlayer player, final Reason reason) {
+        this.player = player;
+        this.reason = reason;
+    }
+
+    /**
+     * @return the player that is teleported
+     */
+    public ServerPlayer player() {
+        return player;
+    }
+
+    /**
+     * @return the reason of the teleport
+     */
+    public Reason reason() {
+        return reason;
+    }
+
+    /**
+     * Posted before the player is teleported.
+     * <p>
+     * Cancelling it does not teleport the player, changing the destination redirects the teleport.
+     */
+    public static final class Pre extends TeleportEvent implements Cancellable {
+        private @NonNull ServerLocation destination;
+        private @Nullable Vector3d rotation;
+        private boolean cancelled = false;
+
+        public Pre(final ServerPlayer player, final Reason reason, final @NonNull ServerLocation destination, final @Nullable Vector3d rotation) {
+            super(player, reason);
+            this.destination = destination;
+            this.rotation = rotation;
+        }
+
+        /**
+         * @return the location the player is teleported to
+         */
+        public @NonNull ServerLocation destination() {
+            return destination;
+        }
+
+        /**
+         * Sets the location the player is teleported to.
+         *
+         * @param destination the new destination
+         */
+        public void destination(final @NonNull ServerLocation destination) {
+            this.destination = destination;
+        }
+
+        /**
+         * @return the rotation of the player after the teleport, or {@code null} if it is not changed
+         */
+        public @Nullable Vector3d rotation() {
+            return rotation;
+        }
+
+        /**
+         * Sets the rotation of the player after the teleport.
+         *
+         * @param rotation the new rotation, or {@code null} if it should not be changed
+         */
+        public void rotation(final @Nullable Vector3d rotation) {
+            this.rotation = rotation;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public void setCancelled(final boolean cancelled) {
+            this.cancelled = cancelled;
+        }
+    }
+
+    /**
+     * Posted after the player was teleported.
+     */
+    public static final class Post extends TeleportEvent {
+        private final ServerLocation origin;
+        private final ServerLocation destination;
+
+        public Post(final ServerPlayer player, final Reason reason, final ServerLocation origin, final ServerLocation destination) {
+            super(player, reason);
+            this.origin = origin;
+            this.destination = destination;
+        }
+
+        /**
+         * @return the location the player was teleported from
+         */
+        public ServerLocation origin() {
+            return origin;
+        }
+
+        /**
+         * @return the location the player was teleported to
+         */
+        public ServerLocation destination() {
+            return destination;
+        }
+    }
+
+    /**
+     * The reason for a teleport.
+     */
+    public enum Reason {
+        /**
+         * The teleport was done with {@code /tp}.
+         */
+        TP,
+        /**
+         * The teleport was done by accepting a TPA request.
+         */
+        TPA,
+        /**
+         * The teleport kept a player of {@code /tpfollow} near the followed player.
+         */
+        FOLLOW
+    }
+}
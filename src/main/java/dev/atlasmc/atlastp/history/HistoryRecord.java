@@ -0,0 +1,77 @@
+package dev.atlasmc.atlastp.history;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * An entry of the audit history.
+ *
+ * @param time   the time (in milliseconds since the epoch) of the action
+ * @param type   the type of the action
+ * @param player the player that performed the action or was teleported
+ * @param other  the other player of the action (e.g. the receiver of a TPA request or the target of a teleport), or {@code null}
+ */
+public record HistoryRecord(long time, @NonNull Type type, @NonNull UUID player, @Nullable UUID other) {
+    /**
+     * The size of a record in a segment: the time, the type and two {@link UUID}s.
+     */
+    public static final int SIZE = Long.BYTES + 1 + 4 * Long.BYTES;
+
+    /**
+     * Checks if the player is one of the players of the record.
+     *
+     * @param player the player
+     * @return if the record is about the player
+     */
+    public boolean involves(final @NonNull UUID player) {
+        return this.player.equals(player) || player.equals(this.other);
+    }
+
+    void write(final ByteBuffer buffer) {
+        buffer.putLong(time);
+        buffer.put((byte) type.ordinal());
+        buffer.putLong(player.getMostSignificantBits());
+        buffer.putLong(player.getLeastSignificantBits());
+        buffer.putLong(other == null ? 0 : other.getMostSignificantBits());
+        buffer.putLong(other == null ? 0 : other.getLeastSignificantBits());
+    }
+
+    static HistoryRecord read(final ByteBuffer buffer) {
+        final long time = buffer.getLong();
+        final Type type = Type.values()[buffer.get()];
+        final UUID player = new UUID(buffer.getLong(), buffer.getLong());
+        final long otherMost = buffer.getLong();
+        final long otherLeast = buffer.getLong();
+
+        return new HistoryRecord(time, type, player, otherMost == 0 && otherLeast == 0 ? null : new UUID(otherMost, otherLeast));
+    }
+
+    /**
+     * The types of the recorded actions. New types are only appended, as the ordinal is stored.
+     */
+    public enum Type {
+        /**
+         * {@code /tp}: The player was teleported to the other player.
+         */
+        TP,
+        /**
+         * The player sent a TPA request to the other player.
+         */
+        TPA_SEND,
+        /**
+         * The player accepted the TPA request of the other player.
+         */
+        TPA_ACCEPT,
+        /**
+         * The player denied the TPA request of the other player.
+         */
+        TPA_DENY,
+        /**
+         * The TPA request of the player to the other player expired.
+         */
+        TPA_EXPIRE
+    }
+}
@@ -0,0 +1,370 @@
+package dev.atlasmc.atlastp.history;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * A file with a fixed maximum amount of {@link HistoryRecord}s in the order of their time.
+ * <p>
+ * As the records have a fixed size, a record is read by its number without scanning the file.
+ * Every segment has two indices, which are kept in memory and written to an index file next to the segment when it is full:
+ * <ul>
+ *     <li>a sparse time index with the time of every {@value #SPARSE_INTERVAL}th record,
+ *     which narrows a time range down to at most {@value #SPARSE_INTERVAL} records before its start</li>
+ *     <li>a player index with the numbers of the records of every player</li>
+ * </ul>
+ * If the index file is missing (e.g. for the segment that was written to when the server stopped),
+ * the indices are rebuilt from the segment.
+ * <p>
+ * This class is not thread-safe, it is guarded by the lock of the {@link HistoryStore}.
+ */
+final class HistorySegment {
+    /**
+     * {@code ATPH} and {@code ATPI} in ASCII.
+     */
+    private static final int MAGIC = 0x41545048;
+    private static final int INDEX_MAGIC = 0x41545049;
+    private static final int VERSION = 1;
+    private static final int HEADER = 2 * Integer.BYTES;
+
+    static final int SPARSE_INTERVAL = 128;
+
+    static final String EXTENSION = ".seg";
+    private static final String INDEX_EXTENSION = ".idx";
+
+    private final Path path;
+    private final Path indexPath;
+    private final int capacity;
+
+    private int count = 0;
+    private long firstTime = Long.MAX_VALUE;
+    private long lastTime = Long.MIN_VALUE;
+
+    private long[] sparseTimes;
+    private final Map<UUID, RecordNumbers> players = new HashMap<>();
+
+    /**
+     * The channel the records are appended to, or {@code null} if the segment is full.
+     */
+    private FileChannel writer;
+
+    private HistorySegment(final Path path, final int capacity) {
+        this.path = path;
+        this.indexPath = path.resolveSibling(baseName(path) + INDEX_EXTENSION);
+        this.capacity = capacity;
+        this.sparseTimes = new long[(capacity + SPARSE_INTERVAL - 1) / SPARSE_INTERVAL];
+    }
+
+    /**
+     * Creates a new segment, which is named by the time of its first record.
+     */
+    static HistorySegment create(final Path directory, final long name, final int capacity) throws IOException {
+        final HistorySegment segment = new HistorySegment(directory.resolve(name + EXTENSION), capacity);
+
+        segment.writer = FileChannel.open(segment.path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        segment.writer.write(ByteBuffer.allocate(HEADER).putInt(MAGIC).putInt(VERSION).flip());
+
+        return segment;
+    }
+
+    /**
+     * Opens an existing segment. If it is not full, new records can be appended to it.
+     */
+    static HistorySegment open(final Path path, final int capacity) throws IOException {
+        final HistorySegment segment = new HistorySegment(path, capacity);
+
+        if(!Files.exists(segment.indexPath) || !segment.readIndex()) {
+            segment.rebuildIndex();
+        }
+
+        if(segment.count < capacity) {
+            segment.writer = FileChannel.open(path, StandardOpenOption.WRITE);
+            // Cuts off a record that was only written partially
+            segment.writer.truncate(HEADER + (long) segment.count * HistoryRecord.SIZE);
+            segment.writer.position(HEADER + (long) segment.count * HistoryRecord.SIZE);
+        }
+
+        return segment;
+    }
+
+    /**
+     * Appends the records, which have to be in the order of their time and fit into the segment.
+     */
+    void append(final List<HistoryRecord> records) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(records.size() * HistoryRecord.SIZE);
+        for(final HistoryRecord record : records) {
+            record.write(buffer);
+        }
+
+        buffer.flip();
+        while(buffer.hasRemaining()) {
+            writer.write(buffer);
+        }
+
+        for(final HistoryRecord record : records) {
+            index(record);
+        }
+
+        if(isFull()) {
+            writer.close();
+            writer = null;
+            writeIndex();
+        }
+    }
+
+    /**
+     * Reads the records of the player in the time range, in the order of their time.
+     *
+     * @param player   the player
+     * @param since    the start of the time range (inclusive)
+     * @param until    the end of the time range (inclusive)
+     * @param consumer receives the records
+     */
+    void query(final UUID player, final long since, final long until, final Consumer<HistoryRecord> consumer) throws IOException {
+        final RecordNumbers recordNumbers = players.get(player);
+        if(recordNumbers == null || since > lastTime || until < firstTime) {
+            return;
+        }
+
+        int position = recordNumbers.firstAtLeast(firstRecordAtOrAfter(since));
+        if(position >= recordNumbers.size) {
+            return;
+        }
+
+        try(final FileChannel reader = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer buffer = ByteBuffer.allocate(HistoryRecord.SIZE);
+
+            for(; position < recordNumbers.size; position++) {
+                buffer.clear();
+                reader.read(buffer, HEADER + (long) recordNumbers.numbers[position] * HistoryRecord.SIZE);
+                buffer.flip();
+
+                final HistoryRecord record = HistoryRecord.read(buffer);
+                if(record.time() > until) {
+                    return;
+                }
+
+                if(record.time() >= since) {
+                    consumer.accept(record);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the number of a record at which the records at or after the time start, using the sparse time index.
+     * The records between it and the time are skipped while reading.
+     */
+    private int firstRecordAtOrAfter(final long time) {
+        final int sparseCount = (count + SPARSE_INTERVAL - 1) / SPARSE_INTERVAL;
+
+        // The last sampled record before the time
+        int low = 0;
+        int high = sparseCount - 1;
+        int found = 0;
+        while(low <= high) {
+            final int middle = (low + high) >>> 1;
+            if(sparseTimes[middle] < time) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return found * SPARSE_INTERVAL;
+    }
+
+    private void index(final HistoryRecord record) {
+        if(count % SPARSE_INTERVAL == 0) {
+            sparseTimes[count / SPARSE_INTERVAL] = record.time();
+        }
+
+        firstTime = Math.min(firstTime, record.time());
+        lastTime = Math.max(lastTime, record.time());
+
+        players.computeIfAbsent(record.player(), k -> new RecordNumbers()).add(count);
+        if(record.other() != null && !record.other().equals(record.player())) {
+            players.computeIfAbsent(record.other(), k -> new RecordNumbers()).add(count);
+        }
+
+        count++;
+    }
+
+    private void rebuildIndex() throws IOException {
+        try(final FileChannel reader = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER);
+            reader.read(header, 0);
+            header.flip();
+            if(header.remaining() < HEADER || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("The file " + path + " is not a history segment of a known version.");
+            }
+
+            final long records = Math.min(capacity, (reader.size() - HEADER) / HistoryRecord.SIZE);
+            final ByteBuffer buffer = ByteBuffer.allocate(HistoryRecord.SIZE * SPARSE_INTERVAL);
+            reader.position(HEADER);
+
+            while(count < records) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), (records - count) * HistoryRecord.SIZE));
+                while(buffer.hasRemaining() && reader.read(buffer) >= 0) {
+                    // Reads until the buffer is full
+                }
+
+                buffer.flip();
+                while(buffer.remaining() >= HistoryRecord.SIZE) {
+                    index(HistoryRecord.read(buffer));
+                }
+            }
+        }
+
+        if(isFull()) {
+            writeIndex();
+        }
+    }
+
+    private boolean readIndex() throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(indexPath));
+        if(buffer.getInt() != INDEX_MAGIC || buffer.getInt() != VERSION) {
+            return false;
+        }
+
+        count = buffer.getInt();
+        firstTime = buffer.getLong();
+        lastTime = buffer.getLong();
+
+        final int sparseCount = buffer.getInt();
+        for(int i = 0; i < sparseCount; i++) {
+            sparseTimes[i] = buffer.getLong();
+        }
+
+        final int playerCount = buffer.getInt();
+        for(int i = 0; i < playerCount; i++) {
+            final UUID player = new UUID(buffer.getLong(), buffer.getLong());
+            final RecordNumbers recordNumbers = new RecordNumbers();
+            recordNumbers.numbers = new int[buffer.getInt()];
+            recordNumbers.size = recordNumbers.numbers.length;
+            buffer.asIntBuffer().get(recordNumbers.numbers);
+            buffer.position(buffer.position() + recordNumbers.size * Integer.BYTES);
+
+            players.put(player, recordNumbers);
+        }
+
+        return true;
+    }
+
+    private void writeIndex() throws IOException {
+        final int sparseCount = (count + SPARSE_INTERVAL - 1) / SPARSE_INTERVAL;
+
+        int size = 3 * Integer.BYTES + 2 * Long.BYTES + Integer.BYTES + sparseCount * Long.BYTES + Integer.BYTES;
+        for(final RecordNumbers recordNumbers : players.values()) {
+            size += 2 * Long.BYTES + Integer.BYTES + recordNumbers.size * Integer.BYTES;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(INDEX_MAGIC).putInt(VERSION).putInt(count).putLong(firstTime).putLong(lastTime);
+
+        buffer.putInt(sparseCount);
+        for(int i = 0; i < sparseCount; i++) {
+            buffer.putLong(sparseTimes[i]);
+        }
+
+        buffer.putInt(players.size());
+        for(final Map.Entry<UUID, RecordNumbers> entry : players.entrySet()) {
+            final RecordNumbers recordNumbers = entry.getValue();
+            recordNumbers.trim();
+
+            buffer.putLong(entry.getKey().getMostSignificantBits()).putLong(entry.getKey().getLeastSignificantBits());
+            buffer.putInt(recordNumbers.size);
+            for(int i = 0; i < recordNumbers.size; i++) {
+                buffer.putInt(recordNumbers.numbers[i]);
+            }
+        }
+
+        Files.write(indexPath, buffer.array());
+    }
+
+    boolean isFull() {
+        return count >= capacity;
+    }
+
+    int count() {
+        return count;
+    }
+
+    long firstTime() {
+        return firstTime;
+    }
+
+    long lastTime() {
+        return lastTime;
+    }
+
+    /**
+     * Closes the segment. A segment that is not full gets its index rebuilt when it is opened again.
+     */
+    void close() throws IOException {
+        if(writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(indexPath);
+        Files.deleteIfExists(path);
+    }
+
+    static String baseName(final Path path) {
+        final String name = path.getFileName().toString();
+        return name.substring(0, name.length() - EXTENSION.length());
+    }
+
+    /**
+     * The ascending numbers of the records of a player.
+     */
+    private static final class RecordNumbers {
+        private int[] numbers = new int[4];
+        private int size = 0;
+
+        private void add(final int number) {
+            if(size == numbers.length) {
+                numbers = Arrays.copyOf(numbers, size * 2);
+            }
+
+            numbers[size++] = number;
+        }
+
+        private void trim() {
+            if(size != numbers.length) {
+                numbers = Arrays.copyOf(numbers, size);
+            }
+        }
+
+        private int firstAtLeast(final int number) {
+            int low = 0;
+            int high = size;
+            while(low < high) {
+                final int middle = (low + high) >>> 1;
+                if(numbers[middle] < number) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            return low;
+        }
+    }
+}
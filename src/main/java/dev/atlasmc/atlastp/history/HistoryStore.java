@@ -0,0 +1,320 @@
+package dev.atlasmc.atlastp.history;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * The audit history of the teleports and TPA requests, stored in {@link HistorySegment}s in a directory.
+ * <p>
+ * Recording only queues the record, so it is cheap enough for the server thread.
+ * The queued records are appended to the newest segment by {@link #flush()}, which should be called regularly off the server thread.
+ * When a segment is full or spans more than a fraction of the retention, a new one is started and the segments
+ * that only contain records older than the retention are deleted. {@link #prune()} should be called regularly as well,
+ * so that the segments are deleted on a quiet server, too. As a segment only spans a fraction of the retention,
+ * the records are kept on the disk for at most a bit longer than the retention.
+ * <p>
+ * A query only looks at the segments that overlap the time range and only reads the records of the player from them.
+ * The records older than the retention are never returned, even if their segment was not deleted yet.
+ * <p>
+ * The segments are guarded by a {@link ReentrantLock} instead of {@code synchronized}, as they are written and read
+ * on virtual threads, which would pin their carrier thread while they block on the IO in a {@code synchronized} block.
+ */
+public final class HistoryStore {
+    /**
+     * The amount of records in a segment, which is about 2.7 MB.
+     */
+    static final int SEGMENT_CAPACITY = 1 << 16;
+
+    /**
+     * The fraction of the retention a segment spans at most.
+     */
+    static final int SEGMENTS_PER_RETENTION = 8;
+
+    private final Path directory;
+    private final Duration retention;
+    private final int segmentCapacity;
+
+    /**
+     * The time (in milliseconds) between the first and the last record of a segment at most.
+     */
+    private final long segmentSpan;
+
+    private final Queue<HistoryRecord> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Guards the segments and the times.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * The segments in the order of their time. Only the last one can be appended to.
+     */
+    private final List<HistorySegment> segments = new ArrayList<>();
+
+    /**
+     * The time of the newest record, so that the records in the segments are in the order of their time,
+     * even if the clock goes backwards.
+     */
+    private long lastTime = Long.MIN_VALUE;
+
+    /**
+     * The name of the newest segment, so that a new segment never gets the name of an existing one.
+     */
+    private long lastSegmentName = Long.MIN_VALUE;
+
+    /**
+     * @param directory the directory of the segments
+     * @param retention how long the records are kept
+     */
+    public HistoryStore(final @NonNull Path directory, final @NonNull Duration retention) {
+        this(directory, retention, SEGMENT_CAPACITY);
+    }
+
+    HistoryStore(final Path directory, final Duration retention, final int segmentCapacity) {
+        this.directory = directory;
+        this.retention = retention;
+        this.segmentCapacity = segmentCapacity;
+        this.segmentSpan = Math.max(1, retention.toMillis() / SEGMENTS_PER_RETENTION);
+    }
+
+    /**
+     * Opens the existing segments in the directory and deletes the ones that are older than the retention.
+     */
+    public void open() throws IOException {
+        lock.lock();
+        try {
+            Files.createDirectories(directory);
+
+            final List<Path> paths;
+            try(final Stream<Path> files = Files.list(directory)) {
+                paths = files.filter(file -> file.getFileName().toString().endsWith(HistorySegment.EXTENSION))
+                        .filter(file -> segmentName(file) != Long.MIN_VALUE)
+                        .sorted(Comparator.comparingLong(HistoryStore::segmentName))
+                        .toList();
+            }
+
+            for(final Path path : paths) {
+                lastSegmentName = segmentName(path);
+
+                final HistorySegment segment = HistorySegment.open(path, segmentCapacity);
+                if(segment.count() == 0) {
+                    segment.delete();
+                    continue;
+                }
+
+                // Only the newest segment is appended to, the others are left as they are
+                if(!segments.isEmpty()) {
+                    segments.get(segments.size() - 1).close();
+                }
+
+                segments.add(segment);
+                lastTime = Math.max(lastTime, segment.lastTime());
+            }
+
+            prune(System.currentTimeMillis());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records the action. It is written to the segment with the next {@link #flush()}.
+     *
+     * @param type   the type of the action
+     * @param player the player that performed the action
+     * @param other  the other player of the action, or {@code null}
+     */
+    public void record(final HistoryRecord.@NonNull Type type, final @NonNull UUID player, final @Nullable UUID other) {
+        record(new HistoryRecord(System.currentTimeMillis(), type, player, other));
+    }
+
+    void record(final HistoryRecord record) {
+        pending.add(record);
+    }
+
+    /**
+     * Writes the queued records to the segments.
+     */
+    public void flush() throws IOException {
+        lock.lock();
+        try {
+            if(pending.isEmpty()) {
+                return;
+            }
+
+            final List<HistoryRecord> batch = new ArrayList<>();
+
+            HistoryRecord record;
+            while((record = pending.poll()) != null) {
+                if(record.time() < lastTime) {
+                    record = new HistoryRecord(lastTime, record.type(), record.player(), record.other());
+                }
+
+                lastTime = record.time();
+                batch.add(record);
+            }
+
+            int written = 0;
+            while(written < batch.size()) {
+                HistorySegment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+                if(segment == null || segment.isFull() || !spans(segment, batch.get(written))) {
+                    lastSegmentName = Math.max(batch.get(written).time(), lastSegmentName + 1);
+                    segment = HistorySegment.create(directory, lastSegmentName, segmentCapacity);
+                    segments.add(segment);
+                    prune(System.currentTimeMillis());
+                }
+
+                // The first record is always appended, so that a new segment is never empty
+                final int limit = Math.min(batch.size(), written + segmentCapacity - segment.count());
+                final long segmentStart = segment.count() == 0 ? batch.get(written).time() : segment.firstTime();
+                int end = written + 1;
+                while(end < limit && batch.get(end).time() - segmentStart < segmentSpan) {
+                    end++;
+                }
+
+                segment.append(batch.subList(written, end));
+                written = end;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return if the record can still be appended to the segment without it spanning more than {@link #segmentSpan}
+     */
+    private boolean spans(final HistorySegment segment, final HistoryRecord record) {
+        return segment.count() == 0 || record.time() - segment.firstTime() < segmentSpan;
+    }
+
+    /**
+     * Finds the records of the player in the time range. The queued records are written before.
+     * The records that are older than the retention are left out.
+     *
+     * @param player the player
+     * @param since  the start of the time range in milliseconds since the epoch (inclusive)
+     * @param until  the end of the time range in milliseconds since the epoch (inclusive)
+     * @param limit  the maximum amount of records to return
+     * @return the newest records of the player in the time range, in the order of their time
+     */
+    public @NonNull Result query(final @NonNull UUID player, final long since, final long until, final int limit) throws IOException {
+        lock.lock();
+        try {
+            flush();
+
+            final long from = Math.max(since, System.currentTimeMillis() - retention.toMillis());
+
+            final Deque<HistoryRecord> records = new ArrayDeque<>(Math.min(limit, 64));
+            final int[] total = {0};
+
+            for(final HistorySegment segment : segments) {
+                if(segment.firstTime() > until) {
+                    break;
+                }
+
+                if(segment.lastTime() < from) {
+                    continue;
+                }
+
+                segment.query(player, from, until, record -> {
+                    total[0]++;
+                    if(records.size() == limit) {
+                        records.pollFirst();
+                    }
+
+                    records.addLast(record);
+                });
+            }
+
+            return new Result(List.copyOf(records), total[0]);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the segments that only contain records older than the retention.
+     */
+    public void prune() throws IOException {
+        prune(System.currentTimeMillis());
+    }
+
+    void prune(final long now) throws IOException {
+        lock.lock();
+        try {
+            final long oldest = now - retention.toMillis();
+
+            // The newest segment is kept, as it is appended to
+            while(segments.size() > 1 && segments.get(0).lastTime() < oldest) {
+                // The segments are in the order of their time, so only the first ones can be too old
+                segments.remove(0).delete();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the queued records and closes the segments.
+     */
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            flush();
+
+            for(final HistorySegment segment : segments) {
+                segment.close();
+            }
+
+            segments.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the amount of segments
+     */
+    public int segmentCount() {
+        lock.lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the name of the segment, which is the time of its first record, or {@link Long#MIN_VALUE} if it is not a segment
+     */
+    private static long segmentName(final Path path) {
+        try {
+            return Long.parseLong(HistorySegment.baseName(path));
+        } catch(final NumberFormatException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * The result of a query.
+     *
+     * @param records the newest records up to the limit, in the order of their time
+     * @param total   the amount of records in the time range, including the ones over the limit
+     */
+    public record Result(@NonNull List<HistoryRecord> records, int total) {}
+}
@@ -0,0 +1,122 @@
+package dev.atlasmc.atlastp.jfr;
+
+import dev.atlasmc.atlastp.config.AtlasTPConfig;
+import dev.atlasmc.atlastp.event.AtlasTPEventBus;
+import dev.atlasmc.atlastp.event.TPARequestEvent;
+import dev.atlasmc.atlastp.event.TeleportEvent;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.spongepowered.api.entity.living.player.server.ServerPlayer;
+import org.spongepowered.api.world.server.ServerLocation;
+import org.spongepowered.math.vector.Vector3i;
+
+/**
+ * Records the teleports and TPA requests of AtlasTP as Java Flight Recorder events,
+ * so that they show up by name in the recordings of the server.
+ * <p>
+ * The events are only created while a recording with them enabled is running, and not at all if
+ * {@link AtlasTPConfig#jfrEvents()} is disabled, so they cost next to nothing otherwise.
+ * Teleports are only recorded if they took at least {@link AtlasTPConfig#jfrTeleportThreshold()} milliseconds.
+ */
+public final class FlightRecording {
+    private final AtlasTPConfig config;
+
+    public FlightRecording(final AtlasTPConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Records the TPA request events posted to the event bus.
+     *
+     * @param eventBus the event bus of AtlasTP
+     */
+    public void recordEvents(final @NonNull AtlasTPEventBus eventBus) {
+        if(!config.jfrEvents()) {
+            return;
+        }
+
+        eventBus.subscribe(TPARequestEvent.Send.Post.class, event -> recordRequest("send", event));
+        eventBus.subscribe(TPARequestEvent.Accept.Post.class, event -> recordRequest("accept", event));
+        eventBus.subscribe(TPARequestEvent.Deny.Post.class, event -> recordRequest("deny", event));
+        eventBus.subscribe(TPARequestEvent.Expire.class, event -> recordRequest("expire", event));
+    }
+
+    private static void recordRequest(final String action, final TPARequestEvent event) {
+        final TPARequestFlightEvent flightEvent = new TPARequestFlightEvent();
+        if(!flightEvent.shouldCommit()) {
+            return;
+        }
+
+        flightEvent.action = action;
+        flightEvent.sender = event.sender().toString();
+        flightEvent.receiver = event.receiver().toString();
+        flightEvent.direction = event.direction().name();
+        flightEvent.commit();
+    }
+
+    /**
+     * Starts recording a teleport.
+     *
+     * @return the event of the teleport, or {@code null} if teleports are not recorded at the moment
+     */
+    public @Nullable TeleportFlightEvent beginTeleport() {
+        if(!config.jfrEvents()) {
+            return null;
+        }
+
+        final TeleportFlightEvent flightEvent = new TeleportFlightEvent();
+        if(!flightEvent.isEnabled()) {
+            return null;
+        }
+
+        flightEvent.startNanos = System.nanoTime();
+        flightEvent.begin();
+        return flightEvent;
+    }
+
+    /**
+     * Checks if the chunk of the destination has to be loaded by the teleport. This has to be checked before the teleport.
+     *
+     * @param destination the destination of the teleport
+     * @return if the chunk is not loaded
+     */
+    public static boolean needsChunkLoad(final @NonNull ServerLocation destination) {
+        final Vector3i chunk = destination.chunkPosition();
+        return !destination.world().isChunkLoaded(chunk.x(), chunk.y(), chunk.z(), false);
+    }
+
+    /**
+     * Finishes recording a teleport and commits it, if it took at least the threshold.
+     *
+     * @param flightEvent the event from {@link #beginTeleport()}
+     * @param player      the teleported player
+     * @param reason      the reason of the teleport
+     * @param origin      the location of the player before the teleport
+     * @param destination the destination of the teleport
+     * @param chunkLoad   if the chunk of the destination had to be loaded
+     * @param teleported  if the player was teleported
+     */
+    public void commitTeleport(
+            final @NonNull TeleportFlightEvent flightEvent,
+            final @NonNull ServerPlayer player,
+            final TeleportEvent.@NonNull Reason reason,
+            final @NonNull ServerLocation origin,
+            final @NonNull ServerLocation destination,
+            final boolean chunkLoad,
+            final boolean teleported
+    ) {
+        flightEvent.end();
+
+        if(System.nanoTime() - flightEvent.startNanos < config.jfrTeleportThreshold() * 1_000_000 || !flightEvent.shouldCommit()) {
+            return;
+        }
+
+        flightEvent.player = player.uniqueId().toString();
+        flightEvent.reason = reason.name();
+        flightEvent.world = destination.worldKey().asString();
+        flightEvent.distance = origin.worldKey().equals(destination.worldKey()) ? origin.position().distance(destination.position()) : -1;
+        flightEvent.chunkLoad = chunkLoad;
+        flightEvent.teleported = teleported;
+        flightEvent.commit();
+    }
+}
@@ -0,0 +1,30 @@
+package dev.atlasmc.atlastp.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The Java Flight Recorder event for a step in the lifecycle of a TPA request.
+ */
+@Name("dev.atlasmc.atlastp.TPARequest")
+@Label("AtlasTP TPA Request")
+@Category("AtlasTP")
+@Description("A TPA request was sent, accepted, denied or expired")
+@StackTrace(false)
+public final class TPARequestFlightEvent extends Event {
+    @Label("Action")
+    String action;
+
+    @Label("Sender")
+    String sender;
+
+    @Label("Receiver")
+    String receiver;
+
+    @Label("Direction")
+    String direction;
+}
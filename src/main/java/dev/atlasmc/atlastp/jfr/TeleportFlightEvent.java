@@ -0,0 +1,45 @@
+package dev.atlasmc.atlastp.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The Java Flight Recorder event for a teleport performed by the {@link dev.atlasmc.atlastp.teleport.TeleportHandler}.
+ * Its duration is the time the teleport took on the server thread.
+ */
+@Name("dev.atlasmc.atlastp.Teleport")
+@Label("AtlasTP Teleport")
+@Category("AtlasTP")
+@Description("A teleport of a player, which is only recorded if it took at least jfrTeleportThreshold milliseconds")
+@StackTrace(false)
+public final class TeleportFlightEvent extends Event {
+    @Label("Player")
+    String player;
+
+    @Label("Reason")
+    String reason;
+
+    @Label("World")
+    String world;
+
+    @Label("Distance")
+    @Description("The distance between the origin and the destination in blocks, or -1 if the world was changed")
+    double distance;
+
+    @Label("Chunk Load")
+    @Description("Whether the chunk of the destination was not loaded before the teleport")
+    boolean chunkLoad;
+
+    @Label("Teleported")
+    @Description("Whether the player was teleported, which they are not if the teleport was cancelled by the game")
+    boolean teleported;
+
+    /**
+     * The start of the teleport, for the threshold of the config. Transient fields are not recorded.
+     */
+    transient long startNanos;
+}
@@ -0,0 +1,471 @@
+package dev.atlasmc.atlastp.manager;
+
+import dev.atlasmc.atlastp.util.PlayerIdInterner;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A {@link TPAManager} that stores the requests in flat arrays indexed by the IDs of the {@link PlayerIdInterner}.
+ * <p>
+ * Every receiver has an inbox with the IDs of the senders and their requests, every sender has an outbox with
+ * the IDs of the receivers. As a player rarely has more than a few open requests, the boxes are searched linearly,
+ * which is faster than hashing {@link UUID}s and does not allocate any map entries.
+ * The {@link UUID}s are only translated to IDs at the API boundary.
+ * <p>
+ * The manager holds a reference to the ID of every player with an open request, which it releases with
+ * the last request of the player. So players without a session (e.g. in a replay) are interned on demand
+ * and don't stay in the interner, and the ID of a player that left is only reused once their requests are gone.
+ * <p>
+ * The manager is not thread-safe. Like every backend, it is only used from the server thread.
+ */
+public class InternedTPAManager<T> implements TPAManager<T> {
+    private final PlayerIdInterner interner;
+
+    /**
+     * The IDs of the senders of the open requests by the ID of the receiver.
+     */
+    private int[][] inboxSenders;
+
+    /**
+     * The open requests by the ID of the receiver, in the same order as {@link #inboxSenders}.
+     */
+    private Object[][] inboxRequests;
+
+    /**
+     * The IDs of the receivers of the open requests by the ID of the sender.
+     */
+    private int[][] outboxReceivers;
+
+    /**
+     * The amount of requests in the inbox and the outbox by the ID of the player.
+     */
+    private int[] inboxSizes;
+    private int[] outboxSizes;
+
+    private int requestCount = 0;
+
+    public InternedTPAManager(final @NonNull PlayerIdInterner interner) {
+        this(interner, 64);
+    }
+
+    /**
+     * @param interner        the interner for the IDs of the players
+     * @param initialCapacity the amount of player IDs the arrays are sized for, they grow with the highest ID
+     */
+    public InternedTPAManager(final @NonNull PlayerIdInterner interner, final int initialCapacity) {
+        this.interner = interner;
+
+        final int capacity = Math.max(1, initialCapacity);
+        this.inboxSenders = new int[capacity][];
+        this.inboxRequests = new Object[capacity][];
+        this.outboxReceivers = new int[capacity][];
+        this.inboxSizes = new int[capacity];
+        this.outboxSizes = new int[capacity];
+    }
+
+    @Override
+    public boolean addRequest(final @NonNull UUID sender, final @NonNull UUID receiver, final @NonNull TPADirection direction, final T data) {
+        final int senderId = acquire(sender);
+        final int receiverId = acquire(receiver);
+
+        final TPARequest<T> request = new TPARequestImpl<>(sender, receiver, direction, data);
+
+        final int index = inboxIndexOf(receiverId, senderId);
+        if(index >= 0) {
+            inboxRequests[receiverId][index] = request;
+            return true;
+        }
+
+        addToInbox(receiverId, senderId, request);
+        addToOutbox(senderId, receiverId);
+        requestCount++;
+        return false;
+    }
+
+    @Override
+    public @NonNull Collection<TPARequest<T>> addRequests(final @NonNull UUID sender, final @NonNull Collection<UUID> receivers, final @NonNull TPADirection direction, final @NonNull Function<UUID, T> data) {
+        if(receivers.isEmpty()) {
+            return List.of();
+        }
+
+        final int senderId = acquire(sender);
+        final List<TPARequest<T>> replaced = new ArrayList<>();
+
+        for(final UUID receiver : receivers) {
+            final int receiverId = acquire(receiver);
+
+            final TPARequest<T> request = new TPARequestImpl<>(sender, receiver, direction, data.apply(receiver));
+
+            final int index = inboxIndexOf(receiverId, senderId);
+            if(index >= 0) {
+                replaced.add(request(receiverId, index));
+                inboxRequests[receiverId][index] = request;
+                continue;
+            }
+
+            addToInbox(receiverId, senderId, request);
+            addToOutbox(senderId, receiverId);
+            requestCount++;
+        }
+
+        return replaced;
+    }
+
+    @Override
+    public Optional<TPARequest<T>> getRequest(final @NonNull UUID sender, final @NonNull UUID receiver) {
+        final int senderId = interner.id(sender);
+        final int receiverId = interner.id(receiver);
+        if(senderId < 0 || receiverId < 0 || receiverId >= inboxSizes.length) {
+            return Optional.empty();
+        }
+
+        final int index = inboxIndexOf(receiverId, senderId);
+        if(index < 0) {
+            return Optional.empty();
+        }
+
+        return Optional.of(request(receiverId, index));
+    }
+
+    @Override
+    public boolean removeRequest(final @NonNull UUID sender, final @NonNull UUID receiver) {
+        final int senderId = interner.id(sender);
+        final int receiverId = interner.id(receiver);
+        if(senderId < 0 || receiverId < 0 || receiverId >= inboxSizes.length) {
+            return false;
+        }
+
+        final int index = inboxIndexOf(receiverId, senderId);
+        if(index < 0) {
+            return false;
+        }
+
+        removeFromInbox(receiverId, index);
+        removeFromOutbox(senderId, receiverId);
+        releaseIfUnused(receiverId);
+        releaseIfUnused(senderId);
+        requestCount--;
+        return true;
+    }
+
+    @Override
+    public @NonNull Collection<TPARequest<T>> removeRequests(final @NonNull UUID sender, final @NonNull Collection<UUID> receivers) {
+        final int senderId = interner.id(sender);
+        if(senderId < 0 || senderId >= outboxSizes.length || outboxSizes[senderId] == 0) {
+            return List.of();
+        }
+
+        final List<TPARequest<T>> removed = new ArrayList<>(receivers.size());
+
+        for(final UUID receiver : receivers) {
+            final int receiverId = interner.id(receiver);
+            if(receiverId < 0 || receiverId >= inboxSizes.length)
+                continue;
+
+            final int index = inboxIndexOf(receiverId, senderId);
+            if(index < 0)
+                continue;
+
+            removed.add(request(receiverId, index));
+            removeFromInbox(receiverId, index);
+            removeFromOutbox(senderId, receiverId);
+            releaseIfUnused(receiverId);
+        }
+
+        if(!removed.isEmpty()) {
+            releaseIfUnused(senderId);
+        }
+
+        requestCount -= removed.size();
+        return removed;
+    }
+
+    @Override
+    public @NonNull Collection<TPARequest<T>> removeRequestsBySender(final @NonNull UUID sender) {
+        final int senderId = interner.id(sender);
+        if(senderId < 0 || senderId >= outboxSizes.length || outboxSizes[senderId] == 0) {
+            return List.of();
+        }
+
+        final int size = outboxSizes[senderId];
+        final int[] receivers = outboxReceivers[senderId];
+        final List<TPARequest<T>> list = new ArrayList<>(size);
+
+        for(int i = 0; i < size; i++) {
+            final int receiverId = receivers[i];
+            final int index = inboxIndexOf(receiverId, senderId);
+            if(index < 0)
+                continue;
+
+            list.add(request(receiverId, index));
+            removeFromInbox(receiverId, index);
+            releaseIfUnused(receiverId);
+        }
+
+        outboxSizes[senderId] = 0;
+        outboxReceivers[senderId] = null;
+        releaseIfUnused(senderId);
+        requestCount -= list.size();
+
+        return list;
+    }
+
+    @Override
+    public @NonNull Collection<TPARequest<T>> removeRequestsToReceiver(final @NonNull UUID receiver) {
+        final int receiverId = interner.id(receiver);
+        if(receiverId < 0 || receiverId >= inboxSizes.length || inboxSizes[receiverId] == 0) {
+            return List.of();
+        }
+
+        final int size = inboxSizes[receiverId];
+        final int[] senders = inboxSenders[receiverId];
+        final List<TPARequest<T>> list = new ArrayList<>(size);
+
+        for(int i = 0; i < size; i++) {
+            list.add(request(receiverId, i));
+            removeFromOutbox(senders[i], receiverId);
+            releaseIfUnused(senders[i]);
+        }
+
+        inboxSizes[receiverId] = 0;
+        inboxSenders[receiverId] = null;
+        inboxRequests[receiverId] = null;
+        releaseIfUnused(receiverId);
+        requestCount -= size;
+
+        return list;
+    }
+
+    @Override
+    public int requestCountBySender(final @NonNull UUID sender) {
+        final int senderId = interner.id(sender);
+
+        return senderId < 0 || senderId >= outboxSizes.length ? 0 : outboxSizes[senderId];
+    }
+
+    @Override
+    public int requestCount() {
+        return requestCount;
+    }
+
+    @Override
+    public void forEachRequest(final @NonNull Predicate<TPARequest<T>> visitor) {
+        for(int receiverId = 0; receiverId < inboxSizes.length; receiverId++) {
+            final int size = inboxSizes[receiverId];
+            for(int i = 0; i < size; i++) {
+                if(!visitor.test(request(receiverId, i))) {
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void forEachRequestOf(final @NonNull UUID player, final @NonNull Predicate<TPARequest<T>> visitor) {
+        final int playerId = interner.id(player);
+        if(playerId < 0 || playerId >= inboxSizes.length) {
+            return;
+        }
+
+        final int outboxSize = outboxSizes[playerId];
+        for(int i = 0; i < outboxSize; i++) {
+            final int receiverId = outboxReceivers[playerId][i];
+            final int index = inboxIndexOf(receiverId, playerId);
+            if(index >= 0 && !visitor.test(request(receiverId, index))) {
+                return;
+            }
+        }
+
+        final int inboxSize = inboxSizes[playerId];
+        for(int i = 0; i < inboxSize; i++) {
+            if(!visitor.test(request(playerId, i))) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public @NonNull List<StructureFootprint> footprint() {
+        final int capacity = inboxSizes.length;
+
+        long inboxSlots = 0;
+        long inboxBytes = 2 * MemoryEstimates.array(capacity, MemoryEstimates.REFERENCE) + MemoryEstimates.array(capacity, 4);
+        long outboxSlots = 0;
+        long outboxBytes = MemoryEstimates.array(capacity, MemoryEstimates.REFERENCE) + MemoryEstimates.array(capacity, 4);
+
+        for(int id = 0; id < capacity; id++) {
+            if(inboxSenders[id] != null) {
+                inboxSlots += inboxSenders[id].length;
+                inboxBytes += MemoryEstimates.array(inboxSenders[id].length, 4)
+                        + MemoryEstimates.array(inboxRequests[id].length, MemoryEstimates.REFERENCE)
+                        + inboxSizes[id] * MemoryEstimates.REQUEST;
+            }
+
+            if(outboxReceivers[id] != null) {
+                outboxSlots += outboxReceivers[id].length;
+                outboxBytes += MemoryEstimates.array(outboxReceivers[id].length, 4);
+            }
+        }
+
+        return List.of(
+                new StructureFootprint("inboxes", requestCount, capacity + inboxSlots, inboxBytes),
+                new StructureFootprint("outboxes", requestCount, capacity + outboxSlots, outboxBytes)
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    private TPARequest<T> request(final int receiverId, final int index) {
+        return (TPARequest<T>) inboxRequests[receiverId][index];
+    }
+
+    private int inboxIndexOf(final int receiverId, final int senderId) {
+        final int size = inboxSizes[receiverId];
+        final int[] senders = inboxSenders[receiverId];
+
+        for(int i = 0; i < size; i++) {
+            if(senders[i] == senderId) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private void addToInbox(final int receiverId, final int senderId, final TPARequest<T> request) {
+        final int size = inboxSizes[receiverId];
+        int[] senders = inboxSenders[receiverId];
+        Object[] requests = inboxRequests[receiverId];
+
+        if(senders == null) {
+            senders = inboxSenders[receiverId] = new int[2];
+            requests = inboxRequests[receiverId] = new Object[2];
+        } else if(size == senders.length) {
+            senders = inboxSenders[receiverId] = Arrays.copyOf(senders, size * 2);
+            requests = inboxRequests[receiverId] = Arrays.copyOf(requests, size * 2);
+        }
+
+        senders[size] = senderId;
+        requests[size] = request;
+        inboxSizes[receiverId] = size + 1;
+    }
+
+    /**
+     * Removes the request by moving the last request of the inbox into its place.
+     */
+    private void removeFromInbox(final int receiverId, final int index) {
+        final int last = --inboxSizes[receiverId];
+        final int[] senders = inboxSenders[receiverId];
+        final Object[] requests = inboxRequests[receiverId];
+
+        if(last == 0) {
+            inboxSenders[receiverId] = null;
+            inboxRequests[receiverId] = null;
+            return;
+        }
+
+        senders[index] = senders[last];
+        requests[index] = requests[last];
+        requests[last] = null;
+    }
+
+    private void addToOutbox(final int senderId, final int receiverId) {
+        final int size = outboxSizes[senderId];
+        int[] receivers = outboxReceivers[senderId];
+
+        if(receivers == null) {
+            receivers = outboxReceivers[senderId] = new int[2];
+        } else if(size == receivers.length) {
+            receivers = outboxReceivers[senderId] = Arrays.copyOf(receivers, size * 2);
+        }
+
+        receivers[size] = receiverId;
+        outboxSizes[senderId] = size + 1;
+    }
+
+    private void removeFromOutbox(final int senderId, final int receiverId) {
+        final int size = outboxSizes[senderId];
+        final int[] receivers = outboxReceivers[senderId];
+
+        for(int i = 0; i < size; i++) {
+            if(receivers[i] != receiverId)
+                continue;
+
+            receivers[i] = receivers[size - 1];
+            outboxSizes[senderId] = size - 1;
+            if(size == 1) {
+                outboxReceivers[senderId] = null;
+            }
+            return;
+        }
+    }
+
+    /**
+     * Retrieves the ID of the player for a new request. The manager holds a reference to the ID
+     * from the first open request of the player until {@link #releaseIfUnused(int)} releases it.
+     */
+    private int acquire(final UUID player) {
+        final int id = interner.id(player);
+        if(id >= 0 && id < inboxSizes.length && (inboxSizes[id] > 0 || outboxSizes[id] > 0)) {
+            return id;
+        }
+
+        final int interned = interner.intern(player);
+        ensureCapacity(interned);
+        return interned;
+    }
+
+    /**
+     * Releases the reference to the ID of the player if the player has no open request anymore.
+     * This must only be called after a request of the player was removed.
+     */
+    private void releaseIfUnused(final int id) {
+        if(inboxSizes[id] > 0 || outboxSizes[id] > 0) {
+            return;
+        }
+
+        final UUID player = interner.player(id);
+        if(player != null) {
+            interner.release(player);
+        }
+    }
+
+    private void ensureCapacity(final int id) {
+        if(id < inboxSizes.length) {
+            return;
+        }
+
+        final int capacity = Math.max(inboxSizes.length * 2, id + 1);
+        inboxSenders = Arrays.copyOf(inboxSenders, capacity);
+        inboxRequests = Arrays.copyOf(inboxRequests, capacity);
+        outboxReceivers = Arrays.copyOf(outboxReceivers, capacity);
+        inboxSizes = Arrays.copyOf(inboxSizes, capacity);
+        outboxSizes = Arrays.copyOf(outboxSizes, capacity);
+    }
+
+    private record TPARequestImpl<T>(UUID sender, UUID receiver, TPADirection direction, T data) implements TPARequest<T> {}
+
+    /**
+     * Provides the {@link InternedTPAManager} as the backend {@value #NAME}, with the setting {@code initial-capacity}.
+     */
+    public static final class Provider implements TPAManagerProvider {
+        public static final String NAME = "interned";
+
+        @Override
+        public @NonNull String name() {
+            return NAME;
+        }
+
+        @Override
+        public <T> @NonNull TPAManager<T> create(final @NonNull Context context) {
+            return new InternedTPAManager<>(context.playerIds(), context.intSetting("initial-capacity", 64));
+        }
+    }
+}
@@ -3,15 +3,63 @@ package dev.atlasmc.atlastp.manager;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 public class MapTPAManager<T> implements TPAManager<T> {
-    private final Map<UUID, Map<UUID, TPARequest<T>>> tpaMap = new HashMap<>();
+    private final Map<UUID, Map<UUID, TPARequest<T>>> tpaMap;
+
+    /**
+     * The receivers of the open requests by their sender, so that the requests
+     * of a sender can be found without looking at every receiver.
+     */
+    private final Map<UUID, Set<UUID>> senderIndex;
+
+    private int requestCount = 0;
+
+    public MapTPAManager() {
+        this(16);
+    }
+
+    /**
+     * @param initialCapacity the amount of receivers and senders the maps are sized for
+     */
+    public MapTPAManager(final int initialCapacity) {
+        this.tpaMap = new HashMap<>(initialCapacity);
+        this.senderIndex = new HashMap<>(initialCapacity);
+    }
 
     @Override
     public boolean addRequest(final @NonNull UUID sender, final @NonNull UUID receiver, final @NonNull TPADirection direction, final T data) {
         final Map<UUID, TPARequest<T>> receiverMap = tpaMap.computeIfAbsent(receiver, k -> new HashMap<>());
+        senderIndex.computeIfAbsent(sender, k -> new HashSet<>()).add(receiver);
+
+        if(receiverMap.put(sender, new TPARequestImpl<T>(sender, receiver, direction, data)) != null) {
+            return true;
+        }
+
+        requestCount++;
+        return false;
+    }
 
-        return receiverMap.put(sender, new TPARequestImpl<T>(sender, receiver, direction, data)) != null;
+    @Override
+    public @NonNull Collection<TPARequest<T>> addRequests(final @NonNull UUID sender, final @NonNull Collection<UUID> receivers, final @NonNull TPADirection direction, final @NonNull Function<UUID, T> data) {
+        final Set<UUID> senderReceivers = senderIndex.computeIfAbsent(sender, k -> new HashSet<>());
+        final List<TPARequest<T>> replaced = new ArrayList<>();
+
+        for(final UUID receiver : receivers) {
+            final TPARequest<T> old = tpaMap.computeIfAbsent(receiver, k -> new HashMap<>())
+                    .put(sender, new TPARequestImpl<T>(sender, receiver, direction, data.apply(receiver)));
+
+            if(old != null) {
+                replaced.add(old);
+            } else {
+                senderReceivers.add(receiver);
+                requestCount++;
+            }
+        }
+
+        return replaced;
     }
 
     @Override
@@ -31,22 +79,79 @@ public class MapTPAManager<T> implements TPAManager<T> {
             return false;
         }
 
-        return receiverMap.remove(sender) != null;
+        if(receiverMap.remove(sender) == null) {
+            return false;
+        }
+
+        if(receiverMap.isEmpty()) {
+            tpaMap.remove(receiver);
+        }
+
+        requestCount--;
+        removeFromSenderIndex(sender, receiver);
+        return true;
+    }
+
+    @Override
+    public @NonNull Collection<TPARequest<T>> removeRequests(final @NonNull UUID sender, final @NonNull Collection<UUID> receivers) {
+        final Set<UUID> senderReceivers = senderIndex.get(sender);
+        if(senderReceivers == null) {
+            return List.of();
+        }
+
+        final List<TPARequest<T>> removed = new ArrayList<>(receivers.size());
+
+        for(final UUID receiver : receivers) {
+            final Map<UUID, TPARequest<T>> receiverMap = tpaMap.get(receiver);
+            if(receiverMap == null)
+                continue;
+
+            final TPARequest<T> request = receiverMap.remove(sender);
+            if(request == null)
+                continue;
+
+            if(receiverMap.isEmpty()) {
+                tpaMap.remove(receiver);
+            }
+
+            senderReceivers.remove(receiver);
+            removed.add(request);
+        }
+
+        if(senderReceivers.isEmpty()) {
+            senderIndex.remove(sender);
+        }
+
+        requestCount -= removed.size();
+        return removed;
     }
 
     @Override
     public @NonNull Collection<TPARequest<T>> removeRequestsBySender(final @NonNull UUID sender) {
-        final List<TPARequest<T>> list = new ArrayList<>();
+        final Set<UUID> receivers = senderIndex.remove(sender);
+        if(receivers == null) {
+            return List.of();
+        }
+
+        final List<TPARequest<T>> list = new ArrayList<>(receivers.size());
+
+        for(final UUID receiver : receivers) {
+            final Map<UUID, TPARequest<T>> receiverMap = tpaMap.get(receiver);
+            if(receiverMap == null)
+                continue;
+
+            final TPARequest<T> request = receiverMap.remove(sender);
+            if(receiverMap.isEmpty()) {
+                tpaMap.remove(receiver);
+            }
 
-        for(final Map<UUID, TPARequest<T>> map : tpaMap.values()) {
-            final TPARequest<T> request = map.remove(sender);
-            
             if (request == null)
                 continue;
 
             list.add(request);
         }
 
+        requestCount -= list.size();
         return list;
     }
 
@@ -57,8 +162,116 @@ public class MapTPAManager<T> implements TPAManager<T> {
             return List.of();
         }
 
+        for(final UUID sender : receiverMap.keySet()) {
+            removeFromSenderIndex(sender, receiver);
+        }
+
+        requestCount -= receiverMap.size();
         return receiverMap.values();
     }
 
+    @Override
+    public int requestCountBySender(final @NonNull UUID sender) {
+        final Set<UUID> receivers = senderIndex.get(sender);
+
+        return receivers == null ? 0 : receivers.size();
+    }
+
+    @Override
+    public int requestCount() {
+        return requestCount;
+    }
+
+    @Override
+    public void forEachRequest(final @NonNull Predicate<TPARequest<T>> visitor) {
+        for(final Map<UUID, TPARequest<T>> receiverMap : tpaMap.values()) {
+            for(final TPARequest<T> request : receiverMap.values()) {
+                if(!visitor.test(request)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void forEachRequestOf(final @NonNull UUID player, final @NonNull Predicate<TPARequest<T>> visitor) {
+        final Set<UUID> receivers = senderIndex.get(player);
+        if(receivers != null) {
+            for(final UUID receiver : receivers) {
+                final Map<UUID, TPARequest<T>> senderMap = tpaMap.get(receiver);
+                final TPARequest<T> request = senderMap == null ? null : senderMap.get(player);
+                if(request != null && !visitor.test(request)) {
+                    return;
+                }
+            }
+        }
+
+        final Map<UUID, TPARequest<T>> receiverMap = tpaMap.get(player);
+        if(receiverMap != null) {
+            for(final TPARequest<T> request : receiverMap.values()) {
+                if(!visitor.test(request)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public @NonNull List<StructureFootprint> footprint() {
+        long requestBuckets = MemoryEstimates.hashMapBuckets(tpaMap.size());
+        long requestBytes = MemoryEstimates.hashMap(tpaMap.size()) + tpaMap.size() * MemoryEstimates.HASH_MAP_NODE;
+        for(final Map<UUID, TPARequest<T>> receiverMap : tpaMap.values()) {
+            requestBuckets += MemoryEstimates.hashMapBuckets(receiverMap.size());
+            requestBytes += MemoryEstimates.hashMap(receiverMap.size())
+                    + receiverMap.size() * (MemoryEstimates.HASH_MAP_NODE + MemoryEstimates.REQUEST);
+        }
+
+        long indexBuckets = MemoryEstimates.hashMapBuckets(senderIndex.size());
+        long indexEntries = 0;
+        long indexBytes = MemoryEstimates.hashMap(senderIndex.size()) + senderIndex.size() * MemoryEstimates.HASH_MAP_NODE;
+        for(final Set<UUID> receivers : senderIndex.values()) {
+            indexBuckets += MemoryEstimates.hashMapBuckets(receivers.size());
+            indexEntries += receivers.size();
+            // A hash set is a wrapper around a hash map
+            indexBytes += MemoryEstimates.align(MemoryEstimates.OBJECT_HEADER + MemoryEstimates.REFERENCE)
+                    + MemoryEstimates.hashMap(receivers.size())
+                    + receivers.size() * MemoryEstimates.HASH_MAP_NODE;
+        }
+
+        return List.of(
+                new StructureFootprint("requests by receiver", requestCount, requestBuckets, requestBytes),
+                new StructureFootprint("sender index", indexEntries, indexBuckets, indexBytes)
+        );
+    }
+
+    private void removeFromSenderIndex(final UUID sender, final UUID receiver) {
+        final Set<UUID> receivers = senderIndex.get(sender);
+        if(receivers == null) {
+            return;
+        }
+
+        receivers.remove(receiver);
+        if(receivers.isEmpty()) {
+            senderIndex.remove(sender);
+        }
+    }
+
     private record TPARequestImpl<T>(UUID sender, UUID receiver, TPADirection direction, T data) implements TPARequest<T> {}
+
+    /**
+     * Provides the {@link MapTPAManager} as the backend {@value #NAME}, with the setting {@code initial-capacity}.
+     */
+    public static final class Provider implements TPAManagerProvider {
+        public static final String NAME = "map";
+
+        @Override
+        public @NonNull String name() {
+            return NAME;
+        }
+
+        @Override
+        public <T> @NonNull TPAManager<T> create(final @NonNull Context context) {
+            return new MapTPAManager<>(context.intSetting("initial-capacity", 16));
+        }
+    }
 }
@@ -0,0 +1,53 @@
+package dev.atlasmc.atlastp.manager;
+
+/**
+ * Rough estimates of the retained size of objects, assuming a 64-bit JVM with compressed references.
+ * They are only meant to compare the structures of the managers and to notice when one keeps growing.
+ */
+final class MemoryEstimates {
+    static final int OBJECT_HEADER = 12;
+    static final int REFERENCE = 4;
+
+    /**
+     * A node of a {@link java.util.HashMap} with its hash and its key, value and next references.
+     */
+    static final long HASH_MAP_NODE = 32;
+
+    /**
+     * A request record with four references.
+     */
+    static final long REQUEST = align(OBJECT_HEADER + 4 * REFERENCE);
+
+    private MemoryEstimates() {}
+
+    static long align(final long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    static long array(final long length, final int elementBytes) {
+        return align(16 + length * elementBytes);
+    }
+
+    /**
+     * @return the capacity of the table of a hash map that holds the amount of entries with the default load factor
+     */
+    static long hashMapBuckets(final int entries) {
+        if(entries == 0) {
+            return 0;
+        }
+
+        long buckets = 16;
+        while(buckets * 3 / 4 < entries) {
+            buckets *= 2;
+        }
+
+        return buckets;
+    }
+
+    /**
+     * @return the size of a hash map without its entries
+     */
+    static long hashMap(final int entries) {
+        return align(OBJECT_HEADER + 4 * REFERENCE + 4 * 4) + (entries == 0 ? 0 : array(hashMapBuckets(entries), REFERENCE));
+    }
+}
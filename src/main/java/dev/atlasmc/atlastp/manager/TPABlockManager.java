@@ -0,0 +1,494 @@
+package dev.atlasmc.atlastp.manager;
+
+import dev.atlasmc.atlastp.preference.PlayerPreferences;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Manages which players do not want to receive TPA requests from which other players.
+ * <p>
+ * The block list of every player is stored as a sorted {@code long[]}, in which every blocked
+ * player takes up two entries (the most and the least significant bits of the {@link UUID}).
+ * This keeps the block lists compact and the lookup a binary search over a primitive array.
+ * As long as nobody blocks anyone, {@link #isBlocked(UUID, UUID)} returns without any lookup.
+ * A block list is never modified in place, but replaced by a new array, so that the arrays can be shared by snapshots.
+ * <p>
+ * Only the players that are online are kept in memory. Their stored {@link PlayerPreferences} are loaded when they join
+ * and unloaded when they leave. The players whose preferences changed are tracked, so that only their preferences are saved.
+ * While the preferences of a player are loaded, their changes are recorded and applied on top of the stored preferences,
+ * and they are not taken to be saved, so that the file is never overwritten with the preferences from before the load.
+ * Every load has a token, so that the result of an older load (e.g. from before the player left and joined again) is ignored.
+ * The changes of a player that leaves while their preferences are loaded are kept until the load finishes,
+ * or carried over if the player joins again before that.
+ * The preferences of a player whose file could not be read are never saved.
+ * <p>
+ * This class is not thread-safe and should only be used from the server thread.
+ */
+public final class TPABlockManager {
+    private static final long[] EMPTY = new long[0];
+
+    /**
+     * The sorted block lists by the player that blocks the other players.
+     */
+    private final Map<UUID, long[]> blockLists = new HashMap<>();
+
+    /**
+     * The players that do not accept any TPA requests.
+     */
+    private final Set<UUID> toggledOff = new HashSet<>();
+
+    /**
+     * The players whose preferences changed since they were last saved.
+     */
+    private final Set<UUID> dirty = new HashSet<>();
+
+    /**
+     * The changes of the players whose preferences are being loaded.
+     */
+    private final Map<UUID, Changes> loading = new HashMap<>();
+
+    /**
+     * The players whose stored preferences could not be loaded, so that they are not overwritten.
+     */
+    private final Set<UUID> unsaved = new HashSet<>();
+
+    /**
+     * The token of the last load.
+     */
+    private long lastToken = 0;
+
+    /**
+     * The amount of non-empty block lists and toggled off players.
+     * If it is zero, no request can be blocked.
+     */
+    private int activeEntries = 0;
+
+    /**
+     * Checks if the receiver does not accept TPA requests from the sender.
+     *
+     * @param sender   the player that sends the request
+     * @param receiver the player that should receive the request
+     * @return if the request is blocked
+     */
+    public boolean isBlocked(final @NonNull UUID sender, final @NonNull UUID receiver) {
+        if(activeEntries == 0) {
+            return false;
+        }
+
+        if(!toggledOff.isEmpty() && toggledOff.contains(receiver)) {
+            return true;
+        }
+
+        final long[] blockList = blockLists.get(receiver);
+        return blockList != null && indexOf(blockList, sender.getMostSignificantBits(), sender.getLeastSignificantBits()) >= 0;
+    }
+
+    /**
+     * Adds the player to the block list of the owner.
+     *
+     * @param owner   the player that blocks the other player
+     * @param blocked the player that is blocked
+     * @return if the player was not blocked before
+     */
+    public boolean block(final @NonNull UUID owner, final @NonNull UUID blocked) {
+        final long[] blockList = blockLists.getOrDefault(owner, EMPTY);
+        final int index = indexOf(blockList, blocked.getMostSignificantBits(), blocked.getLeastSignificantBits());
+        if(index >= 0) {
+            return false;
+        }
+
+        final int insertion = -(index + 1);
+        final long[] newList = new long[blockList.length + 2];
+        System.arraycopy(blockList, 0, newList, 0, insertion);
+        newList[insertion] = blocked.getMostSignificantBits();
+        newList[insertion + 1] = blocked.getLeastSignificantBits();
+        System.arraycopy(blockList, insertion, newList, insertion + 2, blockList.length - insertion);
+
+        if(blockList.length == 0) {
+            activeEntries++;
+        }
+
+        blockLists.put(owner, newList);
+        dirty.add(owner);
+
+        final Changes changes = loading.get(owner);
+        if(changes != null) {
+            changes.unblocked.remove(blocked);
+            changes.blocked.add(blocked);
+        }
+        return true;
+    }
+
+    /**
+     * Removes the player from the block list of the owner.
+     *
+     * @param owner   the player that has blocked the other player
+     * @param blocked the player that is blocked
+     * @return if the player was blocked before, which is always the case while the preferences of the owner are loaded
+     */
+    public boolean unblock(final @NonNull UUID owner, final @NonNull UUID blocked) {
+        // The player might only be blocked in the stored preferences, so the unblock is always recorded while they are loaded
+        final Changes changes = loading.get(owner);
+        if(changes != null) {
+            changes.blocked.remove(blocked);
+            changes.unblocked.add(blocked);
+        }
+
+        final long[] blockList = blockLists.get(owner);
+        if(blockList == null) {
+            return changes != null;
+        }
+
+        final int index = indexOf(blockList, blocked.getMostSignificantBits(), blocked.getLeastSignificantBits());
+        if(index < 0) {
+            return changes != null;
+        }
+
+        dirty.add(owner);
+
+        if(blockList.length == 2) {
+            blockLists.remove(owner);
+            activeEntries--;
+            return true;
+        }
+
+        final long[] newList = new long[blockList.length - 2];
+        System.arraycopy(blockList, 0, newList, 0, index);
+        System.arraycopy(blockList, index + 2, newList, index, blockList.length - index - 2);
+
+        blockLists.put(owner, newList);
+        return true;
+    }
+
+    /**
+     * Toggles if the player accepts any TPA requests.
+     *
+     * @param owner the player
+     * @return if the player does not accept any TPA requests after the toggle
+     */
+    public boolean toggle(final @NonNull UUID owner) {
+        dirty.add(owner);
+
+        final boolean off;
+        if(toggledOff.remove(owner)) {
+            activeEntries--;
+            off = false;
+        } else {
+            toggledOff.add(owner);
+            activeEntries++;
+            off = true;
+        }
+
+        final Changes changes = loading.get(owner);
+        if(changes != null) {
+            changes.toggled = true;
+            changes.toggledOff = off;
+        }
+        return off;
+    }
+
+    /**
+     * Checks if the player does not accept any TPA requests.
+     *
+     * @param owner the player
+     * @return if the player does not accept any TPA requests
+     */
+    public boolean isToggledOff(final @NonNull UUID owner) {
+        return toggledOff.contains(owner);
+    }
+
+    /**
+     * Retrieves a copy of the block list of the player.
+     *
+     * @param owner the player
+     * @return the sorted block list, with the most and the least significant bits of each blocked player
+     */
+    public long @NonNull [] blockList(final @NonNull UUID owner) {
+        return blockLists.getOrDefault(owner, EMPTY).clone();
+    }
+
+    /**
+     * Creates a snapshot of all the block lists.
+     * The arrays are shared with this manager (they are never modified in place) and must not be modified.
+     *
+     * @return the sorted block lists by their owner
+     */
+    public @NonNull Map<UUID, long[]> blockLists() {
+        return Map.copyOf(blockLists);
+    }
+
+    /**
+     * Creates a snapshot of the players that do not accept any TPA requests.
+     *
+     * @return the players that do not accept any TPA requests
+     */
+    public @NonNull Set<UUID> toggledOff() {
+        return Set.copyOf(toggledOff);
+    }
+
+    /**
+     * Marks that the stored preferences of the player are being loaded, e.g. because they joined.
+     * Until {@link #load(UUID, long, PlayerPreferences)} or {@link #loadFailed(UUID, long)} is called with the returned token,
+     * the changes of the player are recorded and their preferences are not taken to be saved.
+     * If the player left while their last load was running, the changes from back then are carried over.
+     *
+     * @param owner the player
+     * @return the token of the load
+     */
+    public long loading(final @NonNull UUID owner) {
+        unsaved.remove(owner);
+
+        final Changes previous = loading.put(owner, new Changes(++lastToken));
+        if(previous != null) {
+            for(final UUID blocked : previous.blocked) {
+                block(owner, blocked);
+            }
+
+            for(final UUID blocked : previous.unblocked) {
+                unblock(owner, blocked);
+            }
+
+            if(previous.toggled && previous.toggledOff != toggledOff.contains(owner)) {
+                toggle(owner);
+            }
+        }
+
+        return lastToken;
+    }
+
+    /**
+     * Puts the stored preferences of the player in place, e.g. after they were loaded when the player joined.
+     * The changes that were made since {@link #loading(UUID)} are applied on top of the stored preferences:
+     * the players that were blocked or unblocked in the meantime stay so, and a toggle in the meantime wins.
+     * <p>
+     * If the player left in the meantime, their preferences are not kept, but returned, so that their changes can be saved.
+     *
+     * @param owner       the player
+     * @param token       the token of the load
+     * @param preferences the stored preferences of the player
+     * @return the preferences to save, if the player left and changed them while they were loaded, otherwise {@code null}
+     */
+    public @Nullable PlayerPreferences load(final @NonNull UUID owner, final long token, final @NonNull PlayerPreferences preferences) {
+        final Changes changes = loading.get(owner);
+        if(changes == null || changes.token != token) {
+            return null;
+        }
+
+        loading.remove(owner);
+        clear(owner);
+        dirty.remove(owner);
+
+        if(preferences.blockList().length > 0) {
+            blockLists.put(owner, preferences.blockList());
+            activeEntries++;
+        }
+
+        if(preferences.toggledOff()) {
+            toggledOff.add(owner);
+            activeEntries++;
+        }
+
+        // Only the changes that differ from the stored preferences mark the player as dirty again
+        for(final UUID blocked : changes.blocked) {
+            block(owner, blocked);
+        }
+
+        for(final UUID blocked : changes.unblocked) {
+            unblock(owner, blocked);
+        }
+
+        if(changes.toggled && changes.toggledOff != preferences.toggledOff()) {
+            toggle(owner);
+        }
+
+        if(!changes.left) {
+            return null;
+        }
+
+        final PlayerPreferences changed = dirty.remove(owner) ? preferences(owner) : null;
+        clear(owner);
+        return changed;
+    }
+
+    /**
+     * Marks that the stored preferences of the player could not be loaded.
+     * The current preferences are kept in memory, but they are never taken to be saved, so that the file is not overwritten.
+     *
+     * @param owner the player
+     * @param token the token of the load
+     * @return if it was the current load of the player, otherwise the failure is ignored
+     */
+    public boolean loadFailed(final @NonNull UUID owner, final long token) {
+        final Changes changes = loading.get(owner);
+        if(changes == null || changes.token != token) {
+            return false;
+        }
+
+        loading.remove(owner);
+        if(!changes.left) {
+            dirty.remove(owner);
+            unsaved.add(owner);
+        }
+        return true;
+    }
+
+    /**
+     * Removes the preferences of the player from memory, e.g. because they left.
+     * Changed preferences have to be taken with {@link #takeDirty(UUID)} beforehand.
+     * The changes of a player whose preferences are still being loaded are kept until the load finishes.
+     *
+     * @param owner the player
+     */
+    public void unload(final @NonNull UUID owner) {
+        clear(owner);
+        dirty.remove(owner);
+        unsaved.remove(owner);
+
+        final Changes changes = loading.get(owner);
+        if(changes == null) {
+            return;
+        }
+
+        if(changes.isEmpty()) {
+            loading.remove(owner);
+        } else {
+            changes.left = true;
+        }
+    }
+
+    private void clear(final UUID owner) {
+        if(blockLists.remove(owner) != null) {
+            activeEntries--;
+        }
+
+        if(toggledOff.remove(owner)) {
+            activeEntries--;
+        }
+    }
+
+    /**
+     * Retrieves the current preferences of the player.
+     *
+     * @param owner the player
+     * @return the preferences, which share the block list with this manager
+     */
+    public @NonNull PlayerPreferences preferences(final @NonNull UUID owner) {
+        final long[] blockList = blockLists.get(owner);
+        if(blockList == null && !toggledOff.contains(owner)) {
+            return PlayerPreferences.DEFAULT;
+        }
+
+        return new PlayerPreferences(
+                toggledOff.contains(owner) ? PlayerPreferences.TOGGLED_OFF : 0,
+                blockList == null ? EMPTY : blockList
+        );
+    }
+
+    /**
+     * Takes the preferences of all the players that changed since they were last taken.
+     * The players whose preferences are being loaded stay dirty until they are loaded.
+     *
+     * @return the changed preferences by their player
+     */
+    public @NonNull Map<UUID, PlayerPreferences> takeDirty() {
+        if(dirty.isEmpty()) {
+            return Map.of();
+        }
+
+        final Map<UUID, PlayerPreferences> changed = new HashMap<>(dirty.size() * 2);
+        final Iterator<UUID> iterator = dirty.iterator();
+        while(iterator.hasNext()) {
+            final UUID owner = iterator.next();
+            if(loading.containsKey(owner)) {
+                continue;
+            }
+
+            iterator.remove();
+            if(!unsaved.contains(owner)) {
+                changed.put(owner, preferences(owner));
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * Takes the preferences of the player, if they changed since they were last taken.
+     * Nothing is taken while the preferences of the player are being loaded, or if they could not be loaded.
+     *
+     * @param owner the player
+     * @return the changed preferences, or {@code null} if they did not change or must not be saved
+     */
+    public @Nullable PlayerPreferences takeDirty(final @NonNull UUID owner) {
+        if(loading.containsKey(owner) || unsaved.contains(owner)) {
+            return null;
+        }
+
+        return dirty.remove(owner) ? preferences(owner) : null;
+    }
+
+    /**
+     * Searches for the player in the block list.
+     *
+     * @return the index of the most significant bits of the player, or {@code -(insertion index) - 1} if it is not in the list
+     */
+    private static int indexOf(final long[] blockList, final long mostSignificantBits, final long leastSignificantBits) {
+        int low = 0;
+        int high = blockList.length / 2 - 1;
+
+        while(low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int compare = compare(blockList[middle * 2], blockList[middle * 2 + 1], mostSignificantBits, leastSignificantBits);
+
+            if(compare < 0) {
+                low = middle + 1;
+            } else if(compare > 0) {
+                high = middle - 1;
+            } else {
+                return middle * 2;
+            }
+        }
+
+        return -(low * 2) - 1;
+    }
+
+    private static int compare(final long firstMost, final long firstLeast, final long secondMost, final long secondLeast) {
+        final int compare = Long.compare(firstMost, secondMost);
+        return compare != 0 ? compare : Long.compare(firstLeast, secondLeast);
+    }
+
+    /**
+     * The changes of a player while their preferences are loaded.
+     */
+    private static final class Changes {
+        private final long token;
+        private final Set<UUID> blocked = new HashSet<>();
+        private final Set<UUID> unblocked = new HashSet<>();
+        private boolean toggled;
+
+        /**
+         * If the player does not accept any TPA requests after their last toggle.
+         */
+        private boolean toggledOff;
+
+        /**
+         * If the player left before their preferences were loaded.
+         */
+        private boolean left;
+
+        private Changes(final long token) {
+            this.token = token;
+        }
+
+        private boolean isEmpty() {
+            return blocked.isEmpty() && unblocked.isEmpty() && !toggled;
+        }
+    }
+}
@@ -3,20 +3,75 @@ package dev.atlasmc.atlastp.manager;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 public interface TPAManager<T> {
     boolean addRequest(final @NonNull UUID sender, final @NonNull UUID receiver, final @NonNull TPADirection direction, final T data);
 
+    /**
+     * Adds the requests of the sender to all the receivers in one pass, e.g. for a request to a group of players.
+     *
+     * @param sender    the sender of the requests
+     * @param receivers the receivers of the requests, which must not contain duplicates
+     * @param direction the direction of the requests
+     * @param data      creates the data of the request to a receiver
+     * @return the open requests that were replaced by the new ones
+     */
+    @NonNull Collection<TPARequest<T>> addRequests(final @NonNull UUID sender, final @NonNull Collection<UUID> receivers, final @NonNull TPADirection direction, final @NonNull Function<UUID, T> data);
+
     Optional<TPARequest<T>> getRequest(final @NonNull UUID sender, final @NonNull UUID receiver);
 
     boolean removeRequest(final @NonNull UUID sender, final @NonNull UUID receiver);
 
+    /**
+     * Removes the requests of the sender to the receivers in one pass.
+     *
+     * @param sender    the sender of the requests
+     * @param receivers the receivers of the requests
+     * @return the removed requests
+     */
+    @NonNull Collection<TPARequest<T>> removeRequests(final @NonNull UUID sender, final @NonNull Collection<UUID> receivers);
+
     @NonNull Collection<TPARequest<T>> removeRequestsBySender(final @NonNull UUID sender);
 
     @NonNull Collection<TPARequest<T>> removeRequestsToReceiver(final @NonNull UUID receiver);
 
+    int requestCountBySender(final @NonNull UUID sender);
+
+    /**
+     * @return the amount of open requests
+     */
+    int requestCount();
+
+    /**
+     * Visits the open requests in the live structures, without copying them.
+     * The requests must not be added or removed while visiting, so this is only called on the server thread,
+     * on which the requests are added, completed and expired as well.
+     *
+     * @param visitor the visitor, which returns {@code false} to stop visiting
+     */
+    void forEachRequest(final @NonNull Predicate<TPARequest<T>> visitor);
+
+    /**
+     * Visits the open requests that were sent by the player and then the ones that were sent to the player.
+     * The requests must not be added or removed while visiting, so this is only called on the server thread.
+     *
+     * @param player  the player
+     * @param visitor the visitor, which returns {@code false} to stop visiting
+     */
+    void forEachRequestOf(final @NonNull UUID player, final @NonNull Predicate<TPARequest<T>> visitor);
+
+    /**
+     * Estimates the size of the structures of the manager, to find leaks.
+     *
+     * @return the footprint of every structure
+     */
+    @NonNull List<StructureFootprint> footprint();
+
     interface TPARequest<T> {
         UUID sender();
 
@@ -27,6 +82,16 @@ public interface TPAManager<T> {
         T data();
     }
 
+    /**
+     * The estimated size of a structure of a manager.
+     *
+     * @param name           the name of the structure
+     * @param entries        the amount of entries in the structure
+     * @param buckets        the amount of buckets (hash table slots or array slots) of the structure
+     * @param estimatedBytes the estimated amount of retained bytes, not counting the {@link UUID}s of the players
+     */
+    record StructureFootprint(String name, long entries, long buckets, long estimatedBytes) {}
+
     enum TPADirection {
         TO_SENDER,
         TO_RECEIVER
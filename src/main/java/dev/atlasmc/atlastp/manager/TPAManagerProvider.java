@@ -0,0 +1,62 @@
+package dev.atlasmc.atlastp.manager;
+
+import dev.atlasmc.atlastp.util.PlayerIdInterner;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.Map;
+
+/**
+ * Creates a {@link TPAManager} backend, which is selected by its {@link #name()} in the config.
+ * <p>
+ * The providers are discovered with {@link java.util.ServiceLoader}, so another backend can be tried
+ * by adding a jar with a {@code META-INF/services/dev.atlasmc.atlastp.manager.TPAManagerProvider} file
+ * instead of rebuilding the plugin. Every provider needs a public constructor without parameters.
+ * <p>
+ * A created manager does not have to be thread-safe. It is only used from the server thread,
+ * by the commands as well as by the expiry of the requests, which runs on the scheduler of the server.
+ * It must not be handed to other threads either.
+ */
+public interface TPAManagerProvider {
+    /**
+     * @return the name of the backend in the config, in lower case
+     */
+    @NonNull String name();
+
+    /**
+     * Creates a new manager.
+     *
+     * @param context the context with the settings of the backend
+     * @param <T>     the type of the data of the requests
+     * @return the new manager
+     */
+    <T> @NonNull TPAManager<T> create(final @NonNull Context context);
+
+    /**
+     * The context a manager is created in.
+     *
+     * @param playerIds the interner for the IDs of the players, in which every online player holds a reference
+     * @param settings  the settings of the backend from the config
+     */
+    record Context(@NonNull PlayerIdInterner playerIds, @NonNull Map<String, String> settings) {
+        /**
+         * Retrieves an integer setting.
+         *
+         * @param key          the key of the setting
+         * @param defaultValue the value if the setting is missing
+         * @return the value of the setting
+         * @throws IllegalArgumentException if the setting is not an integer
+         */
+        public int intSetting(final @NonNull String key, final int defaultValue) {
+            final String value = settings.get(key);
+            if(value == null) {
+                return defaultValue;
+            }
+
+            try {
+                return Integer.parseInt(value.trim());
+            } catch(final NumberFormatException e) {
+                throw new IllegalArgumentException("The setting " + key + " has to be an integer, but is \"" + value + "\".", e);
+            }
+        }
+    }
+}
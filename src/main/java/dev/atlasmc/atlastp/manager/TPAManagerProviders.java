@@ -0,0 +1,69 @@
+package dev.atlasmc.atlastp.manager;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+/**
+ * The {@link TPAManagerProvider}s that are available, by their name.
+ */
+public final class TPAManagerProviders {
+    /**
+     * The backend that is used if the configured one does not exist.
+     */
+    public static final String DEFAULT = InternedTPAManager.Provider.NAME;
+
+    private final Map<String, TPAManagerProvider> providers;
+
+    TPAManagerProviders(final Iterable<? extends TPAManagerProvider> providers) {
+        final Map<String, TPAManagerProvider> byName = new LinkedHashMap<>();
+        for(final TPAManagerProvider provider : providers) {
+            // The first provider of a name wins
+            byName.putIfAbsent(provider.name().toLowerCase(Locale.ROOT), provider);
+        }
+
+        this.providers = byName;
+    }
+
+    /**
+     * Discovers the providers with the {@link ServiceLoader} of the class loader.
+     * The built-in providers are registered directly, so they can't be replaced by a provider with the same name.
+     *
+     * @param classLoader the class loader to look for the providers in
+     * @return the available providers
+     */
+    public static @NonNull TPAManagerProviders load(final @NonNull ClassLoader classLoader) {
+        final Map<String, TPAManagerProvider> providers = new LinkedHashMap<>();
+        providers.put(InternedTPAManager.Provider.NAME, new InternedTPAManager.Provider());
+        providers.put(MapTPAManager.Provider.NAME, new MapTPAManager.Provider());
+
+        for(final TPAManagerProvider provider : ServiceLoader.load(TPAManagerProvider.class, classLoader)) {
+            providers.putIfAbsent(provider.name().toLowerCase(Locale.ROOT), provider);
+        }
+
+        return new TPAManagerProviders(providers.values());
+    }
+
+    /**
+     * Retrieves the provider with the name.
+     *
+     * @param name the name of the backend, in any case
+     * @return the provider, or {@code null} if there is none with the name
+     */
+    public @Nullable TPAManagerProvider get(final @NonNull String name) {
+        return providers.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * @return the names of the available backends
+     */
+    public @NonNull Set<String> names() {
+        return Collections.unmodifiableSet(providers.keySet());
+    }
+}
@@ -0,0 +1,58 @@
+package dev.atlasmc.atlastp.preference;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * The stored preferences of a player.
+ * <p>
+ * The switches are packed into {@code flags}, so that a new switch does not need a new version of the file format.
+ * The block list is sorted and holds the most and the least significant bits of every blocked player,
+ * like the block lists of the {@link dev.atlasmc.atlastp.manager.TPABlockManager}. It must not be modified.
+ *
+ * @param flags     the switches of the player
+ * @param blockList the sorted block list
+ */
+public record PlayerPreferences(int flags, long @NonNull [] blockList) {
+    /**
+     * The player does not accept any TPA requests.
+     */
+    public static final int TOGGLED_OFF = 1;
+
+    /**
+     * The preferences of a player that never changed them.
+     */
+    public static final PlayerPreferences DEFAULT = new PlayerPreferences(0, new long[0]);
+
+    /**
+     * @return if the player does not accept any TPA requests
+     */
+    public boolean toggledOff() {
+        return (flags & TOGGLED_OFF) != 0;
+    }
+
+    /**
+     * @return if these are the preferences of a player that never changed them
+     */
+    public boolean isDefault() {
+        return flags == 0 && blockList.length == 0;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        return other instanceof PlayerPreferences preferences
+                && flags == preferences.flags
+                && Arrays.equals(blockList, preferences.blockList);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * flags + Arrays.hashCode(blockList);
+    }
+
+    @Override
+    public String toString() {
+        return "PlayerPreferences[flags=" + flags + ", blocked=" + blockList.length / 2 + "]";
+    }
+}
@@ -0,0 +1,195 @@
+package dev.atlasmc.atlastp.preference;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Stores the {@link PlayerPreferences} in a file per player in a directory.
+ * <p>
+ * Saving a player only queues their preferences, so it is cheap enough for the server thread.
+ * The queued preferences are written in one batch by {@link #flush()}, which should be called regularly off the server thread.
+ * If a player is saved again before the flush, only their newest preferences are written.
+ * Loading a player that is still queued returns the queued preferences, so that a player that rejoins quickly never gets
+ * the older preferences from the file. A player with the {@link PlayerPreferences#DEFAULT} preferences has no file.
+ * <p>
+ * A file is: the magic number {@code ATPP} and the format version (both an {@code int}), the flags ({@code int}),
+ * the amount of blocked players ({@code int}) and the blocked players (two {@code long}s each).
+ * <p>
+ * Loading and flushing block and exclude each other with a {@link ReentrantLock}, which does not pin the carrier
+ * of the virtual threads they run on.
+ */
+public final class PreferenceStore {
+    /**
+     * {@code ATPP} in ASCII.
+     */
+    public static final int MAGIC = 0x41545050;
+    public static final int VERSION = 1;
+
+    static final String EXTENSION = ".prefs";
+
+    private final Path directory;
+
+    /**
+     * The preferences that were saved, but not written yet.
+     */
+    private final Map<UUID, PlayerPreferences> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Guards the files.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * @param directory the directory of the files
+     */
+    public PreferenceStore(final @NonNull Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Queues the preferences of the player. They are written with the next {@link #flush()}.
+     *
+     * @param player      the player
+     * @param preferences the preferences of the player
+     */
+    public void save(final @NonNull UUID player, final @NonNull PlayerPreferences preferences) {
+        pending.put(player, preferences);
+    }
+
+    /**
+     * Loads the preferences of the player. This blocks, so it should not be called on the server thread.
+     *
+     * @param player the player
+     * @return the preferences, which are the {@link PlayerPreferences#DEFAULT} ones if the player has none
+     * @throws IOException if the file of the player could not be read
+     */
+    public @NonNull PlayerPreferences load(final @NonNull UUID player) throws IOException {
+        lock.lock();
+        try {
+            final PlayerPreferences queued = pending.get(player);
+            if(queued != null) {
+                return queued;
+            }
+
+            try(final InputStream input = Files.newInputStream(path(player))) {
+                return read(input);
+            } catch(final NoSuchFileException e) {
+                return PlayerPreferences.DEFAULT;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes all the queued preferences.
+     * The preferences of a player stay queued if the write fails, so that the next flush tries it again.
+     *
+     * @return the amount of players whose preferences were written
+     * @throws IOException if a file could not be written
+     */
+    public int flush() throws IOException {
+        lock.lock();
+        try {
+            if(pending.isEmpty()) {
+                return 0;
+            }
+
+            Files.createDirectories(directory);
+
+            final List<Map.Entry<UUID, PlayerPreferences>> batch = new ArrayList<>(pending.entrySet());
+            int written = 0;
+
+            for(final Map.Entry<UUID, PlayerPreferences> entry : batch) {
+                write(entry.getKey(), entry.getValue());
+
+                // Preferences that were saved during the write stay queued for the next flush
+                pending.remove(entry.getKey(), entry.getValue());
+                written++;
+            }
+
+            return written;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the amount of players whose preferences are not written yet
+     */
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    private void write(final UUID player, final PlayerPreferences preferences) throws IOException {
+        final Path path = path(player);
+        if(preferences.isDefault()) {
+            Files.deleteIfExists(path);
+            return;
+        }
+
+        // The file is written to a temporary file first, so that the server stopping never leaves half a file
+        final Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try(final OutputStream output = Files.newOutputStream(temporary)) {
+            write(preferences, output);
+        }
+
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static void write(final PlayerPreferences preferences, final OutputStream stream) throws IOException {
+        final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream));
+
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(preferences.flags());
+        output.writeInt(preferences.blockList().length / 2);
+        for(final long bits : preferences.blockList()) {
+            output.writeLong(bits);
+        }
+
+        output.flush();
+    }
+
+    static PlayerPreferences read(final InputStream stream) throws IOException {
+        final DataInputStream input = new DataInputStream(new BufferedInputStream(stream));
+
+        if(input.readInt() != MAGIC) {
+            throw new IOException("The file is not an AtlasTP preference file.");
+        }
+
+        final int version = input.readInt();
+        if(version < 1 || version > VERSION) {
+            throw new IOException("The preferences have the version " + version + ", but only the versions up to " + VERSION + " are known.");
+        }
+
+        final int flags = input.readInt();
+        final long[] blockList = new long[input.readInt() * 2];
+        for(int i = 0; i < blockList.length; i++) {
+            blockList[i] = input.readLong();
+        }
+
+        return new PlayerPreferences(flags, blockList);
+    }
+
+    private Path path(final UUID player) {
+        return directory.resolve(player + EXTENSION);
+    }
+}
@@ -0,0 +1,115 @@
+package dev.atlasmc.atlastp.region;
+
+import dev.atlasmc.atlastp.util.IOExecutor;
+import org.apache.logging.log4j.Logger;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.spongepowered.api.ResourceKey;
+import org.spongepowered.configurate.CommentedConfigurationNode;
+import org.spongepowered.configurate.ConfigurateException;
+import org.spongepowered.configurate.hocon.HoconConfigurationLoader;
+import org.spongepowered.math.vector.Vector3d;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The regions that players can't teleport into, which are checked on every teleport by the
+ * {@link dev.atlasmc.atlastp.teleport.TeleportHandler}.
+ * <p>
+ * The regions are loaded from the {@link RegionConfig} and indexed by the {@link RegionIndex} on the {@link IOExecutor},
+ * so that neither the file nor building the index blocks the server thread. The lookups use the previous index
+ * until the new one is built, and a broken file keeps the previous index.
+ */
+public final class NoTeleportRegions {
+    /**
+     * The permission that allows a player to teleport into the regions.
+     */
+    public static final String BYPASS_PERMISSION = "atlastp.region.bypass";
+
+    private final Logger logger;
+    private final IOExecutor io;
+    private final Path file;
+
+    private volatile RegionIndex index = RegionIndex.EMPTY;
+
+    public NoTeleportRegions(final Logger logger, final IOExecutor io, final Path file) {
+        this.logger = logger;
+        this.io = io;
+        this.file = file;
+    }
+
+    /**
+     * Loads the regions again and replaces the index once it is built.
+     *
+     * @return the future that is completed when the new index is used
+     */
+    public @NonNull CompletableFuture<Void> reload() {
+        return io.supply(this::load).handle((loaded, throwable) -> {
+            if(throwable != null) {
+                logger.error("The no-teleport regions in {} could not be loaded, the previous ones are kept.", file, throwable);
+                return null;
+            }
+
+            index = loaded;
+            logger.info("Loaded {} no-teleport regions.", loaded.size());
+            return null;
+        });
+    }
+
+    private RegionIndex load() throws ConfigurateException {
+        final HoconConfigurationLoader loader = HoconConfigurationLoader.builder().path(file).build();
+        final CommentedConfigurationNode node = loader.load();
+
+        final RegionConfig config = node.get(RegionConfig.class, new RegionConfig());
+        if(!Files.exists(file)) {
+            // Writes the file with the example, so that the admins can find it
+            node.set(RegionConfig.class, config);
+            loader.save(node);
+        }
+
+        final List<Region> regions = new ArrayList<>(config.regions().size());
+        for(final RegionConfig.Entry entry : config.regions()) {
+            final Region region = entry.toRegion();
+            try {
+                ResourceKey.resolve(region.world());
+                if(region.redirect() != null) {
+                    ResourceKey.resolve(region.redirect().world());
+                }
+            } catch(final IllegalArgumentException e) {
+                logger.error("The no-teleport region {} is skipped, as its world is not a valid key.", region.name());
+                continue;
+            }
+
+            regions.add(region);
+        }
+
+        return RegionIndex.build(regions);
+    }
+
+    /**
+     * Finds the region that contains the position.
+     *
+     * @param world    the key of the world
+     * @param position the position in the world
+     * @return the region that contains the position, or {@code null} if there is none
+     */
+    public @Nullable Region find(final @NonNull ResourceKey world, final @NonNull Vector3d position) {
+        final RegionIndex current = index;
+        if(current.size() == 0) {
+            return null;
+        }
+
+        return current.find(world.asString(), position.x(), position.y(), position.z());
+    }
+
+    /**
+     * @return the amount of loaded regions
+     */
+    public int size() {
+        return index.size();
+    }
+}
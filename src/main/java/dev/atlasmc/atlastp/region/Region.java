@@ -0,0 +1,71 @@
+package dev.atlasmc.atlastp.region;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A box of blocks in a world that players can't teleport into.
+ * The bounds are block coordinates and inclusive.
+ *
+ * @param name     the name of the region, which is shown to the players
+ * @param world    the key of the world of the region
+ * @param minX     the smallest x coordinate of the region
+ * @param minY     the smallest y coordinate of the region
+ * @param minZ     the smallest z coordinate of the region
+ * @param maxX     the largest x coordinate of the region
+ * @param maxY     the largest y coordinate of the region
+ * @param maxZ     the largest z coordinate of the region
+ * @param redirect the destination the teleports into the region are redirected to, or {@code null} if they are denied
+ */
+public record Region(
+        @NonNull String name,
+        @NonNull String world,
+        int minX,
+        int minY,
+        int minZ,
+        int maxX,
+        int maxY,
+        int maxZ,
+        @Nullable Destination redirect
+) {
+    public Region {
+        if(minX > maxX || minY > maxY || minZ > maxZ) {
+            throw new IllegalArgumentException("The minimum of the region " + name + " is larger than its maximum.");
+        }
+    }
+
+    /**
+     * Creates a region from two opposite corners in any order.
+     */
+    public static @NonNull Region between(
+            final @NonNull String name,
+            final @NonNull String world,
+            final int x1, final int y1, final int z1,
+            final int x2, final int y2, final int z2,
+            final @Nullable Destination redirect
+    ) {
+        return new Region(
+                name, world,
+                Math.min(x1, x2), Math.min(y1, y2), Math.min(z1, z2),
+                Math.max(x1, x2), Math.max(y1, y2), Math.max(z1, z2),
+                redirect
+        );
+    }
+
+    /**
+     * @return whether the block is in the region
+     */
+    public boolean contains(final int x, final int y, final int z) {
+        return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+    }
+
+    /**
+     * The destination of a redirected teleport.
+     *
+     * @param world the key of the world
+     * @param x     the x coordinate
+     * @param y     the y coordinate
+     * @param z     the z coordinate
+     */
+    public record Destination(@NonNull String world, double x, double y, double z) {}
+}
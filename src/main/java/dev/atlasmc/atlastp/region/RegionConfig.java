@@ -0,0 +1,92 @@
+package dev.atlasmc.atlastp.region;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.spongepowered.configurate.objectmapping.ConfigSerializable;
+import org.spongepowered.configurate.objectmapping.meta.Comment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The configuration of the no-teleport regions, which is stored in {@code regions.conf} in the config directory.
+ * It is loaded again on {@code /sponge plugins refresh}.
+ */
+@ConfigSerializable
+public class RegionConfig {
+    @Comment("""
+                The regions that players can't teleport into with /tp or a TPA request, e.g. arenas or spawn vaults.
+                Players with the permission "atlastp.region.bypass" can teleport into them anyway.
+                
+                Example:
+                regions = [
+                    {
+                        name = "Arena"
+                        world = "minecraft:overworld"
+                        from { x = -50, y = 0, z = -50 }
+                        to { x = 50, y = 255, z = 50 }
+                        # Optional, the teleports are denied without it
+                        redirect { world = "minecraft:overworld", x = 0.5, y = 64, z = 60.5 }
+                    }
+                ]
+                
+                If regions overlap, the one that is defined first is used.
+                """)
+    private @NonNull List<Entry> regions = new ArrayList<>();
+
+    /**
+     * Retrieves the configured regions.
+     *
+     * @return the regions in the order of their priority
+     */
+    public @NonNull List<Entry> regions() {
+        return this.regions;
+    }
+
+    /**
+     * A configured region.
+     */
+    @ConfigSerializable
+    public static class Entry {
+        private @NonNull String name = "";
+        private @NonNull String world = "minecraft:overworld";
+        private @NonNull Position from = new Position();
+        private @NonNull Position to = new Position();
+        private @Nullable Redirect redirect = null;
+
+        /**
+         * Converts the entry to the region that is indexed.
+         *
+         * @return the region
+         */
+        public @NonNull Region toRegion() {
+            return Region.between(
+                    name, world,
+                    from.x, from.y, from.z,
+                    to.x, to.y, to.z,
+                    redirect == null ? null : new Region.Destination(redirect.world, redirect.x, redirect.y, redirect.z)
+            );
+        }
+    }
+
+    /**
+     * A corner of a region in block coordinates.
+     */
+    @ConfigSerializable
+    public static class Position {
+        private int x;
+        private int y;
+        private int z;
+    }
+
+    /**
+     * The destination of the teleports into a region.
+     */
+    @ConfigSerializable
+    public static class Redirect {
+        private @NonNull String world = "minecraft:overworld";
+        private double x;
+        private double y;
+        private double z;
+    }
+}
@@ -0,0 +1,170 @@
+package dev.atlasmc.atlastp.region;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable index of the {@link Region}s, which finds the region of a block without looking at every region.
+ * <p>
+ * Every world has a grid of columns of {@value #CELL_SIZE}x{@value #CELL_SIZE} blocks,
+ * and every cell knows the regions that overlap it. A lookup therefore only tests the few regions of one cell,
+ * no matter how many regions there are. Regions that would span more than {@value #MAX_CELLS} cells
+ * (e.g. a whole world) are not put into the grid, but tested on every lookup in their world, as there are only few of them.
+ * <p>
+ * If regions overlap, the one that was defined first wins.
+ * As the index is immutable, it can be built on any thread and replaced as a whole.
+ */
+public final class RegionIndex {
+    /**
+     * The index without any region.
+     */
+    public static final RegionIndex EMPTY = new RegionIndex(Map.of(), 0);
+
+    private static final int CELL_SHIFT = 6;
+    static final int CELL_SIZE = 1 << CELL_SHIFT;
+    static final int MAX_CELLS = 1024;
+
+    private final Map<String, WorldGrid> worlds;
+    private final int size;
+
+    private RegionIndex(final Map<String, WorldGrid> worlds, final int size) {
+        this.worlds = worlds;
+        this.size = size;
+    }
+
+    /**
+     * Builds the index.
+     *
+     * @param regions the regions in the order of their priority
+     * @return the index of the regions
+     */
+    public static @NonNull RegionIndex build(final @NonNull List<Region> regions) {
+        if(regions.isEmpty()) {
+            return EMPTY;
+        }
+
+        final Map<String, WorldGrid.Builder> builders = new HashMap<>();
+        for(final Region region : regions) {
+            builders.computeIfAbsent(region.world(), k -> new WorldGrid.Builder()).add(region);
+        }
+
+        final Map<String, WorldGrid> worlds = new HashMap<>(builders.size() * 2);
+        builders.forEach((world, builder) -> worlds.put(world, builder.build()));
+
+        return new RegionIndex(Map.copyOf(worlds), regions.size());
+    }
+
+    /**
+     * Finds the region that contains the position.
+     *
+     * @param world the key of the world
+     * @param x     the x coordinate
+     * @param y     the y coordinate
+     * @param z     the z coordinate
+     * @return the region with the highest priority that contains the position, or {@code null} if there is none
+     */
+    public @Nullable Region find(final @NonNull String world, final double x, final double y, final double z) {
+        final WorldGrid grid = worlds.get(world);
+        if(grid == null) {
+            return null;
+        }
+
+        return grid.find((int) Math.floor(x), (int) Math.floor(y), (int) Math.floor(z));
+    }
+
+    /**
+     * @return the amount of regions in the index
+     */
+    public int size() {
+        return size;
+    }
+
+    private static long cellKey(final int cellX, final int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * The regions of one world.
+     *
+     * @param regions the regions in the order of their priority
+     * @param cells   the indices of the regions in every cell, in ascending order
+     * @param large   the indices of the regions that are not in the grid, in ascending order
+     */
+    private record WorldGrid(Region[] regions, Map<Long, int[]> cells, int[] large) {
+        private @Nullable Region find(final int x, final int y, final int z) {
+            final int[] candidates = cells.get(cellKey(x >> CELL_SHIFT, z >> CELL_SHIFT));
+
+            // Both lists are ascending, so the first match of each is the one with the highest priority in it
+            int best = Integer.MAX_VALUE;
+            if(candidates != null) {
+                for(final int index : candidates) {
+                    if(regions[index].contains(x, y, z)) {
+                        best = index;
+                        break;
+                    }
+                }
+            }
+
+            for(final int index : large) {
+                if(index >= best)
+                    break;
+
+                if(regions[index].contains(x, y, z)) {
+                    best = index;
+                    break;
+                }
+            }
+
+            return best == Integer.MAX_VALUE ? null : regions[best];
+        }
+
+        private static final class Builder {
+            private final List<Region> regions = new ArrayList<>();
+            private final Map<Long, List<Integer>> cells = new HashMap<>();
+            private final List<Integer> large = new ArrayList<>();
+
+            private void add(final Region region) {
+                final int index = regions.size();
+                regions.add(region);
+
+                final int minCellX = region.minX() >> CELL_SHIFT;
+                final int maxCellX = region.maxX() >> CELL_SHIFT;
+                final int minCellZ = region.minZ() >> CELL_SHIFT;
+                final int maxCellZ = region.maxZ() >> CELL_SHIFT;
+
+                if((long) (maxCellX - minCellX + 1) * (maxCellZ - minCellZ + 1) > MAX_CELLS) {
+                    large.add(index);
+                    return;
+                }
+
+                for(int cellX = minCellX; cellX <= maxCellX; cellX++) {
+                    for(int cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+                        cells.computeIfAbsent(cellKey(cellX, cellZ), k -> new ArrayList<>(2)).add(index);
+                    }
+                }
+            }
+
+            private WorldGrid build() {
+                final Map<Long, int[]> builtCells = new HashMap<>(cells.size() * 2);
+                cells.forEach((key, indices) -> builtCells.put(key, toArray(indices)));
+
+                return new WorldGrid(regions.toArray(Region[]::new), builtCells, toArray(large));
+            }
+
+            private static int[] toArray(final List<Integer> indices) {
+                // The indices are added in ascending order
+                final int[] array = new int[indices.size()];
+                for(int i = 0; i < array.length; i++) {
+                    array[i] = indices.get(i);
+                }
+
+                return array;
+            }
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package dev.atlasmc.atlastp.teleport;
+
+import dev.atlasmc.atlastp.event.AtlasTPEventBus;
+import dev.atlasmc.atlastp.event.TPARequestEvent;
+import dev.atlasmc.atlastp.manager.TPAManager;
+import dev.atlasmc.atlastp.util.RequestTicket;
+import dev.atlasmc.atlastp.util.TPAManagerUtil;
+import org.apache.logging.log4j.Logger;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.spongepowered.api.ResourceKey;
+import org.spongepowered.api.Server;
+import org.spongepowered.api.entity.living.player.server.ServerPlayer;
+import org.spongepowered.api.scheduler.ScheduledTask;
+import org.spongepowered.api.scheduler.Task;
+import org.spongepowered.api.util.Ticks;
+import org.spongepowered.api.world.server.ServerWorld;
+import org.spongepowered.api.world.server.Ticket;
+import org.spongepowered.api.world.server.TicketType;
+import org.spongepowered.math.vector.Vector3i;
+import org.spongepowered.plugin.PluginContainer;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Loads the chunks at the destination of a TPA request while the request is pending,
+ * so that the teleport does not have to load them synchronously once the request is accepted.
+ * <p>
+ * A chunk ticket is requested around the player that will be teleported to when the first request to them is sent.
+ * The pending requests to the same player (e.g. from {@code /tpahere all}) share the ticket, which is released
+ * once the {@link RequestTicket}s of all of them are completed, whatever the outcomes are.
+ * The tickets are renewed every second while a request is pending,
+ * and moved when the player moves more than {@value #MOVE_THRESHOLD} chunks away or changes the world.
+ * The tickets have a short lifetime, so that a ticket that is not renewed anymore is released by the server on its own.
+ * <p>
+ * All the tickets are handled on the server thread.
+ */
+public final class ChunkPrefetcher {
+    /**
+     * The radius (in chunks) of the loaded area around the destination.
+     */
+    private static final int RADIUS = 1;
+
+    /**
+     * The distance (in chunks) the destination can move before the ticket is moved.
+     */
+    private static final int MOVE_THRESHOLD = 2;
+
+    /**
+     * The interval (in ticks) in which the tickets are renewed and checked for moved destinations.
+     */
+    private static final long UPDATE_INTERVAL = 20;
+
+    private static final TicketType<Long> TICKET_TYPE = TicketType.<Long>builder()
+            .name("atlastp_tpa_prefetch")
+            .comparator(Comparator.naturalOrder())
+            .lifetime(Ticks.of(UPDATE_INTERVAL * 3))
+            .build();
+
+    private final PluginContainer pluginContainer;
+    private final Logger logger;
+    private final TPAManagerUtil tpaManagerUtil;
+
+    /**
+     * The prefetches by the player that will be teleported to. Only accessed from the server thread.
+     */
+    private final Map<UUID, Prefetch> prefetches = new HashMap<>();
+
+    private final Consumer<TPARequestEvent> sendListener = this::onSend;
+
+    /**
+     * The value of the last ticket, so that every destination gets its own value.
+     */
+    private long lastTicketValue = 0;
+
+    private Server server;
+    private ScheduledTask updateTask;
+
+    public ChunkPrefetcher(final PluginContainer pluginContainer, final Logger logger, final TPAManagerUtil tpaManagerUtil) {
+        this.pluginContainer = pluginContainer;
+        this.logger = logger;
+        this.tpaManagerUtil = tpaManagerUtil;
+    }
+
+    /**
+     * Starts prefetching the destinations of the TPA requests posted to the event bus.
+     *
+     * @param server   the server the players are on
+     * @param eventBus the event bus of AtlasTP
+     */
+    public void start(final @NonNull Server server, final @NonNull AtlasTPEventBus eventBus) {
+        this.server = server;
+
+        eventBus.subscribe(TPARequestEvent.Send.Post.class, sendListener);
+
+        this.updateTask = server.scheduler().submit(
+                Task.builder()
+                        .interval(Ticks.of(UPDATE_INTERVAL))
+                        .execute(this::update)
+                        .plugin(pluginContainer)
+                        .build()
+        );
+    }
+
+    /**
+     * Stops prefetching and releases all the tickets.
+     *
+     * @param eventBus the event bus of AtlasTP
+     */
+    public void stop(final @NonNull AtlasTPEventBus eventBus) {
+        eventBus.unsubscribe(sendListener);
+
+        if(updateTask != null) {
+            updateTask.cancel();
+            updateTask = null;
+        }
+
+        prefetches.values().forEach(Prefetch::release);
+        prefetches.clear();
+        server = null;
+    }
+
+    /**
+     * Releases the tickets of all the requests of the player, e.g. because they disconnected.
+     *
+     * @param player the {@link UUID} of the player
+     */
+    public void releaseAll(final @NonNull UUID player) {
+        final Iterator<Prefetch> iterator = prefetches.values().iterator();
+        while(iterator.hasNext()) {
+            final Prefetch prefetch = iterator.next();
+
+            // Every request to the player involves them, so their own prefetch is released as a whole
+            prefetch.requests.values().removeIf(key -> key.sender().equals(player) || key.receiver().equals(player));
+            if(prefetch.requests.isEmpty()) {
+                prefetch.release();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * @return the amount of players that are prefetched as the destination of pending requests
+     */
+    public int prefetchCount() {
+        return prefetches.size();
+    }
+
+    private void onSend(final TPARequestEvent event) {
+        final UUID destinationPlayer = event.direction() == TPAManager.TPADirection.TO_RECEIVER ? event.receiver() : event.sender();
+        final Optional<ServerPlayer> player = server.player(destinationPlayer);
+        if(player.isEmpty()) {
+            return;
+        }
+
+        final Optional<TPAManager.TPARequest<RequestTicket>> request = tpaManagerUtil.getTpaManager().getRequest(event.sender(), event.receiver());
+        if(request.isEmpty()) {
+            return;
+        }
+
+        final Prefetch prefetch = prefetches.computeIfAbsent(destinationPlayer, ignored -> {
+            final Prefetch created = new Prefetch(destinationPlayer, ++lastTicketValue);
+            created.request(player.get());
+            return created;
+        });
+
+        // The tickets of the requests are compared by their identity, so a replaced request never removes its replacement
+        final RequestTicket ticket = request.get().data();
+        prefetch.requests.put(ticket, new RequestKey(event.sender(), event.receiver()));
+
+        ticket.whenComplete(outcome -> onComplete(prefetch, ticket));
+    }
+
+    private void onComplete(final Prefetch prefetch, final RequestTicket ticket) {
+        final Server current = server;
+        if(current == null) {
+            return;
+        }
+
+        // The requests are completed on the server thread, this only guards the tickets against other callers
+        if(!current.onMainThread()) {
+            current.scheduler().executor(pluginContainer).execute(() -> onComplete(prefetch, ticket));
+            return;
+        }
+
+        // The ticket is only released with the last request that uses it
+        if(prefetch.requests.remove(ticket) != null && prefetch.requests.isEmpty() && prefetches.remove(prefetch.destinationPlayer, prefetch)) {
+            prefetch.release();
+        }
+    }
+
+    private void update() {
+        for(final Prefetch prefetch : prefetches.values()) {
+            server.player(prefetch.destinationPlayer).ifPresent(player -> {
+                final Vector3i chunk = player.serverLocation().chunkPosition();
+
+                if(!player.world().key().equals(prefetch.world) || chunk.distanceSquared(prefetch.chunk) > MOVE_THRESHOLD * MOVE_THRESHOLD) {
+                    prefetch.release();
+                    prefetch.request(player);
+                } else {
+                    prefetch.renew();
+                }
+            });
+        }
+    }
+
+    private record RequestKey(UUID sender, UUID receiver) {}
+
+    /**
+     * The ticket at the destination of the requests to a player.
+     */
+    private final class Prefetch {
+        private final UUID destinationPlayer;
+        private final long value;
+
+        /**
+         * The pending requests that use the ticket, by their ticket.
+         */
+        private final Map<RequestTicket, RequestKey> requests = new HashMap<>();
+
+        private ResourceKey world;
+        private Vector3i chunk;
+
+        /**
+         * The ticket, or {@code null} if it is not granted yet.
+         */
+        private Ticket<Long> ticket;
+
+        /**
+         * Counts the requested tickets, so that a ticket that is granted after it was released or moved is released right away.
+         */
+        private int generation = 0;
+
+        private Prefetch(final UUID destinationPlayer, final long value) {
+            this.destinationPlayer = destinationPlayer;
+            this.value = value;
+        }
+
+        private void request(final ServerPlayer player) {
+            final ServerWorld serverWorld = player.world();
+            final Server current = server;
+            final int requested = ++generation;
+
+            world = serverWorld.key();
+            chunk = player.serverLocation().chunkPosition();
+
+            serverWorld.chunkManager().requestTicket(TICKET_TYPE, chunk, value, RADIUS)
+                    .whenCompleteAsync((granted, throwable) -> {
+                        if(throwable != null) {
+                            logger.debug("The destination chunks of a TPA request could not be prefetched.", throwable);
+                            return;
+                        }
+
+                        if(granted.isEmpty()) {
+                            return;
+                        }
+
+                        if(requested != generation || server == null) {
+                            serverWorld.chunkManager().releaseTicket(granted.get());
+                            return;
+                        }
+
+                        ticket = granted.get();
+                    }, current.scheduler().executor(pluginContainer));
+        }
+
+        private void renew() {
+            if(ticket != null) {
+                server.worldManager().world(world).ifPresent(serverWorld -> serverWorld.chunkManager().renewTicket(ticket));
+            }
+        }
+
+        private void release() {
+            generation++;
+
+            if(ticket != null) {
+                final Ticket<Long> released = ticket;
+                ticket = null;
+                server.worldManager().world(world).ifPresent(serverWorld -> serverWorld.chunkManager().releaseTicket(released));
+            }
+        }
+    }
+}
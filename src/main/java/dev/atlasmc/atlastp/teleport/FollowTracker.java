@@ -0,0 +1,238 @@
+package dev.atlasmc.atlastp.teleport;
+
+import dev.atlasmc.atlastp.config.AtlasTPConfig;
+import dev.atlasmc.atlastp.config.Translations;
+import dev.atlasmc.atlastp.event.TeleportEvent;
+import dev.atlasmc.atlastp.util.MessageBuffer;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.spongepowered.api.ResourceKey;
+import org.spongepowered.api.Server;
+import org.spongepowered.api.entity.living.player.server.ServerPlayer;
+import org.spongepowered.api.scheduler.ScheduledTask;
+import org.spongepowered.api.scheduler.Task;
+import org.spongepowered.api.util.Ticks;
+import org.spongepowered.math.vector.Vector3d;
+import org.spongepowered.plugin.PluginContainer;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Keeps the players of {@code /tpfollow} near the players they follow.
+ * <p>
+ * All the followers are handled by one task that runs every tick. It compares the position of every followed player
+ * with the position stored at the last teleport of the follower, and only teleports the follower again once the followed
+ * player moved more than {@link AtlasTPConfig#followDistance()} blocks away from it. In between, the follower can move freely.
+ * At most {@link AtlasTPConfig#followTeleportsPerTick()} followers are teleported per tick, the others in the next ticks.
+ * A follower that was teleported is moved to the end of the order, so that every follower gets its turn.
+ * <p>
+ * Following ends when one of the players leaves the server or when one of them changes the world,
+ * e.g. because the followed player went through a portal or the follower teleported somewhere else.
+ * <p>
+ * All the followers are handled on the server thread.
+ */
+public final class FollowTracker {
+    private final PluginContainer pluginContainer;
+    private final AtlasTPConfig config;
+    private final Translations translations;
+    private final TeleportHandler teleportHandler;
+    private final MessageBuffer messages;
+
+    /**
+     * The followers by their {@link UUID}, in the order they are checked. Only accessed from the server thread.
+     */
+    private final Map<UUID, Follow> follows = new LinkedHashMap<>();
+
+    private Server server;
+    private ScheduledTask updateTask;
+
+    public FollowTracker(
+            final PluginContainer pluginContainer,
+            final AtlasTPConfig config,
+            final Translations translations,
+            final TeleportHandler teleportHandler,
+            final MessageBuffer messages
+    ) {
+        this.pluginContainer = pluginContainer;
+        this.config = config;
+        this.translations = translations;
+        this.teleportHandler = teleportHandler;
+        this.messages = messages;
+    }
+
+    /**
+     * Starts the task that keeps the followers near the followed players.
+     *
+     * @param server the server the players are on
+     */
+    public void start(final @NonNull Server server) {
+        this.server = server;
+        this.updateTask = server.scheduler().submit(
+                Task.builder()
+                        .interval(Ticks.single())
+                        .execute(this::update)
+                        .plugin(pluginContainer)
+                        .build()
+        );
+    }
+
+    /**
+     * Stops the task and ends all the follows.
+     */
+    public void stop() {
+        if(updateTask != null) {
+            updateTask.cancel();
+            updateTask = null;
+        }
+
+        follows.clear();
+        server = null;
+    }
+
+    /**
+     * Lets the follower follow the target, which replaces a previous follow of the follower.
+     * The follower is teleported to the target in one of the next ticks.
+     *
+     * @param follower the player that follows
+     * @param target   the player that is followed
+     */
+    public void follow(final @NonNull ServerPlayer follower, final @NonNull ServerPlayer target) {
+        follows.remove(follower.uniqueId());
+        follows.put(follower.uniqueId(), new Follow(target.uniqueId(), target.name()));
+    }
+
+    /**
+     * Ends the follow of the follower.
+     *
+     * @param follower the player that follows
+     * @return the name of the player that was followed, or {@code null} if the player did not follow anyone
+     */
+    public @Nullable String unfollow(final @NonNull UUID follower) {
+        final Follow follow = follows.remove(follower);
+        return follow == null ? null : follow.targetName;
+    }
+
+    /**
+     * Ends the follows of and to the player, e.g. because they disconnected.
+     * The followers of the player are informed.
+     *
+     * @param player the {@link UUID} of the player
+     */
+    public void removeAll(final @NonNull UUID player) {
+        follows.remove(player);
+
+        final Iterator<Map.Entry<UUID, Follow>> iterator = follows.entrySet().iterator();
+        while(iterator.hasNext()) {
+            final Map.Entry<UUID, Follow> entry = iterator.next();
+            if(entry.getValue().target.equals(player)) {
+                iterator.remove();
+                server.player(entry.getKey()).ifPresent(follower -> sendEnded(follower, entry.getValue()));
+            }
+        }
+    }
+
+    /**
+     * @return the amount of players that follow another player
+     */
+    public int followerCount() {
+        return follows.size();
+    }
+
+    private void update() {
+        if(follows.isEmpty()) {
+            return;
+        }
+
+        final double maxDistanceSquared = config.followDistance() * config.followDistance();
+        final int maxTeleports = config.followTeleportsPerTick();
+        final List<UUID> teleported = new ArrayList<>(Math.min(maxTeleports, follows.size()));
+
+        final Iterator<Map.Entry<UUID, Follow>> iterator = follows.entrySet().iterator();
+        while(iterator.hasNext()) {
+            final Map.Entry<UUID, Follow> entry = iterator.next();
+            final Follow follow = entry.getValue();
+
+            final Optional<ServerPlayer> follower = server.player(entry.getKey());
+            final Optional<ServerPlayer> target = server.player(follow.target);
+            if(follower.isEmpty() || target.isEmpty()) {
+                // The disconnect was already handled by removeAll
+                iterator.remove();
+                continue;
+            }
+
+            final ResourceKey targetWorld = target.get().world().key();
+            final Vector3d targetPosition = target.get().position();
+
+            if(follow.world != null) {
+                if(!follow.world.equals(targetWorld) || !follow.world.equals(follower.get().world().key())) {
+                    iterator.remove();
+                    sendEnded(follower.get(), follow);
+                    continue;
+                }
+
+                if(follow.position.distanceSquared(targetPosition) <= maxDistanceSquared) {
+                    continue;
+                }
+            }
+
+            // The other followers that drifted are teleported in the next ticks
+            if(teleported.size() >= maxTeleports) {
+                continue;
+            }
+
+            if(!teleportHandler.teleport(follower.get(), target.get().serverLocation(), null, TeleportEvent.Reason.FOLLOW)) {
+                // Another plugin or a no-teleport region denied the teleport, so the follow can't be kept up
+                iterator.remove();
+                sendEnded(follower.get(), follow);
+                continue;
+            }
+
+            follow.world = targetWorld;
+            follow.position = targetPosition;
+            teleported.add(entry.getKey());
+        }
+
+        // Moves the teleported followers to the end of the order
+        for(final UUID follower : teleported) {
+            final Follow follow = follows.remove(follower);
+            if(follow != null) {
+                follows.put(follower, follow);
+            }
+        }
+    }
+
+    private void sendEnded(final ServerPlayer follower, final Follow follow) {
+        messages.send(follower, MiniMessage.miniMessage().deserialize(
+                translations.of(follower).tpFollowEnded(),
+                Placeholder.unparsed("toplayer", follow.targetName)
+        ));
+    }
+
+    /**
+     * The follow of a follower.
+     */
+    private static final class Follow {
+        private final UUID target;
+        private final String targetName;
+
+        /**
+         * The world and the position of the followed player at the last teleport of the follower,
+         * or {@code null} if the follower was not teleported yet.
+         */
+        private @Nullable ResourceKey world;
+        private Vector3d position;
+
+        private Follow(final UUID target, final String targetName) {
+            this.target = target;
+            this.targetName = targetName;
+        }
+    }
+}
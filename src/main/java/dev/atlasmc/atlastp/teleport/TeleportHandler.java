@@ -0,0 +1,219 @@
+package dev.atlasmc.atlastp.teleport;
+
+import dev.atlasmc.atlastp.config.Translations;
+import dev.atlasmc.atlastp.event.AtlasTPEventBus;
+import dev.atlasmc.atlastp.event.TeleportEvent;
+import dev.atlasmc.atlastp.jfr.FlightRecording;
+import dev.atlasmc.atlastp.jfr.TeleportFlightEvent;
+import dev.atlasmc.atlastp.region.NoTeleportRegions;
+import dev.atlasmc.atlastp.region.Region;
+import dev.atlasmc.atlastp.util.MessageBuffer;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.spongepowered.api.ResourceKey;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.entity.living.player.server.ServerPlayer;
+import org.spongepowered.api.world.server.ServerLocation;
+import org.spongepowered.api.world.server.ServerWorld;
+import org.spongepowered.math.vector.Vector3d;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Performs all the teleports of AtlasTP.
+ * <p>
+ * Every teleport goes through this class, so that other plugins can cancel or
+ * redirect them with the {@link TeleportEvent}s, and so that the {@link NoTeleportRegions} are enforced.
+ */
+public final class TeleportHandler {
+    private final Translations translations;
+    private final AtlasTPEventBus eventBus;
+    private final WorldLoader worldLoader;
+    private final MessageBuffer messages;
+    private final FlightRecording flightRecording;
+    private final NoTeleportRegions regions;
+
+    /**
+     * The tokens of the teleports that are waiting for their world to be loaded, by the teleported player.
+     * Only the last queued teleport of a player is performed.
+     */
+    private final Map<UUID, Object> queuedTeleports = new ConcurrentHashMap<>();
+
+    public TeleportHandler(
+            final Translations translations,
+            final AtlasTPEventBus eventBus,
+            final WorldLoader worldLoader,
+            final MessageBuffer messages,
+            final FlightRecording flightRecording,
+            final NoTeleportRegions regions
+    ) {
+        this.translations = translations;
+        this.eventBus = eventBus;
+        this.worldLoader = worldLoader;
+        this.messages = messages;
+        this.flightRecording = flightRecording;
+        this.regions = regions;
+    }
+
+    /**
+     * Teleports the player to the position in the world.
+     * <p>
+     * If the world is loaded, the player is teleported immediately and the returned future is already completed.
+     * Otherwise, the teleport is queued until the world was loaded asynchronously and the player is informed about it.
+     * This only happens for locations of offline players, as the worlds of the online players are always loaded.
+     * The future is always completed on the server thread.
+     *
+     * @param player   the player that should be teleported
+     * @param world    the key of the world the player should be teleported to
+     * @param position the position the player should be teleported to
+     * @param rotation the rotation of the player after the teleport, or {@code null} to keep the rotation
+     * @param reason   the reason of the teleport
+     * @return the future that is completed with whether the player was teleported
+     */
+    public CompletableFuture<Boolean> teleport(
+            final @NonNull ServerPlayer player,
+            final @NonNull ResourceKey world,
+            final @NonNull Vector3d position,
+            final @Nullable Vector3d rotation,
+            final TeleportEvent.@NonNull Reason reason
+    ) {
+        // A denied destination does not need its world to be loaded
+        final Region region = regions.find(world, position);
+        if(region != null && region.redirect() == null && !player.hasPermission(NoTeleportRegions.BYPASS_PERMISSION)) {
+            sendRegionMessage(player, translations.of(player).tpRegionBlocked(), region);
+            return CompletableFuture.completedFuture(false);
+        }
+
+        final Optional<ServerWorld> loadedWorld = worldLoader.loadedWorld(world);
+        if(loadedWorld.isPresent()) {
+            queuedTeleports.remove(player.uniqueId());
+            return CompletableFuture.completedFuture(teleport(player, ServerLocation.of(loadedWorld.get(), position), rotation, reason));
+        }
+
+        final Object token = new Object();
+        queuedTeleports.put(player.uniqueId(), token);
+
+        messages.send(player, MiniMessage.miniMessage().deserialize(
+                translations.of(player).worldLoading(),
+                Placeholder.unparsed("world", world.asString())
+        ));
+
+        return worldLoader.load(world).thenApply(targetWorld -> {
+            // Another teleport of the player replaced this one in the meantime
+            if(!queuedTeleports.remove(player.uniqueId(), token)) {
+                return false;
+            }
+
+            final Optional<ServerPlayer> onlinePlayer = Sponge.server().player(player.uniqueId());
+            if(onlinePlayer.isEmpty()) {
+                return false;
+            }
+
+            if(targetWorld.isEmpty()) {
+                messages.send(onlinePlayer.get(), MiniMessage.miniMessage().deserialize(
+                        translations.of(onlinePlayer.get()).worldLoadFailed(),
+                        Placeholder.unparsed("world", world.asString())
+                ));
+                return false;
+            }
+
+            return teleport(onlinePlayer.get(), ServerLocation.of(targetWorld.get(), position), rotation, reason);
+        });
+    }
+
+    /**
+     * Teleports the player to the destination, whose world has to be loaded.
+     *
+     * @param player      the player that should be teleported
+     * @param destination the location the player should be teleported to
+     * @param rotation    the rotation of the player after the teleport, or {@code null} to keep the rotation
+     * @param reason      the reason of the teleport
+     * @return if the player was teleported (it is not if the teleport was cancelled)
+     */
+    public boolean teleport(
+            final @NonNull ServerPlayer player,
+            @NonNull ServerLocation destination,
+            @Nullable Vector3d rotation,
+            final TeleportEvent.@NonNull Reason reason
+    ) {
+        if(eventBus.hasListeners(TeleportEvent.Pre.class)) {
+            final TeleportEvent.Pre event = eventBus.post(new TeleportEvent.Pre(player, reason, destination, rotation));
+            if(event.isCancelled()) {
+                return false;
+            }
+
+            destination = event.destination();
+            rotation = event.rotation();
+        }
+
+        final Region region = regions.find(destination.worldKey(), destination.position());
+        if(region != null && !player.hasPermission(NoTeleportRegions.BYPASS_PERMISSION)) {
+            destination = redirect(player, region);
+            if(destination == null) {
+                return false;
+            }
+        }
+
+        final TeleportFlightEvent flightEvent = flightRecording.beginTeleport();
+        final boolean chunkLoad = flightEvent != null && FlightRecording.needsChunkLoad(destination);
+
+        final boolean postEvent = eventBus.hasListeners(TeleportEvent.Post.class);
+        final ServerLocation origin = postEvent || flightEvent != null ? player.serverLocation() : null;
+
+        final boolean teleported = rotation == null
+                ? player.setLocation(destination)
+                : player.setLocationAndRotation(destination, rotation);
+
+        if(flightEvent != null) {
+            flightRecording.commitTeleport(flightEvent, player, reason, origin, destination, chunkLoad, teleported);
+        }
+
+        if(teleported && postEvent) {
+            eventBus.post(new TeleportEvent.Post(player, reason, origin, destination));
+        }
+
+        return teleported;
+    }
+
+    /**
+     * Retrieves the destination a teleport into the region is redirected to and informs the player.
+     *
+     * @return the destination, or {@code null} if the teleport is denied
+     */
+    private @Nullable ServerLocation redirect(final ServerPlayer player, final Region region) {
+        final Region.Destination redirect = region.redirect();
+        if(redirect != null) {
+            final Optional<ServerWorld> world = worldLoader.loadedWorld(ResourceKey.resolve(redirect.world()));
+            if(world.isPresent()) {
+                sendRegionMessage(player, translations.of(player).tpRegionRedirected(), region);
+                return ServerLocation.of(world.get(), redirect.x(), redirect.y(), redirect.z());
+            }
+        }
+
+        // The world of the redirect is not loaded for it, so that the teleport never waits for a world twice
+        sendRegionMessage(player, translations.of(player).tpRegionBlocked(), region);
+        return null;
+    }
+
+    private void sendRegionMessage(final ServerPlayer player, final String message, final Region region) {
+        messages.send(player, MiniMessage.miniMessage().deserialize(
+                message,
+                Placeholder.unparsed("region", region.name())
+        ));
+    }
+
+    /**
+     * Drops the queued teleport of a player, e.g. when the player disconnects.
+     *
+     * @param player the {@link UUID} of the player
+     */
+    public void cancelQueuedTeleport(final @NonNull UUID player) {
+        queuedTeleports.remove(player);
+    }
+}
@@ -0,0 +1,184 @@
+package dev.atlasmc.atlastp.teleport;
+
+import dev.atlasmc.atlastp.config.AtlasTPConfig;
+import org.apache.logging.log4j.Logger;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.spongepowered.api.ResourceKey;
+import org.spongepowered.api.Server;
+import org.spongepowered.api.scheduler.ScheduledTask;
+import org.spongepowered.api.scheduler.Task;
+import org.spongepowered.api.util.Ticks;
+import org.spongepowered.api.world.server.ServerWorld;
+import org.spongepowered.plugin.PluginContainer;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads the destination worlds of teleports asynchronously through the world manager.
+ * <p>
+ * The players that are online are always in a loaded world, so a world is only loaded for a teleport
+ * to the location where an offline player logged out (e.g. /tp to an offline player).
+ * Before the server started, no world is loaded and none can be loaded.
+ * <p>
+ * The worlds that were loaded by AtlasTP are unloaded again when no player has been in them for
+ * {@link AtlasTPConfig#worldUnloadGracePeriod()} ticks. The grace period prevents that a world
+ * is loaded and unloaded over and over again when players teleport into it repeatedly.
+ */
+public final class WorldLoader {
+    /**
+     * The interval (in ticks) in which the worlds loaded by AtlasTP are checked for players.
+     */
+    private static final long IDLE_CHECK_INTERVAL = 20;
+
+    private final PluginContainer pluginContainer;
+    private final Logger logger;
+    private final AtlasTPConfig config;
+
+    /**
+     * The worlds that are currently being loaded, so that a world is not loaded twice at the same time.
+     */
+    private final Map<ResourceKey, CompletableFuture<Optional<ServerWorld>>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * The worlds that were loaded by AtlasTP and the time (in milliseconds) they were last used.
+     */
+    private final Map<ResourceKey, Long> loadedWorlds = new ConcurrentHashMap<>();
+
+    private Server server;
+    private ScheduledTask idleTask;
+
+    public WorldLoader(final PluginContainer pluginContainer, final Logger logger, final AtlasTPConfig config) {
+        this.pluginContainer = pluginContainer;
+        this.logger = logger;
+        this.config = config;
+    }
+
+    /**
+     * Starts checking the worlds loaded by AtlasTP for being idle.
+     *
+     * @param server the server the worlds are loaded on
+     */
+    public void start(final @NonNull Server server) {
+        this.server = server;
+
+        if(config.worldUnloadGracePeriod() <= 0) {
+            return;
+        }
+
+        this.idleTask = server.scheduler().submit(
+                Task.builder()
+                        .interval(Ticks.of(IDLE_CHECK_INTERVAL))
+                        .execute(this::unloadIdleWorlds)
+                        .plugin(pluginContainer)
+                        .build()
+        );
+    }
+
+    /**
+     * Stops checking the worlds for being idle. The worlds stay loaded until the server stops.
+     */
+    public void stop() {
+        if(idleTask != null) {
+            idleTask.cancel();
+            idleTask = null;
+        }
+
+        loading.clear();
+        loadedWorlds.clear();
+        server = null;
+    }
+
+    /**
+     * Retrieves the world if it is loaded.
+     * If the world was loaded by AtlasTP, this counts as a usage of the world.
+     *
+     * @param key the key of the world
+     * @return the world, or an empty optional if it is not loaded
+     */
+    public Optional<ServerWorld> loadedWorld(final @NonNull ResourceKey key) {
+        final Server current = server;
+        if(current == null) {
+            return Optional.empty();
+        }
+
+        final Optional<ServerWorld> world = current.worldManager().world(key);
+        if(world.isPresent() && loadedWorlds.containsKey(key)) {
+            loadedWorlds.put(key, System.currentTimeMillis());
+        }
+
+        return world;
+    }
+
+    /**
+     * Loads the world asynchronously. The future is completed on the server thread.
+     *
+     * @param key the key of the world
+     * @return the future for the world, which is empty if the world does not exist or could not be loaded
+     */
+    public CompletableFuture<Optional<ServerWorld>> load(final @NonNull ResourceKey key) {
+        final Server server = this.server;
+        if(server == null) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+
+        final Optional<ServerWorld> world = loadedWorld(key);
+        if(world.isPresent()) {
+            return CompletableFuture.completedFuture(world);
+        }
+
+        if(!server.worldManager().worldExists(key)) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+
+        return loading.computeIfAbsent(key, k -> {
+            logger.info("Loading the world {} for a teleport.", key.asString());
+
+            return server.worldManager().loadWorld(key)
+                    .handleAsync((loadedWorld, throwable) -> {
+                        loading.remove(key);
+
+                        if(throwable != null) {
+                            logger.error("The world {} could not be loaded.", key.asString(), throwable);
+                            return Optional.<ServerWorld>empty();
+                        }
+
+                        loadedWorlds.put(key, System.currentTimeMillis());
+                        return Optional.of(loadedWorld);
+                    }, server.scheduler().executor(pluginContainer));
+        });
+    }
+
+    private void unloadIdleWorlds() {
+        final long now = System.currentTimeMillis();
+        final long gracePeriod = config.worldUnloadGracePeriod() * 50;
+
+        final Iterator<Map.Entry<ResourceKey, Long>> iterator = loadedWorlds.entrySet().iterator();
+        while(iterator.hasNext()) {
+            final Map.Entry<ResourceKey, Long> entry = iterator.next();
+
+            final Optional<ServerWorld> world = server.worldManager().world(entry.getKey());
+            if(world.isEmpty()) {
+                // The world was unloaded by someone else
+                iterator.remove();
+                continue;
+            }
+
+            if(!world.get().players().isEmpty()) {
+                entry.setValue(now);
+                continue;
+            }
+
+            if(now - entry.getValue() < gracePeriod) {
+                continue;
+            }
+
+            iterator.remove();
+            logger.info("Unloading the world {}, as it was idle for too long.", entry.getKey().asString());
+            server.worldManager().unloadWorld(world.get());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package dev.atlasmc.atlastp.trace;
+
+import dev.atlasmc.atlastp.manager.TPAManager;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Records the keyed calls to a {@link TPAManager} with a {@link TrafficRecorder} and passes them on.
+ * The visits and the statistics over all the requests are passed on without being recorded.
+ *
+ * @param <T> the type of the data of the requests
+ */
+public final class RecordingTPAManager<T> implements TPAManager<T> {
+    private final TPAManager<T> delegate;
+    private final TrafficRecorder recorder;
+
+    public RecordingTPAManager(final @NonNull TPAManager<T> delegate, final @NonNull TrafficRecorder recorder) {
+        this.delegate = delegate;
+        this.recorder = recorder;
+    }
+
+    @Override
+    public boolean addRequest(final @NonNull UUID sender, final @NonNull UUID receiver, final @NonNull TPADirection direction, final T data) {
+        recorder.recordAdd(sender, receiver, direction);
+        return delegate.addRequest(sender, receiver, direction, data);
+    }
+
+    @Override
+    public @NonNull Collection<TPARequest<T>> addRequests(final @NonNull UUID sender, final @NonNull Collection<UUID> receivers, final @NonNull TPADirection direction, final @NonNull Function<UUID, T> data) {
+        recorder.recordAddMany(sender, receivers, direction);
+        return delegate.addRequests(sender, receivers, direction, data);
+    }
+
+    @Override
+    public Optional<TPARequest<T>> getRequest(final @NonNull UUID sender, final @NonNull UUID receiver) {
+        recorder.record(TrafficTrace.Operation.GET, sender, receiver);
+        return delegate.getRequest(sender, receiver);
+    }
+
+    @Override
+    public boolean removeRequest(final @NonNull UUID sender, final @NonNull UUID receiver) {
+        recorder.record(TrafficTrace.Operation.REMOVE, sender, receiver);
+        return delegate.removeRequest(sender, receiver);
+    }
+
+    @Override
+    public @NonNull Collection<TPARequest<T>> removeRequests(final @NonNull UUID sender, final @NonNull Collection<UUID> receivers) {
+        recorder.recordRemoveMany(sender, receivers);
+        return delegate.removeRequests(sender, receivers);
+    }
+
+    @Override
+    public @NonNull Collection<TPARequest<T>> removeRequestsBySender(final @NonNull UUID sender) {
+        recorder.record(TrafficTrace.Operation.REMOVE_BY_SENDER, sender);
+        return delegate.removeRequestsBySender(sender);
+    }
+
+    @Override
+    public @NonNull Collection<TPARequest<T>> removeRequestsToReceiver(final @NonNull UUID receiver) {
+        recorder.record(TrafficTrace.Operation.REMOVE_TO_RECEIVER, receiver);
+        return delegate.removeRequestsToReceiver(receiver);
+    }
+
+    @Override
+    public int requestCountBySender(final @NonNull UUID sender) {
+        recorder.record(TrafficTrace.Operation.COUNT_BY_SENDER, sender);
+        return delegate.requestCountBySender(sender);
+    }
+
+    @Override
+    public int requestCount() {
+        return delegate.requestCount();
+    }
+
+    @Override
+    public void forEachRequest(final @NonNull Predicate<TPARequest<T>> visitor) {
+        delegate.forEachRequest(visitor);
+    }
+
+    @Override
+    public void forEachRequestOf(final @NonNull UUID player, final @NonNull Predicate<TPARequest<T>> visitor) {
+        delegate.forEachRequestOf(player, visitor);
+    }
+
+    @Override
+    public @NonNull List<StructureFootprint> footprint() {
+        return delegate.footprint();
+    }
+}
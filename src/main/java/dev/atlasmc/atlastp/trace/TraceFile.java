@@ -0,0 +1,76 @@
+package dev.atlasmc.atlastp.trace;
+
+import dev.atlasmc.atlastp.util.IOExecutor;
+import org.apache.logging.log4j.Logger;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Appends the chunks of a trace to a file on the {@link IOExecutor}.
+ * <p>
+ * The chunks are queued and every write appends all the queued chunks in their order,
+ * so that the chunks can't overtake each other although every write runs on its own virtual thread.
+ * The writes are serialized by a {@link ReentrantLock}, which does not pin the carrier of the virtual thread while it writes.
+ */
+public final class TraceFile implements TrafficRecorder.Sink {
+    private final Logger logger;
+    private final IOExecutor io;
+    private final Path path;
+
+    private final Queue<byte[]> pending = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private boolean failed = false;
+
+    public TraceFile(final @NonNull Logger logger, final @NonNull IOExecutor io, final @NonNull Path path) {
+        this.logger = logger;
+        this.io = io;
+        this.path = path;
+    }
+
+    @Override
+    public void write(final byte @NonNull [] chunk) {
+        pending.add(chunk);
+        io.run(this::append);
+    }
+
+    private void append() {
+        lock.lock();
+        try {
+            if(failed) {
+                pending.clear();
+                return;
+            }
+
+            try {
+                Files.createDirectories(path.toAbsolutePath().getParent());
+
+                byte[] chunk;
+                while((chunk = pending.poll()) != null) {
+                    Files.write(path, chunk, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                }
+            } catch(final IOException e) {
+                // The trace would be corrupt without the chunk, so nothing is written anymore
+                failed = true;
+                pending.clear();
+                logger.error("The traffic trace {} could not be written, so the recording is stopped.", path, e);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the path of the trace
+     */
+    public @NonNull Path path() {
+        return path;
+    }
+}
@@ -0,0 +1,215 @@
+package dev.atlasmc.atlastp.trace;
+
+import dev.atlasmc.atlastp.manager.TPAManager;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/**
+ * Encodes the calls to a {@link TPAManager} into a {@link TrafficTrace}, so that the real traffic of a server
+ * can be replayed against other implementations.
+ * <p>
+ * The calls are encoded into a buffer in memory, which is handed to the {@link Sink} in chunks of about {@value #CHUNK_SIZE} bytes,
+ * so that recording a call does not block. Once {@code maxBytes} were recorded, the following calls are dropped.
+ * <p>
+ * This class is not thread-safe and should only be used from the server thread, like the manager whose calls it records
+ * (the requests expire in a task of the server scheduler as well). {@link #flush()} only hands a copy of the chunk
+ * to the sink, which writes it off the server thread.
+ */
+public final class TrafficRecorder {
+    static final int CHUNK_SIZE = 1 << 16;
+
+    private final Sink sink;
+    private final long maxBytes;
+    private final LongSupplier nanoClock;
+
+    /**
+     * The IDs of the players in the trace, which are removed when the player leaves.
+     */
+    private final Map<UUID, Integer> ids = new HashMap<>();
+    private int nextId = 0;
+
+    private byte[] buffer = new byte[CHUNK_SIZE + 256];
+    private int position = 0;
+
+    private long lastNanos;
+    private long recordedBytes = 0;
+    private long droppedCalls = 0;
+
+    /**
+     * @param sink     receives the encoded chunks of the trace
+     * @param maxBytes the maximum size of the trace
+     */
+    public TrafficRecorder(final @NonNull Sink sink, final long maxBytes) {
+        this(sink, maxBytes, System.currentTimeMillis(), System::nanoTime);
+    }
+
+    TrafficRecorder(final Sink sink, final long maxBytes, final long startedAt, final LongSupplier nanoClock) {
+        this.sink = sink;
+        this.maxBytes = maxBytes;
+        this.nanoClock = nanoClock;
+        this.lastNanos = nanoClock.getAsLong();
+
+        writeInt(TrafficTrace.MAGIC);
+        writeInt(TrafficTrace.VERSION);
+        writeInt((int) (startedAt >>> 32));
+        writeInt((int) startedAt);
+    }
+
+    public void record(final TrafficTrace.@NonNull Operation operation, final @NonNull UUID player) {
+        if(begin(operation)) {
+            writeVarLong(id(player));
+            end();
+        }
+    }
+
+    public void record(final TrafficTrace.@NonNull Operation operation, final @NonNull UUID sender, final @NonNull UUID receiver) {
+        if(begin(operation)) {
+            writeVarLong(id(sender));
+            writeVarLong(id(receiver));
+            end();
+        }
+    }
+
+    public void recordAdd(final @NonNull UUID sender, final @NonNull UUID receiver, final TPAManager.@NonNull TPADirection direction) {
+        if(begin(TrafficTrace.Operation.ADD)) {
+            writeVarLong(id(sender));
+            writeVarLong(id(receiver));
+            writeByte(direction.ordinal());
+            end();
+        }
+    }
+
+    public void recordAddMany(final @NonNull UUID sender, final @NonNull Collection<UUID> receivers, final TPAManager.@NonNull TPADirection direction) {
+        if(begin(TrafficTrace.Operation.ADD_MANY)) {
+            writeReceivers(sender, receivers);
+            writeByte(direction.ordinal());
+            end();
+        }
+    }
+
+    public void recordRemoveMany(final @NonNull UUID sender, final @NonNull Collection<UUID> receivers) {
+        if(begin(TrafficTrace.Operation.REMOVE_MANY)) {
+            writeReceivers(sender, receivers);
+            end();
+        }
+    }
+
+    /**
+     * Records that the player left the server. The player gets a new ID if they appear in the trace again.
+     *
+     * @param player the player
+     */
+    public void release(final @NonNull UUID player) {
+        if(!ids.containsKey(player)) {
+            return;
+        }
+
+        record(TrafficTrace.Operation.RELEASE, player);
+        ids.remove(player);
+    }
+
+    /**
+     * Hands the calls that were recorded since the last chunk to the sink.
+     */
+    public void flush() {
+        if(position > 0) {
+            sink.write(Arrays.copyOf(buffer, position));
+            recordedBytes += position;
+            position = 0;
+        }
+    }
+
+    /**
+     * @return the amount of bytes that were recorded
+     */
+    public long recordedBytes() {
+        return recordedBytes + position;
+    }
+
+    /**
+     * @return the amount of calls that were dropped, because the trace was full
+     */
+    public long droppedCalls() {
+        return droppedCalls;
+    }
+
+    private boolean begin(final TrafficTrace.Operation operation) {
+        if(recordedBytes + position >= maxBytes) {
+            droppedCalls++;
+            return false;
+        }
+
+        final long now = nanoClock.getAsLong();
+        writeByte(operation.ordinal());
+        writeVarLong(Math.max(0, now - lastNanos));
+        lastNanos = now;
+
+        return true;
+    }
+
+    private void end() {
+        if(position >= CHUNK_SIZE) {
+            flush();
+        }
+    }
+
+    private int id(final UUID player) {
+        Integer id = ids.get(player);
+        if(id == null) {
+            id = nextId++;
+            ids.put(player, id);
+        }
+
+        return id;
+    }
+
+    private void writeReceivers(final UUID sender, final Collection<UUID> receivers) {
+        writeVarLong(id(sender));
+        writeVarLong(receivers.size());
+        for(final UUID receiver : receivers) {
+            writeVarLong(id(receiver));
+        }
+    }
+
+    private void writeByte(final int value) {
+        if(position == buffer.length) {
+            // Only a bulk call with many receivers exceeds the spare room of the buffer
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeInt(final int value) {
+        writeByte(value >>> 24);
+        writeByte(value >>> 16);
+        writeByte(value >>> 8);
+        writeByte(value);
+    }
+
+    private void writeVarLong(long value) {
+        while((value & ~0x7FL) != 0) {
+            writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        writeByte((int) value);
+    }
+
+    /**
+     * Receives the encoded chunks of a trace, in the order they have to be written.
+     */
+    @FunctionalInterface
+    public interface Sink {
+        /**
+         * @param chunk the chunk, which is not modified afterwards
+         */
+        void write(final byte @NonNull [] chunk);
+    }
+}
@@ -0,0 +1,182 @@
+package dev.atlasmc.atlastp.trace;
+
+import dev.atlasmc.atlastp.manager.TPAManager;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The binary format of the traces written by the {@link TrafficRecorder}.
+ * <p>
+ * The format is: the magic number {@code ATPT} and the format version (both an {@code int}),
+ * the time the recording started in milliseconds since the epoch ({@code long}), then the calls until the end of the file.
+ * Every call is written as:
+ * <ol>
+ *     <li>the operation ({@code byte}, the ordinal of {@link Operation})</li>
+ *     <li>the nanoseconds since the previous call (unsigned varint)</li>
+ *     <li>the player IDs of the operation (unsigned varints), where the receivers of a bulk operation are preceded by their amount</li>
+ *     <li>the direction of an added request ({@code byte})</li>
+ * </ol>
+ * The players are not written with their {@link java.util.UUID}s, but with an ID in the order they first appeared in the trace.
+ * A player that rejoins gets a new ID, like a new session in the {@link dev.atlasmc.atlastp.util.PlayerIdInterner}.
+ */
+public final class TrafficTrace {
+    /**
+     * {@code ATPT} in ASCII.
+     */
+    public static final int MAGIC = 0x41545054;
+    public static final int VERSION = 1;
+
+    private TrafficTrace() {}
+
+    /**
+     * Reads all the calls of a trace. A call that was cut off at the end of the trace is ignored.
+     *
+     * @param stream the stream of the trace
+     * @return the trace
+     * @throws IOException if the stream is no trace, has an unknown version or could not be read
+     */
+    public static @NonNull Trace read(final @NonNull InputStream stream) throws IOException {
+        final DataInputStream input = new DataInputStream(new BufferedInputStream(stream));
+
+        if(input.readInt() != MAGIC) {
+            throw new IOException("The file is not an AtlasTP traffic trace.");
+        }
+
+        final int version = input.readInt();
+        if(version < 1 || version > VERSION) {
+            throw new IOException("The trace has the version " + version + ", but only the versions up to " + VERSION + " are known.");
+        }
+
+        final long startedAt = input.readLong();
+        final Operation[] operations = Operation.values();
+        final TPAManager.TPADirection[] directions = TPAManager.TPADirection.values();
+
+        final List<Call> calls = new ArrayList<>();
+        long nanos = 0;
+
+        while(true) {
+            final int operationIndex = input.read();
+            if(operationIndex < 0) {
+                break;
+            }
+
+            if(operationIndex >= operations.length) {
+                throw new IOException("The trace contains the unknown operation " + operationIndex + ".");
+            }
+
+            try {
+                final Operation operation = operations[operationIndex];
+                nanos += readVarLong(input);
+
+                final int player = (int) readVarLong(input);
+                int[] receivers = Call.NO_RECEIVERS;
+                TPAManager.TPADirection direction = null;
+
+                switch(operation) {
+                    case ADD, GET, REMOVE -> receivers = new int[] {(int) readVarLong(input)};
+                    case ADD_MANY, REMOVE_MANY -> {
+                        receivers = new int[(int) readVarLong(input)];
+                        for(int i = 0; i < receivers.length; i++) {
+                            receivers[i] = (int) readVarLong(input);
+                        }
+                    }
+                    default -> {}
+                }
+
+                if(operation == Operation.ADD || operation == Operation.ADD_MANY) {
+                    direction = directions[input.readUnsignedByte()];
+                }
+
+                calls.add(new Call(operation, nanos, player, receivers, direction));
+            } catch(final EOFException e) {
+                // The server stopped while the last chunk was written
+                break;
+            }
+        }
+
+        return new Trace(startedAt, calls);
+    }
+
+    static long readVarLong(final DataInputStream input) throws IOException {
+        long value = 0;
+        for(int shift = 0; shift < 64; shift += 7) {
+            final byte b = input.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IOException("The trace contains a malformed varint.");
+    }
+
+    /**
+     * The operations that are recorded.
+     */
+    public enum Operation {
+        /**
+         * {@link TPAManager#addRequest}: sender, receiver, direction
+         */
+        ADD,
+        /**
+         * {@link TPAManager#addRequests}: sender, receivers, direction
+         */
+        ADD_MANY,
+        /**
+         * {@link TPAManager#getRequest}: sender, receiver
+         */
+        GET,
+        /**
+         * {@link TPAManager#removeRequest}: sender, receiver
+         */
+        REMOVE,
+        /**
+         * {@link TPAManager#removeRequests}: sender, receivers
+         */
+        REMOVE_MANY,
+        /**
+         * {@link TPAManager#removeRequestsBySender}: sender
+         */
+        REMOVE_BY_SENDER,
+        /**
+         * {@link TPAManager#removeRequestsToReceiver}: receiver
+         */
+        REMOVE_TO_RECEIVER,
+        /**
+         * {@link TPAManager#requestCountBySender}: sender
+         */
+        COUNT_BY_SENDER,
+        /**
+         * The player left the server: player
+         */
+        RELEASE
+    }
+
+    /**
+     * A recorded trace.
+     *
+     * @param startedAt the time the recording started in milliseconds since the epoch
+     * @param calls     the calls in the order they were made
+     */
+    public record Trace(long startedAt, @NonNull List<Call> calls) {}
+
+    /**
+     * A recorded call.
+     *
+     * @param operation the operation
+     * @param nanos     the nanoseconds since the start of the recording
+     * @param player    the ID of the sender, or the receiver for {@link Operation#REMOVE_TO_RECEIVER}, or the leaving player for {@link Operation#RELEASE}
+     * @param receivers the IDs of the receivers, which is empty for the operations without receivers
+     * @param direction the direction of the added requests, otherwise {@code null}
+     */
+    public record Call(@NonNull Operation operation, long nanos, int player, int @NonNull [] receivers, TPAManager.TPADirection direction) {
+        static final int[] NO_RECEIVERS = new int[0];
+    }
+}
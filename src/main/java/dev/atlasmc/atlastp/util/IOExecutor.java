@@ -0,0 +1,166 @@
+package dev.atlasmc.atlastp.util;
+
+import org.apache.logging.log4j.Logger;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.plugin.PluginContainer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Runs the blocking IO of AtlasTP (e.g. dumps and the history) on virtual threads, one per task,
+ * so that it neither blocks the server thread nor occupies the shared async scheduler of Sponge.
+ * <p>
+ * The results can be handed back to the server thread with {@link #supply(Callable, BiConsumer)}.
+ * When the server stops, the running tasks are waited for, so that no write is cut off.
+ */
+public final class IOExecutor {
+    /**
+     * The time the running tasks are waited for when the server stops.
+     */
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+    private final PluginContainer pluginContainer;
+    private final Logger logger;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+
+    private volatile ExecutorService executor;
+
+    public IOExecutor(final PluginContainer pluginContainer, final Logger logger) {
+        this.pluginContainer = pluginContainer;
+        this.logger = logger;
+        this.executor = newExecutor();
+    }
+
+    private static ExecutorService newExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("atlastp-io-", 0).factory());
+    }
+
+    /**
+     * Starts accepting tasks again after {@link #stop()}, e.g. when the integrated server is started again.
+     */
+    public synchronized void start() {
+        if(executor.isShutdown()) {
+            executor = newExecutor();
+        }
+    }
+
+    /**
+     * Stops accepting tasks and waits for the running ones.
+     * The tasks that are still running after {@link #SHUTDOWN_TIMEOUT} are interrupted.
+     */
+    public synchronized void stop() {
+        executor.shutdown();
+
+        try {
+            if(!executor.awaitTermination(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                final List<Runnable> dropped = executor.shutdownNow();
+                logger.warn("{} IO tasks did not finish in time and were interrupted, {} were not started.", inFlight.get(), dropped.size());
+            }
+        } catch(final InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs the task on a virtual thread.
+     *
+     * @param task the task
+     * @param <T>  the type of the result
+     * @return the future for the result, which is completed on the virtual thread
+     */
+    public <T> @NonNull CompletableFuture<T> supply(final @NonNull Callable<T> task) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+
+        inFlight.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                T result = null;
+                Throwable failure = null;
+                try {
+                    result = task.call();
+                } catch(final Throwable e) {
+                    failure = e;
+                }
+
+                // The counters are updated before the future is completed, so that they include the task once it is done
+                inFlight.decrementAndGet();
+                completed.incrementAndGet();
+
+                if(failure != null) {
+                    future.completeExceptionally(failure);
+                } else {
+                    future.complete(result);
+                }
+            });
+        } catch(final RejectedExecutionException e) {
+            inFlight.decrementAndGet();
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+
+    /**
+     * Runs the task on a virtual thread.
+     *
+     * @param task the task
+     * @return the future, which is completed on the virtual thread
+     */
+    public @NonNull CompletableFuture<Void> run(final @NonNull IORunnable task) {
+        return supply(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs the task on a virtual thread and passes the result to the callback on the server thread.
+     *
+     * @param task     the task
+     * @param callback receives the result, or the exception thrown by the task (otherwise {@code null}), on the server thread
+     * @param <T>      the type of the result
+     */
+    public <T> void supply(final @NonNull Callable<T> task, final @NonNull BiConsumer<? super T, ? super Throwable> callback) {
+        supply(task).whenCompleteAsync(
+                (result, throwable) -> callback.accept(result, throwable instanceof CompletionException ? throwable.getCause() : throwable),
+                Sponge.server().scheduler().executor(pluginContainer)
+        );
+    }
+
+    /**
+     * @return the amount of tasks that were submitted and are not finished yet
+     */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return the amount of tasks that were finished since the plugin was constructed
+     */
+    public long completed() {
+        return completed.get();
+    }
+
+    /**
+     * A blocking task without a result.
+     */
+    @FunctionalInterface
+    public interface IORunnable {
+        void run() throws Exception;
+    }
+}
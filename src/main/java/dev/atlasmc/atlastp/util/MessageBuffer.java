@@ -0,0 +1,174 @@
+package dev.atlasmc.atlastp.util;
+
+import dev.atlasmc.atlastp.config.Translations;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.JoinConfiguration;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.spongepowered.api.Server;
+import org.spongepowered.api.entity.living.player.server.ServerPlayer;
+import org.spongepowered.api.scheduler.ScheduledTask;
+import org.spongepowered.api.scheduler.Task;
+import org.spongepowered.api.util.Ticks;
+import org.spongepowered.plugin.PluginContainer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.IntFunction;
+
+/**
+ * Collects the messages of AtlasTP to the players during a tick and sends them once per tick,
+ * so that every player receives at most one chat packet from AtlasTP per tick.
+ * <p>
+ * The messages to a player are joined with new lines in the order they were sent.
+ * The same message sent multiple times in a tick is only sent once with the amount of repetitions,
+ * and the messages with the same {@link Summary} (e.g. many expired requests) are replaced by their summary.
+ * <p>
+ * Messages can be sent from any thread, they are delivered on the server thread.
+ */
+public final class MessageBuffer {
+    private final PluginContainer pluginContainer;
+    private final Translations translations;
+
+    /**
+     * The messages of the current tick to all players, in the order they were sent.
+     */
+    private final Queue<Message> pending = new ConcurrentLinkedQueue<>();
+
+    private Server server;
+    private ScheduledTask flushTask;
+
+    public MessageBuffer(final PluginContainer pluginContainer, final Translations translations) {
+        this.pluginContainer = pluginContainer;
+        this.translations = translations;
+    }
+
+    /**
+     * Starts sending the collected messages on every tick.
+     *
+     * @param server the server the players are on
+     */
+    public void start(final @NonNull Server server) {
+        this.server = server;
+        this.flushTask = server.scheduler().submit(
+                Task.builder()
+                        .interval(Ticks.of(1))
+                        .execute(this::flush)
+                        .plugin(pluginContainer)
+                        .build()
+        );
+    }
+
+    /**
+     * Sends the messages that are left and stops sending messages on every tick.
+     */
+    public void stop() {
+        if(flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+
+        if(server != null) {
+            flush();
+            server = null;
+        }
+    }
+
+    /**
+     * Sends the message to the player with the next flush.
+     *
+     * @param player  the player
+     * @param message the message
+     */
+    public void send(final @NonNull ServerPlayer player, final @NonNull Component message) {
+        send(player.uniqueId(), message, null);
+    }
+
+    /**
+     * Sends the message to the player with the next flush.
+     *
+     * @param player  the {@link UUID} of the player
+     * @param message the message
+     * @param summary the summary that replaces all the messages with the same summary key in a tick, or {@code null}
+     */
+    public void send(final @NonNull UUID player, final @NonNull Component message, final @Nullable Summary summary) {
+        pending.add(new Message(player, message, summary));
+    }
+
+    /**
+     * Sends all the collected messages. This has to be called on the server thread.
+     */
+    public void flush() {
+        if(pending.isEmpty() || server == null) {
+            return;
+        }
+
+        final Map<UUID, List<Message>> byPlayer = new LinkedHashMap<>();
+
+        Message message;
+        while((message = pending.poll()) != null) {
+            byPlayer.computeIfAbsent(message.player(), k -> new ArrayList<>()).add(message);
+        }
+
+        for(final Map.Entry<UUID, List<Message>> entry : byPlayer.entrySet()) {
+            server.player(entry.getKey()).ifPresent(player -> player.sendMessage(coalesce(player, entry.getValue())));
+        }
+    }
+
+    private Component coalesce(final ServerPlayer player, final List<Message> messages) {
+        if(messages.size() == 1) {
+            return messages.get(0).component();
+        }
+
+        // The messages are grouped by their summary key, or by the message itself if they have no summary
+        final Map<Object, Group> groups = new LinkedHashMap<>();
+        for(final Message message : messages) {
+            final Object key = message.summary() != null ? message.summary().key() : message.component();
+
+            groups.computeIfAbsent(key, k -> new Group(message)).count++;
+        }
+
+        final List<Component> lines = new ArrayList<>(groups.size());
+        for(final Group group : groups.values()) {
+            if(group.count == 1) {
+                lines.add(group.first.component());
+            } else if(group.first.summary() != null) {
+                lines.add(group.first.summary().render().apply(group.count));
+            } else {
+                lines.add(MiniMessage.miniMessage().deserialize(
+                        translations.of(player).messageRepeated(),
+                        Placeholder.component("message", group.first.component()),
+                        Placeholder.unparsed("count", Integer.toString(group.count))
+                ));
+            }
+        }
+
+        return lines.size() == 1 ? lines.get(0) : Component.join(JoinConfiguration.newlines(), lines);
+    }
+
+    /**
+     * Replaces the messages with the same key, if more than one of them is sent to a player in a tick.
+     *
+     * @param key    the key of the summary
+     * @param render creates the summary from the amount of replaced messages
+     */
+    public record Summary(@NonNull String key, @NonNull IntFunction<Component> render) {}
+
+    private record Message(UUID player, Component component, @Nullable Summary summary) {}
+
+    private static final class Group {
+        private final Message first;
+        private int count = 0;
+
+        private Group(final Message first) {
+            this.first = first;
+        }
+    }
+}
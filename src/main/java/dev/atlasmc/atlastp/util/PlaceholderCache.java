@@ -0,0 +1,79 @@
+package dev.atlasmc.atlastp.util;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.spongepowered.api.entity.living.player.server.ServerPlayer;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the MiniMessage placeholders of every player, so that the
+ * {@link TagResolver} instances for a player only have to be built once.
+ * <p>
+ * The entries are keyed by the {@link UUID} of the player and have to be
+ * invalidated when the display name of the player changes or the player disconnects.
+ * As the TPA expiry callbacks run on the async scheduler, the cache is thread-safe.
+ */
+public final class PlaceholderCache {
+    private final Map<UUID, PlayerPlaceholders> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Retrieves the placeholders for the player, building them if they are not cached yet.
+     *
+     * @param player the player the placeholders are for
+     * @return the cached placeholders of the player
+     */
+    public @NonNull PlayerPlaceholders of(final @NonNull ServerPlayer player) {
+        final PlayerPlaceholders placeholders = cache.get(player.uniqueId());
+        if (placeholders != null) {
+            return placeholders;
+        }
+
+        return cache.computeIfAbsent(player.uniqueId(), id -> PlayerPlaceholders.create(player.displayName().get()));
+    }
+
+    /**
+     * Removes the cached placeholders of a player.
+     * They will be rebuilt the next time they are requested.
+     *
+     * @param player the {@link UUID} of the player
+     */
+    public void invalidate(final @NonNull UUID player) {
+        cache.remove(player);
+    }
+
+    /**
+     * Removes all the cached placeholders.
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * The prebuilt placeholders of a single player for every placeholder ID used in the messages.
+     *
+     * @param fromPlayer the placeholder with the ID {@code fromplayer}
+     * @param toPlayer   the placeholder with the ID {@code toplayer}
+     * @param executor   the placeholder with the ID {@code executor}
+     * @param player     the placeholder with the ID {@code player}
+     */
+    public record PlayerPlaceholders(
+            TagResolver fromPlayer,
+            TagResolver toPlayer,
+            TagResolver executor,
+            TagResolver player
+    ) {
+        private static PlayerPlaceholders create(final Component displayName) {
+            return new PlayerPlaceholders(
+                    Placeholder.component("fromplayer", displayName),
+                    Placeholder.component("toplayer", displayName),
+                    Placeholder.component("executor", displayName),
+                    Placeholder.component("player", displayName)
+            );
+        }
+    }
+}
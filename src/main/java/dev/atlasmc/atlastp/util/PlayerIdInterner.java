@@ -0,0 +1,131 @@
+package dev.atlasmc.atlastp.util;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gives every online player a small, dense {@code int} ID for the duration of their session.
+ * <p>
+ * The IDs are assigned when a player joins and freed when the player leaves.
+ * Freed IDs are reused (the smallest one first), so the IDs stay below the peak amount of online players
+ * and can be used as indices into flat arrays instead of keying maps on {@link UUID}s.
+ * <p>
+ * Every {@link #intern(UUID)} holds a reference to the ID, which is only freed once every reference is released.
+ * The session of a player holds one reference, and a structure that interns players on demand
+ * (e.g. the receivers of requests that are not online) holds another one for as long as it needs the ID.
+ * <p>
+ * Looking up an ID is thread-safe, assigning and freeing IDs is synchronized.
+ */
+public final class PlayerIdInterner {
+    private final Map<UUID, Integer> ids = new ConcurrentHashMap<>();
+
+    /**
+     * The players by their ID.
+     */
+    private volatile UUID[] players = new UUID[64];
+
+    /**
+     * The amount of references to the IDs.
+     */
+    private int[] references = new int[64];
+
+    /**
+     * The IDs below {@link #nextId} that are currently not assigned.
+     */
+    private final BitSet freeIds = new BitSet();
+
+    private int nextId = 0;
+
+    /**
+     * Assigns an ID to the player, if the player does not already have one, and holds a reference to it.
+     *
+     * @param player the player
+     * @return the ID of the player
+     */
+    public synchronized int intern(final @NonNull UUID player) {
+        final Integer existing = ids.get(player);
+        if(existing != null) {
+            references[existing]++;
+            return existing;
+        }
+
+        int id = freeIds.nextSetBit(0);
+        if(id < 0) {
+            id = nextId++;
+        } else {
+            freeIds.clear(id);
+        }
+
+        if(id >= players.length) {
+            players = Arrays.copyOf(players, players.length * 2);
+            references = Arrays.copyOf(references, players.length);
+        }
+
+        players[id] = player;
+        references[id] = 1;
+        ids.put(player, id);
+
+        return id;
+    }
+
+    /**
+     * Releases a reference to the ID of the player. Once the last reference is released, the ID is freed,
+     * so that it can be assigned to another player.
+     *
+     * @param player the player
+     */
+    public synchronized void release(final @NonNull UUID player) {
+        final Integer id = ids.get(player);
+        if(id == null || --references[id] > 0) {
+            return;
+        }
+
+        ids.remove(player);
+        players[id] = null;
+        freeIds.set(id);
+    }
+
+    /**
+     * Retrieves the ID of the player.
+     *
+     * @param player the player
+     * @return the ID of the player, or {@code -1} if the player has no ID
+     */
+    public int id(final @NonNull UUID player) {
+        final Integer id = ids.get(player);
+
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Retrieves the player with the ID.
+     *
+     * @param id the ID
+     * @return the player, or {@code null} if the ID is not assigned
+     */
+    public @Nullable UUID player(final int id) {
+        final UUID[] players = this.players;
+
+        return id >= 0 && id < players.length ? players[id] : null;
+    }
+
+    /**
+     * @return the upper bound (exclusive) of all the IDs that were ever assigned
+     */
+    public synchronized int capacity() {
+        return nextId;
+    }
+
+    /**
+     * @return the amount of players that currently have an ID
+     */
+    public int size() {
+        return ids.size();
+    }
+}
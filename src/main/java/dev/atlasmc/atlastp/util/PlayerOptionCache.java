@@ -0,0 +1,131 @@
+package dev.atlasmc.atlastp.util;
+
+import dev.atlasmc.atlastp.config.AtlasTPConfig;
+import org.apache.logging.log4j.Logger;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.spongepowered.api.entity.living.player.server.ServerPlayer;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the per-player values that can be set with permission options.
+ * <p>
+ * Looking up an option goes through the permission service, which can be slow
+ * depending on the permission plugin. Therefore, the resolved values are cached for
+ * {@link AtlasTPConfig#permissionOptionCacheTime()} ticks. Sponge does not post an event when the
+ * options of a subject change, so the entries expire after that time instead and are removed when
+ * the player disconnects.
+ */
+public final class PlayerOptionCache {
+    /**
+     * The option for the time (in ticks) until a TPA request of the player expires.
+     */
+    public static final String TPA_EXPIRE_TIME = "atlastp.tpa.expire-time";
+
+    /**
+     * The option for the maximum amount of open TPA requests of the player.
+     */
+    public static final String TPA_MAX_PENDING = "atlastp.tpa.max-pending";
+
+    /**
+     * The longest time (in ticks) until a TPA request expires, which keeps the due tick far from an overflow.
+     */
+    private static final long MAX_EXPIRE_TIME = Integer.MAX_VALUE;
+
+    private final Logger logger;
+    private final AtlasTPConfig config;
+
+    private final Map<UUID, PlayerOptions> cache = new ConcurrentHashMap<>();
+
+    public PlayerOptionCache(final Logger logger, final AtlasTPConfig config) {
+        this.logger = logger;
+        this.config = config;
+    }
+
+    /**
+     * Retrieves the options of the player, resolving them if they are not cached or the cached ones are outdated.
+     *
+     * @param player the player
+     * @return the options of the player
+     */
+    public @NonNull PlayerOptions of(final @NonNull ServerPlayer player) {
+        final long now = System.currentTimeMillis();
+
+        final PlayerOptions options = cache.get(player.uniqueId());
+        if(options != null && options.validUntil() > now) {
+            return options;
+        }
+
+        final PlayerOptions resolved = resolve(player, now);
+        cache.put(player.uniqueId(), resolved);
+
+        return resolved;
+    }
+
+    /**
+     * Removes the cached options of a player.
+     *
+     * @param player the {@link UUID} of the player
+     */
+    public void invalidate(final @NonNull UUID player) {
+        cache.remove(player);
+    }
+
+    /**
+     * Removes the cached options of all players.
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    private PlayerOptions resolve(final ServerPlayer player, final long now) {
+        return new PlayerOptions(
+                parseOption(player, TPA_EXPIRE_TIME, player.option(TPA_EXPIRE_TIME), config.tpaExpireTime(), 1, MAX_EXPIRE_TIME),
+                (int) parseOption(player, TPA_MAX_PENDING, player.option(TPA_MAX_PENDING), config.tpaMaxPendingRequests(), 0, Integer.MAX_VALUE),
+                now + config.permissionOptionCacheTime() * 50
+        );
+    }
+
+    /**
+     * Parses the option. A value below the minimum is rejected and a value above the maximum is clamped to it.
+     *
+     * @return the value of the option, or the fallback if the player has none or it is rejected
+     */
+    private long parseOption(final ServerPlayer player, final String key, final Optional<String> value, final long fallback, final long min, final long max) {
+        if(value.isEmpty()) {
+            return fallback;
+        }
+
+        final long parsed;
+        try {
+            parsed = Long.parseLong(value.get().trim());
+        } catch (final NumberFormatException e) {
+            logger.warn("The option {} of {} is not a number: \"{}\".", key, player.user().name(), value.get());
+            return fallback;
+        }
+
+        if(parsed < min) {
+            logger.warn("The option {} of {} is {}, but it has to be at least {}. The default {} is used instead.", key, player.user().name(), parsed, min, fallback);
+            return fallback;
+        }
+
+        if(parsed > max) {
+            logger.warn("The option {} of {} is {}, but it can be at most {}. {} is used instead.", key, player.user().name(), parsed, max, max);
+            return max;
+        }
+
+        return parsed;
+    }
+
+    /**
+     * The resolved options of a player.
+     *
+     * @param tpaExpireTime         the time (in ticks) until a TPA request of the player expires
+     * @param tpaMaxPendingRequests the maximum amount of open TPA requests of the player (0 if there is no limit)
+     * @param validUntil            the time (in milliseconds since the epoch) until these values are used
+     */
+    public record PlayerOptions(long tpaExpireTime, int tpaMaxPendingRequests, long validUntil) {}
+}
@@ -0,0 +1,185 @@
+package dev.atlasmc.atlastp.util;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Consumer;
+
+/**
+ * The state of an open TPA request, which is stored as the data of the request in the {@link dev.atlasmc.atlastp.manager.TPAManager}.
+ * <p>
+ * A request is accepted, denied, replaced or cancelled by a command, but it expires in a task of the scheduler.
+ * So that a request can't be both accepted and expired, every outcome has to {@link #complete(State)} the request first,
+ * which moves it out of {@link State#PENDING} with a compare-and-set. Exactly one outcome wins,
+ * and only the winner may act on the request (teleport the players or send the messages).
+ * <p>
+ * The ticket is also the handle of the expiry of the request, which is cancelled by every outcome but the expiry itself.
+ * <p>
+ * An accept {@link #claim() claims} the ticket before it teleports, so that nothing else can complete the request
+ * while the teleport runs (e.g. a listener of the teleport event that kicks one of the players).
+ * The claim is then either {@link #settle(State) settled} with the outcome or {@link #reopen() reopened},
+ * if the teleport failed. The claim is only held on the server thread, where the expiry can't run in the meantime.
+ */
+public final class RequestTicket implements TickScheduler.Handle {
+    private static final AtomicReferenceFieldUpdater<RequestTicket, State> STATE =
+            AtomicReferenceFieldUpdater.newUpdater(RequestTicket.class, State.class, "state");
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<RequestTicket, Consumer> COMPLETION =
+            AtomicReferenceFieldUpdater.newUpdater(RequestTicket.class, Consumer.class, "completion");
+
+    private volatile State state = State.PENDING;
+
+    /**
+     * The action that is run with the outcome, which is taken by whoever runs it, so that it only runs once.
+     */
+    private volatile Consumer<State> completion;
+
+    /**
+     * The expiry of the request, which can be shared with other requests. It is set before the ticket is added to the manager.
+     */
+    private volatile TickScheduler.Handle expiry;
+
+    RequestTicket() {}
+
+    void expiry(final TickScheduler.Handle expiry) {
+        this.expiry = expiry;
+    }
+
+    TickScheduler.Handle expiry() {
+        return expiry;
+    }
+
+    /**
+     * Completes the request with the outcome, if it is still pending.
+     *
+     * @param outcome the outcome, which must not be {@link State#PENDING}
+     * @return if the request was completed with the outcome, otherwise another outcome won
+     */
+    public boolean complete(final @NonNull State outcome) {
+        if(outcome == State.PENDING || outcome == State.CLAIMED) {
+            throw new IllegalArgumentException("A request can't be completed as " + outcome);
+        }
+
+        if(!STATE.compareAndSet(this, State.PENDING, outcome)) {
+            return false;
+        }
+
+        // The expiry has already run if it won, every other outcome releases it
+        if(outcome != State.EXPIRED) {
+            expiry.cancel();
+        }
+
+        runCompletion(outcome);
+        return true;
+    }
+
+    /**
+     * Claims the request, if it is still pending. No outcome can complete a claimed request
+     * until it is {@link #settle(State) settled} or {@link #reopen() reopened}.
+     *
+     * @return if the request was claimed
+     */
+    public boolean claim() {
+        return STATE.compareAndSet(this, State.PENDING, State.CLAIMED);
+    }
+
+    /**
+     * Completes a claimed request with the outcome.
+     *
+     * @param outcome the outcome, which must not be {@link State#PENDING} or {@link State#CLAIMED}
+     * @return if the request was claimed and is now completed with the outcome
+     */
+    public boolean settle(final @NonNull State outcome) {
+        if(outcome == State.PENDING || outcome == State.CLAIMED) {
+            throw new IllegalArgumentException("A claimed request can't be settled as " + outcome);
+        }
+
+        if(!STATE.compareAndSet(this, State.CLAIMED, outcome)) {
+            return false;
+        }
+
+        if(outcome != State.EXPIRED) {
+            expiry.cancel();
+        }
+
+        runCompletion(outcome);
+        return true;
+    }
+
+    /**
+     * Makes a claimed request pending again, e.g. because the teleport failed, so that it can still be accepted later.
+     *
+     * @return if the request was claimed and is pending again
+     */
+    public boolean reopen() {
+        return STATE.compareAndSet(this, State.CLAIMED, State.PENDING);
+    }
+
+    /**
+     * Sets the action that is run with the outcome once the request is completed, whatever the outcome is.
+     * If the request is already completed, the action is run right away. A ticket only has one action.
+     *
+     * @param action the action, which is run on the thread that completes the request
+     */
+    public void whenComplete(final @NonNull Consumer<State> action) {
+        this.completion = action;
+
+        final State current = state;
+        if(current != State.PENDING && current != State.CLAIMED) {
+            runCompletion(current);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runCompletion(final State outcome) {
+        final Consumer<State> action = COMPLETION.getAndSet(this, null);
+        if(action != null) {
+            action.accept(outcome);
+        }
+    }
+
+    /**
+     * @return the current state of the request
+     */
+    public @NonNull State state() {
+        return state;
+    }
+
+    /**
+     * Cancels the request, e.g. because one of the players left. This does nothing if the request was already completed.
+     */
+    @Override
+    public void cancel() {
+        complete(State.CANCELLED);
+    }
+
+    @Override
+    public long remainingTicks() {
+        final State current = state;
+        return current == State.PENDING || current == State.CLAIMED ? expiry.remainingTicks() : 0;
+    }
+
+    /**
+     * The states of a request. A request starts as {@link #PENDING} and is completed with exactly one of the others,
+     * apart from {@link #CLAIMED}.
+     */
+    public enum State {
+        PENDING,
+        /**
+         * The request is being accepted, it is either settled or reopened right after.
+         */
+        CLAIMED,
+        ACCEPTED,
+        DENIED,
+        EXPIRED,
+        /**
+         * The sender sent a new request to the same receiver.
+         */
+        REPLACED,
+        /**
+         * One of the players left or the receiver blocked the sender.
+         */
+        CANCELLED
+    }
+}
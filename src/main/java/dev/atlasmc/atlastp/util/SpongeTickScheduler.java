@@ -0,0 +1,83 @@
+package dev.atlasmc.atlastp.util;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.scheduler.ScheduledTask;
+import org.spongepowered.api.scheduler.Task;
+import org.spongepowered.api.util.Ticks;
+import org.spongepowered.plugin.PluginContainer;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@link TickScheduler} that submits the tasks to the scheduler of the server.
+ * <p>
+ * The tasks run on the server thread, so an expired request is removed on the same thread
+ * that adds, accepts and denies the requests, and the {@link dev.atlasmc.atlastp.manager.TPAManager}
+ * is never used from two threads at once. The remaining ticks are counted in server ticks as well.
+ */
+public final class SpongeTickScheduler implements TickScheduler {
+    private final PluginContainer pluginContainer;
+
+    /**
+     * The amount of tasks that are neither executed nor cancelled.
+     */
+    private final AtomicInteger scheduledTasks = new AtomicInteger();
+
+    public SpongeTickScheduler(final PluginContainer pluginContainer) {
+        this.pluginContainer = pluginContainer;
+    }
+
+    @Override
+    public @NonNull Handle schedule(final long ticks, final @NonNull Runnable task) {
+        final long dueTick = currentTick() + ticks;
+
+        // Set once the task is executed or cancelled, so that it is only subtracted from the scheduled tasks once
+        final AtomicBoolean done = new AtomicBoolean();
+        scheduledTasks.incrementAndGet();
+
+        final ScheduledTask scheduledTask = Sponge.server().scheduler().submit(
+                Task.builder()
+                        .delay(Ticks.of(ticks))
+                        .execute(() -> {
+                            if(done.compareAndSet(false, true)) {
+                                scheduledTasks.decrementAndGet();
+                            }
+
+                            task.run();
+                        })
+                        .plugin(pluginContainer)
+                        .build()
+        );
+
+        return new Handle() {
+            @Override
+            public void cancel() {
+                scheduledTask.cancel();
+
+                if(done.compareAndSet(false, true)) {
+                    scheduledTasks.decrementAndGet();
+                }
+            }
+
+            @Override
+            public long remainingTicks() {
+                if(done.get()) {
+                    return 0;
+                }
+
+                return Math.max(0, dueTick - currentTick());
+            }
+        };
+    }
+
+    private static long currentTick() {
+        return Sponge.server().runningTimeTicks().ticks();
+    }
+
+    @Override
+    public int scheduledTasks() {
+        return scheduledTasks.get();
+    }
+}
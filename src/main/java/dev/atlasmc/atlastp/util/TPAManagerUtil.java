@@ -1,26 +1,37 @@
 package dev.atlasmc.atlastp.util;
 
 import dev.atlasmc.atlastp.manager.TPAManager;
-import org.spongepowered.api.Sponge;
-import org.spongepowered.api.scheduler.ScheduledTask;
-import org.spongepowered.api.scheduler.Task;
-import org.spongepowered.api.util.Ticks;
-import org.spongepowered.plugin.PluginContainer;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 
+/**
+ * Adds the TPA requests with their expiry and completes them.
+ * <p>
+ * Every request carries a {@link RequestTicket}, and every way a request can end (accept, deny, expiry, replacement,
+ * cancellation) has to win the ticket first. Only the winner removes the request and acts on it, so a request
+ * that is accepted in the tick it expires either teleports or expires, but never both.
+ * <p>
+ * The methods are synchronized, so that a request is completed and removed from the manager in one step,
+ * and a pending ticket is always the one stored in the manager. The consumers of the expired requests are called
+ * outside the lock. The manager itself is not thread-safe, so it must only be used directly
+ * from the thread of the {@link TickScheduler}, which is the server thread.
+ */
 public final class TPAManagerUtil {
-    private final PluginContainer pluginContainer;
-    private final TPAManager<ScheduledTask> tpaManager;
+    private final TickScheduler scheduler;
+    private final TPAManager<RequestTicket> tpaManager;
 
-    public TPAManagerUtil(final PluginContainer pluginContainer, final TPAManager<ScheduledTask> tpaManager) {
-        this.pluginContainer = pluginContainer;
+    public TPAManagerUtil(final TickScheduler scheduler, final TPAManager<RequestTicket> tpaManager) {
+        this.scheduler = scheduler;
         this.tpaManager = tpaManager;
     }
 
-    public boolean timedTPARequest(
+    public synchronized boolean timedTPARequest(
             final UUID sender,
             final UUID receiver,
             final TPAManager.TPADirection direction,
@@ -28,37 +39,228 @@ public final class TPAManagerUtil {
             final BiConsumer<UUID, UUID> consumer
     ) {
         tpaManager.getRequest(sender, receiver)
-                .ifPresent(scheduledTaskTPARequest -> scheduledTaskTPARequest.data().cancel());
+                .ifPresent(request -> request.data().complete(RequestTicket.State.REPLACED));
 
-        final ScheduledTask task = Sponge.asyncScheduler().submit(
-                Task.builder()
-                        .delay(Ticks.of(ticks))
-                        .execute(() -> {
-                            if(tpaManager.removeRequest(sender, receiver)) {
-                                consumer.accept(sender, receiver);
-                            }
-                        })
-                        .plugin(pluginContainer)
-                        .build()
-        );
+        // The expiry can't run before the request is added, as it has to take the lock first
+        final RequestTicket ticket = new RequestTicket();
+        ticket.expiry(scheduler.schedule(ticks, () -> {
+            if(expire(sender, receiver, ticket)) {
+                consumer.accept(sender, receiver);
+            }
+        }));
 
-        return tpaManager.addRequest(sender, receiver, direction, task);
+        return tpaManager.addRequest(sender, receiver, direction, ticket);
     }
 
-    public Optional<TPAManager.TPARequest<ScheduledTask>> removeRequest(final UUID sender, final UUID receiver) {
-        final Optional<TPAManager.TPARequest<ScheduledTask>> request = tpaManager.getRequest(sender, receiver);
+    /**
+     * Sends the requests of the sender to all the receivers at once, e.g. for {@code /tpahere all}.
+     * <p>
+     * The requests share one expiry task instead of scheduling one per receiver, but every request has its own ticket.
+     * Every ticket holds a reference to the task, which is released when the request is accepted, denied or replaced,
+     * so that the task is only cancelled once no request of the batch is left.
+     *
+     * @param sender    the sender of the requests
+     * @param receivers the receivers of the requests, which must not contain duplicates
+     * @param direction the direction of the requests
+     * @param ticks     the ticks until the requests expire
+     * @param consumer  is called with the sender and the receiver of every request that expired
+     */
+    public synchronized void timedTPARequests(
+            final UUID sender,
+            final Collection<UUID> receivers,
+            final TPAManager.TPADirection direction,
+            final long ticks,
+            final BiConsumer<UUID, UUID> consumer
+    ) {
+        if(receivers.isEmpty())
+            return;
 
-        if(request.isEmpty())
-            return Optional.empty();
+        final SharedHandle handle = new SharedHandle(receivers.size());
+        handle.task = scheduler.schedule(ticks, () -> {
+            for(final TPAManager.TPARequest<RequestTicket> request : expire(sender, receivers, handle)) {
+                consumer.accept(request.sender(), request.receiver());
+            }
+        });
 
-        request.get().data().cancel();
+        final Collection<TPAManager.TPARequest<RequestTicket>> replaced = tpaManager.addRequests(sender, receivers, direction, receiver -> {
+            final RequestTicket ticket = new RequestTicket();
+            ticket.expiry(handle);
+            return ticket;
+        });
+
+        for(final TPAManager.TPARequest<RequestTicket> request : replaced) {
+            request.data().complete(RequestTicket.State.REPLACED);
+        }
+    }
+
+    /**
+     * Completes the request with the outcome and removes it, unless another outcome (e.g. the expiry) won.
+     *
+     * @param sender   the sender of the request
+     * @param receiver the receiver of the request
+     * @param outcome  the outcome of the request
+     * @return the request, or empty if there is no request or another outcome won
+     */
+    public synchronized Optional<TPAManager.TPARequest<RequestTicket>> completeRequest(final UUID sender, final UUID receiver, final RequestTicket.State outcome) {
+        final Optional<TPAManager.TPARequest<RequestTicket>> request = tpaManager.getRequest(sender, receiver);
+
+        if(request.isEmpty() || !request.get().data().complete(outcome))
+            return Optional.empty();
 
         tpaManager.removeRequest(sender, receiver);
 
         return request;
     }
 
-    public TPAManager<ScheduledTask> getTpaManager() {
+    /**
+     * Claims the request before it is accepted, so that no other outcome can complete it while the players are teleported.
+     * The claim has to be {@link #settleRequest(TPAManager.TPARequest, RequestTicket.State) settled}
+     * or {@link #reopenRequest(TPAManager.TPARequest) reopened} on the same tick.
+     *
+     * @param sender   the sender of the request
+     * @param receiver the receiver of the request
+     * @return the request, or empty if there is no request or another outcome won
+     */
+    public synchronized Optional<TPAManager.TPARequest<RequestTicket>> claimRequest(final UUID sender, final UUID receiver) {
+        return tpaManager.getRequest(sender, receiver).filter(request -> request.data().claim());
+    }
+
+    /**
+     * Completes the claimed request with the outcome and removes it, if it wasn't already removed while it was claimed.
+     *
+     * @param request the claimed request
+     * @param outcome the outcome of the request
+     */
+    public synchronized void settleRequest(final TPAManager.TPARequest<RequestTicket> request, final RequestTicket.State outcome) {
+        if(!request.data().settle(outcome))
+            return;
+
+        removeIfStored(request);
+    }
+
+    /**
+     * Makes the claimed request pending again, so that it can be accepted later.
+     * If the request was removed while it was claimed (e.g. one of the players left), it is cancelled instead.
+     *
+     * @param request the claimed request
+     * @return if the request is pending again
+     */
+    public synchronized boolean reopenRequest(final TPAManager.TPARequest<RequestTicket> request) {
+        if(isStored(request)) {
+            return request.data().reopen();
+        }
+
+        request.data().settle(RequestTicket.State.CANCELLED);
+        return false;
+    }
+
+    /**
+     * Cancels the request and removes it, e.g. because the receiver blocked the sender.
+     *
+     * @param sender   the sender of the request
+     * @param receiver the receiver of the request
+     * @return the request, or empty if there is no request or it was already completed
+     */
+    public Optional<TPAManager.TPARequest<RequestTicket>> removeRequest(final UUID sender, final UUID receiver) {
+        return completeRequest(sender, receiver, RequestTicket.State.CANCELLED);
+    }
+
+    /**
+     * Removes every request that was sent by or to the player and cancels their expiry.
+     * This is used when the player leaves the server, so that no request can outlive the player.
+     *
+     * @param player the player whose requests should be removed
+     */
+    public synchronized void removeRequestsOf(final UUID player) {
+        for(final TPAManager.TPARequest<RequestTicket> request : tpaManager.removeRequestsBySender(player)) {
+            request.data().complete(RequestTicket.State.CANCELLED);
+        }
+
+        for(final TPAManager.TPARequest<RequestTicket> request : tpaManager.removeRequestsToReceiver(player)) {
+            request.data().complete(RequestTicket.State.CANCELLED);
+        }
+    }
+
+    /**
+     * Expires the request and removes it, if the expiry wins the ticket.
+     *
+     * @return if the request expired
+     */
+    private synchronized boolean expire(final UUID sender, final UUID receiver, final RequestTicket ticket) {
+        if(!ticket.complete(RequestTicket.State.EXPIRED))
+            return false;
+
+        // A pending ticket is always the stored one, this only guards against a ticket that was cancelled directly
+        if(tpaManager.getRequest(sender, receiver).filter(request -> request.data() == ticket).isPresent()) {
+            tpaManager.removeRequest(sender, receiver);
+        }
+
+        return true;
+    }
+
+    private boolean isStored(final TPAManager.TPARequest<RequestTicket> request) {
+        return tpaManager.getRequest(request.sender(), request.receiver())
+                .filter(stored -> stored.data() == request.data())
+                .isPresent();
+    }
+
+    private void removeIfStored(final TPAManager.TPARequest<RequestTicket> request) {
+        // The request might have been removed or replaced while it was claimed
+        if(isStored(request)) {
+            tpaManager.removeRequest(request.sender(), request.receiver());
+        }
+    }
+
+    /**
+     * Expires the requests of the batch that are still pending and removes them.
+     *
+     * @return the expired requests
+     */
+    private synchronized Collection<TPAManager.TPARequest<RequestTicket>> expire(final UUID sender, final Collection<UUID> receivers, final SharedHandle handle) {
+        final List<UUID> expired = new ArrayList<>(receivers.size());
+        for(final UUID receiver : receivers) {
+            // Only the requests of this batch that are still pending expire with it
+            tpaManager.getRequest(sender, receiver)
+                    .filter(request -> request.data().expiry() == handle && request.data().complete(RequestTicket.State.EXPIRED))
+                    .ifPresent(request -> expired.add(receiver));
+        }
+
+        return tpaManager.removeRequests(sender, expired);
+    }
+
+    public TPAManager<RequestTicket> getTpaManager() {
         return this.tpaManager;
     }
+
+    public TickScheduler getScheduler() {
+        return this.scheduler;
+    }
+
+    /**
+     * The expiry of a batch of requests, which is cancelled once all the requests released it.
+     */
+    private static final class SharedHandle implements TickScheduler.Handle {
+        private final AtomicInteger references;
+
+        /**
+         * The task is set right after the handle is created, but the tickets might be completed on another thread.
+         */
+        private volatile TickScheduler.Handle task;
+
+        private SharedHandle(final int references) {
+            this.references = new AtomicInteger(references);
+        }
+
+        @Override
+        public void cancel() {
+            if(references.decrementAndGet() == 0) {
+                task.cancel();
+            }
+        }
+
+        @Override
+        public long remainingTicks() {
+            return task.remainingTicks();
+        }
+    }
 }
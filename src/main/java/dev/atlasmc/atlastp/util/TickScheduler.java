@@ -0,0 +1,45 @@
+package dev.atlasmc.atlastp.util;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * Schedules delayed tasks that are measured in game ticks.
+ * <p>
+ * This abstracts the scheduler away from {@link TPAManagerUtil}, so that the TPA
+ * expiry can be driven by the Sponge scheduler on the server and by a manual
+ * clock in the tests.
+ */
+public interface TickScheduler {
+    /**
+     * Schedules a task that is executed once after the delay.
+     *
+     * @param ticks the delay in game ticks
+     * @param task  the task that should be executed
+     * @return the handle to cancel the task
+     */
+    @NonNull Handle schedule(final long ticks, final @NonNull Runnable task);
+
+    /**
+     * Retrieves the amount of tasks that were scheduled, but are neither executed nor cancelled yet.
+     *
+     * @return the amount of scheduled tasks
+     */
+    int scheduledTasks();
+
+    /**
+     * A handle of a scheduled task.
+     */
+    interface Handle {
+        /**
+         * Cancels the task. If the task has already been executed, this does nothing.
+         */
+        void cancel();
+
+        /**
+         * Retrieves the amount of ticks until the task is executed.
+         *
+         * @return the remaining ticks, or {@code 0} if the task is due, executed or cancelled
+         */
+        long remainingTicks();
+    }
+}
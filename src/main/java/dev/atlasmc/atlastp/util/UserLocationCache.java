@@ -0,0 +1,154 @@
+package dev.atlasmc.atlastp.util;
+
+import dev.atlasmc.atlastp.config.AtlasTPConfig;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.spongepowered.api.ResourceKey;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.entity.living.player.User;
+import org.spongepowered.math.vector.Vector3d;
+import org.spongepowered.plugin.PluginContainer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the locations where offline players logged out, so that they can be teleported to.
+ * <p>
+ * The location of an offline player is stored in their user data, which the user manager loads from the disk.
+ * Therefore, the locations are loaded asynchronously, and the loaded ones are kept for
+ * {@link AtlasTPConfig#offlineLocationCacheTime()} ticks in a cache of at most {@value #MAX_ENTRIES} players,
+ * so that repeated teleports to the same player do not load the user data again.
+ * Concurrent lookups of the same player share one load. Every load has its own generation, and a load only caches
+ * its location if it is still the current load of the player, so that a load which was started before the player
+ * joined or left never caches the outdated location after {@link #invalidate(UUID)}.
+ * <p>
+ * The names of the players are resolved to their {@link UUID} by the command parameter, through the in-memory game profile cache of Sponge.
+ */
+public final class UserLocationCache {
+    private static final int MAX_ENTRIES = 256;
+
+    private final PluginContainer pluginContainer;
+    private final AtlasTPConfig config;
+
+    /**
+     * The loaded locations by the player, in the order of their last access.
+     */
+    private final Map<UUID, CachedLocation> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<UUID, CachedLocation> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * The locations that are currently being loaded.
+     */
+    private final Map<UUID, PendingLoad> loading = new ConcurrentHashMap<>();
+
+    /**
+     * The generation of the last load that was started.
+     */
+    private long lastGeneration = 0;
+
+    public UserLocationCache(final PluginContainer pluginContainer, final AtlasTPConfig config) {
+        this.pluginContainer = pluginContainer;
+        this.config = config;
+    }
+
+    /**
+     * Retrieves the location of a player, which is their current location if they are online.
+     * This has to be called on the server thread, and the future is completed on the server thread.
+     *
+     * @param player the {@link UUID} of the player
+     * @return the future for the location, which is empty if the player has never played on the server,
+     *         or which is completed exceptionally if the user data could not be loaded
+     */
+    public @NonNull CompletableFuture<Optional<UserLocation>> location(final @NonNull UUID player) {
+        final Optional<UserLocation> online = Sponge.server().player(player)
+                .map(onlinePlayer -> new UserLocation(onlinePlayer.user().name(), onlinePlayer.world().key(), onlinePlayer.position(), onlinePlayer.rotation()));
+        if(online.isPresent()) {
+            return CompletableFuture.completedFuture(online);
+        }
+
+        synchronized(cache) {
+            final CachedLocation cached = cache.get(player);
+            if(cached != null && cached.validUntil() > System.currentTimeMillis()) {
+                return CompletableFuture.completedFuture(cached.location());
+            }
+        }
+
+        final PendingLoad pending = loading.get(player);
+        if(pending != null) {
+            return pending.future();
+        }
+
+        final long generation = ++lastGeneration;
+
+        // A failed load completes on the server thread as well, so that the callers can report the error
+        final CompletableFuture<Optional<UserLocation>> load = Sponge.server().userManager().load(player)
+                .handleAsync((user, throwable) -> {
+                    final PendingLoad current = loading.get(player);
+                    final boolean currentLoad = current != null && current.generation() == generation;
+                    if(currentLoad) {
+                        loading.remove(player);
+                    }
+
+                    final Optional<UserLocation> location = onlyLoaded(user, throwable);
+
+                    // The player joined or left while the location was loaded, so the outdated location is not cached
+                    if(currentLoad) {
+                        synchronized(cache) {
+                            cache.put(player, new CachedLocation(location, System.currentTimeMillis() + config.offlineLocationCacheTime() * 50));
+                        }
+                    }
+
+                    return location;
+                }, Sponge.server().scheduler().executor(pluginContainer));
+
+        loading.put(player, new PendingLoad(generation, load));
+        return load;
+    }
+
+    /**
+     * Removes the cached location of a player, e.g. because they logged in or out.
+     *
+     * @param player the {@link UUID} of the player
+     */
+    public void invalidate(final @NonNull UUID player) {
+        loading.remove(player);
+        synchronized(cache) {
+            cache.remove(player);
+        }
+    }
+
+    private static Optional<UserLocation> onlyLoaded(final Optional<User> user, final Throwable throwable) {
+        if(throwable != null) {
+            throw throwable instanceof CompletionException completion ? completion : new CompletionException(throwable);
+        }
+
+        return user.map(UserLocationCache::locationOf);
+    }
+
+    private static UserLocation locationOf(final User user) {
+        return new UserLocation(user.name(), user.worldKey(), user.position(), user.rotation());
+    }
+
+    /**
+     * The location of a player.
+     *
+     * @param name     the name of the player
+     * @param world    the key of the world the player is in
+     * @param position the position of the player
+     * @param rotation the rotation of the player
+     */
+    public record UserLocation(@NonNull String name, @NonNull ResourceKey world, @NonNull Vector3d position, @NonNull Vector3d rotation) {}
+
+    private record CachedLocation(Optional<UserLocation> location, long validUntil) {}
+
+    private record PendingLoad(long generation, CompletableFuture<Optional<UserLocation>> future) {}
+}
@@ -0,0 +1,53 @@
+package dev.atlasmc.atlastp.dump;
+
+import dev.atlasmc.atlastp.manager.MapTPAManager;
+import dev.atlasmc.atlastp.manager.TPABlockManager;
+import dev.atlasmc.atlastp.manager.TPAManager;
+import dev.atlasmc.atlastp.util.ManualTickScheduler;
+import dev.atlasmc.atlastp.util.TPAManagerUtil;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StateDumpTest {
+    private final ManualTickScheduler scheduler = new ManualTickScheduler();
+    private final TPAManagerUtil tpaManagerUtil = new TPAManagerUtil(scheduler, new MapTPAManager<>());
+    private final TPABlockManager blockManager = new TPABlockManager();
+
+    @Test
+    void roundTrip() throws IOException {
+        final UUID sender = UUID.randomUUID();
+        final UUID receiver = UUID.randomUUID();
+
+        tpaManagerUtil.timedTPARequest(sender, receiver, TPAManager.TPADirection.TO_SENDER, 100, (senderID, receiverID) -> {});
+        scheduler.advance(40);
+        blockManager.block(receiver, sender);
+        blockManager.toggle(sender);
+
+        final StateSnapshot snapshot = StateSnapshot.capture(tpaManagerUtil.getTpaManager(), blockManager);
+
+        // The snapshot must not change with the live state
+        tpaManagerUtil.removeRequest(sender, receiver);
+        blockManager.unblock(receiver, sender);
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        StateDump.write(snapshot, output);
+        final StateSnapshot read = StateDump.read(new ByteArrayInputStream(output.toByteArray()));
+
+        assertEquals(snapshot.createdAt(), read.createdAt());
+        assertEquals(1, read.requests().size());
+        assertEquals(new StateSnapshot.Request(sender, receiver, TPAManager.TPADirection.TO_SENDER, 60), read.requests().get(0));
+        assertArrayEquals(new long[] {sender.getMostSignificantBits(), sender.getLeastSignificantBits()}, read.blockLists().get(receiver));
+        assertEquals(snapshot.toggledOff(), read.toggledOff());
+    }
+
+    @Test
+    void rejectsOtherFiles() {
+        assertThrows(IOException.class, () -> StateDump.read(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 0, 0, 0, 1})));
+    }
+}
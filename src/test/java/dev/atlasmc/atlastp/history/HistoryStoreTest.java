@@ -0,0 +1,122 @@
+package dev.atlasmc.atlastp.history;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoryStoreTest {
+    private static final int CAPACITY = 1000;
+
+    private Path directory;
+
+    @BeforeEach
+    void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("atlastp-history");
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        try(final Stream<Path> files = Files.walk(directory)) {
+            for(final Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    void queryByPlayerAndTime() throws IOException {
+        final HistoryStore store = new HistoryStore(directory, Duration.ofDays(1), CAPACITY);
+        store.open();
+
+        final UUID target = UUID.randomUUID();
+        final UUID other = UUID.randomUUID();
+        final long start = System.currentTimeMillis();
+
+        // Spans several segments, with the target in every 7th record
+        for(int i = 0; i < 5000; i++) {
+            final UUID player = UUID.randomUUID();
+            store.record(new HistoryRecord(start + i, HistoryRecord.Type.TP, player, i % 7 == 0 ? target : other));
+        }
+
+        final HistoryStore.Result result = store.query(target, start + 1000, start + 2000, Integer.MAX_VALUE);
+
+        // 1001, 1008, ..., 1995
+        assertEquals(5, store.segmentCount());
+        assertEquals(143, result.total());
+        assertEquals(start + 1001, result.records().get(0).time());
+        assertEquals(start + 1995, result.records().get(result.records().size() - 1).time());
+        assertTrue(result.records().stream().allMatch(record -> record.involves(target)));
+
+        // Only the newest records are returned over the limit
+        final List<HistoryRecord> limited = store.query(target, start + 1000, start + 2000, 3).records();
+        assertEquals(List.of(start + 1981, start + 1988, start + 1995), limited.stream().map(HistoryRecord::time).toList());
+
+        store.close();
+    }
+
+    @Test
+    void reopenAndPrune() throws IOException {
+        final UUID player = UUID.randomUUID();
+        final long now = System.currentTimeMillis();
+
+        final HistoryStore store = new HistoryStore(directory, Duration.ofDays(1), CAPACITY);
+        store.open();
+        for(int i = 0; i < 2500; i++) {
+            // The first two segments are older than the retention
+            final long time = i < 2000 ? now - Duration.ofDays(2).toMillis() + i : now + i;
+            store.record(new HistoryRecord(time, HistoryRecord.Type.TPA_SEND, player, null));
+        }
+        store.close();
+
+        // The index of the partially filled segment is rebuilt, the others are read from their index files
+        final HistoryStore reopened = new HistoryStore(directory, Duration.ofDays(1), CAPACITY);
+        reopened.open();
+
+        assertEquals(1, reopened.segmentCount());
+        assertEquals(500, reopened.query(player, Long.MIN_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE).total());
+
+        // Appending continues in the partially filled segment
+        reopened.record(new HistoryRecord(now + 5000, HistoryRecord.Type.TPA_EXPIRE, player, null));
+        assertEquals(501, reopened.query(player, now, Long.MAX_VALUE, Integer.MAX_VALUE).total());
+        reopened.close();
+    }
+
+    @Test
+    void segmentsRollOverByAgeAndOldRecordsAreLeftOut() throws IOException {
+        final UUID player = UUID.randomUUID();
+        final long now = System.currentTimeMillis();
+        final long hour = Duration.ofHours(1).toMillis();
+
+        // A segment spans 3 hours of the retention of a day
+        final HistoryStore store = new HistoryStore(directory, Duration.ofDays(1), CAPACITY);
+        store.open();
+        store.record(new HistoryRecord(now - 25 * hour, HistoryRecord.Type.TP, player, null));
+        store.record(new HistoryRecord(now - 23 * hour, HistoryRecord.Type.TP, player, null));
+        store.record(new HistoryRecord(now - hour, HistoryRecord.Type.TP, player, null));
+        store.record(new HistoryRecord(now, HistoryRecord.Type.TP, player, null));
+        store.flush();
+
+        assertEquals(2, store.segmentCount());
+
+        // The first segment still has a record in the retention, but the older one is never returned
+        final HistoryStore.Result result = store.query(player, Long.MIN_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE);
+        assertEquals(3, result.total());
+        assertEquals(now - 23 * hour, result.records().get(0).time());
+
+        // Once all its records are older than the retention, the segment is deleted
+        store.prune(now + 2 * hour);
+        assertEquals(1, store.segmentCount());
+        store.close();
+    }
+}
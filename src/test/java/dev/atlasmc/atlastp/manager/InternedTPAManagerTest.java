@@ -0,0 +1,70 @@
+package dev.atlasmc.atlastp.manager;
+
+import dev.atlasmc.atlastp.util.PlayerIdInterner;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InternedTPAManagerTest extends TPAManagerContractTest {
+    private final PlayerIdInterner interner = new PlayerIdInterner();
+
+    @Override
+    protected TPAManager<String> createManager() {
+        return new InternedTPAManager<>(interner);
+    }
+
+    @Test
+    void releasedIdsAreReused() {
+        final UUID first = UUID.randomUUID();
+        final UUID second = UUID.randomUUID();
+        final UUID third = UUID.randomUUID();
+
+        assertEquals(0, interner.intern(first));
+        assertEquals(1, interner.intern(second));
+        assertEquals(0, interner.intern(first));
+
+        manager.addRequest(first, second, TPAManager.TPADirection.TO_RECEIVER, "a");
+        manager.removeRequestsBySender(first);
+        manager.removeRequestsToReceiver(first);
+
+        // Every intern holds a reference
+        interner.release(first);
+        assertEquals(0, interner.id(first));
+        interner.release(first);
+
+        assertEquals(-1, interner.id(first));
+        assertNull(interner.player(0));
+        assertEquals(0, interner.intern(third));
+        assertEquals(third, interner.player(0));
+        assertTrue(manager.getRequest(third, second).isEmpty());
+        assertEquals(2, interner.capacity());
+    }
+
+    @Test
+    void idsAreHeldWhileThePlayerHasRequests() {
+        final UUID online = UUID.randomUUID();
+        final UUID offline = UUID.randomUUID();
+        interner.intern(online);
+
+        manager.addRequest(online, offline, TPAManager.TPADirection.TO_RECEIVER, "a");
+        manager.addRequest(offline, online, TPAManager.TPADirection.TO_SENDER, "b");
+        assertEquals(2, interner.size());
+
+        manager.removeRequest(online, offline);
+        assertEquals(1, interner.id(offline));
+
+        // The last request of the player without a session releases its ID, the session keeps the other one
+        manager.removeRequestsToReceiver(online);
+        assertEquals(-1, interner.id(offline));
+        assertEquals(0, interner.id(online));
+
+        manager.addRequests(online, List.of(offline), TPAManager.TPADirection.TO_SENDER, receiver -> "c");
+        manager.removeRequests(online, List.of(offline));
+        interner.release(online);
+        assertEquals(0, interner.size());
+    }
+
+}
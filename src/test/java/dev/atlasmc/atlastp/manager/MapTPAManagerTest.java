@@ -0,0 +1,8 @@
+package dev.atlasmc.atlastp.manager;
+
+class MapTPAManagerTest extends TPAManagerContractTest {
+    @Override
+    protected TPAManager<String> createManager() {
+        return new MapTPAManager<>();
+    }
+}
@@ -0,0 +1,76 @@
+package dev.atlasmc.atlastp.manager;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TPABlockManagerTest {
+    private final TPABlockManager blockManager = new TPABlockManager();
+
+    @Test
+    void nobodyIsBlockedByDefault() {
+        assertFalse(blockManager.isBlocked(UUID.randomUUID(), UUID.randomUUID()));
+    }
+
+    @Test
+    void blockAndUnblock() {
+        final UUID owner = UUID.randomUUID();
+        final UUID blocked = UUID.randomUUID();
+        final UUID other = UUID.randomUUID();
+
+        assertTrue(blockManager.block(owner, blocked));
+        assertFalse(blockManager.block(owner, blocked));
+
+        assertTrue(blockManager.isBlocked(blocked, owner));
+        assertFalse(blockManager.isBlocked(other, owner));
+        assertFalse(blockManager.isBlocked(owner, blocked));
+
+        assertTrue(blockManager.unblock(owner, blocked));
+        assertFalse(blockManager.unblock(owner, blocked));
+        assertFalse(blockManager.isBlocked(blocked, owner));
+    }
+
+    @Test
+    void blockListStaysSorted() {
+        final UUID owner = UUID.randomUUID();
+        final List<UUID> blocked = new ArrayList<>();
+        final Random random = new Random(1);
+
+        for(int i = 0; i < 200; i++) {
+            final UUID player = new UUID(random.nextLong(), random.nextLong());
+            blocked.add(player);
+            assertTrue(blockManager.block(owner, player));
+        }
+
+        final long[] blockList = blockManager.blockList(owner);
+        assertEquals(400, blockList.length);
+        for(int i = 2; i < blockList.length; i += 2) {
+            assertTrue(blockList[i - 2] < blockList[i] || (blockList[i - 2] == blockList[i] && blockList[i - 1] < blockList[i + 1]));
+        }
+
+        for(int i = 0; i < blocked.size(); i += 2) {
+            assertTrue(blockManager.unblock(owner, blocked.get(i)));
+        }
+
+        for(int i = 0; i < blocked.size(); i++) {
+            assertEquals(i % 2 == 1, blockManager.isBlocked(blocked.get(i), owner));
+        }
+    }
+
+    @Test
+    void toggleBlocksEveryone() {
+        final UUID owner = UUID.randomUUID();
+
+        assertTrue(blockManager.toggle(owner));
+        assertTrue(blockManager.isToggledOff(owner));
+        assertTrue(blockManager.isBlocked(UUID.randomUUID(), owner));
+
+        assertFalse(blockManager.toggle(owner));
+        assertFalse(blockManager.isBlocked(UUID.randomUUID(), owner));
+    }
+}
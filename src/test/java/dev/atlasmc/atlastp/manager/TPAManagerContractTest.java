@@ -0,0 +1,142 @@
+package dev.atlasmc.atlastp.manager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The behaviour every {@link TPAManager} has to show. Each backend extends this test with its own manager.
+ */
+abstract class TPAManagerContractTest {
+    protected TPAManager<String> manager;
+
+    /**
+     * @return a new, empty manager of the backend
+     */
+    protected abstract TPAManager<String> createManager();
+
+    @BeforeEach
+    void createTheManager() {
+        manager = createManager();
+    }
+
+    @Test
+    void addGetRemove() {
+        final UUID sender = UUID.randomUUID();
+        final UUID receiver = UUID.randomUUID();
+
+        assertFalse(manager.addRequest(sender, receiver, TPAManager.TPADirection.TO_RECEIVER, "data"));
+        assertTrue(manager.addRequest(sender, receiver, TPAManager.TPADirection.TO_RECEIVER, "replaced"));
+        assertEquals("replaced", manager.getRequest(sender, receiver).orElseThrow().data());
+        assertEquals(sender, manager.getRequest(sender, receiver).orElseThrow().sender());
+        assertTrue(manager.getRequest(receiver, sender).isEmpty());
+        assertEquals(1, manager.requestCountBySender(sender));
+
+        assertTrue(manager.removeRequest(sender, receiver));
+        assertFalse(manager.removeRequest(sender, receiver));
+        assertTrue(manager.getRequest(sender, receiver).isEmpty());
+        assertEquals(0, manager.requestCountBySender(sender));
+    }
+
+    @Test
+    void removeBySenderAndToReceiver() {
+        final UUID sender = UUID.randomUUID();
+        final UUID first = UUID.randomUUID();
+        final UUID second = UUID.randomUUID();
+
+        manager.addRequest(sender, first, TPAManager.TPADirection.TO_RECEIVER, "a");
+        manager.addRequest(sender, second, TPAManager.TPADirection.TO_SENDER, "b");
+        manager.addRequest(first, second, TPAManager.TPADirection.TO_RECEIVER, "c");
+
+        assertEquals(2, manager.requestCountBySender(sender));
+        assertEquals(2, manager.removeRequestsBySender(sender).size());
+        assertEquals(0, manager.requestCountBySender(sender));
+        assertTrue(manager.getRequest(sender, first).isEmpty());
+        assertEquals("c", manager.getRequest(first, second).orElseThrow().data());
+
+        assertEquals(1, manager.removeRequestsToReceiver(second).size());
+        assertTrue(manager.getRequest(first, second).isEmpty());
+        assertTrue(manager.removeRequestsToReceiver(second).isEmpty());
+        assertEquals(0, manager.requestCountBySender(first));
+    }
+
+    @Test
+    void manyRequestsToOneReceiver() {
+        final UUID receiver = UUID.randomUUID();
+        final UUID[] senders = new UUID[100];
+
+        for(int i = 0; i < senders.length; i++) {
+            senders[i] = UUID.randomUUID();
+            manager.addRequest(senders[i], receiver, TPAManager.TPADirection.TO_RECEIVER, Integer.toString(i));
+        }
+
+        for(int i = 0; i < senders.length; i += 2) {
+            assertTrue(manager.removeRequest(senders[i], receiver));
+        }
+
+        for(int i = 1; i < senders.length; i += 2) {
+            assertEquals(Integer.toString(i), manager.getRequest(senders[i], receiver).orElseThrow().data());
+        }
+
+        assertEquals(senders.length / 2, manager.removeRequestsToReceiver(receiver).size());
+    }
+
+    @Test
+    void visitRequests() {
+        final UUID sender = UUID.randomUUID();
+        final UUID first = UUID.randomUUID();
+        final UUID second = UUID.randomUUID();
+
+        manager.addRequest(sender, first, TPAManager.TPADirection.TO_RECEIVER, "a");
+        manager.addRequest(sender, second, TPAManager.TPADirection.TO_SENDER, "b");
+        manager.addRequest(first, sender, TPAManager.TPADirection.TO_RECEIVER, "c");
+        manager.addRequest(first, second, TPAManager.TPADirection.TO_RECEIVER, "d");
+        assertEquals(4, manager.requestCount());
+
+        final List<String> all = new ArrayList<>();
+        manager.forEachRequest(request -> all.add(request.data()));
+        assertEquals(4, all.size());
+
+        final List<String> ofSender = new ArrayList<>();
+        manager.forEachRequestOf(sender, request -> ofSender.add(request.data()));
+        assertEquals(3, ofSender.size());
+        assertEquals("c", ofSender.get(2));
+
+        final List<String> stopped = new ArrayList<>();
+        manager.forEachRequest(request -> stopped.add(request.data()) && stopped.size() < 2);
+        assertEquals(2, stopped.size());
+
+        manager.removeRequestsBySender(sender);
+        assertEquals(2, manager.requestCount());
+        assertEquals(2, manager.footprint().get(0).entries());
+    }
+
+    @Test
+    void bulkAddAndRemove() {
+        final UUID sender = UUID.randomUUID();
+        final UUID first = UUID.randomUUID();
+        final UUID second = UUID.randomUUID();
+        final UUID third = UUID.randomUUID();
+
+        manager.addRequest(sender, first, TPAManager.TPADirection.TO_RECEIVER, "old");
+
+        final var replaced = manager.addRequests(sender, List.of(first, second, third), TPAManager.TPADirection.TO_SENDER, receiver -> "batch");
+        assertEquals(1, replaced.size());
+        assertEquals("old", replaced.iterator().next().data());
+        assertEquals(3, manager.requestCountBySender(sender));
+        assertEquals(3, manager.requestCount());
+        assertEquals("batch", manager.getRequest(sender, first).orElseThrow().data());
+
+        assertEquals(2, manager.removeRequests(sender, List.of(first, third, UUID.randomUUID())).size());
+        assertEquals(1, manager.requestCountBySender(sender));
+        assertEquals(1, manager.requestCount());
+        assertTrue(manager.getRequest(sender, first).isEmpty());
+        assertEquals("batch", manager.getRequest(sender, second).orElseThrow().data());
+        assertTrue(manager.removeRequests(UUID.randomUUID(), List.of(second)).isEmpty());
+    }
+}
@@ -0,0 +1,48 @@
+package dev.atlasmc.atlastp.manager;
+
+import dev.atlasmc.atlastp.util.PlayerIdInterner;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TPAManagerProvidersTest {
+    @Test
+    void builtInBackendsAreSelectedByName() {
+        final TPAManagerProviders providers = TPAManagerProviders.load(TPAManagerProvidersTest.class.getClassLoader());
+        final TPAManagerProvider.Context context = new TPAManagerProvider.Context(new PlayerIdInterner(), Map.of("initial-capacity", "2"));
+
+        assertTrue(providers.get(TPAManagerProviders.DEFAULT) instanceof InternedTPAManager.Provider);
+        assertTrue(providers.get("MAP") instanceof MapTPAManager.Provider);
+        assertNull(providers.get("redis"));
+
+        // A small initial capacity still grows with the players
+        final TPAManager<String> manager = providers.get("interned").create(context);
+        for(int i = 0; i < 10; i++) {
+            manager.addRequest(UUID.randomUUID(), UUID.randomUUID(), TPAManager.TPADirection.TO_RECEIVER, "request");
+        }
+        assertEquals(10, manager.requestCount());
+    }
+
+    @Test
+    void firstProviderOfANameWins() {
+        final TPAManagerProvider first = new MapTPAManager.Provider();
+        final TPAManagerProvider second = new MapTPAManager.Provider();
+
+        final TPAManagerProviders providers = new TPAManagerProviders(List.of(first, second));
+        assertSame(first, providers.get("map"));
+        assertEquals(Set.of("map"), providers.names());
+    }
+
+    @Test
+    void invalidSettingsAreRejected() {
+        final TPAManagerProvider.Context context = new TPAManagerProvider.Context(new PlayerIdInterner(), Map.of("initial-capacity", "many"));
+
+        assertEquals(7, context.intSetting("missing", 7));
+        assertThrows(IllegalArgumentException.class, () -> new MapTPAManager.Provider().create(context));
+    }
+}
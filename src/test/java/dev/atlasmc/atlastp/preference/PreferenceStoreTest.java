@@ -0,0 +1,231 @@
+package dev.atlasmc.atlastp.preference;
+
+import dev.atlasmc.atlastp.manager.TPABlockManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PreferenceStoreTest {
+    private Path directory;
+
+    @BeforeEach
+    void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("atlastp-preferences");
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        try(final Stream<Path> files = Files.walk(directory)) {
+            for(final Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    void preferencesSurviveARestart() throws IOException {
+        final UUID owner = UUID.randomUUID();
+        final UUID blocked = UUID.randomUUID();
+
+        final TPABlockManager blockManager = new TPABlockManager();
+        blockManager.block(owner, blocked);
+        blockManager.toggle(owner);
+
+        final PreferenceStore store = new PreferenceStore(directory);
+        blockManager.takeDirty().forEach(store::save);
+        assertEquals(1, store.flush());
+        assertEquals(0, store.pendingCount());
+        assertTrue(blockManager.takeDirty().isEmpty());
+
+        final TPABlockManager restarted = new TPABlockManager();
+        restarted.load(owner, restarted.loading(owner), new PreferenceStore(directory).load(owner));
+        assertTrue(restarted.isToggledOff(owner));
+        assertArrayEquals(blockManager.blockList(owner), restarted.blockList(owner));
+        assertTrue(restarted.takeDirty().isEmpty());
+
+        // A player that changed everything back has no file anymore
+        restarted.toggle(owner);
+        restarted.unblock(owner, blocked);
+        restarted.takeDirty().forEach(store::save);
+        store.flush();
+        assertEquals(PlayerPreferences.DEFAULT, store.load(owner));
+        try(final Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void queuedPreferencesAreLoadedBeforeTheyAreWritten() throws IOException {
+        final UUID owner = UUID.randomUUID();
+        final PlayerPreferences preferences = new PlayerPreferences(PlayerPreferences.TOGGLED_OFF, new long[0]);
+
+        final PreferenceStore store = new PreferenceStore(directory);
+        store.save(owner, PlayerPreferences.DEFAULT);
+        store.save(owner, preferences);
+
+        assertEquals(preferences, store.load(owner));
+        assertEquals(1, store.pendingCount());
+        assertEquals(1, store.flush());
+        assertEquals(preferences, store.load(owner));
+    }
+
+    @Test
+    void changesMadeWhileLoadingAreKept() {
+        final UUID owner = UUID.randomUUID();
+        final UUID storedBlock = UUID.randomUUID();
+        final UUID newBlock = UUID.randomUUID();
+
+        final TPABlockManager stored = new TPABlockManager();
+        stored.block(owner, storedBlock);
+        final PlayerPreferences preferences = stored.preferences(owner);
+
+        final TPABlockManager blockManager = new TPABlockManager();
+        final long token = blockManager.loading(owner);
+        blockManager.block(owner, newBlock);
+
+        // Nothing is saved before the stored preferences are loaded
+        assertTrue(blockManager.takeDirty().isEmpty());
+        assertNull(blockManager.load(owner, token, preferences));
+
+        assertTrue(blockManager.isBlocked(storedBlock, owner));
+        assertTrue(blockManager.isBlocked(newBlock, owner));
+
+        final Map<UUID, PlayerPreferences> dirty = blockManager.takeDirty();
+        assertEquals(4, dirty.get(owner).blockList().length);
+
+        blockManager.unload(owner);
+        assertFalse(blockManager.isBlocked(newBlock, owner));
+        assertNull(blockManager.takeDirty(owner));
+    }
+
+    @Test
+    void toggleAndUnblockWhileLoadingWinOverTheStoredPreferences() {
+        final UUID owner = UUID.randomUUID();
+        final UUID storedBlock = UUID.randomUUID();
+        final UUID keptBlock = UUID.randomUUID();
+
+        final TPABlockManager stored = new TPABlockManager();
+        stored.block(owner, storedBlock);
+        stored.block(owner, keptBlock);
+        stored.toggle(owner);
+        final PlayerPreferences preferences = stored.preferences(owner);
+
+        // The player does not know about the stored preferences yet: the unblock and the toggle are still applied to them
+        final TPABlockManager blockManager = new TPABlockManager();
+        final long token = blockManager.loading(owner);
+        blockManager.block(owner, storedBlock);
+        assertTrue(blockManager.unblock(owner, storedBlock));
+        blockManager.toggle(owner);
+        blockManager.load(owner, token, preferences);
+
+        assertArrayEquals(new long[]{keptBlock.getMostSignificantBits(), keptBlock.getLeastSignificantBits()}, blockManager.blockList(owner));
+        assertTrue(blockManager.isToggledOff(owner));
+
+        // The toggle ended where the stored preferences are, so only the unblock is a change
+        final PlayerPreferences changed = blockManager.takeDirty(owner);
+        assertNotNull(changed);
+        assertTrue(changed.toggledOff());
+        assertEquals(2, changed.blockList().length);
+
+        // An untouched toggle keeps the stored value
+        final TPABlockManager untouched = new TPABlockManager();
+        untouched.load(owner, untouched.loading(owner), preferences);
+        assertTrue(untouched.isToggledOff(owner));
+        assertNull(untouched.takeDirty(owner));
+    }
+
+    @Test
+    void preferencesThatCouldNotBeLoadedAreNotSaved() {
+        final UUID owner = UUID.randomUUID();
+
+        final TPABlockManager blockManager = new TPABlockManager();
+        final long token = blockManager.loading(owner);
+        blockManager.toggle(owner);
+        assertTrue(blockManager.loadFailed(owner, token));
+
+        // The change is kept for the session
+        blockManager.block(owner, UUID.randomUUID());
+        assertTrue(blockManager.isToggledOff(owner));
+        assertTrue(blockManager.takeDirty().isEmpty());
+        assertNull(blockManager.takeDirty(owner));
+
+        // A player that joins again is saved again once they are loaded
+        blockManager.unload(owner);
+        blockManager.load(owner, blockManager.loading(owner), PlayerPreferences.DEFAULT);
+        blockManager.toggle(owner);
+        assertNotNull(blockManager.takeDirty(owner));
+    }
+
+    @Test
+    void unblockWhileLoadingRemovesAStoredBlock() {
+        final UUID owner = UUID.randomUUID();
+        final UUID storedBlock = UUID.randomUUID();
+
+        final TPABlockManager stored = new TPABlockManager();
+        stored.block(owner, storedBlock);
+
+        // The player is only blocked in the file, which is not loaded yet
+        final TPABlockManager blockManager = new TPABlockManager();
+        final long token = blockManager.loading(owner);
+        assertTrue(blockManager.unblock(owner, storedBlock));
+        blockManager.load(owner, token, stored.preferences(owner));
+
+        assertFalse(blockManager.isBlocked(storedBlock, owner));
+        assertEquals(0, blockManager.takeDirty(owner).blockList().length);
+    }
+
+    @Test
+    void changesOfAPlayerThatLeftWhileLoadingAreReturnedToBeSaved() {
+        final UUID owner = UUID.randomUUID();
+        final UUID blocked = UUID.randomUUID();
+
+        final TPABlockManager blockManager = new TPABlockManager();
+        final long token = blockManager.loading(owner);
+        blockManager.block(owner, blocked);
+        assertNull(blockManager.takeDirty(owner));
+        blockManager.unload(owner);
+
+        final PlayerPreferences changed = blockManager.load(owner, token, new PlayerPreferences(PlayerPreferences.TOGGLED_OFF, new long[0]));
+        assertNotNull(changed);
+        assertTrue(changed.toggledOff());
+        assertArrayEquals(new long[]{blocked.getMostSignificantBits(), blocked.getLeastSignificantBits()}, changed.blockList());
+
+        // Nothing of the player is kept in memory
+        assertFalse(blockManager.isBlocked(blocked, owner));
+        assertTrue(blockManager.takeDirty().isEmpty());
+    }
+
+    @Test
+    void loadFromBeforeARejoinIsIgnored() {
+        final UUID owner = UUID.randomUUID();
+        final UUID first = UUID.randomUUID();
+        final UUID second = UUID.randomUUID();
+
+        final TPABlockManager blockManager = new TPABlockManager();
+        final long oldToken = blockManager.loading(owner);
+        blockManager.block(owner, first);
+        blockManager.unload(owner);
+
+        // The player joins again before the first load finished, the change from the first session is carried over
+        final long token = blockManager.loading(owner);
+        blockManager.block(owner, second);
+        assertNull(blockManager.load(owner, oldToken, PlayerPreferences.DEFAULT));
+        assertFalse(blockManager.loadFailed(owner, oldToken));
+        assertNull(blockManager.takeDirty(owner));
+
+        assertNull(blockManager.load(owner, token, PlayerPreferences.DEFAULT));
+        assertTrue(blockManager.isBlocked(first, owner));
+        assertTrue(blockManager.isBlocked(second, owner));
+        assertEquals(4, blockManager.takeDirty(owner).blockList().length);
+    }
+}
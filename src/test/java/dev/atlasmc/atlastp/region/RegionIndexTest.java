@@ -0,0 +1,70 @@
+package dev.atlasmc.atlastp.region;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegionIndexTest {
+    private static final String OVERWORLD = "minecraft:overworld";
+
+    @Test
+    void findsRegionsByBlock() {
+        final Region arena = Region.between("arena", OVERWORLD, 50, 0, 50, -50, 100, -50, null);
+        final Region vault = Region.between("vault", "minecraft:the_nether", 0, 0, 0, 10, 10, 10, null);
+        final RegionIndex index = RegionIndex.build(List.of(arena, vault));
+
+        assertSame(arena, index.find(OVERWORLD, -50, 0, -50));
+        assertSame(arena, index.find(OVERWORLD, 50.9, 100.9, 50.9));
+        assertNull(index.find(OVERWORLD, 51, 50, 0));
+        assertNull(index.find(OVERWORLD, -50.1, 50, 0));
+        assertNull(index.find(OVERWORLD, 0, 101, 0));
+        assertNull(index.find(OVERWORLD, 5, 5, 1005));
+        assertSame(vault, index.find("minecraft:the_nether", 5, 5, 5));
+        assertNull(index.find("minecraft:the_end", 0, 0, 0));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void firstDefinedRegionWins() {
+        final Region world = Region.between("world", OVERWORLD, -1_000_000, -64, -1_000_000, 1_000_000, 320, 1_000_000, null);
+        final Region spawn = Region.between("spawn", OVERWORLD, -10, 0, -10, 10, 100, 10, new Region.Destination(OVERWORLD, 0, 64, 20));
+
+        final RegionIndex spawnFirst = RegionIndex.build(List.of(spawn, world));
+        assertSame(spawn, spawnFirst.find(OVERWORLD, 0, 50, 0));
+        assertSame(world, spawnFirst.find(OVERWORLD, 500_000, 50, -500_000));
+
+        final RegionIndex worldFirst = RegionIndex.build(List.of(world, spawn));
+        assertSame(world, worldFirst.find(OVERWORLD, 0, 50, 0));
+    }
+
+    @Test
+    void matchesLinearScan() {
+        final Random random = new Random(44);
+        final List<Region> regions = new ArrayList<>();
+        for(int i = 0; i < 500; i++) {
+            final int x = random.nextInt(20_000) - 10_000;
+            final int z = random.nextInt(20_000) - 10_000;
+            regions.add(Region.between("r" + i, OVERWORLD, x, 0, z, x + random.nextInt(400), 255, z + random.nextInt(400), null));
+        }
+
+        final RegionIndex index = RegionIndex.build(regions);
+        for(int i = 0; i < 20_000; i++) {
+            final double x = random.nextDouble() * 21_000 - 10_500;
+            final double z = random.nextDouble() * 21_000 - 10_500;
+
+            Region expected = null;
+            for(final Region region : regions) {
+                if(region.contains((int) Math.floor(x), 10, (int) Math.floor(z))) {
+                    expected = region;
+                    break;
+                }
+            }
+
+            assertSame(expected, index.find(OVERWORLD, x, 10, z));
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package dev.atlasmc.atlastp.sim;
+
+import dev.atlasmc.atlastp.manager.InternedTPAManager;
+import dev.atlasmc.atlastp.manager.MapTPAManager;
+import dev.atlasmc.atlastp.manager.TPAManager;
+import dev.atlasmc.atlastp.util.ManualTickScheduler;
+import dev.atlasmc.atlastp.util.PlayerIdInterner;
+import dev.atlasmc.atlastp.util.RequestTicket;
+import dev.atlasmc.atlastp.util.TPAManagerUtil;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * A headless load simulation of the TPA request handling.
+ * <p>
+ * A simulated population of players sends, accepts and denies TPA requests through
+ * {@link TPAManagerUtil} (the same calls the commands make), while a {@link ManualTickScheduler}
+ * acts as the server tick. For every {@link TPAManager} implementation the simulation reports
+ * the throughput, the p50/p99 time per tick spent inside AtlasTP, the allocation rate and the peak heap,
+ * and how many requests were accepted, denied and expired.
+ * <p>
+ * The options are passed as {@code --name=value} arguments, see {@link Settings}.
+ * It can be run with {@code ./gradlew loadSimulation --args="--players=20000"}.
+ */
+public final class LoadSimulator {
+    /**
+     * All the implementations that should be measured.
+     */
+    private static final Map<String, Function<PlayerIdInterner, TPAManager<RequestTicket>>> IMPLEMENTATIONS = new LinkedHashMap<>();
+
+    static {
+        IMPLEMENTATIONS.put("map", playerIds -> new MapTPAManager<>());
+        IMPLEMENTATIONS.put("interned", InternedTPAManager::new);
+    }
+
+    private LoadSimulator() {}
+
+    public static void main(final String[] args) {
+        final Settings settings = Settings.parse(args);
+        System.out.println("Simulating " + settings);
+
+        for(final Map.Entry<String, Function<PlayerIdInterner, TPAManager<RequestTicket>>> implementation : IMPLEMENTATIONS.entrySet()) {
+            // Run once to warm up the JIT and discard the result
+            new Simulation(settings, implementation.getValue()).run();
+
+            final Result result = new Simulation(settings, implementation.getValue()).run();
+            System.out.println(result.format(implementation.getKey()));
+        }
+    }
+
+    /**
+     * The settings of the simulation.
+     *
+     * @param players              the amount of simulated players
+     * @param ticks                the amount of simulated ticks
+     * @param requestsPerTick      the amount of TPA requests sent per tick outside of the storm
+     * @param stormStart           the tick on which the request storm starts
+     * @param stormLength          the amount of ticks the request storm lasts
+     * @param stormMultiplier      the factor of requests sent per tick during the storm
+     * @param acceptRatio          the ratio of requests that are accepted
+     * @param denyRatio            the ratio of requests that are denied (the rest expires)
+     * @param responseDelay        the maximum amount of ticks until a request is responded to, at least 1
+     * @param expireTicks          the amount of ticks until a request expires
+     * @param disconnectTick       the tick of the mass disconnect
+     * @param disconnectRatio      the ratio of players that disconnect (and rejoin) in the mass disconnect
+     * @param seed                 the seed for the traffic
+     */
+    public record Settings(
+            int players,
+            int ticks,
+            int requestsPerTick,
+            int stormStart,
+            int stormLength,
+            int stormMultiplier,
+            double acceptRatio,
+            double denyRatio,
+            int responseDelay,
+            long expireTicks,
+            int disconnectTick,
+            double disconnectRatio,
+            long seed
+    ) {
+        public Settings {
+            // A request is responded to on one of the next responseDelay ticks, so there has to be at least one
+            if(responseDelay < 1) {
+                throw new IllegalArgumentException("The response delay has to be at least 1 tick, but is " + responseDelay);
+            }
+        }
+
+        public static Settings parse(final String[] args) {
+            final Map<String, String> options = new LinkedHashMap<>();
+            for(final String arg : args) {
+                if(!arg.startsWith("--") || !arg.contains("=")) {
+                    throw new IllegalArgumentException("Expected an option like --name=value, but got " + arg);
+                }
+
+                final int separator = arg.indexOf('=');
+                options.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+
+            final int players = Integer.parseInt(options.getOrDefault("players", "5000"));
+            final int ticks = Integer.parseInt(options.getOrDefault("ticks", "6000"));
+
+            return new Settings(
+                    players,
+                    ticks,
+                    Integer.parseInt(options.getOrDefault("requests-per-tick", Integer.toString(Math.max(1, players / 200)))),
+                    Integer.parseInt(options.getOrDefault("storm-start", Integer.toString(ticks / 4))),
+                    Integer.parseInt(options.getOrDefault("storm-length", "100")),
+                    Integer.parseInt(options.getOrDefault("storm-multiplier", "20")),
+                    Double.parseDouble(options.getOrDefault("accept-ratio", "0.6")),
+                    Double.parseDouble(options.getOrDefault("deny-ratio", "0.2")),
+                    Integer.parseInt(options.getOrDefault("response-delay", "200")),
+                    Long.parseLong(options.getOrDefault("expire-ticks", Long.toString(3 * 60 * 20))),
+                    Integer.parseInt(options.getOrDefault("disconnect-tick", Integer.toString(ticks / 2))),
+                    Double.parseDouble(options.getOrDefault("disconnect-ratio", "0.3")),
+                    Long.parseLong(options.getOrDefault("seed", "42"))
+            );
+        }
+    }
+
+    private static final class Simulation {
+        private final Settings settings;
+        private final ManualTickScheduler scheduler = new ManualTickScheduler();
+        private final PlayerIdInterner playerIds = new PlayerIdInterner();
+        private final TPAManagerUtil tpaManagerUtil;
+        private final SplittableRandom random;
+
+        private final UUID[] players;
+        private final PriorityQueue<PendingResponse> responses = new PriorityQueue<>(Comparator.comparingInt(PendingResponse::tick));
+
+        private long operations = 0;
+        private long accepted = 0;
+        private long denied = 0;
+        private long expired = 0;
+
+        private Simulation(final Settings settings, final Function<PlayerIdInterner, TPAManager<RequestTicket>> tpaManager) {
+            this.settings = settings;
+            this.tpaManagerUtil = new TPAManagerUtil(scheduler, tpaManager.apply(playerIds));
+            this.random = new SplittableRandom(settings.seed());
+
+            this.players = new UUID[settings.players()];
+            for(int i = 0; i < players.length; i++) {
+                players[i] = new UUID(random.nextLong(), random.nextLong());
+                playerIds.intern(players[i]);
+            }
+        }
+
+        private Result run() {
+            final long[] tickNanos = new long[settings.ticks()];
+            final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+            System.gc();
+            for(final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                pool.resetPeakUsage();
+            }
+
+            final long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+            final long start = System.nanoTime();
+
+            for(int tick = 0; tick < settings.ticks(); tick++) {
+                final long tickStart = System.nanoTime();
+
+                simulateTick(tick);
+                scheduler.advance(1);
+
+                tickNanos[tick] = System.nanoTime() - tickStart;
+            }
+
+            final long elapsed = System.nanoTime() - start;
+            final long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+            long peakHeap = 0;
+            for(final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if(pool.getType() == MemoryType.HEAP) {
+                    peakHeap += pool.getPeakUsage().getUsed();
+                }
+            }
+
+            Arrays.sort(tickNanos);
+
+            return new Result(
+                    operations,
+                    elapsed,
+                    tickNanos[tickNanos.length / 2],
+                    tickNanos[(int) (tickNanos.length * 0.99)],
+                    allocated,
+                    peakHeap,
+                    accepted,
+                    denied,
+                    expired
+            );
+        }
+
+        private void simulateTick(final int tick) {
+            if(tick == settings.disconnectTick()) {
+                massDisconnect();
+            }
+
+            final boolean storm = tick >= settings.stormStart() && tick < settings.stormStart() + settings.stormLength();
+            final int requests = storm ? settings.requestsPerTick() * settings.stormMultiplier() : settings.requestsPerTick();
+
+            for(int i = 0; i < requests; i++) {
+                sendRequest(tick);
+            }
+
+            while(!responses.isEmpty() && responses.peek().tick() <= tick) {
+                final PendingResponse response = responses.poll();
+
+                // The teleport itself is not part of AtlasTP, a request that was replaced or removed in the meantime is not counted
+                if(tpaManagerUtil.completeRequest(response.sender(), response.receiver(), response.outcome()).isPresent()) {
+                    if(response.outcome() == RequestTicket.State.ACCEPTED) {
+                        accepted++;
+                    } else {
+                        denied++;
+                    }
+                }
+                operations++;
+            }
+        }
+
+        private void sendRequest(final int tick) {
+            final int senderIndex = random.nextInt(players.length);
+            int receiverIndex = random.nextInt(players.length - 1);
+            if(receiverIndex >= senderIndex) {
+                receiverIndex++;
+            }
+
+            final UUID sender = players[senderIndex];
+            final UUID receiver = players[receiverIndex];
+            final TPAManager.TPADirection direction = random.nextBoolean()
+                    ? TPAManager.TPADirection.TO_RECEIVER
+                    : TPAManager.TPADirection.TO_SENDER;
+
+            tpaManagerUtil.timedTPARequest(sender, receiver, direction, settings.expireTicks(), (senderID, receiverID) -> expired++);
+            operations++;
+
+            final double response = random.nextDouble();
+            if(response < settings.acceptRatio() + settings.denyRatio()) {
+                final RequestTicket.State outcome = response < settings.acceptRatio() ? RequestTicket.State.ACCEPTED : RequestTicket.State.DENIED;
+                responses.add(new PendingResponse(sender, receiver, outcome, tick + 1 + random.nextInt(settings.responseDelay())));
+            }
+        }
+
+        private void massDisconnect() {
+            for(int i = 0; i < players.length; i++) {
+                if(random.nextDouble() >= settings.disconnectRatio()) {
+                    continue;
+                }
+
+                tpaManagerUtil.removeRequestsOf(players[i]);
+                playerIds.release(players[i]);
+                operations++;
+
+                // The player rejoins as a new session
+                players[i] = new UUID(random.nextLong(), random.nextLong());
+                playerIds.intern(players[i]);
+            }
+        }
+
+        /**
+         * A response that is due on the tick. The responses are polled in the order of their tick.
+         */
+        private record PendingResponse(UUID sender, UUID receiver, RequestTicket.State outcome, int tick) {}
+    }
+
+    private record Result(
+            long operations,
+            long elapsedNanos,
+            long p50TickNanos,
+            long p99TickNanos,
+            long allocatedBytes,
+            long peakHeapBytes,
+            long accepted,
+            long denied,
+            long expired
+    ) {
+        private String format(final String implementation) {
+            final double seconds = elapsedNanos / 1e9;
+
+            return String.format(
+                    "%-10s %,12.0f ops/s   p50 %,8.1f us/tick   p99 %,8.1f us/tick   %,10.1f MB/s allocated   %,8.1f MB peak heap   %,d accepted   %,d denied   %,d expired",
+                    implementation,
+                    operations / seconds,
+                    p50TickNanos / 1e3,
+                    p99TickNanos / 1e3,
+                    allocatedBytes / 1e6 / seconds,
+                    peakHeapBytes / 1e6,
+                    accepted,
+                    denied,
+                    expired
+            );
+        }
+    }
+}
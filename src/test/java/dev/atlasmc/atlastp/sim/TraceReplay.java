@@ -0,0 +1,225 @@
+package dev.atlasmc.atlastp.sim;
+
+import dev.atlasmc.atlastp.manager.TPAManager;
+import dev.atlasmc.atlastp.manager.TPAManagerProvider;
+import dev.atlasmc.atlastp.manager.TPAManagerProviders;
+import dev.atlasmc.atlastp.trace.TrafficTrace;
+import dev.atlasmc.atlastp.util.PlayerIdInterner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a trace recorded with {@code trafficRecording} against the {@link TPAManager} backends.
+ * <p>
+ * The calls are made with the original gaps between them, divided by the speed, or back to back with a speed of 0.
+ * For every backend the replay reports the throughput (without the gaps), the p50/p99/p99.9 latency of a call
+ * and the allocated bytes per call. Every backend replays the trace twice and only the second run is reported,
+ * so that the JIT is warmed up.
+ * <p>
+ * The options are passed as {@code --name=value} arguments:
+ * {@code --trace=<file>}, {@code --speed=<factor>} (0 by default) and {@code --backend=<name>} (all backends by default).
+ * It can be run with {@code ./gradlew replayTrace --args="--trace=atlastp-2024-01-31_20-00-00.trace --speed=10"}.
+ */
+public final class TraceReplay {
+    /**
+     * The data of all the replayed requests, as the trace does not contain it.
+     */
+    private static final Object DATA = new Object();
+
+    private TraceReplay() {}
+
+    public static void main(final String[] args) throws IOException {
+        final Map<String, String> options = new LinkedHashMap<>();
+        for(final String arg : args) {
+            if(!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected an option like --name=value, but got " + arg);
+            }
+
+            final int separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+
+        if(!options.containsKey("trace")) {
+            throw new IllegalArgumentException("The trace has to be passed with --trace=<file>");
+        }
+
+        final TrafficTrace.Trace trace;
+        try(final InputStream input = Files.newInputStream(Path.of(options.get("trace")))) {
+            trace = TrafficTrace.read(input);
+        }
+
+        final double speed = Double.parseDouble(options.getOrDefault("speed", "0"));
+        final TPAManagerProviders providers = TPAManagerProviders.load(TraceReplay.class.getClassLoader());
+
+        final List<String> backends = new ArrayList<>();
+        if(options.containsKey("backend")) {
+            backends.add(options.get("backend"));
+        } else {
+            backends.addAll(providers.names());
+        }
+
+        final long duration = trace.calls().isEmpty() ? 0 : trace.calls().get(trace.calls().size() - 1).nanos();
+        System.out.printf(
+                "Replaying %,d calls over %.1f s recorded at %s with speed %s%n",
+                trace.calls().size(),
+                duration / 1e9,
+                Instant.ofEpochMilli(trace.startedAt()),
+                speed > 0 ? speed + "x" : "unlimited"
+        );
+
+        for(final String backend : backends) {
+            final TPAManagerProvider provider = providers.get(backend);
+            if(provider == null) {
+                throw new IllegalArgumentException("The backend " + backend + " does not exist, the backends are " + providers.names());
+            }
+
+            // Run once to warm up the JIT and discard the result
+            replay(trace, provider, speed);
+
+            System.out.println(replay(trace, provider, speed).format(provider.name()));
+        }
+    }
+
+    private static Result replay(final TrafficTrace.Trace trace, final TPAManagerProvider provider, final double speed) {
+        final PlayerIdInterner playerIds = new PlayerIdInterner();
+        final TPAManager<Object> tpaManager = provider.create(new TPAManagerProvider.Context(playerIds, Map.of()));
+        final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        final List<TrafficTrace.Call> calls = trace.calls();
+        final long[] callNanos = new long[calls.size()];
+
+        // The calls are mapped before the replay, so that creating the UUIDs is not measured
+        final UUID[] senders = new UUID[calls.size()];
+        final List<List<UUID>> receivers = new ArrayList<>(calls.size());
+        for(int i = 0; i < calls.size(); i++) {
+            senders[i] = player(calls.get(i).player());
+
+            final List<UUID> callReceivers = new ArrayList<>(calls.get(i).receivers().length);
+            for(final int receiver : calls.get(i).receivers()) {
+                callReceivers.add(player(receiver));
+            }
+            receivers.add(callReceivers);
+        }
+
+        // Whether the player with the ID from the trace has joined, which is before their first call
+        int maxPlayer = -1;
+        for(final TrafficTrace.Call call : calls) {
+            maxPlayer = Math.max(maxPlayer, call.player());
+            for(final int receiver : call.receivers()) {
+                maxPlayer = Math.max(maxPlayer, receiver);
+            }
+        }
+        final boolean[] joined = new boolean[maxPlayer + 1];
+
+        System.gc();
+
+        final long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        final long start = System.nanoTime();
+
+        for(int i = 0; i < calls.size(); i++) {
+            final TrafficTrace.Call call = calls.get(i);
+
+            if(speed > 0) {
+                waitUntil(start + (long) (call.nanos() / speed));
+            }
+
+            final UUID player = senders[i];
+            final List<UUID> callReceivers = receivers.get(i);
+
+            // Like on the server, the session of a player holds their ID until the player is released
+            if(!joined[call.player()]) {
+                joined[call.player()] = true;
+                playerIds.intern(player);
+            }
+            for(int r = 0; r < callReceivers.size(); r++) {
+                if(!joined[call.receivers()[r]]) {
+                    joined[call.receivers()[r]] = true;
+                    playerIds.intern(callReceivers.get(r));
+                }
+            }
+
+            final long callStart = System.nanoTime();
+
+            switch(call.operation()) {
+                case ADD -> tpaManager.addRequest(player, callReceivers.get(0), call.direction(), DATA);
+                case ADD_MANY -> tpaManager.addRequests(player, callReceivers, call.direction(), receiver -> DATA);
+                case GET -> tpaManager.getRequest(player, callReceivers.get(0));
+                case REMOVE -> tpaManager.removeRequest(player, callReceivers.get(0));
+                case REMOVE_MANY -> tpaManager.removeRequests(player, callReceivers);
+                case REMOVE_BY_SENDER -> tpaManager.removeRequestsBySender(player);
+                case REMOVE_TO_RECEIVER -> tpaManager.removeRequestsToReceiver(player);
+                case COUNT_BY_SENDER -> tpaManager.requestCountBySender(player);
+                case RELEASE -> playerIds.release(player);
+            }
+
+            callNanos[i] = System.nanoTime() - callStart;
+        }
+
+        final long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        long busyNanos = 0;
+        for(final long nanos : callNanos) {
+            busyNanos += nanos;
+        }
+
+        Arrays.sort(callNanos);
+
+        return new Result(
+                calls.size(),
+                busyNanos,
+                percentile(callNanos, 0.5),
+                percentile(callNanos, 0.99),
+                percentile(callNanos, 0.999),
+                allocated
+        );
+    }
+
+    /**
+     * The players get a new {@link UUID} for every ID in the trace, which is a new session.
+     */
+    private static UUID player(final int id) {
+        return new UUID(0x41545054L, id);
+    }
+
+    private static void waitUntil(final long nanoTime) {
+        long remaining;
+        while((remaining = nanoTime - System.nanoTime()) > 0) {
+            // Parking is too coarse for the last bit, so the rest is spun
+            if(remaining > 100_000) {
+                LockSupport.parkNanos(remaining - 50_000);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private static long percentile(final long[] sorted, final double percentile) {
+        return sorted.length == 0 ? 0 : sorted[Math.min(sorted.length - 1, (int) (sorted.length * percentile))];
+    }
+
+    private record Result(long calls, long busyNanos, long p50Nanos, long p99Nanos, long p999Nanos, long allocatedBytes) {
+        private String format(final String backend) {
+            return String.format(
+                    "%-10s %,12.0f calls/s   p50 %,8.0f ns   p99 %,8.0f ns   p99.9 %,8.0f ns   %,8.1f B/call allocated",
+                    backend,
+                    calls / Math.max(busyNanos / 1e9, 1e-9),
+                    (double) p50Nanos,
+                    (double) p99Nanos,
+                    (double) p999Nanos,
+                    calls == 0 ? 0.0 : (double) allocatedBytes / calls
+            );
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package dev.atlasmc.atlastp.trace;
+
+import dev.atlasmc.atlastp.manager.MapTPAManager;
+import dev.atlasmc.atlastp.manager.TPAManager;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrafficTraceTest {
+    @Test
+    void callsAreRecordedWithAnonymizedPlayers() throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final long[] clock = {1_000};
+        final TrafficRecorder recorder = new TrafficRecorder(output::writeBytes, Long.MAX_VALUE, 1234, () -> clock[0]);
+        final TPAManager<String> tpaManager = new RecordingTPAManager<>(new MapTPAManager<>(), recorder);
+
+        final UUID notch = UUID.randomUUID();
+        final UUID jeb = UUID.randomUUID();
+        final UUID dinnerbone = UUID.randomUUID();
+
+        clock[0] += 50;
+        tpaManager.addRequest(notch, jeb, TPAManager.TPADirection.TO_RECEIVER, "request");
+        clock[0] += 1_000_000;
+        tpaManager.addRequests(jeb, List.of(notch, dinnerbone), TPAManager.TPADirection.TO_SENDER, receiver -> "request");
+        tpaManager.removeRequest(notch, jeb);
+        tpaManager.removeRequestsBySender(jeb);
+        recorder.release(jeb);
+        // A player that rejoins gets a new ID
+        tpaManager.getRequest(jeb, notch);
+        recorder.flush();
+
+        final TrafficTrace.Trace trace = TrafficTrace.read(new ByteArrayInputStream(output.toByteArray()));
+        assertEquals(1234, trace.startedAt());
+
+        final List<TrafficTrace.Call> calls = trace.calls();
+        assertEquals(6, calls.size());
+
+        assertEquals(TrafficTrace.Operation.ADD, calls.get(0).operation());
+        assertEquals(50, calls.get(0).nanos());
+        assertEquals(0, calls.get(0).player());
+        assertArrayEquals(new int[] {1}, calls.get(0).receivers());
+        assertEquals(TPAManager.TPADirection.TO_RECEIVER, calls.get(0).direction());
+
+        assertEquals(TrafficTrace.Operation.ADD_MANY, calls.get(1).operation());
+        assertEquals(1_000_050, calls.get(1).nanos());
+        assertEquals(1, calls.get(1).player());
+        assertArrayEquals(new int[] {0, 2}, calls.get(1).receivers());
+        assertEquals(TPAManager.TPADirection.TO_SENDER, calls.get(1).direction());
+
+        assertEquals(TrafficTrace.Operation.REMOVE, calls.get(2).operation());
+        assertEquals(TrafficTrace.Operation.REMOVE_BY_SENDER, calls.get(3).operation());
+        assertEquals(TrafficTrace.Operation.RELEASE, calls.get(4).operation());
+        assertEquals(1, calls.get(4).player());
+
+        assertEquals(TrafficTrace.Operation.GET, calls.get(5).operation());
+        assertEquals(3, calls.get(5).player());
+        assertArrayEquals(new int[] {0}, calls.get(5).receivers());
+    }
+
+    @Test
+    void recordingStopsAtTheLimitAndTruncatedCallsAreIgnored() throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final TrafficRecorder recorder = new TrafficRecorder(output::writeBytes, 64, 0, () -> 0);
+
+        for(int i = 0; i < 100; i++) {
+            recorder.record(TrafficTrace.Operation.COUNT_BY_SENDER, UUID.randomUUID());
+        }
+        recorder.flush();
+
+        assertTrue(recorder.droppedCalls() > 0);
+        assertTrue(recorder.recordedBytes() <= 64 + 8);
+
+        final byte[] bytes = output.toByteArray();
+        final int recorded = TrafficTrace.read(new ByteArrayInputStream(bytes)).calls().size();
+        assertEquals(100 - recorder.droppedCalls(), recorded);
+
+        // The server stopped in the middle of a call
+        final byte[] truncated = Arrays.copyOf(bytes, bytes.length - 1);
+        assertEquals(recorded - 1, TrafficTrace.read(new ByteArrayInputStream(truncated)).calls().size());
+    }
+}
@@ -0,0 +1,52 @@
+package dev.atlasmc.atlastp.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A local stand-in for the server and its player lookup.
+ * <p>
+ * It keeps track of the online players and the messages they received
+ * and performs the same cleanup as the plugin does on a disconnect.
+ */
+public final class FakeServer {
+    private final TPAManagerUtil tpaManagerUtil;
+    private final Map<UUID, List<String>> onlinePlayers = new HashMap<>();
+
+    public FakeServer(final TPAManagerUtil tpaManagerUtil) {
+        this.tpaManagerUtil = tpaManagerUtil;
+    }
+
+    public UUID join() {
+        final UUID player = UUID.randomUUID();
+        onlinePlayers.put(player, new ArrayList<>());
+
+        return player;
+    }
+
+    public void disconnect(final UUID player) {
+        onlinePlayers.remove(player);
+        tpaManagerUtil.removeRequestsOf(player);
+    }
+
+    public boolean isOnline(final UUID player) {
+        return onlinePlayers.containsKey(player);
+    }
+
+    /**
+     * Sends the message to the player, if the player is online.
+     */
+    public void sendMessage(final UUID player, final String message) {
+        final List<String> messages = onlinePlayers.get(player);
+        if(messages != null) {
+            messages.add(message);
+        }
+    }
+
+    public List<String> messages(final UUID player) {
+        return onlinePlayers.getOrDefault(player, List.of());
+    }
+}
@@ -0,0 +1,84 @@
+package dev.atlasmc.atlastp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IOExecutorTest {
+    // Neither the plugin nor the logger is needed without a server thread and with tasks that finish in time
+    private final IOExecutor io = new IOExecutor(null, null);
+
+    @Test
+    void countsTheTasksInFlightAndCompleted() throws Exception {
+        final CountDownLatch started = new CountDownLatch(2);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final CompletableFuture<Integer> first = io.supply(() -> {
+            started.countDown();
+            release.await();
+            return 1;
+        });
+        final CompletableFuture<Void> second = io.run(() -> {
+            started.countDown();
+            release.await();
+            throw new IllegalStateException("failed");
+        });
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(2, io.inFlight());
+        assertEquals(0, io.completed());
+
+        release.countDown();
+        assertEquals(1, first.get(5, TimeUnit.SECONDS));
+        final ExecutionException failure = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+
+        // A failed task is finished as well
+        assertEquals(2, io.completed());
+        assertEquals(0, io.inFlight());
+
+        io.stop();
+    }
+
+    @Test
+    void stopWaitsForTheRunningTasks() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicBoolean finished = new AtomicBoolean();
+
+        io.run(() -> {
+            started.countDown();
+            Thread.sleep(200);
+            finished.set(true);
+        });
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        io.stop();
+
+        assertTrue(finished.get());
+        assertEquals(0, io.inFlight());
+        assertEquals(1, io.completed());
+    }
+
+    @Test
+    void tasksAreRejectedAfterStopUntilStart() throws Exception {
+        io.stop();
+
+        final CompletableFuture<Integer> rejected = io.supply(() -> 1);
+        final ExecutionException failure = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, failure.getCause());
+        assertEquals(0, io.inFlight());
+        assertEquals(0, io.completed());
+
+        io.start();
+        assertEquals(2, io.supply(() -> 2).get(5, TimeUnit.SECONDS));
+        io.stop();
+        assertEquals(1, io.completed());
+    }
+}
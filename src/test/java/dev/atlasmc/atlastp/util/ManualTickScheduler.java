@@ -0,0 +1,110 @@
+package dev.atlasmc.atlastp.util;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * A {@link TickScheduler} that is driven by a manual tick clock.
+ * <p>
+ * The tasks are only executed when the clock is advanced with {@link #advance(long)},
+ * in the order of their due tick (and in the order of scheduling for the same tick).
+ * <p>
+ * The scheduler can be advanced on another thread than the one that schedules the tasks.
+ * The tasks are executed outside the lock of the scheduler, so that they can schedule and cancel tasks themselves.
+ */
+public final class ManualTickScheduler implements TickScheduler {
+    private final PriorityQueue<ManualHandle> queue = new PriorityQueue<>(
+            Comparator.comparingLong(ManualHandle::dueTick).thenComparingLong(ManualHandle::sequence)
+    );
+
+    private volatile long currentTick = 0;
+    private long sequence = 0;
+
+    @Override
+    public synchronized @NonNull Handle schedule(final long ticks, final @NonNull Runnable task) {
+        final ManualHandle handle = new ManualHandle(this, currentTick + ticks, sequence++, task);
+        queue.add(handle);
+
+        return handle;
+    }
+
+    /**
+     * Advances the clock tick by tick and executes every task that is due.
+     *
+     * @param ticks the amount of ticks the clock should advance
+     */
+    public void advance(final long ticks) {
+        for(long i = 0; i < ticks; i++) {
+            synchronized(this) {
+                currentTick++;
+            }
+
+            ManualHandle handle;
+            while((handle = pollDue()) != null) {
+                if(!handle.cancelled) {
+                    handle.executed = true;
+                    handle.task.run();
+                }
+            }
+        }
+    }
+
+    private synchronized ManualHandle pollDue() {
+        return !queue.isEmpty() && queue.peek().dueTick() <= currentTick ? queue.poll() : null;
+    }
+
+    /**
+     * @return the current tick of the clock
+     */
+    public long currentTick() {
+        return currentTick;
+    }
+
+    /**
+     * @return the amount of tasks that are neither executed nor cancelled
+     */
+    public synchronized long pendingTasks() {
+        return queue.stream().filter(handle -> !handle.cancelled).count();
+    }
+
+    @Override
+    public int scheduledTasks() {
+        return (int) pendingTasks();
+    }
+
+    private static final class ManualHandle implements Handle {
+        private final ManualTickScheduler scheduler;
+        private final long dueTick;
+        private final long sequence;
+        private final Runnable task;
+        private volatile boolean cancelled = false;
+        private volatile boolean executed = false;
+
+        private ManualHandle(final ManualTickScheduler scheduler, final long dueTick, final long sequence, final Runnable task) {
+            this.scheduler = scheduler;
+            this.dueTick = dueTick;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        private long dueTick() {
+            return dueTick;
+        }
+
+        private long sequence() {
+            return sequence;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public long remainingTicks() {
+            return cancelled || executed ? 0 : Math.max(0, dueTick - scheduler.currentTick);
+        }
+    }
+}
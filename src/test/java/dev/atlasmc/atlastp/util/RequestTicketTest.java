@@ -0,0 +1,132 @@
+package dev.atlasmc.atlastp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestTicketTest {
+    private static final int TICKETS = 20_000;
+    private static final RequestTicket.State[] OUTCOMES = {
+            RequestTicket.State.ACCEPTED,
+            RequestTicket.State.DENIED,
+            RequestTicket.State.EXPIRED,
+            RequestTicket.State.REPLACED,
+            RequestTicket.State.CANCELLED
+    };
+
+    @Test
+    void exactlyOneOutcomeWinsARace() throws Exception {
+        final RequestTicket[] tickets = new RequestTicket[TICKETS];
+        final CountingHandle[] expiries = new CountingHandle[TICKETS];
+        for(int i = 0; i < TICKETS; i++) {
+            tickets[i] = new RequestTicket();
+            expiries[i] = new CountingHandle();
+            tickets[i].expiry(expiries[i]);
+        }
+
+        // Every thread tries to complete every ticket with its own outcome, the threads start each ticket together
+        final AtomicReferenceArray<RequestTicket.State> winners = new AtomicReferenceArray<>(TICKETS);
+        final AtomicInteger doubleWins = new AtomicInteger();
+        final CyclicBarrier barrier = new CyclicBarrier(OUTCOMES.length);
+        final CountDownLatch done = new CountDownLatch(OUTCOMES.length);
+        final List<Throwable> failures = new ArrayList<>();
+
+        for(final RequestTicket.State outcome : OUTCOMES) {
+            final Thread thread = new Thread(() -> {
+                try {
+                    for(int i = 0; i < TICKETS; i++) {
+                        if(i % 100 == 0) {
+                            barrier.await();
+                        }
+
+                        if(tickets[i].complete(outcome) && !winners.compareAndSet(i, null, outcome)) {
+                            doubleWins.incrementAndGet();
+                        }
+                    }
+                } catch(final Throwable e) {
+                    synchronized(failures) {
+                        failures.add(e);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "request-ticket-" + outcome);
+            thread.start();
+        }
+
+        done.await();
+
+        assertTrue(failures.isEmpty(), () -> "A racing thread failed: " + failures);
+        assertEquals(0, doubleWins.get());
+
+        for(int i = 0; i < TICKETS; i++) {
+            final RequestTicket.State winner = winners.get(i);
+            assertNotNull(winner, "No outcome won ticket " + i);
+            assertEquals(winner, tickets[i].state());
+            assertEquals(0, tickets[i].remainingTicks());
+
+            // The expiry is cancelled once by any other winner, and never if the expiry itself won
+            assertEquals(winner == RequestTicket.State.EXPIRED ? 0 : 1, expiries[i].cancelled.get());
+        }
+    }
+
+    @Test
+    void completedTicketCannotBeCompletedAgain() {
+        final CountingHandle expiry = new CountingHandle();
+        final RequestTicket ticket = new RequestTicket();
+        ticket.expiry(expiry);
+
+        assertEquals(RequestTicket.State.PENDING, ticket.state());
+        assertEquals(42, ticket.remainingTicks());
+
+        assertTrue(ticket.complete(RequestTicket.State.DENIED));
+        assertFalse(ticket.complete(RequestTicket.State.ACCEPTED));
+        ticket.cancel();
+
+        assertEquals(RequestTicket.State.DENIED, ticket.state());
+        assertEquals(1, expiry.cancelled.get());
+        assertThrows(IllegalArgumentException.class, () -> ticket.complete(RequestTicket.State.PENDING));
+    }
+
+    @Test
+    void completionActionRunsOnce() {
+        final List<RequestTicket.State> before = new ArrayList<>();
+        final RequestTicket pending = new RequestTicket();
+        pending.expiry(new CountingHandle());
+        pending.whenComplete(before::add);
+        assertTrue(before.isEmpty());
+
+        pending.complete(RequestTicket.State.CANCELLED);
+        pending.complete(RequestTicket.State.ACCEPTED);
+        assertEquals(List.of(RequestTicket.State.CANCELLED), before);
+
+        // An action registered after the completion runs right away
+        final List<RequestTicket.State> after = new ArrayList<>();
+        final RequestTicket completed = new RequestTicket();
+        completed.expiry(new CountingHandle());
+        completed.complete(RequestTicket.State.REPLACED);
+        completed.whenComplete(after::add);
+        assertEquals(List.of(RequestTicket.State.REPLACED), after);
+    }
+
+    private static final class CountingHandle implements TickScheduler.Handle {
+        private final AtomicInteger cancelled = new AtomicInteger();
+
+        @Override
+        public void cancel() {
+            cancelled.incrementAndGet();
+        }
+
+        @Override
+        public long remainingTicks() {
+            return 42;
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package dev.atlasmc.atlastp.util;
+
+import dev.atlasmc.atlastp.manager.InternedTPAManager;
+import dev.atlasmc.atlastp.manager.MapTPAManager;
+import dev.atlasmc.atlastp.manager.TPAManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TPAManagerUtilTest {
+    private static final long EXPIRE_TICKS = 100;
+
+    private ManualTickScheduler scheduler;
+    private TPAManagerUtil tpaManagerUtil;
+    private FakeServer server;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new ManualTickScheduler();
+        tpaManagerUtil = new TPAManagerUtil(scheduler, new MapTPAManager<>());
+        server = new FakeServer(tpaManagerUtil);
+    }
+
+    private BiConsumer<UUID, UUID> expiryMessages() {
+        return (sender, receiver) -> {
+            server.sendMessage(sender, "expired-sender");
+            server.sendMessage(receiver, "expired-receiver");
+        };
+    }
+
+    @Test
+    void requestExpiresAfterConfiguredTicks() {
+        final UUID sender = server.join();
+        final UUID receiver = server.join();
+
+        tpaManagerUtil.timedTPARequest(sender, receiver, TPAManager.TPADirection.TO_RECEIVER, EXPIRE_TICKS, expiryMessages());
+
+        scheduler.advance(EXPIRE_TICKS - 1);
+        assertTrue(tpaManagerUtil.getTpaManager().getRequest(sender, receiver).isPresent());
+        assertTrue(server.messages(sender).isEmpty());
+
+        scheduler.advance(1);
+        assertTrue(tpaManagerUtil.getTpaManager().getRequest(sender, receiver).isEmpty());
+        assertEquals(List.of("expired-sender"), server.messages(sender));
+        assertEquals(List.of("expired-receiver"), server.messages(receiver));
+    }
+
+    @Test
+    void acceptOnLastTickWinsAgainstExpiry() {
+        final UUID sender = server.join();
+        final UUID receiver = server.join();
+
+        tpaManagerUtil.timedTPARequest(sender, receiver, TPAManager.TPADirection.TO_RECEIVER, EXPIRE_TICKS, expiryMessages());
+        scheduler.advance(EXPIRE_TICKS - 1);
+
+        assertTrue(tpaManagerUtil.removeRequest(sender, receiver).isPresent());
+
+        scheduler.advance(EXPIRE_TICKS);
+        assertTrue(server.messages(sender).isEmpty());
+        assertTrue(server.messages(receiver).isEmpty());
+        assertEquals(0, scheduler.pendingTasks());
+    }
+
+    @Test
+    void acceptAfterExpiryFindsNoRequest() {
+        final UUID sender = server.join();
+        final UUID receiver = server.join();
+
+        tpaManagerUtil.timedTPARequest(sender, receiver, TPAManager.TPADirection.TO_RECEIVER, EXPIRE_TICKS, expiryMessages());
+        scheduler.advance(EXPIRE_TICKS);
+
+        assertTrue(tpaManagerUtil.removeRequest(sender, receiver).isEmpty());
+        assertEquals(List.of("expired-sender"), server.messages(sender));
+    }
+
+    @Test
+    void resendReplacesRequestAndRestartsExpiry() {
+        final UUID sender = server.join();
+        final UUID receiver = server.join();
+
+        assertFalse(tpaManagerUtil.timedTPARequest(sender, receiver, TPAManager.TPADirection.TO_RECEIVER, EXPIRE_TICKS, expiryMessages()));
+        scheduler.advance(EXPIRE_TICKS / 2);
+
+        assertTrue(tpaManagerUtil.timedTPARequest(sender, receiver, TPAManager.TPADirection.TO_SENDER, EXPIRE_TICKS, expiryMessages()));
+        assertEquals(1, scheduler.pendingTasks());
+        assertEquals(
+                TPAManager.TPADirection.TO_SENDER,
+                tpaManagerUtil.getTpaManager().getRequest(sender, receiver).orElseThrow().direction()
+        );
+
+        // The first request would have expired here
+        scheduler.advance(EXPIRE_TICKS / 2);
+        assertTrue(server.messages(sender).isEmpty());
+
+        scheduler.advance(EXPIRE_TICKS / 2);
+        assertEquals(List.of("expired-sender"), server.messages(sender));
+    }
+
+    @Test
+    void disconnectRemovesSentAndReceivedRequests() {
+        final UUID leaving = server.join();
+        final UUID first = server.join();
+        final UUID second = server.join();
+
+        tpaManagerUtil.timedTPARequest(leaving, first, TPAManager.TPADirection.TO_RECEIVER, EXPIRE_TICKS, expiryMessages());
+        tpaManagerUtil.timedTPARequest(second, leaving, TPAManager.TPADirection.TO_SENDER, EXPIRE_TICKS, expiryMessages());
+        tpaManagerUtil.timedTPARequest(first, second, TPAManager.TPADirection.TO_RECEIVER, EXPIRE_TICKS, expiryMessages());
+
+        server.disconnect(leaving);
+
+        assertTrue(tpaManagerUtil.getTpaManager().getRequest(leaving, first).isEmpty());
+        assertTrue(tpaManagerUtil.getTpaManager().getRequest(second, leaving).isEmpty());
+        assertTrue(tpaManagerUtil.getTpaManager().getRequest(first, second).isPresent());
+        assertEquals(1, scheduler.pendingTasks());
+
+        scheduler.advance(EXPIRE_TICKS);
+        assertEquals(List.of("expired-sender"), server.messages(first));
+        assertEquals(List.of("expired-receiver"), server.messages(second));
+    }
+
+    @Test
+    void claimedRequestCanOnlyBeSettledOrReopened() {
+        final UUID sender = server.join();
+        final UUID receiver = server.join();
+
+        tpaManagerUtil.timedTPARequest(sender, receiver, TPAManager.TPADirection.TO_RECEIVER, EXPIRE_TICKS, expiryMessages());
+        final TPAManager.TPARequest<RequestTicket> claimed = tpaManagerUtil.claimRequest(sender, receiver).orElseThrow();
+
+        // Nothing completes the request while it is claimed, e.g. a deny during the teleport
+        assertTrue(tpaManagerUtil.claimRequest(sender, receiver).isEmpty());
+        assertTrue(tpaManagerUtil.completeRequest(sender, receiver, RequestTicket.State.DENIED).isEmpty());
+
+        // A failed teleport reopens the request, which still expires
+        assertTrue(tpaManagerUtil.reopenRequest(claimed));
+        assertEquals(RequestTicket.State.PENDING, claimed.data().state());
+
+        tpaManagerUtil.settleRequest(tpaManagerUtil.claimRequest(sender, receiver).orElseThrow(), RequestTicket.State.ACCEPTED);
+        assertEquals(RequestTicket.State.ACCEPTED, claimed.data().state());
+        assertTrue(tpaManagerUtil.getTpaManager().getRequest(sender, receiver).isEmpty());
+        assertEquals(0, scheduler.pendingTasks());
+    }
+
+    @Test
+    void requestRemovedWhileClaimedIsCancelledInsteadOfReopened() {
+        final UUID sender = server.join();
+        final UUID receiver = server.join();
+
+        tpaManagerUtil.timedTPARequest(sender, receiver, TPAManager.TPADirection.TO_RECEIVER, EXPIRE_TICKS, expiryMessages());
+        final TPAManager.TPARequest<RequestTicket> claimed = tpaManagerUtil.claimRequest(sender, receiver).orElseThrow();
+
+        // The receiver is kicked by a listener of the teleport, which then fails
+        server.disconnect(receiver);
+        assertFalse(tpaManagerUtil.reopenRequest(claimed));
+
+        assertEquals(RequestTicket.State.CANCELLED, claimed.data().state());
+        assertEquals(0, scheduler.pendingTasks());
+    }
+
+    @Test
+    void fanOutSharesOneExpiry() {
+        final UUID sender = server.join();
+        final UUID first = server.join();
+        final UUID second = server.join();
+        final UUID third = server.join();
+
+        tpaManagerUtil.timedTPARequests(sender, List.of(first, second, third), TPAManager.TPADirection.TO_SENDER, EXPIRE_TICKS, expiryMessages());
+        assertEquals(1, scheduler.pendingTasks());
+        assertEquals(3, tpaManagerUtil.getTpaManager().requestCountBySender(sender));
+
+        // Accepting one request keeps the expiry of the others
+        assertTrue(tpaManagerUtil.removeRequest(sender, first).isPresent());
+        assertEquals(1, scheduler.pendingTasks());
+
+        // A newer request to a receiver replaces its part of the batch
+        tpaManagerUtil.timedTPARequest(sender, second, TPAManager.TPADirection.TO_SENDER, EXPIRE_TICKS * 2, expiryMessages());
+
+        scheduler.advance(EXPIRE_TICKS);
+        assertEquals(List.of("expired-sender"), server.messages(sender));
+        assertTrue(server.messages(first).isEmpty());
+        assertTrue(server.messages(second).isEmpty());
+        assertEquals(List.of("expired-receiver"), server.messages(third));
+        assertTrue(tpaManagerUtil.getTpaManager().getRequest(sender, second).isPresent());
+    }
+
+    @Test
+    void fanOutExpiryIsCancelledWithTheLastRequest() {
+        final UUID sender = server.join();
+        final UUID first = server.join();
+        final UUID second = server.join();
+
+        tpaManagerUtil.timedTPARequests(sender, List.of(first, second), TPAManager.TPADirection.TO_SENDER, EXPIRE_TICKS, expiryMessages());
+        tpaManagerUtil.removeRequest(sender, first);
+        tpaManagerUtil.removeRequest(sender, second);
+
+        assertEquals(0, scheduler.pendingTasks());
+    }
+
+    @Test
+    void acceptAndReplaceRaceTheExpiryOnEveryBackend() throws InterruptedException {
+        final AtomicInteger mapRemovals = new AtomicInteger();
+        raceTheExpiry(new MapTPAManager<>() {
+            @Override
+            public boolean removeRequest(final UUID sender, final UUID receiver) {
+                return countRemoval(mapRemovals, super.removeRequest(sender, receiver));
+            }
+        }, mapRemovals);
+
+        final AtomicInteger internedRemovals = new AtomicInteger();
+        raceTheExpiry(new InternedTPAManager<>(new PlayerIdInterner()) {
+            @Override
+            public boolean removeRequest(final UUID sender, final UUID receiver) {
+                return countRemoval(internedRemovals, super.removeRequest(sender, receiver));
+            }
+        }, internedRemovals);
+    }
+
+    private static boolean countRemoval(final AtomicInteger removals, final boolean removed) {
+        if(removed) {
+            removals.incrementAndGet();
+        }
+
+        return removed;
+    }
+
+    /**
+     * Sends requests that expire after one tick, while another thread advances the clock.
+     * The even pairs accept their request, the odd pairs replace it with one that does not expire during the test.
+     */
+    private static void raceTheExpiry(final TPAManager<RequestTicket> backend, final AtomicInteger removals) throws InterruptedException {
+        final int pairs = 2_000;
+        final ManualTickScheduler scheduler = new ManualTickScheduler();
+        final TPAManagerUtil tpaManagerUtil = new TPAManagerUtil(scheduler, backend);
+
+        final UUID[] senders = new UUID[pairs];
+        final UUID[] receivers = new UUID[pairs];
+        for(int i = 0; i < pairs; i++) {
+            senders[i] = UUID.randomUUID();
+            receivers[i] = UUID.randomUUID();
+        }
+
+        final AtomicIntegerArray expired = new AtomicIntegerArray(pairs);
+        final AtomicIntegerArray accepted = new AtomicIntegerArray(pairs);
+        final AtomicInteger replacementsExpired = new AtomicInteger();
+
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final Thread clock = new Thread(() -> {
+            while(running.get()) {
+                scheduler.advance(1);
+            }
+        }, "manual-clock");
+        clock.start();
+
+        try {
+            for(int i = 0; i < pairs; i++) {
+                final int pair = i;
+                tpaManagerUtil.timedTPARequest(senders[i], receivers[i], TPAManager.TPADirection.TO_RECEIVER, 1, (sender, receiver) -> expired.incrementAndGet(pair));
+
+                // Spreads the second call around the moment the clock expires the request
+                for(int spin = 0; spin < i % 64; spin++) {
+                    Thread.onSpinWait();
+                }
+
+                if(i % 2 == 0) {
+                    if(tpaManagerUtil.completeRequest(senders[i], receivers[i], RequestTicket.State.ACCEPTED).isPresent()) {
+                        accepted.incrementAndGet(i);
+                    }
+                } else {
+                    tpaManagerUtil.timedTPARequest(senders[i], receivers[i], TPAManager.TPADirection.TO_SENDER, 1_000_000, (sender, receiver) -> replacementsExpired.incrementAndGet());
+                }
+            }
+        } finally {
+            running.set(false);
+            clock.join();
+        }
+
+        // Lets every expiry that is due run, the replacements are far from due
+        scheduler.advance(2);
+
+        int ended = 0;
+        for(int i = 0; i < pairs; i++) {
+            final TPAManager.TPARequest<RequestTicket> request = backend.getRequest(senders[i], receivers[i]).orElse(null);
+
+            if(i % 2 == 0) {
+                assertEquals(1, expired.get(i) + accepted.get(i), "Request " + i + " did not end exactly once");
+                assertNull(request);
+            } else {
+                // The old request either expired before it was replaced or was replaced, the replacement survives
+                assertTrue(expired.get(i) <= 1, "Request " + i + " expired twice");
+                assertNotNull(request, "The replacement of request " + i + " was removed");
+                assertEquals(TPAManager.TPADirection.TO_SENDER, request.direction());
+                assertEquals(RequestTicket.State.PENDING, request.data().state());
+            }
+
+            ended += expired.get(i) + accepted.get(i);
+        }
+
+        assertEquals(0, replacementsExpired.get());
+        assertEquals(ended, removals.get());
+        assertEquals(pairs / 2, backend.requestCount());
+        assertEquals(pairs / 2, scheduler.pendingTasks());
+    }
+}